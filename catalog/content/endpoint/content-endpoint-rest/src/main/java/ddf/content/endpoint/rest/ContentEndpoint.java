@@ -14,8 +14,11 @@
 package ddf.content.endpoint.rest;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -64,6 +67,8 @@
 import ddf.content.operation.impl.UpdateRequestImpl;
 import ddf.mime.MimeTypeMapper;
 import ddf.mime.MimeTypeResolutionException;
+import ddf.util.ByteRange;
+import ddf.util.FileChannelStreamingOutput;
 
 /**
  * The REST Endpoint for the Content Framework that provides URLs to create, read, update, and
@@ -80,6 +85,14 @@ public class ContentEndpoint {
 
     static final String CONTENT_DISPOSITION = "Content-Disposition";
 
+    static final String CONTENT_RANGE = "Content-Range";
+
+    static final String RANGE = "Range";
+
+    static final String ACCEPT_RANGES = "Accept-Ranges";
+
+    static final String BYTES = "bytes";
+
     static final String DEFAULT_MIME_TYPE = "application/octet-stream";
 
     /**
@@ -278,16 +291,21 @@ CreateInfo parseAttachment(Attachment contentPart) {
 
     @GET
     @Path("/{id}")
-    public Response read(@PathParam("id") String id) throws ContentEndpointException {
+    public Response read(@PathParam("id") String id, @HeaderParam(RANGE) String range)
+            throws ContentEndpointException {
         LOGGER.trace("ENTERING: read");
 
-        Response response = doRead(id);
+        Response response = doRead(id, range);
 
         LOGGER.trace("EXITING: read");
 
         return response;
     }
 
+    public Response read(String id) throws ContentEndpointException {
+        return read(id, null);
+    }
+
     @PUT
     @Path("/{id}")
     public Response update(InputStream stream, @PathParam("id") String id,
@@ -445,6 +463,14 @@ protected Response doCreate(InputStream stream, String contentType, String direc
     }
 
     protected Response doRead(String id) throws ContentEndpointException {
+        return doRead(id, null);
+    }
+
+    /**
+     * Reads a content item. Content stored in a file is sent from the file channel, honoring the
+     * Range header; other content is streamed in full.
+     */
+    protected Response doRead(String id, String range) throws ContentEndpointException {
         LOGGER.trace("ENTERING: doRead");
 
         if (id == null) {
@@ -453,13 +479,21 @@ protected Response doRead(String id) throws ContentEndpointException {
         }
 
         Response response = null;
+        FileChannel channel = null;
 
         try {
             ReadRequest readRequest = new ReadRequestImpl(id, null);
             ReadResponse readResponse = contentFramework.read(readRequest);
             ContentItem item = readResponse.getContentItem();
-            InputStream result = item.getInputStream();
-            Response.ResponseBuilder builder = Response.ok(result);
+            Response.ResponseBuilder builder;
+            File file = item.getFile();
+            boolean sendFile = file != null && file.isFile();
+            if (sendFile) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                builder = getFileResponseBuilder(channel, range);
+            } else {
+                builder = Response.ok(item.getInputStream());
+            }
 
             String fileName = item.getFilename();
             if (fileName != null) {
@@ -477,7 +511,9 @@ protected Response doRead(String id) throws ContentEndpointException {
             }
 
             try {
-                builder.header(HttpHeaders.CONTENT_LENGTH, item.getSize());
+                if (!sendFile) {
+                    builder.header(HttpHeaders.CONTENT_LENGTH, item.getSize());
+                }
             } catch (IOException e) {
                 LOGGER.debug(
                         "Total number of bytes is unknown, not sending a length with the response: ",
@@ -487,6 +523,8 @@ protected Response doRead(String id) throws ContentEndpointException {
             response = builder.build();
 
         } catch (Exception e) {
+            // the channel is only closed by the response once its entity has been written
+            IOUtils.closeQuietly(channel);
             LOGGER.error("Error retrieving item from content framework.", e);
             throw new ContentEndpointException("Content Item " + id + " not found.",
                     Response.Status.NOT_FOUND);
@@ -497,6 +535,34 @@ protected Response doRead(String id) throws ContentEndpointException {
         return response;
     }
 
+    /**
+     * A Range header that is not a single valid range is ignored and the whole file is sent. The
+     * channel is closed by the response once it has been written, or here for a 416.
+     */
+    private Response.ResponseBuilder getFileResponseBuilder(FileChannel channel,
+            String rangeHeader) throws IOException {
+        long size = channel.size();
+        ByteRange range = ByteRange.parse(rangeHeader, size);
+
+        if (range == null) {
+            return Response.ok(new FileChannelStreamingOutput(channel, 0, size))
+                    .header(HttpHeaders.CONTENT_LENGTH, size).header(ACCEPT_RANGES, BYTES);
+        }
+
+        if (range == ByteRange.UNSATISFIABLE) {
+            channel.close();
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(CONTENT_RANGE, range.getContentRange(size));
+        }
+
+        return Response.status(Response.Status.PARTIAL_CONTENT)
+                .entity(new FileChannelStreamingOutput(channel, range.getStart(),
+                        range.getLength()))
+                .header(HttpHeaders.CONTENT_LENGTH, range.getLength())
+                .header(CONTENT_RANGE, range.getContentRange(size))
+                .header(ACCEPT_RANGES, BYTES);
+    }
+
     protected Response doUpdate(InputStream stream, String id, String contentType, String directive,
             String contentUri) throws ContentEndpointException {
         LOGGER.trace("ENTERING: doUpdate");
@@ -26,6 +26,8 @@
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -34,7 +36,9 @@
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
@@ -220,6 +224,54 @@ public void readContentEndpointExceptionExceptionExpected()
         endpoint.read(anyString());
     }
 
+    @Test
+    public void readFileRange() throws Exception {
+        File file = File.createTempFile("content", ".txt");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "This is a test");
+
+        ContentFramework framework = mock(ContentFramework.class);
+        ReadResponse readResponse = mock(ReadResponse.class);
+        ContentItem contentItem = getMockGoodContentItem("This is a test", "test.txt",
+                "contentIdValue", 14L, "text/plain");
+        when(contentItem.getFile()).thenReturn(file);
+        when(readResponse.getContentItem()).thenReturn(contentItem);
+        when(framework.read(isA(ReadRequest.class))).thenReturn(readResponse);
+
+        ContentEndpoint endpoint = new ContentEndpoint(framework, getMockMimeTypeMapper());
+        Response response = endpoint.read("id", "bytes=-4");
+
+        assertThat(response.getStatus(), equalTo(206));
+        assertThat((String) response.getMetadata().getFirst(ContentEndpoint.CONTENT_RANGE),
+                equalTo("bytes 10-13/14"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        assertThat(output.toString(), equalTo("test"));
+    }
+
+    @Test
+    public void readFileInvalidRange() throws Exception {
+        File file = File.createTempFile("content", ".txt");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "This is a test");
+
+        ContentFramework framework = mock(ContentFramework.class);
+        ReadResponse readResponse = mock(ReadResponse.class);
+        ContentItem contentItem = getMockGoodContentItem("This is a test", "test.txt",
+                "contentIdValue", 14L, "text/plain");
+        when(contentItem.getFile()).thenReturn(file);
+        when(readResponse.getContentItem()).thenReturn(contentItem);
+        when(framework.read(isA(ReadRequest.class))).thenReturn(readResponse);
+
+        ContentEndpoint endpoint = new ContentEndpoint(framework, getMockMimeTypeMapper());
+        Response response = endpoint.read("id", "bytes=100");
+
+        assertThat(response.getStatus(), equalTo(200));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        assertThat(output.toString(), equalTo("This is a test"));
+    }
+
     protected void executeReadTest(String content, String fileName, Long size, String mimeType)
             throws IOException, MimeTypeParseException, ContentFrameworkException,
             MimeTypeResolutionException {
@@ -19,6 +19,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
@@ -70,6 +72,8 @@ public abstract class AbstractFederationStrategy implements FederationStrategy {
 
     private int maxStartIndex;
 
+    private AdaptiveSourceTimeouts sourceTimeouts = new AdaptiveSourceTimeouts();
+
     /**
      * Instantiates an {@code AbstractFederationStrategy} with the provided {@link ExecutorService}.
      *
@@ -111,6 +115,30 @@ protected abstract Runnable createMonitor(ExecutorService queryExecutorService,
             Map<Source, Future<SourceResponse>> futures, QueryResponseImpl returnResults,
             Query query);
 
+    /**
+     * Creates the monitor for federated queries, with a {@link SourceQueryTracker} that returns the
+     * source queries in the order they complete and applies the per source timeouts and hedging of
+     * {@link #getSourceTimeouts()}. Monitors that can merge results as they arrive should override
+     * this method; the default ignores the {@link SourceQueryTracker}.
+     *
+     * @param queryExecutorService
+     * @param tracker
+     *            the {@link SourceQueryTracker} of the source queries
+     * @param futures
+     * @param returnResults
+     *            the query results
+     * @param queryRequest
+     *            the request sent to the sources, including any
+     *            {@link ddf.catalog.Constants#ADDITIONAL_SORT_BYS}
+     * @return the {@link Runnable}
+     */
+    protected Runnable createMonitor(ExecutorService queryExecutorService,
+            SourceQueryTracker tracker, Map<Source, Future<SourceResponse>> futures,
+            QueryResponseImpl returnResults, QueryRequest queryRequest) {
+        return createMonitor(queryExecutorService, futures, returnResults,
+                queryRequest.getQuery());
+    }
+
     @Override
     public QueryResponse federate(List<Source> sources, final QueryRequest queryRequest) {
         final String methodName = "federate";
@@ -136,6 +164,10 @@ public QueryResponse federate(List<Source> sources, final QueryRequest queryRequ
         final QueryResponseImpl queryResponseQueue = new QueryResponseImpl(queryRequest, null);
 
         Map<Source, Future<SourceResponse>> futures = new HashMap<Source, Future<SourceResponse>>();
+        CompletionService<SourceResponse> completionService =
+                new ExecutorCompletionService<SourceResponse>(queryExecutorService);
+        SourceQueryTracker tracker = sourceTimeouts
+                .track(completionService, queryResponseQueue.getProcessingDetails());
 
         Query modifiedQuery = getModifiedQuery(originalQuery, sources.size(), offset, pageSize);
         QueryRequest modifiedQueryRequest = new QueryRequestImpl(modifiedQuery,
@@ -162,10 +194,11 @@ public QueryResponse federate(List<Source> sources, final QueryRequest queryRequ
                         LOGGER.warn("Plugin stopped processing: ", e);
                     }
 
-                    futures.put(source, queryExecutorService
-                            .submit(new CallableSourceResponse(source,
-                                    modifiedQueryRequest.getQuery(),
-                                    modifiedQueryRequest.getProperties())));
+                    Callable<SourceResponse> sourceQuery = new CallableSourceResponse(source,
+                            modifiedQueryRequest.getQuery(), modifiedQueryRequest.getProperties());
+                    Future<SourceResponse> future = tracker.submit(source, sourceQuery,
+                            modifiedQueryRequest.getQuery().getTimeoutMillis());
+                    futures.put(source, future);
                 } else {
                     LOGGER.warn("Duplicate source found with name " + source.getId()
                             + ". Ignoring second one.");
@@ -185,8 +218,8 @@ public QueryResponse federate(List<Source> sources, final QueryRequest queryRequ
                             offset));
         }
 
-        queryExecutorService.submit(createMonitor(queryExecutorService, futures, queryResponseQueue,
-                modifiedQueryRequest.getQuery()));
+        queryExecutorService.submit(createMonitor(queryExecutorService, tracker, futures,
+                queryResponseQueue, modifiedQueryRequest));
 
         QueryResponse queryResponse = null;
         if (offset > 1 && sources.size() > 1) {
@@ -276,6 +309,25 @@ public void setMaxStartIndex(int maxStartIndex) {
         }
     }
 
+    /**
+     * @return the {@link AdaptiveSourceTimeouts} applied to the sources of each federated query
+     */
+    public AdaptiveSourceTimeouts getSourceTimeouts() {
+        return sourceTimeouts;
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param sourceTimeouts
+     *            the {@link AdaptiveSourceTimeouts} applied to the sources of each federated query
+     */
+    public void setSourceTimeouts(AdaptiveSourceTimeouts sourceTimeouts) {
+        if (sourceTimeouts != null) {
+            this.sourceTimeouts = sourceTimeouts;
+        }
+    }
+
     private class CallableSourceResponse implements Callable<SourceResponse> {
 
         private Query query = null;
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.base;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.federation.SourceLatencyMetrics;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.SourceResponse;
+
+/**
+ * Works out how long a federated query waits for each source from the latency of the source's
+ * recent queries, as recorded by {@link SourceLatencyMetrics}, so that a consistently slow source
+ * does not set the latency of every query. When adaptive timeouts are enabled a source is cut off
+ * after its latency at the timeout percentile times the timeout multiplier, never less than the
+ * minimum timeout and never more than the query timeout. When hedged requests are enabled a
+ * second query is sent to a source still running past its latency at the hedge percentile, and
+ * whichever response arrives first is used.
+ * <p>
+ * Sources without enough recorded queries, and queries without a timeout, always get the query
+ * timeout.
+ */
+public class AdaptiveSourceTimeouts {
+
+    public static final double DEFAULT_TIMEOUT_PERCENTILE = 99.0;
+
+    public static final double DEFAULT_TIMEOUT_MULTIPLIER = 2.0;
+
+    public static final long DEFAULT_MINIMUM_TIMEOUT_MILLIS = 1000;
+
+    public static final double DEFAULT_HEDGE_PERCENTILE = 95.0;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveSourceTimeouts.class);
+
+    private volatile List<SourceLatencyMetrics> latencyMetrics = Collections.emptyList();
+
+    private volatile boolean adaptiveTimeouts = false;
+
+    private volatile double timeoutPercentile = DEFAULT_TIMEOUT_PERCENTILE;
+
+    private volatile double timeoutMultiplier = DEFAULT_TIMEOUT_MULTIPLIER;
+
+    private volatile long minimumTimeoutMillis = DEFAULT_MINIMUM_TIMEOUT_MILLIS;
+
+    private volatile boolean hedgedRequests = false;
+
+    private volatile double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+
+    /**
+     * Creates a {@link SourceQueryTracker} for the source queries of one federated query.
+     *
+     * @param completionService
+     *            the {@link CompletionService} the source queries are submitted to
+     * @param processingDetails
+     *            the {@link ProcessingDetails} of the federated query, where sources that are cut
+     *            off are reported
+     */
+    public SourceQueryTracker track(CompletionService<SourceResponse> completionService,
+            Set<ProcessingDetails> processingDetails) {
+        return new SourceQueryTracker(this, completionService, processingDetails);
+    }
+
+    /**
+     * @return the time in milliseconds to wait for the source, less than 1 meaning no timeout
+     */
+    public long getTimeout(String sourceId, long queryTimeoutMillis) {
+        if (!adaptiveTimeouts || queryTimeoutMillis < 1) {
+            return queryTimeoutMillis;
+        }
+
+        long latency = getLatency(sourceId, timeoutPercentile);
+        if (latency < 0) {
+            return queryTimeoutMillis;
+        }
+
+        long timeout = Math.max(minimumTimeoutMillis, (long) Math.ceil(latency * timeoutMultiplier));
+        return Math.min(timeout, queryTimeoutMillis);
+    }
+
+    /**
+     * @return the time in milliseconds after which a hedged query is sent to the source, or
+     *         {@code -1} if the source should not be hedged
+     */
+    public long getHedgeDelay(String sourceId, long timeoutMillis) {
+        if (!hedgedRequests) {
+            return -1;
+        }
+
+        long latency = getLatency(sourceId, hedgePercentile);
+        if (latency < 0 || (timeoutMillis > 0 && latency >= timeoutMillis)) {
+            return -1;
+        }
+        return latency;
+    }
+
+    public void updateLatency(String sourceId, long latencyMillis) {
+        for (SourceLatencyMetrics metrics : latencyMetrics) {
+            try {
+                metrics.updateLatency(sourceId, latencyMillis);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Unable to record latency for source {}", sourceId, e);
+            }
+        }
+    }
+
+    private long getLatency(String sourceId, double percentile) {
+        for (SourceLatencyMetrics metrics : latencyMetrics) {
+            try {
+                return metrics.getLatency(sourceId, percentile / 100.0);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Unable to get latency for source {}", sourceId, e);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param latencyMetrics
+     *            the {@link SourceLatencyMetrics} that record the latency of each source, only the
+     *            first one is used to look up latencies
+     */
+    public void setLatencyMetrics(List<SourceLatencyMetrics> latencyMetrics) {
+        this.latencyMetrics = latencyMetrics == null ?
+                Collections.<SourceLatencyMetrics>emptyList() :
+                latencyMetrics;
+    }
+
+    public boolean isAdaptiveTimeouts() {
+        return adaptiveTimeouts;
+    }
+
+    public void setAdaptiveTimeouts(boolean adaptiveTimeouts) {
+        this.adaptiveTimeouts = adaptiveTimeouts;
+    }
+
+    public double getTimeoutPercentile() {
+        return timeoutPercentile;
+    }
+
+    public void setTimeoutPercentile(double timeoutPercentile) {
+        if (timeoutPercentile > 0 && timeoutPercentile <= 100) {
+            this.timeoutPercentile = timeoutPercentile;
+        } else {
+            LOGGER.debug("Invalid timeout percentile {}. Keeping current value: {}",
+                    timeoutPercentile, this.timeoutPercentile);
+        }
+    }
+
+    public double getTimeoutMultiplier() {
+        return timeoutMultiplier;
+    }
+
+    public void setTimeoutMultiplier(double timeoutMultiplier) {
+        if (timeoutMultiplier >= 1) {
+            this.timeoutMultiplier = timeoutMultiplier;
+        } else {
+            LOGGER.debug("Invalid timeout multiplier {}. Keeping current value: {}",
+                    timeoutMultiplier, this.timeoutMultiplier);
+        }
+    }
+
+    public long getMinimumTimeoutMillis() {
+        return minimumTimeoutMillis;
+    }
+
+    public void setMinimumTimeoutMillis(long minimumTimeoutMillis) {
+        this.minimumTimeoutMillis = Math.max(0, minimumTimeoutMillis);
+    }
+
+    public boolean isHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    public void setHedgedRequests(boolean hedgedRequests) {
+        this.hedgedRequests = hedgedRequests;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        if (hedgePercentile > 0 && hedgePercentile <= 100) {
+            this.hedgePercentile = hedgePercentile;
+        } else {
+            LOGGER.debug("Invalid hedge percentile {}. Keeping current value: {}",
+                    hedgePercentile, this.hedgePercentile);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.base;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.ProcessingDetailsImpl;
+import ddf.catalog.source.Source;
+
+/**
+ * Tracks the source queries of one federated query for its monitor. Completed source queries are
+ * returned in the order they complete. Each source is cut off when it runs past the timeout given
+ * by {@link AdaptiveSourceTimeouts}, and is reported in the {@link ProcessingDetails} with a
+ * {@link TimeoutException} saying why. A source that is slower than usual can be sent a hedged
+ * query, in which case the first of the two responses is used and the other query is cancelled.
+ * The latency of every successful source query, from its submission to its first response, is
+ * recorded in {@link AdaptiveSourceTimeouts}. A source that is cut off is recorded with the time
+ * it was allowed to run, so that slow responses are not left out of its latency.
+ * <p>
+ * This class is meant to be used by a single monitor thread.
+ */
+public class SourceQueryTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceQueryTracker.class);
+
+    private final AdaptiveSourceTimeouts timeouts;
+
+    private final CompletionService<SourceResponse> completionService;
+
+    private final Set<ProcessingDetails> processingDetails;
+
+    private final Map<Future<SourceResponse>, SourceQuery> futures =
+            new HashMap<Future<SourceResponse>, SourceQuery>();
+
+    private final Set<SourceQuery> pending = new LinkedHashSet<SourceQuery>();
+
+    SourceQueryTracker(AdaptiveSourceTimeouts timeouts,
+            CompletionService<SourceResponse> completionService,
+            Set<ProcessingDetails> processingDetails) {
+        this.timeouts = timeouts;
+        this.completionService = completionService;
+        this.processingDetails = processingDetails;
+    }
+
+    /**
+     * Submits a source query to the {@link CompletionService} and starts tracking it.
+     *
+     * @param source
+     *            the {@link Source} being queried
+     * @param query
+     *            the query, submitted a second time to send a hedged query, so any side effect
+     *            of a response must only happen once per query
+     * @param queryTimeoutMillis
+     *            the timeout of the query, less than 1 meaning no timeout
+     * @return the {@link Future} of the query
+     */
+    public Future<SourceResponse> submit(Source source, Callable<SourceResponse> query,
+            long queryTimeoutMillis) {
+        String sourceId = source.getId();
+        long timeout = timeouts.getTimeout(sourceId, queryTimeoutMillis);
+        long hedgeDelay = timeouts.getHedgeDelay(sourceId, timeout);
+
+        SourceQuery sourceQuery = new SourceQuery(source, query, timeout,
+                timeout < queryTimeoutMillis, hedgeDelay);
+        Future<SourceResponse> future = completionService.submit(query);
+        sourceQuery.futures.add(future);
+        futures.put(future, sourceQuery);
+        pending.add(sourceQuery);
+
+        if (sourceQuery.adaptive || hedgeDelay >= 0) {
+            LOGGER.debug("Source {} timeout {} ms, hedge delay {} ms", sourceId, timeout,
+                    hedgeDelay);
+        }
+        return future;
+    }
+
+    /**
+     * @return true while any tracked source has not completed or been cut off
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * @return the sources that have not completed or been cut off yet
+     */
+    public List<Source> getPendingSources() {
+        List<Source> sources = new ArrayList<Source>(pending.size());
+        for (SourceQuery sourceQuery : pending) {
+            sources.add(sourceQuery.source);
+        }
+        return sources;
+    }
+
+    /**
+     * Waits for the next source query to complete, cutting off and hedging sources as their
+     * deadlines pass.
+     *
+     * @return the completed source query, or null once every source has completed or been cut off
+     * @throws InterruptedException
+     *             if interrupted while waiting, the sources still pending are left to the caller
+     */
+    public CompletedQuery take() throws InterruptedException {
+        while (!pending.isEmpty()) {
+            long now = System.currentTimeMillis();
+            long wakeup = Long.MAX_VALUE;
+
+            Iterator<SourceQuery> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                SourceQuery sourceQuery = iterator.next();
+                // A query that completed just before its deadline is still used
+                if (now >= sourceQuery.deadline && !sourceQuery.isDone()) {
+                    iterator.remove();
+                    cutOff(sourceQuery, now);
+                    continue;
+                }
+                if (now >= sourceQuery.hedgeTime && !sourceQuery.isDone()) {
+                    hedge(sourceQuery);
+                }
+                wakeup = Math.min(wakeup, Math.min(sourceQuery.deadline, sourceQuery.hedgeTime));
+            }
+
+            if (pending.isEmpty()) {
+                break;
+            }
+
+            Future<SourceResponse> future = wakeup == Long.MAX_VALUE ?
+                    completionService.take() :
+                    completionService.poll(Math.max(0, wakeup - now), TimeUnit.MILLISECONDS);
+            if (future == null) {
+                continue;
+            }
+
+            SourceQuery sourceQuery = futures.remove(future);
+            // Futures of sources that were cut off or already answered by a hedged query
+            if (sourceQuery == null || !pending.remove(sourceQuery)) {
+                continue;
+            }
+
+            for (Future<SourceResponse> other : sourceQuery.futures) {
+                if (other != future) {
+                    other.cancel(true);
+                    futures.remove(other);
+                }
+            }
+
+            boolean hedged = sourceQuery.futures.indexOf(future) > 0;
+            long latency = System.currentTimeMillis() - sourceQuery.start;
+            // failures are often fast and would make the source look quicker than it is
+            if (isSuccessful(future)) {
+                timeouts.updateLatency(sourceQuery.source.getId(), latency);
+            }
+            if (hedged) {
+                LOGGER.debug("Hedged query to source {} completed first after {} ms",
+                        sourceQuery.source.getId(), latency);
+            }
+            return new CompletedQuery(sourceQuery.source, future, hedged);
+        }
+        return null;
+    }
+
+    private void hedge(SourceQuery sourceQuery) {
+        sourceQuery.hedgeTime = Long.MAX_VALUE;
+        LOGGER.debug("Sending hedged query to source {}", sourceQuery.source.getId());
+        Future<SourceResponse> future = completionService.submit(sourceQuery.query);
+        sourceQuery.futures.add(future);
+        futures.put(future, sourceQuery);
+    }
+
+    private void cutOff(SourceQuery sourceQuery, long now) {
+        for (Future<SourceResponse> future : sourceQuery.futures) {
+            future.cancel(true);
+            futures.remove(future);
+        }
+
+        String sourceId = sourceQuery.source.getId();
+        long elapsed = now - sourceQuery.start;
+        timeouts.updateLatency(sourceId, elapsed);
+
+        String message;
+        if (sourceQuery.adaptive) {
+            message = "Query to source " + sourceId + " was cut off after " + elapsed
+                    + " ms, the adaptive timeout based on its recent query latency.";
+        } else {
+            message = "Query to source " + sourceId + " timed out after " + elapsed + " ms.";
+        }
+        LOGGER.info(message);
+        processingDetails.add(new ProcessingDetailsImpl(sourceId, new TimeoutException(message)));
+    }
+
+    private static boolean isSuccessful(Future<SourceResponse> future) {
+        if (future.isCancelled()) {
+            return false;
+        }
+        try {
+            return future.get() != null;
+        } catch (ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A source query that has completed, successfully or not.
+     */
+    public static class CompletedQuery {
+
+        private final Source source;
+
+        private final Future<SourceResponse> future;
+
+        private final boolean hedged;
+
+        CompletedQuery(Source source, Future<SourceResponse> future, boolean hedged) {
+            this.source = source;
+            this.future = future;
+            this.hedged = hedged;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        /**
+         * @return the completed {@link Future}, whose {@code get} does not block
+         */
+        public Future<SourceResponse> getFuture() {
+            return future;
+        }
+
+        /**
+         * @return true if the response came from a hedged query
+         */
+        public boolean isHedged() {
+            return hedged;
+        }
+    }
+
+    private static class SourceQuery {
+
+        private final Source source;
+
+        private final Callable<SourceResponse> query;
+
+        private final List<Future<SourceResponse>> futures = new ArrayList<Future<SourceResponse>>(
+                2);
+
+        private final long start;
+
+        private final long deadline;
+
+        private final boolean adaptive;
+
+        private long hedgeTime;
+
+        private SourceQuery(Source source, Callable<SourceResponse> query, long timeout,
+                boolean adaptive, long hedgeDelay) {
+            this.source = source;
+            this.query = query;
+            this.start = System.currentTimeMillis();
+            this.deadline = timeout < 1 ? Long.MAX_VALUE : start + timeout;
+            this.adaptive = adaptive;
+            this.hedgeTime = hedgeDelay < 0 ? Long.MAX_VALUE : start + hedgeDelay;
+        }
+
+        private boolean isDone() {
+            for (Future<SourceResponse> future : futures) {
+                if (future.isDone()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
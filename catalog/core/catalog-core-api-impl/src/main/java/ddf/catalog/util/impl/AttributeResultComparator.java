@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Date;
+
+import org.opengis.filter.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.Result;
+
+/**
+ * Comparator for an arbitrary attribute of 2 {@link Result} objects.
+ * <p>
+ * Values are compared according to the {@link AttributeFormat} of the attribute's
+ * {@link AttributeDescriptor}: numeric and date values by their numeric value, strings and XML
+ * case-insensitively and geometries by the {@link Result#getDistanceInMeters() distance} of the
+ * result. When no descriptor is given, the descriptor is looked up from each result's
+ * {@link MetacardType}, falling back to the class of the value; distances are only compared when
+ * both results describe the attribute as a geometry. Values of different types are
+ * ordered numbers first, then dates, strings and any other values by class name, so that the
+ * order stays consistent when sources disagree on an attribute's type. Results without a value
+ * for the attribute are always sorted last.
+ */
+public class AttributeResultComparator implements Comparator<Result> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttributeResultComparator.class);
+
+    private static final int NUMBER_RANK = 0;
+
+    private static final int DATE_RANK = 1;
+
+    private static final int STRING_RANK = 2;
+
+    private static final int OTHER_RANK = 3;
+
+    private final String attributeName;
+
+    private final SortOrder sortOrder;
+
+    private final AttributeFormat attributeFormat;
+
+    private volatile ResolvedFormat lastResolved;
+
+    /**
+     * Constructs the comparator for the named attribute, resolving its format from the
+     * {@link MetacardType} of the results being compared.
+     *
+     * @param attributeName
+     *            the name of the attribute to sort on
+     * @param sortOrder
+     *            the sort order, if null is passed in, then SortOrder.DESCENDING applies
+     */
+    public AttributeResultComparator(String attributeName, SortOrder sortOrder) {
+        this(attributeName, sortOrder, null);
+    }
+
+    /**
+     * Constructs the comparator for the attribute described by the given
+     * {@link AttributeDescriptor}.
+     *
+     * @param attributeName
+     *            the name of the attribute to sort on
+     * @param sortOrder
+     *            the sort order, if null is passed in, then SortOrder.DESCENDING applies
+     * @param descriptor
+     *            the descriptor of the attribute, or null to resolve it from the results
+     */
+    public AttributeResultComparator(String attributeName, SortOrder sortOrder,
+            AttributeDescriptor descriptor) {
+        if (attributeName == null) {
+            throw new IllegalArgumentException("Attribute name cannot be null");
+        }
+        this.attributeName = attributeName;
+        this.sortOrder = (sortOrder == null) ? SortOrder.DESCENDING : sortOrder;
+        this.attributeFormat = (descriptor == null || descriptor.getType() == null) ?
+                null :
+                descriptor.getType().getAttributeFormat();
+        LOGGER.debug("Comparing on attribute '{}' with format '{}' and sort order '{}'",
+                this.attributeName, this.attributeFormat, this.sortOrder);
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    public SortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Compares the attribute value between the two results.
+     *
+     * @return 1 if A has no value and B does; -1 if A has a value and B does not; 0 if neither
+     *         has a value; otherwise the natural order of the values for an ascending sort order
+     *         and the reverse for a descending sort order
+     */
+    @Override
+    public int compare(Result resultA, Result resultB) {
+        Metacard metacardA = (resultA == null) ? null : resultA.getMetacard();
+        Metacard metacardB = (resultB == null) ? null : resultB.getMetacard();
+        Serializable valueA = getValue(metacardA);
+        Serializable valueB = getValue(metacardB);
+
+        AttributeFormat formatA = getFormat(metacardA);
+        AttributeFormat formatB = getFormat(metacardB);
+        AttributeFormat format = (formatA == formatB) ? formatA : null;
+        if (format == AttributeFormat.GEOMETRY) {
+            valueA = (valueA == null) ? null : resultA.getDistanceInMeters();
+            valueB = (valueB == null) ? null : resultB.getDistanceInMeters();
+        }
+
+        if (valueA == null && valueB != null) {
+            return 1;
+        } else if (valueA != null && valueB == null) {
+            return -1;
+        } else if (valueA == null) {
+            return 0;
+        }
+
+        int result = compareValues(format, valueA, valueB);
+        return SortOrder.ASCENDING.equals(sortOrder) ? result : -result;
+    }
+
+    private Serializable getValue(Metacard metacard) {
+        if (metacard == null) {
+            return null;
+        }
+        Attribute attribute = metacard.getAttribute(attributeName);
+        return (attribute == null) ? null : attribute.getValue();
+    }
+
+    private AttributeFormat getFormat(Metacard metacard) {
+        if (attributeFormat != null) {
+            return attributeFormat;
+        }
+        if (metacard != null && metacard.getMetacardType() != null) {
+            MetacardType type = metacard.getMetacardType();
+            ResolvedFormat resolved = lastResolved;
+            if (resolved == null || resolved.type != type) {
+                AttributeDescriptor descriptor = type.getAttributeDescriptor(attributeName);
+                resolved = new ResolvedFormat(type,
+                        (descriptor == null || descriptor.getType() == null) ?
+                                null :
+                                descriptor.getType().getAttributeFormat());
+                lastResolved = resolved;
+            }
+            if (resolved.format != null) {
+                return resolved.format;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compareValues(AttributeFormat format, Serializable valueA, Serializable valueB) {
+        if (valueA instanceof Number && valueB instanceof Number) {
+            return compareNumbers((Number) valueA, (Number) valueB);
+        } else if (valueA instanceof Date && valueB instanceof Date) {
+            return compareLongs(((Date) valueA).getTime(), ((Date) valueB).getTime());
+        } else if (valueA instanceof String && valueB instanceof String) {
+            int result = String.CASE_INSENSITIVE_ORDER.compare((String) valueA, (String) valueB);
+            return (result != 0) ? result : ((String) valueA).compareTo((String) valueB);
+        } else if (valueA instanceof Comparable && valueA.getClass() == valueB.getClass()) {
+            return ((Comparable<Object>) valueA).compareTo(valueB);
+        }
+
+        int rankA = getRank(valueA);
+        int rankB = getRank(valueB);
+        if (rankA != rankB) {
+            LOGGER.debug("Values of attribute '{}' with format '{}' have different types {} and {}",
+                    attributeName, format, valueA.getClass(), valueB.getClass());
+            return (rankA < rankB) ? -1 : 1;
+        }
+        return valueA.getClass().getName().compareTo(valueB.getClass().getName());
+    }
+
+    private static int getRank(Serializable value) {
+        if (value instanceof Number) {
+            return NUMBER_RANK;
+        } else if (value instanceof Date) {
+            return DATE_RANK;
+        } else if (value instanceof String) {
+            return STRING_RANK;
+        }
+        return OTHER_RANK;
+    }
+
+    private static int compareNumbers(Number numberA, Number numberB) {
+        if (isIntegral(numberA) && isIntegral(numberB)) {
+            return compareLongs(numberA.longValue(), numberB.longValue());
+        }
+        return Double.compare(numberA.doubleValue(), numberB.doubleValue());
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte;
+    }
+
+    private static int compareLongs(long a, long b) {
+        return (a < b) ? -1 : ((a == b) ? 0 : 1);
+    }
+
+    /**
+     * The {@link AttributeFormat} of the sort attribute in the last {@link MetacardType} seen, so
+     * that results of the same type do not repeat the descriptor lookup.
+     */
+    private static final class ResolvedFormat {
+
+        private final MetacardType type;
+
+        private final AttributeFormat format;
+
+        private ResolvedFormat(MetacardType type, AttributeFormat format) {
+            this.type = type;
+            this.format = format;
+        }
+    }
+}
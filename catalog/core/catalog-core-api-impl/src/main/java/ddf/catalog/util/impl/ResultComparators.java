@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.Constants;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+
+/**
+ * Creates the {@link Comparator}s used to merge {@link Result}s from multiple sources in the order
+ * requested by a {@link Query}'s {@link SortBy}s.
+ * <p>
+ * {@link Result#RELEVANCE}, {@link Result#DISTANCE} and {@link Result#TEMPORAL} are sorted with
+ * their dedicated comparators, any other property with an {@link AttributeResultComparator}.
+ * Additional sort keys, used to order results that are equal on the query's {@link SortBy}, can be
+ * given as a {@link SortBy} array in the {@link Constants#ADDITIONAL_SORT_BYS} request property.
+ */
+public final class ResultComparators {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultComparators.class);
+
+    /**
+     * The default comparator for sorting by {@link Result#RELEVANCE}, {@link SortOrder#DESCENDING}
+     */
+    public static final Comparator<Result> DEFAULT_COMPARATOR = new RelevanceResultComparator(
+            SortOrder.DESCENDING);
+
+    private ResultComparators() {
+    }
+
+    /**
+     * Creates the comparator for the query of the request, including any
+     * {@link Constants#ADDITIONAL_SORT_BYS}.
+     *
+     * @param request
+     *            the query request, may be null
+     * @return the comparator, {@link #DEFAULT_COMPARATOR} if the request has no usable sort
+     */
+    public static Comparator<Result> create(QueryRequest request) {
+        if (request == null) {
+            return DEFAULT_COMPARATOR;
+        }
+        List<SortBy> sortBys = new ArrayList<>();
+        if (request.getQuery() != null && request.getQuery().getSortBy() != null) {
+            sortBys.add(request.getQuery().getSortBy());
+        }
+        Serializable additional = request.getPropertyValue(Constants.ADDITIONAL_SORT_BYS);
+        if (additional instanceof SortBy[]) {
+            for (SortBy sortBy : (SortBy[]) additional) {
+                sortBys.add(sortBy);
+            }
+        } else if (additional != null) {
+            LOGGER.debug("Ignoring {} property of type {}", Constants.ADDITIONAL_SORT_BYS,
+                    additional.getClass());
+        }
+        return create(sortBys);
+    }
+
+    /**
+     * Creates the comparator for the sort of a query.
+     *
+     * @param sortBy
+     *            the sort, may be null
+     * @return the comparator, {@link #DEFAULT_COMPARATOR} if the sort is null or has no property
+     */
+    public static Comparator<Result> create(SortBy sortBy) {
+        Comparator<Result> comparator = createComparator(sortBy);
+        return (comparator == null) ? DEFAULT_COMPARATOR : comparator;
+    }
+
+    /**
+     * Creates a comparator that orders results by each of the sorts in turn.
+     *
+     * @param sortBys
+     *            the sorts, in order of precedence
+     * @return the comparator, {@link #DEFAULT_COMPARATOR} if none of the sorts has a property
+     */
+    public static Comparator<Result> create(Collection<SortBy> sortBys) {
+        List<Comparator<Result>> comparators = new ArrayList<>();
+        if (sortBys != null) {
+            for (SortBy sortBy : sortBys) {
+                Comparator<Result> comparator = createComparator(sortBy);
+                if (comparator != null) {
+                    comparators.add(comparator);
+                }
+            }
+        }
+
+        if (comparators.isEmpty()) {
+            return DEFAULT_COMPARATOR;
+        } else if (comparators.size() == 1) {
+            return comparators.get(0);
+        }
+        return new MultiKeyComparator(comparators);
+    }
+
+    private static Comparator<Result> createComparator(SortBy sortBy) {
+        if (sortBy == null || sortBy.getPropertyName() == null
+                || sortBy.getPropertyName().getPropertyName() == null) {
+            return null;
+        }
+        String sortType = sortBy.getPropertyName().getPropertyName();
+        SortOrder sortOrder = (sortBy.getSortOrder() == null) ?
+                SortOrder.DESCENDING :
+                sortBy.getSortOrder();
+        LOGGER.debug("Sorting by type: {}, order: {}", sortType, sortOrder);
+
+        // Temporal searches are currently sorted by the effective time
+        if (Metacard.EFFECTIVE.equals(sortType) || Result.TEMPORAL.equals(sortType)) {
+            return new TemporalResultComparator(sortOrder);
+        } else if (Result.DISTANCE.equals(sortType)) {
+            return new DistanceResultComparator(sortOrder);
+        } else if (Result.RELEVANCE.equals(sortType)) {
+            return new RelevanceResultComparator(sortOrder);
+        }
+        return new AttributeResultComparator(sortType, sortOrder);
+    }
+
+    private static final class MultiKeyComparator implements Comparator<Result> {
+
+        private final Comparator<Result>[] comparators;
+
+        @SuppressWarnings("unchecked")
+        private MultiKeyComparator(List<Comparator<Result>> comparators) {
+            this.comparators = comparators.toArray(new Comparator[comparators.size()]);
+        }
+
+        @Override
+        public int compare(Result resultA, Result resultB) {
+            for (Comparator<Result> comparator : comparators) {
+                int result = comparator.compare(resultA, resultB);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+    }
+}
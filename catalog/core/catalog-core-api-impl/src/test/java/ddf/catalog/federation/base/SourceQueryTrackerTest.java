@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import ddf.catalog.federation.SourceLatencyMetrics;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.source.Source;
+
+public class SourceQueryTrackerTest {
+
+    private static final long QUERY_TIMEOUT = 5000;
+
+    private ExecutorService executor;
+
+    private CompletionService<SourceResponse> completionService;
+
+    private SourceLatencyMetrics latencyMetrics;
+
+    private AdaptiveSourceTimeouts timeouts;
+
+    private Set<ProcessingDetails> processingDetails;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        completionService = new ExecutorCompletionService<SourceResponse>(executor);
+        latencyMetrics = mock(SourceLatencyMetrics.class);
+        when(latencyMetrics.getLatency(eq("fast"), anyDouble())).thenReturn(-1L);
+        when(latencyMetrics.getLatency(eq("slow"), anyDouble())).thenReturn(20L);
+        timeouts = new AdaptiveSourceTimeouts();
+        timeouts.setLatencyMetrics(Arrays.asList(latencyMetrics));
+        timeouts.setTimeoutMultiplier(1);
+        timeouts.setMinimumTimeoutMillis(0);
+        processingDetails = new HashSet<ProcessingDetails>();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCompletionOrder() throws Exception {
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        submit(tracker, "slow", new DelayedQuery(500), QUERY_TIMEOUT);
+        submit(tracker, "fast", new DelayedQuery(0), QUERY_TIMEOUT);
+
+        assertEquals("fast", tracker.take().getSource().getId());
+        assertEquals(Arrays.asList("slow"), getIds(tracker));
+        assertEquals("slow", tracker.take().getSource().getId());
+        assertNull(tracker.take());
+        assertTrue(processingDetails.isEmpty());
+        verify(latencyMetrics).updateLatency(eq("slow"), anyLong());
+    }
+
+    @Test
+    public void testAdaptiveTimeoutCutsOffSlowSource() throws Exception {
+        timeouts.setAdaptiveTimeouts(true);
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        Future<SourceResponse> slow = submit(tracker, "slow", new DelayedQuery(QUERY_TIMEOUT),
+                QUERY_TIMEOUT);
+        submit(tracker, "fast", new DelayedQuery(100), QUERY_TIMEOUT);
+
+        long start = System.currentTimeMillis();
+        assertEquals("fast", tracker.take().getSource().getId());
+        assertNull(tracker.take());
+        assertTrue(System.currentTimeMillis() - start < QUERY_TIMEOUT);
+
+        assertTrue(slow.isCancelled());
+        assertEquals(1, processingDetails.size());
+        ProcessingDetails details = processingDetails.iterator().next();
+        assertEquals("slow", details.getSourceId());
+        assertTrue(details.getException() instanceof TimeoutException);
+        assertTrue(details.getException().getMessage().contains("cut off"));
+    }
+
+    @Test
+    public void testQueryTimeoutWithoutLatency() throws Exception {
+        timeouts.setAdaptiveTimeouts(true);
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        submit(tracker, "fast", new DelayedQuery(QUERY_TIMEOUT), 50);
+
+        assertNull(tracker.take());
+        assertFalse(tracker.hasPending());
+        ProcessingDetails details = processingDetails.iterator().next();
+        assertEquals("fast", details.getSourceId());
+        assertTrue(details.getException().getMessage().contains("timed out"));
+    }
+
+    @Test
+    public void testHedgedRequest() throws Exception {
+        timeouts.setHedgedRequests(true);
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        SlowFirstQuery query = new SlowFirstQuery();
+        Future<SourceResponse> first = submit(tracker, "slow", query, QUERY_TIMEOUT);
+
+        long start = System.currentTimeMillis();
+        SourceQueryTracker.CompletedQuery completed = tracker.take();
+        assertTrue(System.currentTimeMillis() - start < QUERY_TIMEOUT);
+
+        assertTrue(completed.isHedged());
+        assertSame(query.response, completed.getFuture().get());
+        assertTrue(first.isCancelled());
+        assertEquals(2, query.calls.get());
+        assertNull(tracker.take());
+        assertTrue(processingDetails.isEmpty());
+    }
+
+    @Test
+    public void testLatencyOfFailedQueriesIsNotRecorded() throws Exception {
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        submit(tracker, "fast", new FailingQuery(), QUERY_TIMEOUT);
+
+        assertEquals("fast", tracker.take().getSource().getId());
+        assertNull(tracker.take());
+        verify(latencyMetrics, never()).updateLatency(anyString(), anyLong());
+    }
+
+    @Test
+    public void testCutOffQueryIsRecordedAtTimeout() throws Exception {
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        submit(tracker, "slow", new DelayedQuery(QUERY_TIMEOUT), 50);
+
+        assertNull(tracker.take());
+        assertEquals(1, processingDetails.size());
+        ArgumentCaptor<Long> latency = ArgumentCaptor.forClass(Long.class);
+        verify(latencyMetrics).updateLatency(eq("slow"), latency.capture());
+        assertTrue(latency.getValue() >= 50);
+        assertTrue(latency.getValue() < QUERY_TIMEOUT);
+    }
+
+    @Test
+    public void testLatencyIsMeasuredFromSubmission() throws Exception {
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        submit(tracker, "fast", new DelayedQuery(100), QUERY_TIMEOUT);
+
+        assertEquals("fast", tracker.take().getSource().getId());
+        ArgumentCaptor<Long> latency = ArgumentCaptor.forClass(Long.class);
+        verify(latencyMetrics).updateLatency(eq("fast"), latency.capture());
+        assertTrue(latency.getValue() >= 100);
+    }
+
+    @Test
+    public void testNoHedgeWithoutLatency() throws Exception {
+        timeouts.setHedgedRequests(true);
+        SourceQueryTracker tracker = timeouts.track(completionService, processingDetails);
+        DelayedQuery query = new DelayedQuery(200);
+        submit(tracker, "fast", query, QUERY_TIMEOUT);
+
+        assertFalse(tracker.take().isHedged());
+        assertEquals(1, query.calls.get());
+    }
+
+    private Future<SourceResponse> submit(SourceQueryTracker tracker, String sourceId,
+            Callable<SourceResponse> query, long queryTimeout) {
+        Source source = mock(Source.class);
+        when(source.getId()).thenReturn(sourceId);
+        return tracker.submit(source, query, queryTimeout);
+    }
+
+    private List<String> getIds(SourceQueryTracker tracker) {
+        List<String> ids = new ArrayList<String>();
+        for (Source source : tracker.getPendingSources()) {
+            ids.add(source.getId());
+        }
+        return ids;
+    }
+
+    private static class DelayedQuery implements Callable<SourceResponse> {
+
+        private final long delay;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        DelayedQuery(long delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public SourceResponse call() throws Exception {
+            calls.incrementAndGet();
+            Thread.sleep(delay);
+            return mock(SourceResponse.class);
+        }
+    }
+
+    private static class FailingQuery implements Callable<SourceResponse> {
+
+        @Override
+        public SourceResponse call() throws Exception {
+            throw new IllegalStateException("source unavailable");
+        }
+    }
+
+    /**
+     * Stalls on the first call only, as a query to a replica that is having a slow moment.
+     */
+    private static class SlowFirstQuery implements Callable<SourceResponse> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final SourceResponse response = mock(SourceResponse.class);
+
+        @Override
+        public SourceResponse call() throws Exception {
+            if (calls.incrementAndGet() == 1) {
+                Thread.sleep(QUERY_TIMEOUT * 2);
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.data.impl.ResultImpl;
+
+public class AttributeResultComparatorTest {
+
+    private static final String NUMBER = "number";
+
+    @Test
+    public void testCompareStrings() {
+        AttributeResultComparator comparer = new AttributeResultComparator(Metacard.TITLE,
+                SortOrder.ASCENDING);
+        assertEquals(-1, comparer.compare(titled("alpha"), titled("Beta")));
+        assertEquals(0, comparer.compare(titled("alpha"), titled("alpha")));
+        assertEquals(1, comparer.compare(titled("beta"), titled("Alpha")));
+
+        comparer = new AttributeResultComparator(Metacard.TITLE, SortOrder.DESCENDING);
+        assertEquals(1, comparer.compare(titled("alpha"), titled("Beta")));
+        assertEquals(-1, comparer.compare(titled("beta"), titled("Alpha")));
+    }
+
+    @Test
+    public void testCompareDates() {
+        Calendar c = Calendar.getInstance();
+        MetacardImpl first = new MetacardImpl();
+        first.setModifiedDate(c.getTime());
+        c.add(Calendar.DAY_OF_YEAR, 1);
+        MetacardImpl second = new MetacardImpl();
+        second.setModifiedDate(c.getTime());
+
+        AttributeResultComparator comparer = new AttributeResultComparator(Metacard.MODIFIED,
+                SortOrder.ASCENDING);
+        assertEquals(-1, comparer.compare(new ResultImpl(first), new ResultImpl(second)));
+        assertEquals(1, comparer.compare(new ResultImpl(second), new ResultImpl(first)));
+    }
+
+    @Test
+    public void testCompareNumbers() {
+        AttributeDescriptor descriptor = new AttributeDescriptorImpl(NUMBER, true, true, false,
+                false, BasicTypes.DOUBLE_TYPE);
+        AttributeResultComparator comparer = new AttributeResultComparator(NUMBER,
+                SortOrder.ASCENDING, descriptor);
+        assertEquals(-1, comparer.compare(numbered(2), numbered(10)));
+        assertEquals(1, comparer.compare(numbered(10.5), numbered(10)));
+        assertEquals(0, comparer.compare(numbered(3L), numbered(3)));
+    }
+
+    @Test
+    public void testCompareGeometryDistance() {
+        MetacardImpl near = new MetacardImpl();
+        near.setLocation("POINT(1 1)");
+        ResultImpl nearResult = new ResultImpl(near);
+        nearResult.setDistanceInMeters(10.0);
+        MetacardImpl far = new MetacardImpl();
+        far.setLocation("POINT(50 50)");
+        ResultImpl farResult = new ResultImpl(far);
+        farResult.setDistanceInMeters(5000.0);
+
+        AttributeResultComparator comparer = new AttributeResultComparator(Metacard.GEOGRAPHY,
+                SortOrder.ASCENDING);
+        assertEquals(-1, comparer.compare(nearResult, farResult));
+        assertEquals(1, comparer.compare(farResult, nearResult));
+    }
+
+    @Test
+    public void testCompareGeometryWhenTypesDisagree() {
+        MetacardTypeImpl geometryType = new MetacardTypeImpl("geometry",
+                Collections.<AttributeDescriptor>singleton(new AttributeDescriptorImpl(NUMBER, true,
+                        true, false, false, BasicTypes.GEO_TYPE)));
+        MetacardTypeImpl stringType = new MetacardTypeImpl("string",
+                Collections.<AttributeDescriptor>singleton(new AttributeDescriptorImpl(NUMBER, true,
+                        true, false, false, BasicTypes.STRING_TYPE)));
+
+        MetacardImpl near = new MetacardImpl(geometryType);
+        near.setAttribute(NUMBER, "POINT(1 1)");
+        ResultImpl nearResult = new ResultImpl(near);
+        nearResult.setDistanceInMeters(10.0);
+        MetacardImpl far = new MetacardImpl(geometryType);
+        far.setAttribute(NUMBER, "POINT(50 50)");
+        ResultImpl farResult = new ResultImpl(far);
+        farResult.setDistanceInMeters(5000.0);
+        MetacardImpl text = new MetacardImpl(stringType);
+        text.setAttribute(NUMBER, "POINT(20 20)");
+        ResultImpl textResult = new ResultImpl(text);
+        textResult.setDistanceInMeters(1.0);
+
+        AttributeResultComparator comparer = new AttributeResultComparator(NUMBER,
+                SortOrder.ASCENDING);
+        assertEquals(-1, comparer.compare(nearResult, farResult));
+        assertEquals(1, comparer.compare(farResult, nearResult));
+
+        List<ResultImpl> results = Arrays.asList(nearResult, farResult, textResult);
+        for (ResultImpl a : results) {
+            for (ResultImpl b : results) {
+                assertEquals(Integer.signum(comparer.compare(a, b)),
+                        -Integer.signum(comparer.compare(b, a)));
+            }
+        }
+        assertEquals(-1, Integer.signum(comparer.compare(nearResult, textResult)));
+        assertEquals(-1, Integer.signum(comparer.compare(textResult, farResult)));
+    }
+
+    @Test
+    public void testMissingValuesSortLast() {
+        ResultImpl missing = new ResultImpl(new MetacardImpl());
+        for (SortOrder sortOrder : new SortOrder[] {SortOrder.ASCENDING, SortOrder.DESCENDING}) {
+            AttributeResultComparator comparer = new AttributeResultComparator(Metacard.TITLE,
+                    sortOrder);
+            assertEquals(1, comparer.compare(missing, titled("alpha")));
+            assertEquals(-1, comparer.compare(titled("alpha"), missing));
+            assertEquals(0, comparer.compare(missing, missing));
+        }
+    }
+
+    @Test
+    public void testCompareMixedTypes() {
+        List<Serializable> expected = Arrays.<Serializable>asList(2.5, 5L, 7, new Date(1000),
+                new Date(2000), "alpha", "Beta", new byte[] {1}, false, true);
+        List<ResultImpl> results = new ArrayList<>();
+        for (Serializable value : expected) {
+            results.add(valued(value));
+        }
+        AttributeResultComparator comparer = new AttributeResultComparator(NUMBER,
+                SortOrder.ASCENDING);
+
+        for (ResultImpl a : results) {
+            for (ResultImpl b : results) {
+                assertEquals(Integer.signum(comparer.compare(a, b)),
+                        -Integer.signum(comparer.compare(b, a)));
+            }
+        }
+
+        Random random = new Random(0);
+        for (int i = 0; i < 20; i++) {
+            List<ResultImpl> sorted = new ArrayList<>(results);
+            Collections.shuffle(sorted, random);
+            Collections.sort(sorted, comparer);
+            assertEquals(results, sorted);
+        }
+    }
+
+    private ResultImpl titled(String title) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setTitle(title);
+        return new ResultImpl(metacard);
+    }
+
+    private ResultImpl numbered(Number number) {
+        return valued(number);
+    }
+
+    private ResultImpl valued(Serializable value) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setAttribute(NUMBER, value);
+        return new ResultImpl(metacard);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.Constants;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+
+public class ResultComparatorsTest {
+
+    @Test
+    public void testDefaultComparator() {
+        assertThat(ResultComparators.create((SortBy) null),
+                is(sameInstance(ResultComparators.DEFAULT_COMPARATOR)));
+        assertThat(ResultComparators.create(new SortByImpl(Result.TEMPORAL, SortOrder.ASCENDING)),
+                is(instanceOf(TemporalResultComparator.class)));
+        assertThat(ResultComparators.create(new SortByImpl(Result.DISTANCE, SortOrder.ASCENDING)),
+                is(instanceOf(DistanceResultComparator.class)));
+        assertThat(ResultComparators.create(new SortByImpl(Metacard.TITLE, SortOrder.ASCENDING)),
+                is(instanceOf(AttributeResultComparator.class)));
+    }
+
+    @Test
+    public void testMultipleSortKeys() {
+        Result alphaOld = createResult("alpha", 1);
+        Result alphaNew = createResult("alpha", 2);
+        Result beta = createResult("beta", 3);
+        List<Result> results = new ArrayList<>(Arrays.asList(beta, alphaOld, alphaNew));
+
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(Constants.ADDITIONAL_SORT_BYS,
+                new SortBy[] {new SortByImpl(Metacard.MODIFIED, SortOrder.DESCENDING)});
+        QueryRequestImpl request = new QueryRequestImpl(new QueryImpl(mock(Filter.class), 1, 10,
+                new SortByImpl(Metacard.TITLE, SortOrder.ASCENDING), false, 0), properties);
+
+        Collections.sort(results, ResultComparators.create(request));
+        assertThat(results, is(Arrays.asList(alphaNew, alphaOld, beta)));
+    }
+
+    private Result createResult(String title, long modified) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setTitle(title);
+        metacard.setModifiedDate(new Date(modified));
+        return new ResultImpl(metacard);
+    }
+}
@@ -126,6 +126,13 @@ public final class Constants {
      */
     public static final String SORT_POLICY_VALUE_TEMPORAL = "TEMPORAL";
 
+    /**
+     * The constant for the {@link ddf.catalog.operation.QueryRequest} property holding an array
+     * of {@link org.opengis.filter.sort.SortBy}s used to order results that are equal on the
+     * query's own sort.
+     */
+    public static final String ADDITIONAL_SORT_BYS = "additional.sort.bys";
+
     public static final String SUBSCRIPTION_KEY = "subscription";
 
     /**
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.event;
+
+import java.util.List;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * A {@link DeliveryMethod} that can deliver several {@link Metacard}s at once. Subscriptions whose
+ * delivery method implements this interface receive metacards in batches, in the order the
+ * events occurred, when more than one delivery is pending.
+ *
+ * @see Subscription
+ */
+public interface BatchDeliveryMethod extends DeliveryMethod {
+
+    /**
+     * This method will determine how to handle {@link Metacard}s when they are created/ingested.
+     *
+     * @param newMetacards
+     *            the {@link Metacard}s that were ingested
+     */
+    public void created(List<Metacard> newMetacards);
+
+    /**
+     * This method will determine how to handle {@link Metacard}s when they are updated.
+     *
+     * @param newMetacards
+     *            the {@link Metacard}s after the update
+     * @param oldMetacards
+     *            the {@link Metacard}s before the update, in the same order
+     */
+    public void updatedHit(List<Metacard> newMetacards, List<Metacard> oldMetacards);
+
+    /**
+     * This method will determine how to handle {@link Metacard}s when they are deleted.
+     *
+     * @param oldMetacards
+     *            the {@link Metacard}s that were deleted
+     */
+    public void deleted(List<Metacard> oldMetacards);
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation;
+
+/**
+ * Tracks how long queries to each {@link ddf.catalog.source.Source} take, so that a
+ * {@link FederationStrategy} can give each source a timeout that matches its actual latency
+ * instead of the full query timeout.
+ *
+ * @see FederationStrategy
+ */
+public interface SourceLatencyMetrics {
+
+    /**
+     * Records the time taken by a query to a source. Queries that were cut off before the source
+     * responded are recorded with the time they were allowed to run.
+     *
+     * @param sourceId
+     *            the ID of the {@link ddf.catalog.source.Source} that was queried
+     * @param latencyMillis
+     *            the query time in milliseconds
+     */
+    public void updateLatency(String sourceId, long latencyMillis);
+
+    /**
+     * Returns the query latency of a source at the given quantile of its recent queries.
+     *
+     * @param sourceId
+     *            the ID of the {@link ddf.catalog.source.Source}
+     * @param quantile
+     *            the quantile, between {@code 0.0} and {@code 1.0}
+     * @return the latency in milliseconds, or {@code -1} if too few queries to the source have
+     *         been recorded
+     */
+    public long getLatency(String sourceId, double quantile);
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Single range of bytes requested with an HTTP Range header, with an inclusive start and end.
+ * Endpoints that serve a resource of known size use {@link #parse(String, long)} to decide
+ * between a 200 with the whole resource, a 206 with the range and a 416.
+ */
+public final class ByteRange {
+
+    /**
+     * Syntactically valid range that does not overlap the resource, to be answered with a 416.
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private static final String BYTES_EQUAL = "bytes=";
+
+    private static final String BYTES = "bytes";
+
+    private static final Pattern RANGE_SPEC = Pattern.compile("(\\d*)-(\\d*)");
+
+    private final long start;
+
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a Range header asking for a single range, either {@code bytes=first-last},
+     * {@code bytes=first-} or the suffix form {@code bytes=-count}, following RFC 7233.
+     *
+     * @param header value of the Range header, may be null
+     * @param size   size of the resource in bytes
+     * @return the requested range, with its end limited to the last byte of the resource;
+     * {@link #UNSATISFIABLE} if the range starts after the end of the resource or asks for the
+     * last zero bytes; or null if the whole resource should be sent with a 200 because there is
+     * no header, it asks for several ranges or it is not a valid range, such as
+     * {@code bytes=100} or {@code bytes=5-2}
+     */
+    public static ByteRange parse(String header, long size) {
+        if (StringUtils.isBlank(header) || !StringUtils.startsWithIgnoreCase(header, BYTES_EQUAL)
+                || header.contains(",")) {
+            return null;
+        }
+
+        Matcher matcher = RANGE_SPEC.matcher(header.substring(BYTES_EQUAL.length()).trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                // suffix range, the last n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (end < start) {
+                return null;
+            }
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            // too large for a long
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * @param size size of the resource in bytes
+     * @return value of the Content-Range header of a 206 response with this range, or of a 416
+     * response for {@link #UNSATISFIABLE}
+     */
+    public String getContentRange(long size) {
+        if (this == UNSATISFIABLE) {
+            return BYTES + " */" + size;
+        }
+        return BYTES + " " + start + "-" + end + "/" + size;
+    }
+
+    @Override
+    public String toString() {
+        return this == UNSATISFIABLE ? "unsatisfiable" : start + "-" + end;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes part of a file, such as a {@link ByteRange} of it, to a response with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} instead of copying it through an
+ * {@link java.io.InputStream}. The channel is closed once the response has been written.
+ * <p>
+ * The Content-Length of the response has already been sent when the file is written, so a file
+ * that ends before the requested bytes have been sent fails the response with an
+ * {@link IOException} instead of completing it short.
+ */
+public class FileChannelStreamingOutput implements StreamingOutput {
+
+    private final FileChannel channel;
+
+    private final long position;
+
+    private final long length;
+
+    /**
+     * @param channel  channel of the file, closed after it has been written
+     * @param position first byte to send
+     * @param length   number of bytes to send
+     */
+    public FileChannelStreamingOutput(FileChannel channel, long position, long length) {
+        this.channel = channel;
+        this.position = position;
+        this.length = length;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try {
+            WritableByteChannel target = output instanceof WritableByteChannel ?
+                    (WritableByteChannel) output :
+                    Channels.newChannel(output);
+            long transferred = 0;
+            while (transferred < length) {
+                long count = channel.transferTo(position + transferred, length - transferred,
+                        target);
+                if (count <= 0) {
+                    throw new IOException(
+                            "File ended after " + transferred + " of " + length + " bytes");
+                }
+                transferred += count;
+            }
+            output.flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
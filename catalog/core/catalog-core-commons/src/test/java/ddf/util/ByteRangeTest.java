@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link ByteRange} class
+ */
+public class ByteRangeTest {
+
+    private static final long SIZE = 10;
+
+    @Test
+    public void testFirstAndLast() {
+        assertRange(ByteRange.parse("bytes=2-5", SIZE), 2, 5);
+    }
+
+    @Test
+    public void testOpenEnded() {
+        assertRange(ByteRange.parse("bytes=4-", SIZE), 4, 9);
+    }
+
+    @Test
+    public void testLastLimitedToSize() {
+        assertRange(ByteRange.parse("bytes=4-100", SIZE), 4, 9);
+    }
+
+    @Test
+    public void testSingleByte() {
+        assertRange(ByteRange.parse("bytes=9-9", SIZE), 9, 9);
+    }
+
+    @Test
+    public void testSuffix() {
+        assertRange(ByteRange.parse("bytes=-4", SIZE), 6, 9);
+    }
+
+    @Test
+    public void testSuffixLargerThanSize() {
+        assertRange(ByteRange.parse("bytes=-100", SIZE), 0, 9);
+    }
+
+    @Test
+    public void testWhitespaceAndCase() {
+        assertRange(ByteRange.parse("Bytes= 2-5 ", SIZE), 2, 5);
+    }
+
+    @Test
+    public void testStartAfterEnd() {
+        assertThat(ByteRange.parse("bytes=10-", SIZE), sameInstance(ByteRange.UNSATISFIABLE));
+        assertThat(ByteRange.parse("bytes=20-30", SIZE), sameInstance(ByteRange.UNSATISFIABLE));
+    }
+
+    @Test
+    public void testEmptySuffix() {
+        assertThat(ByteRange.parse("bytes=-0", SIZE), sameInstance(ByteRange.UNSATISFIABLE));
+    }
+
+    @Test
+    public void testEmptyResource() {
+        assertThat(ByteRange.parse("bytes=0-", 0), sameInstance(ByteRange.UNSATISFIABLE));
+        assertThat(ByteRange.parse("bytes=-5", 0), sameInstance(ByteRange.UNSATISFIABLE));
+    }
+
+    @Test
+    public void testNoHeader() {
+        assertThat(ByteRange.parse(null, SIZE), nullValue());
+        assertThat(ByteRange.parse(" ", SIZE), nullValue());
+    }
+
+    @Test
+    public void testInvalidRanges() {
+        assertThat(ByteRange.parse("bytes=100", SIZE), nullValue());
+        assertThat(ByteRange.parse("bytes=5-2", SIZE), nullValue());
+        assertThat(ByteRange.parse("bytes=-", SIZE), nullValue());
+        assertThat(ByteRange.parse("bytes=a-b", SIZE), nullValue());
+        assertThat(ByteRange.parse("bytes=-5-3", SIZE), nullValue());
+        assertThat(ByteRange.parse("bytes=99999999999999999999-", SIZE), nullValue());
+        assertThat(ByteRange.parse("items=0-5", SIZE), nullValue());
+    }
+
+    @Test
+    public void testMultipleRanges() {
+        assertThat(ByteRange.parse("bytes=0-1,4-5", SIZE), nullValue());
+    }
+
+    @Test
+    public void testContentRange() {
+        assertThat(ByteRange.parse("bytes=2-5", SIZE).getContentRange(SIZE), is("bytes 2-5/10"));
+        assertThat(ByteRange.UNSATISFIABLE.getContentRange(SIZE), is("bytes */10"));
+    }
+
+    private void assertRange(ByteRange range, long start, long end) {
+        assertThat(range.getStart(), is(start));
+        assertThat(range.getEnd(), is(end));
+        assertThat(range.getLength(), is(end - start + 1));
+    }
+}
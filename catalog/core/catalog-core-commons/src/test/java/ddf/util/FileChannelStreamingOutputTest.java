@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link FileChannelStreamingOutput} class
+ */
+public class FileChannelStreamingOutputTest {
+
+    private static final String CONTENT = "0123456789";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = temporaryFolder.newFile();
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWholeFile() throws IOException {
+        FileChannel channel = open();
+        assertThat(write(new FileChannelStreamingOutput(channel, 0, CONTENT.length())),
+                is(CONTENT));
+        assertThat(channel.isOpen(), is(false));
+    }
+
+    @Test
+    public void testRange() throws IOException {
+        FileChannel channel = open();
+        assertThat(write(new FileChannelStreamingOutput(channel, 2, 4)), is("2345"));
+        assertThat(channel.isOpen(), is(false));
+    }
+
+    @Test
+    public void testFileEndsBeforeLength() throws IOException {
+        FileChannel channel = open();
+        try {
+            write(new FileChannelStreamingOutput(channel, 6, 8));
+            fail("Expected the write to fail");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("File ended after 4 of 8 bytes"));
+        }
+        assertThat(channel.isOpen(), is(false));
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    private String write(FileChannelStreamingOutput output) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        output.write(stream);
+        return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import ddf.catalog.data.Result;
+
+/**
+ * Keeps the best {@code capacity} {@link Result}s offered to it, as ordered by a
+ * {@link Comparator}, so that merging federated results costs memory and time in proportion to
+ * the page size rather than to the number of results returned by all sources. The heap is ordered
+ * worst first so the result to evict is always at its head. Results that compare equal keep the
+ * order in which they were offered.
+ * <p>
+ * This class is not thread safe.
+ */
+class BoundedResultHeap {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Comparator<Entry> order;
+
+    private final PriorityQueue<Entry> heap;
+
+    private final int capacity;
+
+    private long sequence;
+
+    /**
+     * @param comparator
+     *            the {@link Comparator} that orders the best results first
+     * @param capacity
+     *            the maximum number of results to keep, or less than 1 to keep all of them
+     */
+    BoundedResultHeap(final Comparator<Result> comparator, int capacity) {
+        this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+        this.order = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                int result = comparator.compare(e1.result, e2.result);
+                if (result == 0) {
+                    result = e1.sequence < e2.sequence ? -1 : (e1.sequence == e2.sequence ? 0 : 1);
+                }
+                return result;
+            }
+        };
+        this.heap = new PriorityQueue<Entry>(Math.min(this.capacity, INITIAL_CAPACITY),
+                Collections.reverseOrder(order));
+    }
+
+    /**
+     * Offers a {@link Result} to the heap.
+     *
+     * @return true if the result is currently part of the page
+     */
+    boolean offer(Result result) {
+        Entry entry = new Entry(result, sequence++);
+        if (heap.size() < capacity) {
+            heap.offer(entry);
+            return true;
+        }
+        if (order.compare(entry, heap.peek()) < 0) {
+            heap.poll();
+            heap.offer(entry);
+            return true;
+        }
+        return false;
+    }
+
+    void offerAll(List<Result> results) {
+        for (Result result : results) {
+            offer(result);
+        }
+    }
+
+    int size() {
+        return heap.size();
+    }
+
+    /**
+     * Returns the results kept so far, best first. This can be called at any point of the merge
+     * to get the partial page.
+     */
+    List<Result> getPage() {
+        Entry[] entries = heap.toArray(new Entry[heap.size()]);
+        Arrays.sort(entries, order);
+        List<Result> page = new ArrayList<Result>(entries.length);
+        for (Entry entry : entries) {
+            page.add(entry.result);
+        }
+        return page;
+    }
+
+    private static final class Entry {
+
+        private final Result result;
+
+        private final long sequence;
+
+        private Entry(Result result, long sequence) {
+            this.result = result;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -15,10 +15,11 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -29,7 +30,6 @@
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-import org.opengis.filter.expression.PropertyName;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
 import org.slf4j.LoggerFactory;
@@ -38,8 +38,11 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.federation.base.AbstractFederationStrategy;
+import ddf.catalog.federation.base.SourceQueryTracker;
+import ddf.catalog.federation.base.SourceQueryTracker.CompletedQuery;
 import ddf.catalog.operation.ProcessingDetails;
 import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.impl.ProcessingDetailsImpl;
@@ -47,15 +50,15 @@
 import ddf.catalog.plugin.PostFederatedQueryPlugin;
 import ddf.catalog.plugin.PreFederatedQueryPlugin;
 import ddf.catalog.source.Source;
-import ddf.catalog.util.impl.DistanceResultComparator;
-import ddf.catalog.util.impl.RelevanceResultComparator;
-import ddf.catalog.util.impl.TemporalResultComparator;
+import ddf.catalog.util.impl.ResultComparators;
 
 /**
  * This class represents a {@link ddf.catalog.federation.FederationStrategy} based on sorting {@link Metacard}s. The
  * sorting is based on the {@link Query}'s {@link SortBy} propertyName. The possible sorting values
- * are {@link Metacard.EFFECTIVE}, {@link Result.TEMPORAL}, {@link Result.DISTANCE}, or
- * {@link Result.RELEVANCE} . The supported ordering includes {@link SortOrder.DESCENDING} and
+ * are {@link Metacard.EFFECTIVE}, {@link Result.TEMPORAL}, {@link Result.DISTANCE},
+ * {@link Result.RELEVANCE} or the name of any other attribute, with additional sort keys taken from
+ * the {@link ddf.catalog.Constants#ADDITIONAL_SORT_BYS} request property, see
+ * {@link ResultComparators}. The supported ordering includes {@link SortOrder.DESCENDING} and
  * {@link SortOrder.ASCENDING}. For this class to function properly a sort value and sort order must
  * be provided.
  *
@@ -68,8 +71,8 @@ public class SortedFederationStrategy extends AbstractFederationStrategy {
     /**
      * The default comparator for sorting by {@link Result.RELEVANCE}, {@link SortOrder.DESCENDING}
      */
-    protected static final Comparator<Result> DEFAULT_COMPARATOR = new RelevanceResultComparator(
-            SortOrder.DESCENDING);
+    protected static final Comparator<Result> DEFAULT_COMPARATOR =
+            ResultComparators.DEFAULT_COMPARATOR;
 
     private static XLogger logger = new XLogger(
             LoggerFactory.getLogger(SortedFederationStrategy.class));
@@ -90,69 +93,120 @@ protected Runnable createMonitor(final ExecutorService pool,
             final Map<Source, Future<SourceResponse>> futures,
             final QueryResponseImpl returnResults, final Query query) {
 
-        return new SortedQueryMonitor(pool, futures, returnResults, query);
+        return new SortedQueryMonitor(null, futures, returnResults, query,
+                ResultComparators.create(query.getSortBy()));
     }
 
+    @Override
+    protected Runnable createMonitor(final ExecutorService pool, final SourceQueryTracker tracker,
+            final Map<Source, Future<SourceResponse>> futures,
+            final QueryResponseImpl returnResults, final QueryRequest queryRequest) {
+
+        return new SortedQueryMonitor(tracker, futures, returnResults, queryRequest.getQuery(),
+                ResultComparators.create(queryRequest));
+    }
+
+    /**
+     * Merges the source responses in the order the sources complete into a
+     * {@link BoundedResultHeap} of the query's page size, so a slow source does not hold up the
+     * merge of the sources that have already returned and only a page of results is kept and
+     * sorted. Sources are cut off and hedged by the {@link SourceQueryTracker}.
+     */
     private static class SortedQueryMonitor implements Runnable {
 
+        private final SourceQueryTracker tracker;
+
         private QueryResponseImpl returnResults;
 
         private Map<Source, Future<SourceResponse>> futures;
 
         private Query query;
 
-        public SortedQueryMonitor(ExecutorService pool,
+        private final Comparator<Result> comparator;
+
+        /**
+         * @param tracker
+         *            the {@link SourceQueryTracker} of the futures, or null to wait on the futures
+         *            in iteration order
+         * @param comparator
+         *            the order of the merged results
+         */
+        public SortedQueryMonitor(SourceQueryTracker tracker,
                 Map<Source, Future<SourceResponse>> futuress, QueryResponseImpl returnResults,
-                Query query) {
+                Query query, Comparator<Result> comparator) {
 
+            this.tracker = tracker;
+            this.comparator = comparator;
             this.returnResults = returnResults;
             this.query = query;
             this.futures = futuress;
         }
 
-        @SuppressWarnings({"rawtypes", "unchecked"})
         @Override
         public void run() {
             String methodName = "run";
             logger.entry(methodName);
 
-            SortBy sortBy = query.getSortBy();
-            // Prepare the Comparators that we will use
-            Comparator<Result> coreComparator = DEFAULT_COMPARATOR;
-
-            if (sortBy != null && sortBy.getPropertyName() != null) {
-                PropertyName sortingProp = sortBy.getPropertyName();
-                String sortType = sortingProp.getPropertyName();
-                SortOrder sortOrder = (sortBy.getSortOrder() == null) ?
-                        SortOrder.DESCENDING :
-                        sortBy.getSortOrder();
-                logger.debug("Sorting by type: " + sortType);
-                logger.debug("Sorting by Order: " + sortBy.getSortOrder());
-
-                // Temporal searches are currently sorted by the effective time
-                if (Metacard.EFFECTIVE.equals(sortType) || Result.TEMPORAL.equals(sortType)) {
-                    coreComparator = new TemporalResultComparator(sortOrder);
-                } else if (Result.DISTANCE.equals(sortType)) {
-                    coreComparator = new DistanceResultComparator(sortOrder);
-                } else if (Result.RELEVANCE.equals(sortType)) {
-                    coreComparator = new RelevanceResultComparator(sortOrder);
-                }
-            }
-
-            List<Result> resultList = new ArrayList<Result>();
+            BoundedResultHeap page = new BoundedResultHeap(comparator, query.getPageSize());
             long totalHits = 0;
+            long totalResults = 0;
             Set<ProcessingDetails> processingDetails = returnResults.getProcessingDetails();
 
             long deadline = System.currentTimeMillis() + query.getTimeoutMillis();
 
             Map<String, Serializable> returnProperties = returnResults.getProperties();
-            for (final Entry<Source, Future<SourceResponse>> entry : futures.entrySet()) {
-                Source site = entry.getKey();
+            Map<Future<SourceResponse>, Source> pending = new LinkedHashMap<Future<SourceResponse>, Source>();
+            if (tracker == null) {
+                for (Entry<Source, Future<SourceResponse>> entry : futures.entrySet()) {
+                    pending.put(entry.getValue(), entry.getKey());
+                }
+            }
+
+            while (true) {
+                Future<SourceResponse> future;
+                Source site;
+                try {
+                    if (tracker != null) {
+                        CompletedQuery completed = tracker.take();
+                        if (completed == null) {
+                            break;
+                        }
+                        future = completed.getFuture();
+                        site = completed.getSource();
+                    } else {
+                        if (pending.isEmpty()) {
+                            break;
+                        }
+                        future = nextCompleted(pending, deadline);
+                        if (future == null) {
+                            for (Source expired : pending.values()) {
+                                logger.warn("search timed out: " + new Date() + " on site "
+                                        + expired.getId());
+                                processingDetails.add(new ProcessingDetailsImpl(expired.getId(),
+                                        new TimeoutException()));
+                            }
+                            break;
+                        }
+                        site = pending.remove(future);
+                    }
+                } catch (InterruptedException e) {
+                    Collection<Source> interrupted = tracker != null ?
+                            tracker.getPendingSources() :
+                            pending.values();
+                    for (Source interruptedSite : interrupted) {
+                        logger.warn(
+                                "Couldn't get results from completed federated query on site with ShortName "
+                                        + interruptedSite.getId(), e);
+                        processingDetails
+                                .add(new ProcessingDetailsImpl(interruptedSite.getId(), e));
+                    }
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
                 SourceResponse sourceResponse = null;
                 try {
-                    sourceResponse = query.getTimeoutMillis() < 1 ?
-                            entry.getValue().get() :
-                            entry.getValue().get(getTimeRemaining(deadline), TimeUnit.MILLISECONDS);
+                    sourceResponse = future.get();
                 } catch (InterruptedException e) {
                     logger.warn(
                             "Couldn't get results from completed federated query on site with ShortName "
@@ -166,66 +220,81 @@ public void run() {
                         logger.debug("Adding exception to response.");
                     }
                     processingDetails.add(new ProcessingDetailsImpl(site.getId(), e));
-                } catch (TimeoutException e) {
-                    logger.warn("search timed out: " + new Date() + " on site " + site.getId());
-                    processingDetails.add(new ProcessingDetailsImpl(site.getId(), e));
                 }
                 if (sourceResponse != null) {
                     List<Result> sourceResults = sourceResponse.getResults();
-                    resultList.addAll(sourceResults);
-                    long sourceHits = sourceResponse.getHits();
-
-                    totalHits += sourceHits;
-                    Map<String, Serializable> newSourceProperties = new HashMap<String, Serializable>();
-                    newSourceProperties.put(QueryResponse.TOTAL_HITS, sourceHits);
-                    newSourceProperties
-                            .put(QueryResponse.TOTAL_RESULTS_RETURNED, sourceResults.size());
-
-                    Map<String, Serializable> originalSourceProperties = sourceResponse
-                            .getProperties();
-                    if (originalSourceProperties != null) {
-                        Serializable object = originalSourceProperties
-                                .get(QueryResponse.ELAPSED_TIME);
-                        if (object != null && object instanceof Long) {
-                            newSourceProperties.put(QueryResponse.ELAPSED_TIME, (Long) object);
-                            originalSourceProperties.remove(QueryResponse.ELAPSED_TIME);
-                            logger.debug(
-                                    "Setting the ellapsedTime responseProperty to {} for source {}",
-                                    object, site.getId());
-                        }
-
-                        // TODO: for now add all properties into outgoing response's properties.
-                        // this is not the best idea because we could get properties from records
-                        // that get eliminated by the max results enforcement done below.
-                        // See DDF-1183 for a possible solution.
-                        returnProperties.putAll(originalSourceProperties);
-                    }
-                    returnProperties.put(site.getId(), (Serializable) newSourceProperties);
-                    logger.debug("Setting the query responseProperties for site {}", site.getId());
+                    page.offerAll(sourceResults);
+                    totalResults += sourceResults.size();
+                    totalHits += sourceResponse.getHits();
+                    addSourceProperties(site, sourceResponse, returnProperties);
+                    logger.debug("Merged {} results from site {}", sourceResults.size(),
+                            site.getId());
+                }
+            }
+            logger.debug("all sites finished returning results: " + totalResults);
 
-                    // Add a List of siteIds so endpoints know what sites got queried
-                    Serializable siteListObject = returnProperties.get(QueryResponse.SITE_LIST);
-                    if (siteListObject != null && siteListObject instanceof List<?>) {
-                        ((List) siteListObject).add(site.getId());
-                    } else {
-                        siteListObject = new ArrayList<String>();
-                        ((List) siteListObject).add(site.getId());
-                        returnProperties
-                                .put(QueryResponse.SITE_LIST, (Serializable) siteListObject);
-                    }
+            returnResults.setHits(totalHits);
+            returnResults.addResults(page.getPage(), true);
+        }
 
+        /**
+         * Waits on the next future in iteration order, returning null if the query timed out
+         * before it completed.
+         */
+        private Future<SourceResponse> nextCompleted(Map<Future<SourceResponse>, Source> pending,
+                long deadline) throws InterruptedException {
+            Future<SourceResponse> future = pending.keySet().iterator().next();
+            try {
+                if (query.getTimeoutMillis() < 1) {
+                    future.get();
+                } else {
+                    future.get(getTimeRemaining(deadline), TimeUnit.MILLISECONDS);
                 }
+            } catch (ExecutionException e) {
+                logger.debug("Federated query on site failed", e);
+            } catch (TimeoutException e) {
+                return null;
             }
-            logger.debug("all sites finished returning results: " + resultList.size());
+            return future;
+        }
 
-            Collections.sort(resultList, coreComparator);
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private void addSourceProperties(Source site, SourceResponse sourceResponse,
+                Map<String, Serializable> returnProperties) {
+            long sourceHits = sourceResponse.getHits();
+            Map<String, Serializable> newSourceProperties = new HashMap<String, Serializable>();
+            newSourceProperties.put(QueryResponse.TOTAL_HITS, sourceHits);
+            newSourceProperties
+                    .put(QueryResponse.TOTAL_RESULTS_RETURNED, sourceResponse.getResults().size());
+
+            Map<String, Serializable> originalSourceProperties = sourceResponse.getProperties();
+            if (originalSourceProperties != null) {
+                Serializable object = originalSourceProperties.get(QueryResponse.ELAPSED_TIME);
+                if (object != null && object instanceof Long) {
+                    newSourceProperties.put(QueryResponse.ELAPSED_TIME, (Long) object);
+                    originalSourceProperties.remove(QueryResponse.ELAPSED_TIME);
+                    logger.debug("Setting the ellapsedTime responseProperty to {} for source {}",
+                            object, site.getId());
+                }
 
-            returnResults.setHits(totalHits);
-            int maxResults = query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
+                // TODO: for now add all properties into outgoing response's properties.
+                // this is not the best idea because we could get properties from records
+                // that get eliminated by the max results enforcement done by the merge.
+                // See DDF-1183 for a possible solution.
+                returnProperties.putAll(originalSourceProperties);
+            }
+            returnProperties.put(site.getId(), (Serializable) newSourceProperties);
+            logger.debug("Setting the query responseProperties for site {}", site.getId());
 
-            returnResults.addResults(
-                    resultList.size() > maxResults ? resultList.subList(0, maxResults) : resultList,
-                    true);
+            // Add a List of siteIds so endpoints know what sites got queried
+            Serializable siteListObject = returnProperties.get(QueryResponse.SITE_LIST);
+            if (siteListObject != null && siteListObject instanceof List<?>) {
+                ((List) siteListObject).add(site.getId());
+            } else {
+                siteListObject = new ArrayList<String>();
+                ((List) siteListObject).add(site.getId());
+                returnProperties.put(QueryResponse.SITE_LIST, (Serializable) siteListObject);
+            }
         }
 
         private long getTimeRemaining(long deadline) {
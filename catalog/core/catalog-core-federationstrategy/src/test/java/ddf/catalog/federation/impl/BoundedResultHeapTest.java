@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.federation.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+
+public class BoundedResultHeapTest {
+
+    private static final RelevanceResultComparator DESCENDING = new RelevanceResultComparator(
+            SortOrder.DESCENDING);
+
+    @Test
+    public void testKeepsBestResults() {
+        List<Result> results = new ArrayList<Result>();
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            results.add(createResult(random.nextDouble()));
+        }
+
+        BoundedResultHeap heap = new BoundedResultHeap(DESCENDING, 10);
+        heap.offerAll(results);
+
+        List<Result> sorted = new ArrayList<Result>(results);
+        Collections.sort(sorted, DESCENDING);
+        assertThat(heap.size(), is(10));
+        assertThat(heap.getPage(), is(sorted.subList(0, 10)));
+    }
+
+    @Test
+    public void testPartialPage() {
+        Result low = createResult(0.1);
+        Result middle = createResult(0.5);
+        Result high = createResult(0.9);
+
+        BoundedResultHeap heap = new BoundedResultHeap(DESCENDING, 2);
+        assertThat(heap.offer(low), is(true));
+        assertThat(heap.getPage(), contains(low));
+
+        heap.offer(high);
+        assertThat(heap.getPage(), contains(high, low));
+
+        assertThat(heap.offer(middle), is(true));
+        assertThat(heap.getPage(), contains(high, middle));
+        assertThat(heap.offer(low), is(false));
+    }
+
+    @Test
+    public void testTiesKeepOfferOrder() {
+        Result first = createResult(0.5);
+        Result second = createResult(0.5);
+        Result third = createResult(0.5);
+
+        BoundedResultHeap heap = new BoundedResultHeap(DESCENDING, 2);
+        heap.offer(first);
+        heap.offer(second);
+        assertThat(heap.offer(third), is(false));
+        assertThat(heap.getPage(), contains(first, second));
+    }
+
+    @Test
+    public void testUnbounded() {
+        BoundedResultHeap heap = new BoundedResultHeap(DESCENDING, -1);
+        for (int i = 0; i < 100; i++) {
+            heap.offer(createResult(i));
+        }
+        List<Result> page = heap.getPage();
+        assertThat(page.size(), is(100));
+        assertThat(page.get(0).getRelevanceScore(), is(99.0));
+        assertThat(page.get(99).getRelevanceScore(), is(0.0));
+    }
+
+    private Result createResult(double relevance) {
+        ResultImpl result = new ResultImpl();
+        result.setRelevanceScore(relevance);
+        return result;
+    }
+}
@@ -40,6 +40,8 @@
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.opengis.filter.FilterFactory;
 import org.opengis.filter.sort.SortOrder;
 import org.powermock.api.mockito.PowerMockito;
@@ -52,6 +54,7 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.federation.base.AbstractFederationStrategy;
 import ddf.catalog.impl.CatalogFrameworkImpl;
@@ -207,6 +210,65 @@ public void testNegativePageSizeQuery() throws Exception {
         assertEquals(1, fedResponse.getResults().size());
     }
 
+    /**
+     * Verifies that results from sources completing at different times are merged into a single
+     * sorted page of the requested size.
+     */
+    @Test
+    public void testSortedMergeKeepsTopPageSizeResults() throws Exception {
+        Query query = mock(Query.class);
+        when(query.getStartIndex()).thenReturn(1);
+        when(query.getPageSize()).thenReturn(3);
+        when(query.getTimeoutMillis()).thenReturn(5000L);
+
+        QueryRequest queryRequest = mock(QueryRequest.class);
+        when(queryRequest.getQuery()).thenReturn(query);
+
+        final SourceResponse slowResponse = createSourceResponse(0.8, 0.3, 0.1);
+        Source slowSource = mock(Source.class);
+        when(slowSource.getId()).thenReturn("slow");
+        when(slowSource.query(any(QueryRequest.class))).thenAnswer(new Answer<SourceResponse>() {
+            @Override
+            public SourceResponse answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(LONG_TIMEOUT);
+                return slowResponse;
+            }
+        });
+
+        SourceResponse fastResponse = createSourceResponse(0.9, 0.7, 0.2);
+        Source fastSource = mock(Source.class);
+        when(fastSource.getId()).thenReturn("fast");
+        when(fastSource.query(any(QueryRequest.class))).thenReturn(fastResponse);
+
+        SortedFederationStrategy strategy = new SortedFederationStrategy(EXECUTOR,
+                new ArrayList<PreFederatedQueryPlugin>(),
+                new ArrayList<PostFederatedQueryPlugin>());
+
+        QueryResponse response = strategy
+                .federate(Arrays.asList(slowSource, fastSource), queryRequest);
+
+        List<Result> results = response.getResults();
+        assertEquals(3, results.size());
+        assertEquals(0.9, results.get(0).getRelevanceScore(), 0.0);
+        assertEquals(0.8, results.get(1).getRelevanceScore(), 0.0);
+        assertEquals(0.7, results.get(2).getRelevanceScore(), 0.0);
+        assertEquals(6, response.getHits());
+        assertTrue(response.getProcessingDetails().isEmpty());
+    }
+
+    private SourceResponse createSourceResponse(double... relevanceScores) {
+        List<Result> results = new ArrayList<Result>();
+        for (double relevanceScore : relevanceScores) {
+            ResultImpl result = new ResultImpl();
+            result.setRelevanceScore(relevanceScore);
+            results.add(result);
+        }
+        SourceResponse response = mock(SourceResponse.class);
+        when(response.getResults()).thenReturn(results);
+        when(response.getHits()).thenReturn((long) results.size());
+        return response;
+    }
+
     /**
      * Verify that a modified version of the query passed into {@link
      * ddf.catalog.federation.AbstractFederationStrategy#federate(List<Source>, QueryRequest)} is
@@ -21,17 +21,18 @@
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.index.memory.MemoryIndex;
 import org.osgi.framework.BundleContext;
-import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventAdmin;
-import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.event.EventProcessor;
@@ -48,9 +49,14 @@
 import ddf.catalog.plugin.PreDeliveryPlugin;
 import ddf.catalog.plugin.PreSubscriptionPlugin;
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.internal.DeliveryProcessor;
 import ddf.catalog.pubsub.internal.PubSubConstants;
-import ddf.catalog.pubsub.internal.PubSubThread;
+import ddf.catalog.pubsub.internal.PubSubDispatchExecutor;
+import ddf.catalog.pubsub.internal.PubSubDispatchExecutor.OverflowPolicy;
+import ddf.catalog.pubsub.internal.PubSubDispatchMetrics;
+import ddf.catalog.pubsub.internal.SubscriptionDeliveryExecutor;
 import ddf.catalog.pubsub.internal.SubscriptionFilterVisitor;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
 import ddf.catalog.pubsub.predicate.Predicate;
 
 public class EventProcessorImpl implements EventProcessor, EventHandler, PostIngestPlugin {
@@ -59,6 +65,28 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EventProcessorImpl.class);
 
+    private static final int DEFAULT_DISPATCH_THREADS = 4;
+
+    private static final int DEFAULT_DISPATCH_QUEUE_CAPACITY = 1000;
+
+    private static final int DEFAULT_DISPATCH_BATCH_SIZE = 50;
+
+    private static final long DEFAULT_DISPATCH_BLOCK_TIMEOUT_MILLIS = 1000;
+
+    private static final long DISPATCH_SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private static final int DEFAULT_DELIVERY_THREADS = 8;
+
+    private static final int DEFAULT_DELIVERY_QUEUE_CAPACITY = 1000;
+
+    private static final int DEFAULT_DELIVERY_BATCH_SIZE = 50;
+
+    private static final int DEFAULT_DELIVERY_MAX_RETRIES = 5;
+
+    private static final long DEFAULT_DELIVERY_INITIAL_BACKOFF_MILLIS = 500;
+
+    private static final long DEFAULT_DELIVERY_MAX_BACKOFF_MILLIS = 60000;
+
     protected EventAdmin eventAdmin;
 
     protected BundleContext bundleContext;
@@ -69,7 +97,43 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
     protected CatalogFramework catalog;
 
-    private Map<String, ServiceRegistration> existingSubscriptions;
+    private final PublishedEventDispatcher dispatcher = new PublishedEventDispatcher();
+
+    private final PubSubDispatchExecutor.BatchHandler<CatalogEvent> batchHandler = new PubSubDispatchExecutor.BatchHandler<CatalogEvent>() {
+        @Override
+        public void handle(List<CatalogEvent> events) {
+            processEntries(events);
+        }
+    };
+
+    // The executors start threads, so they are only created by init()
+    private volatile PubSubDispatchExecutor<CatalogEvent> dispatchExecutor;
+
+    private volatile SubscriptionDeliveryExecutor deliveryExecutor;
+
+    private PubSubDispatchMetrics dispatchMetrics;
+
+    private volatile int dispatchThreads = DEFAULT_DISPATCH_THREADS;
+
+    private volatile int dispatchQueueCapacity = DEFAULT_DISPATCH_QUEUE_CAPACITY;
+
+    private volatile int dispatchBatchSize = DEFAULT_DISPATCH_BATCH_SIZE;
+
+    private volatile OverflowPolicy dispatchOverflowPolicy = OverflowPolicy.BLOCK;
+
+    private volatile long dispatchBlockTimeoutMillis = DEFAULT_DISPATCH_BLOCK_TIMEOUT_MILLIS;
+
+    private volatile int deliveryThreads = DEFAULT_DELIVERY_THREADS;
+
+    private volatile int deliveryQueueCapacity = DEFAULT_DELIVERY_QUEUE_CAPACITY;
+
+    private volatile int deliveryBatchSize = DEFAULT_DELIVERY_BATCH_SIZE;
+
+    private volatile int deliveryMaxRetries = DEFAULT_DELIVERY_MAX_RETRIES;
+
+    private volatile long deliveryInitialBackoffMillis = DEFAULT_DELIVERY_INITIAL_BACKOFF_MILLIS;
+
+    private volatile long deliveryMaxBackoffMillis = DEFAULT_DELIVERY_MAX_BACKOFF_MILLIS;
 
     public EventProcessorImpl() {
         LOGGER.debug("INSIDE: EventProcessorImpl default constructor");
@@ -85,7 +149,6 @@ public EventProcessorImpl(BundleContext bundleContext, EventAdmin eventAdmin,
         this.preSubscription = preSubscription;
         this.preDelivery = preDelivery;
         this.catalog = catalog;
-        this.existingSubscriptions = new HashMap<String, ServiceRegistration>();
 
         if (this.preSubscription == null) {
             LOGGER.debug("preSubscription plugins list is NULL");
@@ -113,117 +176,502 @@ public EventProcessorImpl(BundleContext bundleContext, EventAdmin eventAdmin,
      * @param eventAdmin
      */
     public static void processEntry(Metacard metacard, String operation, EventAdmin eventAdmin) {
+        processEntry(metacard, operation, eventAdmin, true);
+    }
+
+    /**
+     * Processes an entry by adding properties from the metacard to the event. Then the eventAdmin
+     * is used to post the metacard properties as a single event.
+     *
+     * @param metacard
+     *            - the metacard to process
+     * @param operation
+     *            -
+     * @param eventAdmin
+     * @param buildContextualIndex
+     *            - true to index the metacard's metadata for contextual subscriptions
+     */
+    public static void processEntry(Metacard metacard, String operation, EventAdmin eventAdmin,
+            boolean buildContextualIndex) {
         String methodName = "processEntry";
         LOGGER.debug("ENTERING: " + methodName);
 
         if (metacard != null) {
-            LOGGER.debug("Input Metacard:{}\n", metacard.toString());
-            LOGGER.debug("catalog ID = {}", metacard.getId());
-            LOGGER.debug("operation = {}", operation);
+            Event event = createPublishedEvent(metacard, operation, buildContextualIndex);
+            if (eventAdmin != null) {
+                eventAdmin.postEvent(event);
+            } else {
+                LOGGER.warn("Unable to post event since eventAdmin is null.");
+            }
+        } else {
+            LOGGER.warn("Unable to post null metacard.");
+        }
+
+        LOGGER.debug("EXITING: {}", methodName);
+    }
+
+    /**
+     * Creates the published event for a metacard, holding the properties from the metacard that
+     * subscriptions are evaluated against.
+     *
+     * @param metacard
+     *            - the metacard to process
+     * @param operation
+     *            -
+     * @param buildContextualIndex
+     *            - true to index the metacard's metadata for contextual subscriptions
+     */
+    static Event createPublishedEvent(Metacard metacard, String operation,
+            boolean buildContextualIndex) {
+        LOGGER.debug("Input Metacard:{}\n", metacard.toString());
+        LOGGER.debug("catalog ID = {}", metacard.getId());
+        LOGGER.debug("operation = {}", operation);
 
-            HashMap<String, Object> properties = new HashMap<String, Object>();
+        HashMap<String, Object> properties = new HashMap<String, Object>();
 
-            // Common headers
-            properties.put(PubSubConstants.HEADER_OPERATION_KEY, operation);
-            properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+        // Common headers
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, operation);
+        properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
 
-            // ENTRY ID INFORMATION
-            // TODO: probably don't need to pass this through since they can get the metacard
-            properties.put(PubSubConstants.HEADER_ID_KEY, metacard.getId());
+        // ENTRY ID INFORMATION
+        // TODO: probably don't need to pass this through since they can get the metacard
+        properties.put(PubSubConstants.HEADER_ID_KEY, metacard.getId());
 
-            try {
-                URI uri = metacard.getResourceURI();
-                if (uri != null) {
-                    String productUri = uri.toString();
-                    LOGGER.debug(
-                            "Processing incoming entry.  Adding DAD URI to event properties: {}",
-                            productUri);
-                    // TODO: probably just get this info from the Metacard, Probably don't need to
-                    // create new property for this
-                    properties.put(PubSubConstants.HEADER_DAD_KEY, productUri);
-                }
-            } catch (Exception e) {
-                LOGGER.warn("Unable to obtain resource URL, will not be considered in subscription",
-                        e);
+        try {
+            URI uri = metacard.getResourceURI();
+            if (uri != null) {
+                String productUri = uri.toString();
+                LOGGER.debug(
+                        "Processing incoming entry.  Adding DAD URI to event properties: {}",
+                        productUri);
+                // TODO: probably just get this info from the Metacard, Probably don't need to
+                // create new property for this
+                properties.put(PubSubConstants.HEADER_DAD_KEY, productUri);
             }
+        } catch (Exception e) {
+            LOGGER.warn("Unable to obtain resource URL, will not be considered in subscription",
+                    e);
+        }
 
-            // CONTENT TYPE INFORMATION
-            String type = metacard.getContentTypeName();
-            String contentType = "UNKNOWN";
-            if (type != null) {
-                contentType = type;
-            } else {
-                LOGGER.debug("contentType is null");
-            }
+        // CONTENT TYPE INFORMATION
+        String type = metacard.getContentTypeName();
+        String contentType = "UNKNOWN";
+        if (type != null) {
+            contentType = type;
+        } else {
+            LOGGER.debug("contentType is null");
+        }
+
+        String version = metacard.getContentTypeVersion();
 
-            String version = metacard.getContentTypeVersion();
-
-            contentType = contentType + "," + (version == null ? "" : version);
-
-            LOGGER.debug("contentType = {}", contentType);
-
-            properties.put(PubSubConstants.HEADER_CONTENT_TYPE_KEY, contentType);
-
-            // CONTEXTUAL INFORMATION
-            if (metacard.getMetadata() != null) {
-                try {
-                    // Build Lucene search index on entry's entire metadata using
-                    // default XPaths (specified
-                    // in ContextualEvaluator) - this index will be used by all
-                    // contextual predicates that do
-                    // *NOT* specify any textPaths. (Building index here optimizes
-                    // code so that this index is
-                    // not built for every contextual subscription that has no
-                    // textPaths.)
-                    Directory index = ContextualEvaluator.buildIndex(metacard.getMetadata());
-
-                    // Build contextual info to be sent in event for this entry.
-                    // Include the default Lucene search
-                    // index and the entry's metadata (in case subscription has
-                    // textPaths, then it can create Lucene
-                    // search indices on the metadata using its textPaths)
-                    Map<String, Object> contextualMap = new HashMap<String, Object>();
+        contentType = contentType + "," + (version == null ? "" : version);
+
+        LOGGER.debug("contentType = {}", contentType);
+
+        properties.put(PubSubConstants.HEADER_CONTENT_TYPE_KEY, contentType);
+
+        // GEOSPATIAL INFORMATION
+        // Parse the entry's location once rather than in every geospatial predicate
+        Geometry location = GeospatialPredicate.readLocation(metacard);
+        if (location != null) {
+            properties.put(PubSubConstants.HEADER_GEOSPATIAL_KEY, location);
+        }
+
+        // CONTEXTUAL INFORMATION
+        if (metacard.getMetadata() != null) {
+            try {
+                // Build Lucene search index on entry's entire metadata using
+                // default XPaths (specified
+                // in ContextualEvaluator) - this index will be used by all
+                // contextual predicates that do
+                // *NOT* specify any textPaths. (Building index here optimizes
+                // code so that this index is
+                // not built for every contextual subscription that has no
+                // textPaths.) The index is skipped when no subscription has contextual
+                // criteria.
+
+                // Build contextual info to be sent in event for this entry.
+                // Include the default Lucene search
+                // index and the entry's metadata (in case subscription has
+                // textPaths, then it can create Lucene
+                // search indices on the metadata using its textPaths)
+                Map<String, Object> contextualMap = new HashMap<String, Object>();
+                if (buildContextualIndex) {
+                    MemoryIndex index = ContextualEvaluator
+                            .buildIndex(metacard.getMetadata());
                     contextualMap.put("DEFAULT_INDEX", index);
-                    contextualMap.put("METADATA", metacard.getMetadata());
-                    properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
-                } catch (Exception e) {
-                    LOGGER.error("Exception updating context map", e);
                 }
+                contextualMap.put("METADATA", metacard.getMetadata());
+                properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+            } catch (Exception e) {
+                LOGGER.error("Exception updating context map", e);
             }
+        }
 
-            if (eventAdmin != null) {
-                eventAdmin.postEvent(
-                        new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties));
+        return new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties);
+    }
+
+    /**
+     * Evaluates a batch of catalog events taken from one dispatch queue against the
+     * subscriptions, on the dispatch thread. Whether the contextual index is needed is decided
+     * once for the whole batch.
+     */
+    private void processEntries(List<CatalogEvent> events) {
+        boolean buildContextualIndex = dispatcher.hasContextualSubscriptions();
+        for (CatalogEvent event : events) {
+            String operation = getOperation(event.topic);
+            if (operation != null) {
+                dispatcher.evaluate(
+                        createPublishedEvent(event.entry, operation, buildContextualIndex));
             } else {
-                LOGGER.warn("Unable to post event since eventAdmin is null.");
+                LOGGER.debug("Ignoring event for unknown topic {}", event.topic);
             }
-        } else {
-            LOGGER.warn("Unable to post null metacard.");
         }
+    }
 
-        LOGGER.debug("EXITING: {}", methodName);
+    private static String getOperation(String topic) {
+        if (EventProcessor.EVENTS_TOPIC_CREATED.equals(topic)) {
+            return PubSubConstants.CREATE;
+        } else if (EventProcessor.EVENTS_TOPIC_UPDATED.equals(topic)) {
+            return PubSubConstants.UPDATE;
+        } else if (EventProcessor.EVENTS_TOPIC_DELETED.equals(topic)) {
+            return PubSubConstants.DELETE;
+        }
+        return null;
     }
 
-    public void init() {
+    /**
+     * Starts the dispatch and delivery executors with the configuration set so far and registers
+     * their metrics MBean.
+     */
+    public synchronized void init() {
         String methodName = "init";
         LOGGER.debug("ENTERING: {}", methodName);
 
+        deliveryExecutor = new SubscriptionDeliveryExecutor(deliveryThreads, deliveryQueueCapacity,
+                deliveryBatchSize, deliveryMaxRetries, deliveryInitialBackoffMillis,
+                deliveryMaxBackoffMillis);
+        dispatchExecutor = new PubSubDispatchExecutor<CatalogEvent>(dispatchThreads,
+                dispatchQueueCapacity, dispatchBatchSize, dispatchOverflowPolicy,
+                dispatchBlockTimeoutMillis, batchHandler);
+        dispatchMetrics = new PubSubDispatchMetrics(dispatchExecutor, deliveryExecutor);
+        dispatchMetrics.register();
+
         LOGGER.debug("EXITING: {}", methodName);
 
     }
 
-    public void destroy() {
+    /**
+     * Shuts down the executors started by {@link #init()} and unregisters their metrics MBean.
+     */
+    public synchronized void destroy() {
         String methodName = "destroy";
         LOGGER.debug("ENTERING: {}", methodName);
 
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdown(DISPATCH_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        if (deliveryExecutor != null) {
+            deliveryExecutor.shutdown();
+        }
+        if (dispatchMetrics != null) {
+            dispatchMetrics.unregister();
+        }
+
         LOGGER.debug("EXITING: {}", methodName);
     }
 
+    /**
+     * Called by Blueprint with the new configuration when it is updated. Applies every property
+     * and then replaces the dispatch executor once if its threads, queue capacity or batch size
+     * changed.
+     *
+     * @param properties
+     *            the updated configuration of the event processor
+     */
+    public void updated(Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+
+        Integer threads = getInteger(properties, "dispatchThreads");
+        if (threads != null) {
+            setDispatchThreads(threads);
+        }
+        Integer queueCapacity = getInteger(properties, "dispatchQueueCapacity");
+        if (queueCapacity != null) {
+            setDispatchQueueCapacity(queueCapacity);
+        }
+        Integer batchSize = getInteger(properties, "dispatchBatchSize");
+        if (batchSize != null) {
+            setDispatchBatchSize(batchSize);
+        }
+        Object overflowPolicy = properties.get("dispatchOverflowPolicy");
+        if (overflowPolicy != null) {
+            setDispatchOverflowPolicy(overflowPolicy.toString());
+        }
+        Long blockTimeoutMillis = getLong(properties, "dispatchBlockTimeoutMillis");
+        if (blockTimeoutMillis != null) {
+            setDispatchBlockTimeoutMillis(blockTimeoutMillis);
+        }
+        Integer deliveryThreads = getInteger(properties, "deliveryThreads");
+        if (deliveryThreads != null) {
+            setDeliveryThreads(deliveryThreads);
+        }
+        Integer deliveryQueueCapacity = getInteger(properties, "deliveryQueueCapacity");
+        if (deliveryQueueCapacity != null) {
+            setDeliveryQueueCapacity(deliveryQueueCapacity);
+        }
+        Integer deliveryBatchSize = getInteger(properties, "deliveryBatchSize");
+        if (deliveryBatchSize != null) {
+            setDeliveryBatchSize(deliveryBatchSize);
+        }
+        Integer deliveryMaxRetries = getInteger(properties, "deliveryMaxRetries");
+        if (deliveryMaxRetries != null) {
+            setDeliveryMaxRetries(deliveryMaxRetries);
+        }
+        Long initialBackoffMillis = getLong(properties, "deliveryInitialBackoffMillis");
+        if (initialBackoffMillis != null) {
+            setDeliveryInitialBackoffMillis(initialBackoffMillis);
+        }
+        Long maxBackoffMillis = getLong(properties, "deliveryMaxBackoffMillis");
+        if (maxBackoffMillis != null) {
+            setDeliveryMaxBackoffMillis(maxBackoffMillis);
+        }
+
+        refreshDispatchExecutor();
+    }
+
+    /**
+     * To be set via Spring/Blueprint. Takes effect when the configuration is applied, see
+     * {@link #updated(Map)}.
+     *
+     * @param dispatchThreads
+     *            number of threads dispatching catalog events to subscriptions
+     */
+    public void setDispatchThreads(int dispatchThreads) {
+        if (dispatchThreads < 1) {
+            LOGGER.debug("Invalid dispatch threads input. Keeping current value: {}",
+                    this.dispatchThreads);
+        } else {
+            this.dispatchThreads = dispatchThreads;
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint. Takes effect when the configuration is applied, see
+     * {@link #updated(Map)}.
+     *
+     * @param dispatchQueueCapacity
+     *            maximum number of catalog events waiting for each dispatch thread
+     */
+    public void setDispatchQueueCapacity(int dispatchQueueCapacity) {
+        if (dispatchQueueCapacity < 1) {
+            LOGGER.debug("Invalid dispatch queue capacity input. Keeping current value: {}",
+                    this.dispatchQueueCapacity);
+        } else {
+            this.dispatchQueueCapacity = dispatchQueueCapacity;
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint. Takes effect when the configuration is applied, see
+     * {@link #updated(Map)}.
+     *
+     * @param dispatchBatchSize
+     *            maximum number of catalog events a dispatch thread processes together
+     */
+    public void setDispatchBatchSize(int dispatchBatchSize) {
+        if (dispatchBatchSize < 1) {
+            LOGGER.debug("Invalid dispatch batch size input. Keeping current value: {}",
+                    this.dispatchBatchSize);
+        } else {
+            this.dispatchBatchSize = dispatchBatchSize;
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param dispatchOverflowPolicy
+     *            one of {@code BLOCK}, the default, {@code CALLER_RUNS} or {@code DROP_OLDEST},
+     *            applied when a dispatch queue is full
+     */
+    public synchronized void setDispatchOverflowPolicy(String dispatchOverflowPolicy) {
+        this.dispatchOverflowPolicy = OverflowPolicy
+                .fromString(dispatchOverflowPolicy, OverflowPolicy.BLOCK);
+        if (dispatchExecutor != null) {
+            dispatchExecutor.setOverflowPolicy(this.dispatchOverflowPolicy);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param dispatchBlockTimeoutMillis
+     *            maximum time the catalog waits for room in a full dispatch queue with the
+     *            {@code BLOCK} overflow policy
+     */
+    public synchronized void setDispatchBlockTimeoutMillis(long dispatchBlockTimeoutMillis) {
+        this.dispatchBlockTimeoutMillis = Math.max(0, dispatchBlockTimeoutMillis);
+        if (dispatchExecutor != null) {
+            dispatchExecutor.setBlockTimeoutMillis(this.dispatchBlockTimeoutMillis);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param deliveryThreads
+     *            number of threads delivering matched entries to subscriptions
+     */
+    public synchronized void setDeliveryThreads(int deliveryThreads) {
+        if (deliveryThreads > 0) {
+            this.deliveryThreads = deliveryThreads;
+            if (deliveryExecutor != null) {
+                deliveryExecutor.setThreads(deliveryThreads);
+            }
+        } else {
+            LOGGER.debug("Invalid delivery threads input. Keeping current value: {}",
+                    this.deliveryThreads);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param deliveryQueueCapacity
+     *            maximum number of entries waiting to be delivered to each subscription, the
+     *            oldest waiting entry is dropped when a subscription's queue is full
+     */
+    public synchronized void setDeliveryQueueCapacity(int deliveryQueueCapacity) {
+        if (deliveryQueueCapacity > 0) {
+            this.deliveryQueueCapacity = deliveryQueueCapacity;
+            if (deliveryExecutor != null) {
+                deliveryExecutor.setQueueCapacity(deliveryQueueCapacity);
+            }
+        } else {
+            LOGGER.debug("Invalid delivery queue capacity input. Keeping current value: {}",
+                    this.deliveryQueueCapacity);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param deliveryBatchSize
+     *            maximum number of entries delivered at once to a subscription whose delivery
+     *            method is a {@link ddf.catalog.event.BatchDeliveryMethod}
+     */
+    public synchronized void setDeliveryBatchSize(int deliveryBatchSize) {
+        if (deliveryBatchSize > 0) {
+            this.deliveryBatchSize = deliveryBatchSize;
+            if (deliveryExecutor != null) {
+                deliveryExecutor.setBatchSize(deliveryBatchSize);
+            }
+        } else {
+            LOGGER.debug("Invalid delivery batch size input. Keeping current value: {}",
+                    this.deliveryBatchSize);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param deliveryMaxRetries
+     *            number of times a failed delivery is retried before its entries are dropped
+     */
+    public synchronized void setDeliveryMaxRetries(int deliveryMaxRetries) {
+        this.deliveryMaxRetries = Math.max(0, deliveryMaxRetries);
+        if (deliveryExecutor != null) {
+            deliveryExecutor.setMaxRetries(this.deliveryMaxRetries);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param deliveryInitialBackoffMillis
+     *            time to wait before retrying a failed delivery the first time, doubled for every
+     *            following retry
+     */
+    public synchronized void setDeliveryInitialBackoffMillis(long deliveryInitialBackoffMillis) {
+        this.deliveryInitialBackoffMillis = Math.max(0, deliveryInitialBackoffMillis);
+        if (deliveryExecutor != null) {
+            deliveryExecutor.setInitialBackoffMillis(this.deliveryInitialBackoffMillis);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param deliveryMaxBackoffMillis
+     *            maximum time to wait between retries of a failed delivery
+     */
+    public synchronized void setDeliveryMaxBackoffMillis(long deliveryMaxBackoffMillis) {
+        this.deliveryMaxBackoffMillis = Math.max(0, deliveryMaxBackoffMillis);
+        if (deliveryExecutor != null) {
+            deliveryExecutor.setMaxBackoffMillis(this.deliveryMaxBackoffMillis);
+        }
+    }
+
+    /**
+     * Replaces the dispatch executor if the configured threads, queue capacity or batch size
+     * differ from the current executor's. Events already queued on the current executor are
+     * dispatched before any event queued on the new one. Before {@link #init()} the
+     * configuration is only stored.
+     */
+    synchronized void refreshDispatchExecutor() {
+        PubSubDispatchExecutor<CatalogEvent> current = dispatchExecutor;
+        if (current == null) {
+            return;
+        }
+        if (dispatchThreads == current.getThreads()
+                && dispatchQueueCapacity == current.getQueueCapacity()
+                && dispatchBatchSize == current.getBatchSize()) {
+            return;
+        }
+
+        dispatchExecutor = current.reconfigure(dispatchThreads, dispatchQueueCapacity,
+                dispatchBatchSize);
+        dispatchMetrics.setExecutor(dispatchExecutor);
+        current.shutdown(DISPATCH_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static Integer getInteger(Map<String, Object> properties, String key) {
+        Object value = properties.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        } else if (value != null) {
+            try {
+                return Integer.valueOf(value.toString().trim());
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Invalid {} input [{}], keeping current value", key, value);
+            }
+        }
+        return null;
+    }
+
+    private static Long getLong(Map<String, Object> properties, String key) {
+        Object value = properties.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value != null) {
+            try {
+                return Long.valueOf(value.toString().trim());
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Invalid {} input [{}], keeping current value", key, value);
+            }
+        }
+        return null;
+    }
+
     /**
      * By default the Felix EventAdmin implementation has a timeout of 5000 ms. Your event handler
      * has to return from the handle event method in this time frame. If it does not, it gets
-     * Blacklisted. Therefore, this method processes its events in a separate thread than the
-     * EventAdmin who called it.
+     * Blacklisted. Therefore, this method queues its events on a bounded pool of dispatch threads
+     * rather than processing them on the thread of the EventAdmin who called it. Events for the
+     * same metacard are dispatched in the order they are received.
      */
     public void handleEvent(Event event) {
         String methodName = "handleEvent";
@@ -231,12 +679,15 @@ public void handleEvent(Event event) {
 
         LOGGER.debug("Received event: {}", event.getTopic());
 
-        if (!existingSubscriptions.isEmpty()) {
+        PubSubDispatchExecutor<CatalogEvent> executor = dispatchExecutor;
+        if (executor == null) {
+            LOGGER.debug("Event processor has not been initialized, ignoring event");
+        } else if (dispatcher.hasSubscriptions()) {
             String topic = event.getTopic();
             Metacard entry = (Metacard) event.getProperty(EventProcessor.EVENT_METACARD);
             LOGGER.debug("metacard ID = {}", entry.getId());
 
-            new PubSubThread(entry, topic, eventAdmin).start();
+            executor.execute(entry.getId(), new CatalogEvent(entry, topic));
         } else {
             LOGGER.debug(
                     "No existing subscriptions, so no need to handle event since there is no one listening ...");
@@ -270,6 +721,11 @@ public void createSubscription(Subscription subscription, String subscriptionId)
         LOGGER.info("Creating Evaluation Criteria... ");
 
         try {
+            SubscriptionDeliveryExecutor delivery = deliveryExecutor;
+            if (delivery == null) {
+                throw new IllegalStateException("Event processor has not been initialized");
+            }
+
             for (PreSubscriptionPlugin plugin : preSubscription) {
                 LOGGER.debug("Processing subscription with preSubscription plugin");
                 subscription = plugin.process(subscription);
@@ -279,16 +735,12 @@ public void createSubscription(Subscription subscription, String subscriptionId)
             Predicate finalPredicate = (Predicate) subscription.accept(visitor, null);
             LOGGER.debug("predicate from filter visitor: {}", finalPredicate);
 
-            String[] topics = new String[] {PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME};
-
-            Dictionary<String, String[]> props = new Hashtable<String, String[]>();
-            props.put(EventConstants.EVENT_TOPIC, topics);
-            ServiceRegistration serviceRegistration = bundleContext
-                    .registerService(EventHandler.class.getName(),
-                            new PublishedEventHandler(finalPredicate, subscription, preDelivery,
-                                    catalog), props);
-
-            existingSubscriptions.put(subscriptionId, serviceRegistration);
+            DeliveryProcessor deliveryProcessor = new DeliveryProcessor(subscription,
+                    preDelivery);
+            dispatcher.addSubscription(subscriptionId, finalPredicate,
+                    new PublishedEventHandler(finalPredicate, subscription, preDelivery,
+                            catalog,
+                            delivery.addSubscription(subscriptionId, deliveryProcessor)));
 
             LOGGER.debug("Subscription {} created.", subscriptionId);
         } catch (Exception e) {
@@ -326,12 +778,12 @@ public void deleteSubscription(String subscriptionId) throws SubscriptionNotFoun
 
         try {
             LOGGER.info("Removing subscription: {}", subscriptionId);
-            ServiceRegistration sr = (ServiceRegistration) existingSubscriptions
-                    .get(subscriptionId);
-            if (sr != null) {
-                sr.unregister();
+            SubscriptionDeliveryExecutor delivery = deliveryExecutor;
+            if (delivery != null) {
+                delivery.removeSubscription(subscriptionId);
+            }
+            if (dispatcher.removeSubscription(subscriptionId)) {
                 LOGGER.debug("Removal complete");
-                existingSubscriptions.remove(subscriptionId);
             } else {
                 LOGGER.info("Unable to find existing subscription: {}.  May already be deleted.",
                         subscriptionId);
@@ -442,4 +894,16 @@ public static enum DateType {
         modified, effective, expiration, created
     }
 
+    private static class CatalogEvent {
+
+        private final Metacard entry;
+
+        private final String topic;
+
+        CatalogEvent(Metacard entry, String topic) {
+            this.entry = entry;
+            this.topic = topic;
+        }
+    }
+
 }
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import java.util.Map;
+
+/**
+ * Exposes the state of the executors that dispatch catalog events and deliver matched entries
+ * to subscriptions.
+ */
+public interface PubSubDispatchMetricsMBean {
+
+    String OBJECTNAME = "ddf.catalog.pubsub.EventProcessorImpl:service=dispatch-metrics";
+
+    /**
+     * @return number of events waiting to be dispatched
+     */
+    int getQueueDepth();
+
+    /**
+     * @return maximum number of events that can wait for each worker thread
+     */
+    int getQueueCapacity();
+
+    /**
+     * @return number of worker threads dispatching events
+     */
+    int getThreads();
+
+    /**
+     * @return maximum number of events dispatched together by a worker thread
+     */
+    int getBatchSize();
+
+    /**
+     * @return name of the policy applied when a dispatch queue is full
+     */
+    String getOverflowPolicy();
+
+    /**
+     * @return number of events submitted for dispatch
+     */
+    long getSubmittedEvents();
+
+    /**
+     * @return number of events dispatched
+     */
+    long getDispatchedEvents();
+
+    /**
+     * @return number of batches dispatched by the worker threads
+     */
+    long getDispatchedBatches();
+
+    /**
+     * @return number of events dropped because a dispatch queue was full
+     */
+    long getDroppedEvents();
+
+    /**
+     * @return number of events dispatched by the submitting thread because a queue was full
+     */
+    long getCallerRunsEvents();
+
+    /**
+     * @return time between the most recently dispatched event being submitted and dispatched, in
+     * milliseconds
+     */
+    double getLastDispatchLatencyMillis();
+
+    /**
+     * @return average time between an event being submitted and dispatched, in milliseconds
+     */
+    double getAverageDispatchLatencyMillis();
+
+    /**
+     * @return number of threads delivering entries to subscriptions
+     */
+    int getDeliveryThreads();
+
+    /**
+     * @return number of entries waiting to be delivered to all of the subscriptions
+     */
+    int getPendingDeliveries();
+
+    /**
+     * @return number of entries delivered to subscriptions
+     */
+    long getDeliveredEntries();
+
+    /**
+     * @return number of entries dropped after their delivery failed too many times
+     */
+    long getFailedDeliveries();
+
+    /**
+     * @return number of entries dropped because a subscription's delivery queue was full or the
+     * subscription was removed
+     */
+    long getDroppedDeliveries();
+
+    /**
+     * @return number of entries dropped because a subscription's delivery queue was full, also
+     * counted by {@link #getDroppedDeliveries()}
+     */
+    long getOverflowedDeliveries();
+
+    /**
+     * @return number of times a failed delivery was retried
+     */
+    long getDeliveryRetries();
+
+    /**
+     * @return age of the oldest entry waiting to be delivered to any subscription, in
+     * milliseconds
+     */
+    long getMaxDeliveryLagMillis();
+
+    /**
+     * @return number of entries waiting to be delivered, by subscription id
+     */
+    Map<String, Integer> getPendingDeliveriesBySubscription();
+
+    /**
+     * @return age of the oldest entry waiting to be delivered in milliseconds, by subscription id
+     */
+    Map<String, Long> getDeliveryLagMillisBySubscription();
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import java.util.Collection;
+
+import org.osgi.service.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.pubsub.internal.SubscriptionIndex;
+import ddf.catalog.pubsub.predicate.Predicate;
+
+/**
+ * Hands each published catalog event to the {@link PublishedEventHandler}s of the subscriptions
+ * it could match, as found by a {@link SubscriptionIndex}, rather than to every subscription.
+ * <p>
+ * Events are evaluated on the thread that calls {@link #evaluate(Event)}, which is one of the
+ * {@link EventProcessorImpl}'s dispatch threads. Evaluation is therefore bounded by the dispatch
+ * queues and their overflow policy, shows up in the dispatch metrics, and keeps the events for
+ * the same metacard in order.
+ */
+public class PublishedEventDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublishedEventDispatcher.class);
+
+    private final SubscriptionIndex<PublishedEventHandler> subscriptionIndex = new SubscriptionIndex<PublishedEventHandler>();
+
+    public void addSubscription(String subscriptionId, Predicate predicate,
+            PublishedEventHandler handler) {
+        subscriptionIndex.add(subscriptionId, predicate, handler);
+    }
+
+    /**
+     * @return true if the subscription was registered
+     */
+    public boolean removeSubscription(String subscriptionId) {
+        return subscriptionIndex.remove(subscriptionId) != null;
+    }
+
+    public boolean hasSubscriptions() {
+        return !subscriptionIndex.isEmpty();
+    }
+
+    /**
+     * @return true if any subscription has contextual criteria
+     */
+    public boolean hasContextualSubscriptions() {
+        return subscriptionIndex.hasContextualSubscriptions();
+    }
+
+    /**
+     * Evaluates the event against its candidate subscriptions on the calling thread.
+     */
+    public void evaluate(Event event) {
+        Collection<PublishedEventHandler> candidates = subscriptionIndex.getCandidates(event);
+        LOGGER.debug("Evaluating event against {} candidate subscriptions", candidates.size());
+
+        for (PublishedEventHandler handler : candidates) {
+            try {
+                handler.handleEvent(event);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error evaluating event against subscription", e);
+            }
+        }
+    }
+
+}
@@ -28,6 +28,7 @@
 import ddf.catalog.plugin.PreDeliveryPlugin;
 import ddf.catalog.pubsub.internal.DeliveryProcessor;
 import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.internal.SubscriptionDeliveryExecutor.DeliveryQueue;
 import ddf.catalog.pubsub.predicate.Predicate;
 
 public class PublishedEventHandler implements EventHandler {
@@ -41,12 +42,26 @@ public class PublishedEventHandler implements EventHandler {
 
     private CatalogFramework catalog;
 
+    private DeliveryQueue deliveryQueue;
+
     public PublishedEventHandler(Predicate finalPredicate, Subscription subscription,
             List<PreDeliveryPlugin> preDelivery, CatalogFramework catalog) {
+        this(finalPredicate, subscription, preDelivery, catalog, null);
+    }
+
+    /**
+     * @param deliveryQueue
+     *            queue that delivers matched entries to the subscription, or null to deliver them
+     *            on the thread that handles the event
+     */
+    public PublishedEventHandler(Predicate finalPredicate, Subscription subscription,
+            List<PreDeliveryPlugin> preDelivery, CatalogFramework catalog,
+            DeliveryQueue deliveryQueue) {
         this.predicate = finalPredicate;
         this.subscription = subscription;
         this.preDelivery = preDelivery;
         this.catalog = catalog;
+        this.deliveryQueue = deliveryQueue;
     }
 
     public void handleEvent(Event event) {
@@ -117,9 +132,19 @@ private void evaluateEvent(Event event) {
         if (predicate == null) {
             LOGGER.debug(
                     "predicate is NULL (must be filterless subscription), publishing all events");
-            new DeliveryProcessor(subscription, preDelivery).process(event);
+            deliver(event);
         // Otherwise, only send events that match the predicate's filter criteria
         } else if (predicate.matches(event)) {
+            deliver(event);
+        }
+    }
+
+    private void deliver(Event event) {
+        if (deliveryQueue != null) {
+            Metacard entry = (Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY);
+            String operation = event.getProperty(PubSubConstants.HEADER_OPERATION_KEY).toString();
+            deliveryQueue.enqueue(operation, entry);
+        } else {
             new DeliveryProcessor(subscription, preDelivery).process(event);
         }
     }
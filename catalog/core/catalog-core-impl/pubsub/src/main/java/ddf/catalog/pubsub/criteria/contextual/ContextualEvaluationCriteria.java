@@ -14,7 +14,8 @@
 
 package ddf.catalog.pubsub.criteria.contextual;
 
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.Query;
 
 public interface ContextualEvaluationCriteria {
 
@@ -23,7 +24,7 @@ public interface ContextualEvaluationCriteria {
      *
      * @return
      */
-    public Directory getIndex();
+    public MemoryIndex getIndex();
 
     /**
      * The search phrase which forms the criteria to search over the document
@@ -32,6 +33,13 @@ public interface ContextualEvaluationCriteria {
      */
     public String getCriteria();
 
+    /**
+     * The search phrase parsed into a Lucene query
+     *
+     * @return the query, or null if the search phrase has to be parsed when evaluated
+     */
+    public Query getQuery();
+
     public boolean isFuzzy();
 
     public boolean isCaseSensitiveSearch();
@@ -16,7 +16,8 @@
 
 import java.io.IOException;
 
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,10 +35,12 @@ public class ContextualEvaluationCriteriaImpl implements ContextualEvaluationCri
 
     private String metadata;
 
-    private Directory index;
+    private MemoryIndex index;
+
+    private Query query;
 
     public ContextualEvaluationCriteriaImpl(String criteria, boolean fuzzy,
-            boolean caseSensitiveSearch, Directory index) {
+            boolean caseSensitiveSearch, MemoryIndex index) {
         super();
         this.criteria = criteria;
         this.fuzzy = fuzzy;
@@ -73,10 +76,21 @@ public String getCriteria() {
         return criteria;
     }
 
-    public Directory getIndex() {
+    public MemoryIndex getIndex() {
         return index;
     }
 
+    public Query getQuery() {
+        return query;
+    }
+
+    /**
+     * Sets the query parsed from the search phrase so it does not have to be parsed again.
+     */
+    public void setQuery(Query query) {
+        this.query = query;
+    }
+
     public boolean isFuzzy() {
         return fuzzy;
     }
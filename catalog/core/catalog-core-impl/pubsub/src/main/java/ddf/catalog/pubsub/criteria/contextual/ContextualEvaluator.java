@@ -17,7 +17,9 @@
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
@@ -26,16 +28,18 @@
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.TermAttribute;
-import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
-import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.queryParser.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Version;
 import org.slf4j.LoggerFactory;
 import org.slf4j.ext.XLogger;
@@ -66,6 +70,11 @@ public final class ContextualEvaluator {
             + "/*[local-name()=\"geospatialCoverage\"]/*[local-name()=\"GeospatialExtent\"]"
             + "/*[not(ancestor::node()[local-name()=\"boundingGeometry\"] or descendant-or-self::node()[local-name()=\"boundingGeometry\"])] ";
 
+    private static final ContextualAnalyzer ANALYZER = new ContextualAnalyzer(Version.LUCENE_30);
+
+    private static final CaseSensitiveContextualAnalyzer CASE_SENSITIVE_ANALYZER = new CaseSensitiveContextualAnalyzer(
+            Version.LUCENE_30);
+
     private static final String[] DEFAULT_XPATH_SELECTORS = new String[] {DEFAULT_XPATH_1,
             DEFAULT_XPATH_2};
 
@@ -87,7 +96,7 @@ public static boolean evaluate(ContextualEvaluationCriteria cec)
         String methodName = "evaluate";
         LOGGER.entry(methodName);
 
-        Directory index = cec.getIndex();
+        MemoryIndex index = cec.getIndex();
         String searchPhrase = cec.getCriteria();
 
         // Handle case where no search phrase is specified. Contextual criteria should then specify
@@ -112,61 +121,151 @@ public static boolean evaluate(ContextualEvaluationCriteria cec)
             return false;
         }
 
-        // a. query
+        // a. query, parsed when the subscription was created if available
+        Query q = cec.getQuery();
+        if (q == null) {
+            q = parseQuery(searchPhrase, cec.isCaseSensitiveSearch());
+        }
+
+        // b. search
+        int hitsPerPage = 1;
+        IndexSearcher searcher = index.createSearcher();
+        TopDocs topDocs = searcher.search(q, hitsPerPage);
+
+        // c. display results
+        LOGGER.debug("Found " + topDocs.totalHits + " hits.");
+
+        searcher.close();
+
+        LOGGER.exit(methodName);
+
+        return topDocs.totalHits > 0;
+    }
+
+    /**
+     * Parses a normalized search phrase into a Lucene query against the index built by
+     * {@link #buildIndex(String)}. The query can be reused to evaluate any number of indexes.
+     *
+     * @param searchPhrase
+     *            the normalized search phrase
+     * @param caseSensitive
+     *            true to search the case-sensitive text
+     *
+     * @return the query
+     *
+     * @throws ParseException
+     */
+    public static Query parseQuery(String searchPhrase, boolean caseSensitive)
+            throws ParseException {
         QueryParser queryParser = null;
-        if (cec.isCaseSensitiveSearch()) {
+        if (caseSensitive) {
             LOGGER.debug("Doing case-sensitive search ...");
             queryParser = new QueryParser(Version.LUCENE_30, CASE_SENSITIVE_FIELD_NAME,
-                    new CaseSensitiveContextualAnalyzer(Version.LUCENE_30));
+                    CASE_SENSITIVE_ANALYZER);
 
             // Make Wildcard, Prefix, Fuzzy, and Range queries *not* be automatically lower-cased,
             // i.e., make them be case-sensitive
             queryParser.setLowercaseExpandedTerms(false);
         } else {
             LOGGER.debug("Doing case-insensitive search ...");
-            queryParser = new QueryParser(Version.LUCENE_30, FIELD_NAME,
-                    new ContextualAnalyzer(Version.LUCENE_30));
+            queryParser = new QueryParser(Version.LUCENE_30, FIELD_NAME, ANALYZER);
         }
 
         // Configures Lucene query parser to allow a wildcard as first character in the
         // contextual search phrase
         queryParser.setAllowLeadingWildcard(true);
 
-        Query q = queryParser.parse(searchPhrase);
-
-        // b. search
-        int hitsPerPage = 1;
-        IndexSearcher searcher = new IndexSearcher(index, true);
-        TopDocs topDocs = searcher.search(q, hitsPerPage);
+        return queryParser.parse(searchPhrase);
+    }
 
-        // c. display results
-        LOGGER.debug("Found " + topDocs.totalHits + " hits.");
+    /**
+     * Returns a set of terms such that a case-insensitive query parsed by
+     * {@link #parseQuery(String, boolean)} can only match an index containing at least one of
+     * them.
+     *
+     * @param query
+     *            the case-insensitive query
+     *
+     * @return the terms, or null if the query can match without any specific term being present
+     *         (wildcard, prefix, fuzzy and negated searches)
+     */
+    public static Set<String> getRequiredTerms(Query query) {
+        Set<String> terms = new HashSet<String>();
+
+        if (query instanceof TermQuery) {
+            terms.add(((TermQuery) query).getTerm().text());
+        } else if (query instanceof PhraseQuery) {
+            // every term of the phrase must be present, so any one of them will do
+            Term[] phraseTerms = ((PhraseQuery) query).getTerms();
+            if (phraseTerms.length == 0) {
+                return null;
+            }
+            terms.add(phraseTerms[0].text());
+        } else if (query instanceof BooleanQuery) {
+            // any required clause will do; optional clauses only count when there are no
+            // required clauses, in which case one of them has to match
+            Set<String> shouldTerms = new HashSet<String>();
+            boolean hasMust = false;
+            boolean hasShould = false;
+
+            for (BooleanClause clause : ((BooleanQuery) query).getClauses()) {
+                if (clause.getOccur() == BooleanClause.Occur.MUST_NOT) {
+                    continue;
+                }
 
-        // searcher can only be closed when there
-        // is no need to access the documents any more.
-        searcher.close();
+                Set<String> clauseTerms = getRequiredTerms(clause.getQuery());
+                if (clause.getOccur() == BooleanClause.Occur.MUST) {
+                    if (clauseTerms != null) {
+                        return clauseTerms;
+                    }
+                    hasMust = true;
+                } else {
+                    hasShould = true;
+                    if (shouldTerms != null && clauseTerms != null) {
+                        shouldTerms.addAll(clauseTerms);
+                    } else {
+                        shouldTerms = null;
+                    }
+                }
+            }
 
-        LOGGER.exit(methodName);
+            return hasMust || !hasShould ? null : shouldTerms;
+        } else {
+            return null;
+        }
 
-        return topDocs.totalHits > 0;
+        return terms;
     }
 
     /**
-     * Create a field with the specified field name and value, and add it to a Lucene Document to be
-     * added to the specified IndexWriter.
+     * Returns the case-insensitive terms stored in an index built by {@link #buildIndex(String)}.
+     *
+     * @param index
+     *            the Lucene index
      *
-     * @param indexWriter
-     * @param fieldName
-     * @param value
+     * @return the indexed terms
      *
      * @throws IOException
      */
-    private static void addDoc(IndexWriter indexWriter, String fieldName, String value)
-            throws IOException {
-        Document doc = new Document();
-        doc.add(new Field(fieldName, value, Field.Store.YES, Field.Index.ANALYZED,
-                Field.TermVector.WITH_POSITIONS_OFFSETS));
-        indexWriter.addDocument(doc);
+    public static Set<String> getIndexedTerms(MemoryIndex index) throws IOException {
+        Set<String> terms = new HashSet<String>();
+
+        IndexSearcher searcher = index.createSearcher();
+        TermEnum termEnum = searcher.getIndexReader().terms(new Term(FIELD_NAME, ""));
+        try {
+            do {
+                Term term = termEnum.term();
+                if (term == null || !FIELD_NAME.equals(term.field())) {
+                    break;
+                }
+                terms.add(term.text());
+            } while (termEnum.next());
+        } finally {
+            termEnum.close();
+            searcher.close();
+        }
+
+        return terms;
     }
 
     /**
@@ -181,7 +280,7 @@ private static void addDoc(IndexWriter indexWriter, String fieldName, String val
      *
      * @throws IOException
      */
-    public static Directory buildIndex(String fullDocument) throws IOException {
+    public static MemoryIndex buildIndex(String fullDocument) throws IOException {
         String methodName = "buildIndex (DEFAULT)";
         LOGGER.entry(methodName);
 
@@ -202,49 +301,23 @@ public static Directory buildIndex(String fullDocument) throws IOException {
      *
      * @throws IOException
      */
-    public static Directory buildIndex(String fullDocument, String[] xpathSelectors)
+    public static MemoryIndex buildIndex(String fullDocument, String[] xpathSelectors)
             throws IOException {
         String methodName = "buildIndex";
         LOGGER.entry(methodName);
 
-        // LOGGER.debug( XPathHelper.xmlToString( fullDocument ) );
-
-        // 0. Specify the analyzer for tokenizing text.
-        // The same analyzer should be used for indexing and searching
-        ContextualAnalyzer contextualAnalyzer = new ContextualAnalyzer(Version.LUCENE_30);
-
-        // 1. create the index
-        Directory index = new RAMDirectory();
-
         // Retrieve the text from the document that can be indexed using the specified XPath
         // selectors
         String indexableText = getIndexableText(fullDocument, xpathSelectors);
 
-        // Create an IndexWriter using the case-insensitive StandardAnalyzer
-        // NOTE: the boolean arg in the IndexWriter constructor means to create a new index,
-        // overwriting any existing index
-        IndexWriter indexWriter = new IndexWriter(index, contextualAnalyzer, true,
-                IndexWriter.MaxFieldLength.UNLIMITED);
-        logTokens(indexWriter.getAnalyzer(), FIELD_NAME, fullDocument, "ContextualAnalyzer");
-
-        // Add the indexable text to the case-insensitive index writer, assigning it the
-        // "case-insensitive" field name
-        addDoc(indexWriter, FIELD_NAME, indexableText);
-        indexWriter.close();
-
-        CaseSensitiveContextualAnalyzer caseSensitiveStandardAnalyzer = new CaseSensitiveContextualAnalyzer(
-                Version.LUCENE_30);
-
-        // Create a second IndexWriter using the custom case-sensitive StandardAnalyzer
-        // NOTE: set boolean to false to append the case-sensitive indexed text to the existing
-        // index (populated by first IndexWriter)
-        IndexWriter csIndexWriter = new IndexWriter(index, caseSensitiveStandardAnalyzer, false,
-                IndexWriter.MaxFieldLength.UNLIMITED);
-
-        // Add the indexable text to the case-sensitive index writer, assigning it the
-        // "case-sensitive" field name
-        addDoc(csIndexWriter, CASE_SENSITIVE_FIELD_NAME, indexableText);
-        csIndexWriter.close();
+        logTokens(ANALYZER, FIELD_NAME, fullDocument, "ContextualAnalyzer");
+
+        // The single document is analyzed once into an in-memory index holding the
+        // case-insensitive and the case-sensitive terms in separate fields. The same analyzers
+        // are used for indexing and searching.
+        MemoryIndex index = new MemoryIndex();
+        index.addField(FIELD_NAME, indexableText, ANALYZER);
+        index.addField(CASE_SENSITIVE_FIELD_NAME, indexableText, CASE_SENSITIVE_ANALYZER);
 
         LOGGER.exit(methodName);
 
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.criteria.geospatial;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.operation.distance.DistanceOp;
+
+/**
+ * Subscription geometry prepared once so that it can be evaluated against many catalog entries.
+ * Gives the same results as {@link GeospatialEvaluator#evaluate(GeospatialEvaluationCriteria)},
+ * but each component of the criteria is a JTS {@link PreparedGeometry} and envelopes are
+ * compared before any geometry. For distance criteria the criteria is also buffered by slightly
+ * less than the distance, entries that intersect the buffer are accepted without measuring the
+ * distance.
+ */
+public class PreparedGeospatialCriteria {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreparedGeospatialCriteria.class);
+
+    /**
+     * JTS simplifies the input of a buffer by up to 1% of the buffer distance, which can move the
+     * buffer's boundary out by as much, so the fast accept buffer leaves twice that margin.
+     */
+    private static final double BUFFER_SIMPLIFY_MARGIN = 0.02;
+
+    private final Geometry criteria;
+
+    private final String operation;
+
+    private final SpatialOperator operator;
+
+    private final double distance;
+
+    private final Envelope envelope;
+
+    private final PreparedGeometry[] components;
+
+    private final PreparedGeometry buffer;
+
+    /**
+     * @param criteria
+     *            the subscription geometry
+     * @param operation
+     *            name of a {@link SpatialOperator}, only used when the distance is 0
+     * @param distance
+     *            maximum distance between the criteria and an entry's location, 0 to apply the
+     *            operation instead
+     */
+    public PreparedGeospatialCriteria(Geometry criteria, String operation, double distance) {
+        this.criteria = criteria;
+        this.operation = operation;
+        this.distance = distance;
+
+        if (criteria.isEmpty()) {
+            operator = null;
+            components = null;
+            envelope = null;
+            buffer = null;
+        } else if (distance == 0.0) {
+            operator = getOperator(operation);
+            components = new PreparedGeometry[criteria.getNumGeometries()];
+            for (int i = 0; i < components.length; i++) {
+                components[i] = PreparedGeometryFactory.prepare(criteria.getGeometryN(i));
+            }
+            envelope = criteria.getEnvelopeInternal();
+            buffer = null;
+        } else {
+            operator = null;
+            components = null;
+            envelope = new Envelope(criteria.getEnvelopeInternal());
+            envelope.expandBy(distance);
+            buffer = prepareBuffer(criteria, distance);
+        }
+    }
+
+    /**
+     * @return true if the input geometry satisfies the criteria
+     */
+    public boolean evaluate(Geometry input) {
+        if (input == null) {
+            return false;
+        }
+        if (envelope == null || input.isEmpty()) {
+            // empty geometries have no envelope to compare
+            return GeospatialEvaluator.evaluate(
+                    new GeospatialEvaluationCriteriaImpl(criteria, operation, input, distance));
+        }
+
+        Envelope inputEnvelope = input.getEnvelopeInternal();
+        if (distance != 0.0) {
+            if (!envelope.intersects(inputEnvelope)) {
+                return false;
+            }
+            // the buffer is shrunk by more than JTS's input simplification can grow it, so it
+            // never reaches the distance and anything it touches is within the distance
+            if (buffer != null && buffer.intersects(input)) {
+                return true;
+            }
+            return DistanceOp.distance(input, criteria) <= distance;
+        }
+
+        if (operator == null) {
+            return false;
+        }
+
+        switch (operator) {
+        case CONTAINS:
+            return envelope.contains(inputEnvelope) && contains(input);
+        case OVERLAPS:
+            return envelope.intersects(inputEnvelope) && overlaps(input);
+        default:
+            return false;
+        }
+    }
+
+    // each component of the input must lie entirely within one component of the criteria
+    private boolean contains(Geometry input) {
+        for (int i = 0; i < input.getNumGeometries(); i++) {
+            Geometry inputComponent = input.getGeometryN(i);
+            boolean contained = false;
+            for (PreparedGeometry component : components) {
+                if (component.contains(inputComponent)) {
+                    contained = true;
+                    break;
+                }
+            }
+            if (!contained) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the legacy OVERLAPS corresponds to a JTS intersects of any two components
+    private boolean overlaps(Geometry input) {
+        for (int i = 0; i < input.getNumGeometries(); i++) {
+            Geometry inputComponent = input.getGeometryN(i);
+            for (PreparedGeometry component : components) {
+                if (component.intersects(inputComponent)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static SpatialOperator getOperator(String operation) {
+        if (operation != null) {
+            try {
+                return SpatialOperator.valueOf(operation.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("Unsupported spatial operation {}", operation, e);
+            }
+        }
+        return null;
+    }
+
+    private static PreparedGeometry prepareBuffer(Geometry criteria, double distance) {
+        try {
+            Geometry buffered = criteria.buffer(distance * (1 - BUFFER_SIMPLIFY_MARGIN));
+            if (!buffered.isEmpty()) {
+                return PreparedGeometryFactory.prepare(buffered);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Unable to buffer geospatial criteria, distances will be measured", e);
+        }
+        return null;
+    }
+}
@@ -14,6 +14,8 @@
 
 package ddf.catalog.pubsub.internal;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.osgi.service.event.Event;
@@ -21,6 +23,8 @@
 import org.slf4j.LoggerFactory;
 
 import ddf.catalog.data.Metacard;
+import ddf.catalog.event.BatchDeliveryMethod;
+import ddf.catalog.event.DeliveryMethod;
 import ddf.catalog.event.Subscription;
 import ddf.catalog.operation.Update;
 import ddf.catalog.operation.impl.UpdateImpl;
@@ -48,68 +52,128 @@ public void process(Event event) {
         String operation = event.getProperty(PubSubConstants.HEADER_OPERATION_KEY).toString();
 
         LOGGER.debug("Delivering catalog entry.");
-        if (subscription != null) {
-            if (entry != null) {
+        if (entry != null) {
+            deliver(operation, Collections.singletonList(entry));
+        } else {
+            LOGGER.warn("Could not deliver hit for subscription. Catalog entry is null.");
+        }
+
+        LOGGER.debug("EXITING: {}", methodName);
+    }
+
+    /**
+     * @return true if the subscription's {@link DeliveryMethod} can deliver several metacards at
+     * once
+     */
+    public boolean isBatchDelivery() {
+        return subscription != null
+                && subscription.getDeliveryMethod() instanceof BatchDeliveryMethod;
+    }
+
+    /**
+     * Runs the pre-delivery plugins on the entries and delivers the ones the plugins allow to
+     * the subscription, as a single batch when the {@link DeliveryMethod} is a
+     * {@link BatchDeliveryMethod}. Exceptions thrown by the {@link DeliveryMethod} are passed on to
+     * the caller so that the delivery can be retried.
+     *
+     * @param operation
+     *            one of {@link PubSubConstants#CREATE}, {@link PubSubConstants#UPDATE} or
+     *            {@link PubSubConstants#DELETE}
+     * @param entries
+     *            the entries to deliver, in the order they should be delivered
+     */
+    public void deliver(String operation, List<Metacard> entries) {
+        if (subscription == null) {
+            LOGGER.warn("Could not deliver hit for subscription. Subscription is null.");
+            return;
+        }
+
+        List<Metacard> deliverable = new ArrayList<Metacard>(entries.size());
+        for (Metacard entry : entries) {
+            Metacard processed = processPreDelivery(operation, entry);
+            if (processed != null) {
+                deliverable.add(processed);
+            }
+        }
+
+        if (deliverable.isEmpty()) {
+            return;
+        }
+
+        DeliveryMethod deliveryMethod = subscription.getDeliveryMethod();
+        if (deliverable.size() > 1 && deliveryMethod instanceof BatchDeliveryMethod) {
+            BatchDeliveryMethod batchDeliveryMethod = (BatchDeliveryMethod) deliveryMethod;
+            if (operation.equalsIgnoreCase(PubSubConstants.CREATE)) {
+                batchDeliveryMethod.created(deliverable);
+            } else if (operation.equalsIgnoreCase(PubSubConstants.UPDATE)) {
+                batchDeliveryMethod.updatedHit(deliverable, deliverable);
+            } else {
+                batchDeliveryMethod.deleted(deliverable);
+            }
+        } else {
+            for (Metacard entry : deliverable) {
                 if (operation.equalsIgnoreCase(PubSubConstants.CREATE)) {
-                    try {
-                        for (PreDeliveryPlugin plugin : preDelivery) {
-                            LOGGER.debug("Processing 'created' entry with preDelivery plugin");
-                            entry = plugin.processCreate(entry);
-                        }
-                        subscription.getDeliveryMethod().created(entry);
-                    } catch (PluginExecutionException e) {
-                        LOGGER.debug(
-                                "Plugin had exception during execution - still delivering the entry",
-                                e);
-                        subscription.getDeliveryMethod().created(entry);
-                    } catch (StopProcessingException e) {
-                        LOGGER.error("Pre-delivery plugin determined entry cannot be delivered", e);
-                    }
+                    deliveryMethod.created(entry);
                 } else if (operation.equalsIgnoreCase(PubSubConstants.UPDATE)) {
-                    // TODO: Handle hit or miss
-                    try {
-                        for (PreDeliveryPlugin plugin : preDelivery) {
-                            LOGGER.debug("Processing 'updated' entry with preDelivery plugin");
-                            Update updatedEntry = plugin
-                                    .processUpdateHit(new UpdateImpl(entry, null));
-                            entry = updatedEntry.getNewMetacard();
-                        }
-                        subscription.getDeliveryMethod().updatedHit(entry, entry);
-                    } catch (PluginExecutionException e) {
-                        LOGGER.debug(
-                                "Plugin had exception during execution - still delivering the entry",
-                                e);
-                        subscription.getDeliveryMethod().updatedHit(entry, entry);
-                    } catch (StopProcessingException e) {
-                        LOGGER.error("Pre-delivery plugin determined entry cannot be delivered", e);
-                    }
-                } else if (operation.equalsIgnoreCase(PubSubConstants.DELETE)) {
-
-                    try {
-                        for (PreDeliveryPlugin plugin : preDelivery) {
-                            LOGGER.debug("Processing 'deleted' entry with preDelivery plugin");
-                            entry = plugin.processCreate(entry);
-                        }
-                        subscription.getDeliveryMethod().deleted(entry);
-                    } catch (PluginExecutionException e) {
-                        LOGGER.debug(
-                                "Plugin had exception during execution - still delivering the entry",
-                                e);
-                        subscription.getDeliveryMethod().deleted(entry);
-                    } catch (StopProcessingException e) {
-                        LOGGER.error("Pre-delivery plugin determined entry cannot be delivered", e);
-                    }
+                    deliveryMethod.updatedHit(entry, entry);
                 } else {
-                    LOGGER.warn("Could not deliver hit for subscription.");
+                    deliveryMethod.deleted(entry);
                 }
-            } else {
-                LOGGER.warn("Could not deliver hit for subscription. Catalog entry is null.");
             }
-        } else {
-            LOGGER.warn("Could not deliver hit for subscription. Subscription is null.");
         }
+    }
 
-        LOGGER.debug("EXITING: {}", methodName);
+    /**
+     * @return the entry as processed by the pre-delivery plugins, or null if it must not be
+     * delivered
+     */
+    private Metacard processPreDelivery(String operation, Metacard entry) {
+        if (operation.equalsIgnoreCase(PubSubConstants.CREATE)) {
+            try {
+                for (PreDeliveryPlugin plugin : preDelivery) {
+                    LOGGER.debug("Processing 'created' entry with preDelivery plugin");
+                    entry = plugin.processCreate(entry);
+                }
+            } catch (PluginExecutionException e) {
+                LOGGER.debug("Plugin had exception during execution - still delivering the entry",
+                        e);
+            } catch (StopProcessingException e) {
+                LOGGER.error("Pre-delivery plugin determined entry cannot be delivered", e);
+                return null;
+            }
+        } else if (operation.equalsIgnoreCase(PubSubConstants.UPDATE)) {
+            // TODO: Handle hit or miss
+            try {
+                for (PreDeliveryPlugin plugin : preDelivery) {
+                    LOGGER.debug("Processing 'updated' entry with preDelivery plugin");
+                    Update updatedEntry = plugin.processUpdateHit(new UpdateImpl(entry, null));
+                    entry = updatedEntry.getNewMetacard();
+                }
+            } catch (PluginExecutionException e) {
+                LOGGER.debug("Plugin had exception during execution - still delivering the entry",
+                        e);
+            } catch (StopProcessingException e) {
+                LOGGER.error("Pre-delivery plugin determined entry cannot be delivered", e);
+                return null;
+            }
+        } else if (operation.equalsIgnoreCase(PubSubConstants.DELETE)) {
+            try {
+                for (PreDeliveryPlugin plugin : preDelivery) {
+                    LOGGER.debug("Processing 'deleted' entry with preDelivery plugin");
+                    entry = plugin.processCreate(entry);
+                }
+            } catch (PluginExecutionException e) {
+                LOGGER.debug("Plugin had exception during execution - still delivering the entry",
+                        e);
+            } catch (StopProcessingException e) {
+                LOGGER.error("Pre-delivery plugin determined entry cannot be delivered", e);
+                return null;
+            }
+        } else {
+            LOGGER.warn("Could not deliver hit for subscription.");
+            return null;
+        }
+        return entry;
     }
 
 }
@@ -0,0 +1,473 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of worker threads that dispatches catalog events for subscriptions. Events are
+ * spread over one queue per worker by key, the metacard id, so that events for the same
+ * metacard are dispatched in the order they were submitted. Each worker takes up to the batch
+ * size of waiting events from its queue at a time and hands them to the {@link BatchHandler}
+ * together. When a queue is full the configured {@link OverflowPolicy} decides whether the
+ * oldest waiting event is dropped, the submitting thread dispatches the event itself or the
+ * submitting thread waits for room in the queue. Dropped events are counted and reported with a
+ * warning, at most once per {@value #DROP_WARNING_INTERVAL_SECONDS} seconds.
+ *
+ * @param <T>
+ *            type of the events being dispatched
+ */
+public class PubSubDispatchExecutor<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PubSubDispatchExecutor.class);
+
+    private static final AtomicInteger EXECUTOR_NUMBER = new AtomicInteger(1);
+
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    static final long DROP_WARNING_INTERVAL_SECONDS = 10;
+
+    private final BatchHandler<T> handler;
+
+    private final List<Worker> workers;
+
+    private final int queueCapacity;
+
+    private final int batchSize;
+
+    private volatile OverflowPolicy overflowPolicy;
+
+    private volatile long blockTimeoutMillis;
+
+    private volatile boolean running = true;
+
+    private final List<Thread> previousWorkers;
+
+    private final AtomicLong submittedEvents;
+
+    private final AtomicLong dispatchedEvents;
+
+    private final AtomicLong dispatchedBatches;
+
+    private final AtomicLong droppedEvents;
+
+    private final AtomicLong callerRunsEvents;
+
+    private final AtomicLong totalLatencyNanos;
+
+    private final AtomicLong unreportedDrops = new AtomicLong();
+
+    private final AtomicLong lastDropWarningNanos = new AtomicLong();
+
+    private volatile long lastLatencyNanos;
+
+    /**
+     * @param threads
+     *            number of worker threads, each with its own queue
+     * @param queueCapacity
+     *            maximum number of events waiting in each worker's queue
+     * @param batchSize
+     *            maximum number of events handed to the {@link BatchHandler} at once
+     * @param overflowPolicy
+     *            policy applied when a queue is full
+     * @param blockTimeoutMillis
+     *            maximum time to wait for room in a queue with {@link OverflowPolicy#BLOCK}
+     * @param handler
+     *            dispatches the events
+     */
+    public PubSubDispatchExecutor(int threads, int queueCapacity, int batchSize,
+            OverflowPolicy overflowPolicy, long blockTimeoutMillis, BatchHandler<T> handler) {
+        this(threads, queueCapacity, batchSize, overflowPolicy, blockTimeoutMillis, handler,
+                null);
+    }
+
+    private PubSubDispatchExecutor(int threads, int queueCapacity, int batchSize,
+            OverflowPolicy overflowPolicy, long blockTimeoutMillis, BatchHandler<T> handler,
+            PubSubDispatchExecutor<T> previous) {
+        if (threads < 1 || queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException(
+                    "Threads, queue capacity and batch size must be greater than zero");
+        }
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.handler = handler;
+
+        if (previous == null) {
+            previousWorkers = Collections.emptyList();
+            submittedEvents = new AtomicLong();
+            dispatchedEvents = new AtomicLong();
+            dispatchedBatches = new AtomicLong();
+            droppedEvents = new AtomicLong();
+            callerRunsEvents = new AtomicLong();
+            totalLatencyNanos = new AtomicLong();
+        } else {
+            List<Thread> previousThreads = new ArrayList<Thread>(previous.workers.size());
+            for (Worker worker : previous.workers) {
+                previousThreads.add(worker.thread);
+            }
+            previousWorkers = previousThreads;
+            submittedEvents = previous.submittedEvents;
+            dispatchedEvents = previous.dispatchedEvents;
+            dispatchedBatches = previous.dispatchedBatches;
+            droppedEvents = previous.droppedEvents;
+            callerRunsEvents = previous.callerRunsEvents;
+            totalLatencyNanos = previous.totalLatencyNanos;
+        }
+
+        int executorNumber = EXECUTOR_NUMBER.getAndIncrement();
+        List<Worker> workerList = new ArrayList<Worker>(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(
+                    "pubsub-dispatch-" + executorNumber + "-" + (i + 1));
+            workerList.add(worker);
+        }
+        workers = Collections.unmodifiableList(workerList);
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Creates an executor with a new number of threads, queue capacity and batch size that
+     * replaces this one. The new executor keeps this executor's overflow policy, block timeout
+     * and counters, and does not dispatch queued events until this executor's workers have
+     * finished, so that events for the same metacard stay in order across the change. The caller
+     * submits new events to the returned executor and then shuts this one down.
+     */
+    public PubSubDispatchExecutor<T> reconfigure(int threads, int queueCapacity, int batchSize) {
+        return new PubSubDispatchExecutor<T>(threads, queueCapacity, batchSize, overflowPolicy,
+                blockTimeoutMillis, handler, this);
+    }
+
+    /**
+     * Queues an event to be dispatched after every event previously submitted with the same key.
+     *
+     * @param key
+     *            ordering key of the event, may be null
+     * @param event
+     *            event to dispatch
+     */
+    public void execute(Object key, T event) {
+        Pending<T> pending = new Pending<T>(event);
+        if (!running) {
+            LOGGER.debug("Dispatch executor is shut down, dropping event");
+            dropped(1);
+            return;
+        }
+
+        submittedEvents.incrementAndGet();
+        BlockingQueue<Pending<T>> queue = getWorker(key).queue;
+        if (queue.offer(pending)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+        case CALLER_RUNS:
+            callerRunsEvents.incrementAndGet();
+            dispatch(Collections.singletonList(pending));
+            break;
+        case BLOCK:
+            try {
+                if (!queue.offer(pending, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    LOGGER.debug("Timed out waiting for room in the dispatch queue");
+                    dropped(1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped(1);
+            }
+            break;
+        case DROP_OLDEST:
+        default:
+            while (!queue.offer(pending)) {
+                if (queue.poll() != null) {
+                    dropped(1);
+                }
+            }
+            break;
+        }
+    }
+
+    /**
+     * Stops accepting events and waits up to the timeout for the events already queued to be
+     * dispatched. Events still queued after the timeout are dropped.
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(
+                        Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.thread.isAlive()) {
+                worker.thread.interrupt();
+            }
+        }
+    }
+
+    public boolean isShutdown() {
+        return !running;
+    }
+
+    public int getThreads() {
+        return workers.size();
+    }
+
+    /**
+     * @return maximum number of events waiting in each worker's queue
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getBlockTimeoutMillis() {
+        return blockTimeoutMillis;
+    }
+
+    public void setBlockTimeoutMillis(long blockTimeoutMillis) {
+        this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    /**
+     * @return number of events waiting in all of the worker queues
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Worker worker : workers) {
+            depth += worker.queue.size();
+        }
+        return depth;
+    }
+
+    public long getSubmittedEvents() {
+        return submittedEvents.get();
+    }
+
+    public long getDispatchedEvents() {
+        return dispatchedEvents.get();
+    }
+
+    public long getDispatchedBatches() {
+        return dispatchedBatches.get();
+    }
+
+    /**
+     * @return number of events dropped because a queue was full or the executor was shut down
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * @return number of events dispatched by the submitting thread because a queue was full
+     */
+    public long getCallerRunsEvents() {
+        return callerRunsEvents.get();
+    }
+
+    /**
+     * @return time between the most recently dispatched event being submitted and dispatched, in
+     * milliseconds
+     */
+    public double getLastDispatchLatencyMillis() {
+        return lastLatencyNanos / 1000000.0;
+    }
+
+    /**
+     * @return average time between an event being submitted and dispatched, in milliseconds
+     */
+    public double getAverageDispatchLatencyMillis() {
+        long dispatched = dispatchedEvents.get();
+        return dispatched == 0 ? 0 : totalLatencyNanos.get() / 1000000.0 / dispatched;
+    }
+
+    /**
+     * Counts dropped events and warns about them, at most once per warning interval so that a
+     * sustained overload does not flood the log.
+     */
+    private void dropped(long count) {
+        long total = droppedEvents.addAndGet(count);
+        unreportedDrops.addAndGet(count);
+        long now = System.nanoTime();
+        long last = lastDropWarningNanos.get();
+        if ((last == 0
+                || now - last >= TimeUnit.SECONDS.toNanos(DROP_WARNING_INTERVAL_SECONDS))
+                && lastDropWarningNanos.compareAndSet(last, now)) {
+            long unreported = unreportedDrops.getAndSet(0);
+            LOGGER.warn("Dropped {} catalog events that could not be queued for subscriptions "
+                            + "({} dropped in total). Increase the dispatch threads or queue "
+                            + "capacity, or use the BLOCK overflow policy.", unreported, total);
+        }
+    }
+
+    private Worker getWorker(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // spread the hash so that similar keys land on different workers
+        hash ^= (hash >>> 16);
+        return workers.get((hash & Integer.MAX_VALUE) % workers.size());
+    }
+
+    private void dispatch(List<Pending<T>> batch) {
+        List<T> events = new ArrayList<T>(batch.size());
+        for (Pending<T> pending : batch) {
+            events.add(pending.event);
+        }
+
+        try {
+            handler.handle(events);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error dispatching {} events", events.size(), e);
+        }
+
+        long now = System.nanoTime();
+        long latency = 0;
+        for (Pending<T> pending : batch) {
+            latency += now - pending.submitted;
+        }
+        totalLatencyNanos.addAndGet(latency);
+        lastLatencyNanos = now - batch.get(batch.size() - 1).submitted;
+        dispatchedEvents.addAndGet(batch.size());
+        dispatchedBatches.incrementAndGet();
+    }
+
+    /**
+     * Dispatches a batch of events taken from one worker queue, in submission order.
+     */
+    public interface BatchHandler<T> {
+        void handle(List<T> events);
+    }
+
+    /**
+     * Policies applied to events submitted while a queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the event that has been waiting the longest and queue the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Dispatch the event on the submitting thread, slowing down the producer. The event may
+         * be dispatched ahead of queued events for the same metacard.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Wait for room in the queue up to the block timeout, then drop the new event.
+         */
+        BLOCK;
+
+        public static OverflowPolicy fromString(String policy, OverflowPolicy defaultPolicy) {
+            if (policy != null) {
+                for (OverflowPolicy value : values()) {
+                    if (value.name().equalsIgnoreCase(policy.trim().replace('-', '_'))) {
+                        return value;
+                    }
+                }
+            }
+            LOGGER.warn("Unknown dispatch overflow policy [{}], using {}", policy,
+                    defaultPolicy);
+            return defaultPolicy;
+        }
+    }
+
+    private static class Pending<T> {
+
+        private final T event;
+
+        private final long submitted = System.nanoTime();
+
+        Pending(T event) {
+            this.event = event;
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<Pending<T>> queue = new ArrayBlockingQueue<Pending<T>>(
+                queueCapacity);
+
+        private final Thread thread;
+
+        Worker(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            for (Thread previous : previousWorkers) {
+                try {
+                    previous.join();
+                } catch (InterruptedException e) {
+                    LOGGER.debug("Dispatch worker {} interrupted", thread.getName());
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            List<Pending<T>> batch = new ArrayList<Pending<T>>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Pending<T> first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    dispatch(batch);
+                } catch (InterruptedException e) {
+                    LOGGER.debug("Dispatch worker {} interrupted", thread.getName());
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    batch.clear();
+                }
+            }
+
+            int remaining = queue.size();
+            if (remaining > 0) {
+                dropped(remaining);
+                queue.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.pubsub.PubSubDispatchMetricsMBean;
+
+/**
+ * Publishes the state of the {@link PubSubDispatchExecutor} and
+ * {@link SubscriptionDeliveryExecutor} used by the event processor as an MBean.
+ */
+public class PubSubDispatchMetrics implements PubSubDispatchMetricsMBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PubSubDispatchMetrics.class);
+
+    private volatile PubSubDispatchExecutor<?> executor;
+
+    private final SubscriptionDeliveryExecutor deliveryExecutor;
+
+    private ObjectName objectName;
+
+    private MBeanServer mbeanServer;
+
+    public PubSubDispatchMetrics(PubSubDispatchExecutor<?> executor,
+            SubscriptionDeliveryExecutor deliveryExecutor) {
+        this.executor = executor;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Replaces the executor being monitored, used when the executor is reconfigured.
+     */
+    public void setExecutor(PubSubDispatchExecutor<?> executor) {
+        this.executor = executor;
+    }
+
+    public void register() {
+        LOGGER.debug("Registering PubSub Dispatch Metrics MBean");
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            objectName = new ObjectName(PubSubDispatchMetricsMBean.OBJECTNAME);
+            try {
+                mbeanServer.registerMBean(
+                        new StandardMBean(this, PubSubDispatchMetricsMBean.class), objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.info("Re-registering PubSub Dispatch Metrics MBean");
+                mbeanServer.unregisterMBean(objectName);
+                mbeanServer.registerMBean(
+                        new StandardMBean(this, PubSubDispatchMetricsMBean.class), objectName);
+            }
+        } catch (MalformedObjectNameException e) {
+            LOGGER.info("Could not create object name", e);
+        } catch (Exception e) {
+            LOGGER.warn("Could not register MBean.", e);
+        }
+    }
+
+    public void unregister() {
+        try {
+            if (objectName != null && mbeanServer != null && mbeanServer
+                    .isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Exception unregistering MBean: ", e);
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueueDepth();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return executor.getQueueCapacity();
+    }
+
+    @Override
+    public int getThreads() {
+        return executor.getThreads();
+    }
+
+    @Override
+    public int getBatchSize() {
+        return executor.getBatchSize();
+    }
+
+    @Override
+    public String getOverflowPolicy() {
+        return executor.getOverflowPolicy().name();
+    }
+
+    @Override
+    public long getSubmittedEvents() {
+        return executor.getSubmittedEvents();
+    }
+
+    @Override
+    public long getDispatchedEvents() {
+        return executor.getDispatchedEvents();
+    }
+
+    @Override
+    public long getDispatchedBatches() {
+        return executor.getDispatchedBatches();
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return executor.getDroppedEvents();
+    }
+
+    @Override
+    public long getCallerRunsEvents() {
+        return executor.getCallerRunsEvents();
+    }
+
+    @Override
+    public double getLastDispatchLatencyMillis() {
+        return executor.getLastDispatchLatencyMillis();
+    }
+
+    @Override
+    public double getAverageDispatchLatencyMillis() {
+        return executor.getAverageDispatchLatencyMillis();
+    }
+
+    @Override
+    public int getDeliveryThreads() {
+        return deliveryExecutor.getThreads();
+    }
+
+    @Override
+    public int getPendingDeliveries() {
+        return deliveryExecutor.getPendingEntries();
+    }
+
+    @Override
+    public long getDeliveredEntries() {
+        return deliveryExecutor.getDeliveredEntries();
+    }
+
+    @Override
+    public long getFailedDeliveries() {
+        return deliveryExecutor.getFailedEntries();
+    }
+
+    @Override
+    public long getDroppedDeliveries() {
+        return deliveryExecutor.getDroppedEntries();
+    }
+
+    @Override
+    public long getOverflowedDeliveries() {
+        return deliveryExecutor.getOverflowedEntries();
+    }
+
+    @Override
+    public long getDeliveryRetries() {
+        return deliveryExecutor.getRetries();
+    }
+
+    @Override
+    public long getMaxDeliveryLagMillis() {
+        return deliveryExecutor.getMaxLagMillis();
+    }
+
+    @Override
+    public Map<String, Integer> getPendingDeliveriesBySubscription() {
+        return deliveryExecutor.getPendingEntriesBySubscription();
+    }
+
+    @Override
+    public Map<String, Long> getDeliveryLagMillisBySubscription() {
+        return deliveryExecutor.getLagMillisBySubscription();
+    }
+}
@@ -0,0 +1,515 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * Delivers matched catalog entries to subscriptions on a bounded pool of threads. Each
+ * subscription has its own bounded {@link DeliveryQueue} that is drained by at most one thread
+ * at a time, so entries are delivered to a subscription in the order they matched and a slow
+ * subscriber only holds up its own deliveries. Waiting entries with the same operation are
+ * delivered together, up to the batch size, when the subscription's delivery method supports
+ * it. Failed deliveries are retried with exponential backoff, without holding a thread, until
+ * the maximum number of retries is reached. Entries dropped because a subscription's queue is
+ * full are counted and reported with a warning, at most once per
+ * {@value PubSubDispatchExecutor#DROP_WARNING_INTERVAL_SECONDS} seconds.
+ */
+public class SubscriptionDeliveryExecutor {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SubscriptionDeliveryExecutor.class);
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final ConcurrentMap<String, DeliveryQueue> queues = new ConcurrentHashMap<String, DeliveryQueue>();
+
+    private volatile int queueCapacity;
+
+    private volatile int batchSize;
+
+    private volatile int maxRetries;
+
+    private volatile long initialBackoffMillis;
+
+    private volatile long maxBackoffMillis;
+
+    private final AtomicLong deliveredEntries = new AtomicLong();
+
+    private final AtomicLong failedEntries = new AtomicLong();
+
+    private final AtomicLong droppedEntries = new AtomicLong();
+
+    private final AtomicLong overflowedEntries = new AtomicLong();
+
+    private final AtomicLong unreportedOverflows = new AtomicLong();
+
+    private final AtomicLong lastOverflowWarningNanos = new AtomicLong();
+
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * @param threads
+     *            number of threads delivering entries
+     * @param queueCapacity
+     *            maximum number of entries waiting to be delivered to each subscription
+     * @param batchSize
+     *            maximum number of entries delivered to a subscription at once
+     * @param maxRetries
+     *            number of times a failed delivery is retried before its entries are dropped
+     * @param initialBackoffMillis
+     *            time to wait before the first retry, doubled for every following retry
+     * @param maxBackoffMillis
+     *            maximum time to wait between retries
+     */
+    public SubscriptionDeliveryExecutor(int threads, int queueCapacity, int batchSize,
+            int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+        scheduler = new ScheduledThreadPoolExecutor(threads, new DeliveryThreadFactory());
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Creates the delivery queue of a subscription, replacing any queue already registered with
+     * the same id.
+     */
+    public DeliveryQueue addSubscription(String subscriptionId, DeliveryProcessor processor) {
+        DeliveryQueue queue = new DeliveryQueue(subscriptionId, processor);
+        DeliveryQueue previous = queues.put(subscriptionId, queue);
+        if (previous != null) {
+            previous.close();
+        }
+        return queue;
+    }
+
+    /**
+     * Removes the delivery queue of a subscription. Entries still waiting to be delivered are
+     * dropped.
+     */
+    public void removeSubscription(String subscriptionId) {
+        DeliveryQueue queue = queues.remove(subscriptionId);
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    public void shutdown() {
+        for (DeliveryQueue queue : queues.values()) {
+            queue.close();
+        }
+        queues.clear();
+        scheduler.shutdownNow();
+    }
+
+    public int getThreads() {
+        return scheduler.getCorePoolSize();
+    }
+
+    public void setThreads(int threads) {
+        scheduler.setCorePoolSize(threads);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public void setInitialBackoffMillis(long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public void setMaxBackoffMillis(long maxBackoffMillis) {
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public int getSubscriptions() {
+        return queues.size();
+    }
+
+    /**
+     * @return number of entries waiting to be delivered to all of the subscriptions
+     */
+    public int getPendingEntries() {
+        int pending = 0;
+        for (DeliveryQueue queue : queues.values()) {
+            pending += queue.getPendingEntries();
+        }
+        return pending;
+    }
+
+    public long getDeliveredEntries() {
+        return deliveredEntries.get();
+    }
+
+    /**
+     * @return number of entries dropped after their delivery failed more than the maximum number
+     * of retries
+     */
+    public long getFailedEntries() {
+        return failedEntries.get();
+    }
+
+    /**
+     * @return number of entries dropped because a subscription's queue was full or the
+     * subscription was removed
+     */
+    public long getDroppedEntries() {
+        return droppedEntries.get();
+    }
+
+    /**
+     * @return number of entries dropped because a subscription's queue was full, also counted by
+     * {@link #getDroppedEntries()}
+     */
+    public long getOverflowedEntries() {
+        return overflowedEntries.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return number of entries waiting to be delivered, by subscription id
+     */
+    public Map<String, Integer> getPendingEntriesBySubscription() {
+        Map<String, Integer> pending = new HashMap<String, Integer>();
+        for (DeliveryQueue queue : queues.values()) {
+            pending.put(queue.subscriptionId, queue.getPendingEntries());
+        }
+        return pending;
+    }
+
+    /**
+     * @return age of the oldest entry waiting to be delivered in milliseconds, by subscription id
+     */
+    public Map<String, Long> getLagMillisBySubscription() {
+        Map<String, Long> lag = new HashMap<String, Long>();
+        for (DeliveryQueue queue : queues.values()) {
+            lag.put(queue.subscriptionId, queue.getLagMillis());
+        }
+        return lag;
+    }
+
+    /**
+     * @return age of the oldest entry waiting to be delivered to any subscription, in
+     * milliseconds
+     */
+    public long getMaxLagMillis() {
+        long max = 0;
+        for (DeliveryQueue queue : queues.values()) {
+            max = Math.max(max, queue.getLagMillis());
+        }
+        return max;
+    }
+
+    private void overflowed(String subscriptionId) {
+        droppedEntries.incrementAndGet();
+        long total = overflowedEntries.incrementAndGet();
+        unreportedOverflows.incrementAndGet();
+        long now = System.nanoTime();
+        long last = lastOverflowWarningNanos.get();
+        if ((last == 0 || now - last >= TimeUnit.SECONDS
+                .toNanos(PubSubDispatchExecutor.DROP_WARNING_INTERVAL_SECONDS))
+                && lastOverflowWarningNanos.compareAndSet(last, now)) {
+            long unreported = unreportedOverflows.getAndSet(0);
+            LOGGER.warn("Dropped {} entries because subscription delivery queues were full ({} "
+                            + "dropped in total, last for subscription {}). Increase the delivery "
+                            + "threads or queue capacity.", unreported, total, subscriptionId);
+        }
+    }
+
+    private long getBackoffMillis(int attempt) {
+        long max = maxBackoffMillis;
+        long backoff = Math.max(0, initialBackoffMillis);
+        for (int i = 1; i < attempt && backoff < max; i++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, max);
+    }
+
+    /**
+     * Entries waiting to be delivered to one subscription.
+     */
+    public class DeliveryQueue implements Runnable {
+
+        private final String subscriptionId;
+
+        private final DeliveryProcessor processor;
+
+        private final Deque<Pending> pending = new ArrayDeque<Pending>();
+
+        private final List<Pending> inFlight = new ArrayList<Pending>();
+
+        private boolean scheduled;
+
+        private boolean closed;
+
+        private int attempts;
+
+        DeliveryQueue(String subscriptionId, DeliveryProcessor processor) {
+            this.subscriptionId = subscriptionId;
+            this.processor = processor;
+        }
+
+        /**
+         * Queues an entry to be delivered after the entries already queued. When the queue is
+         * full the oldest waiting entry is dropped.
+         *
+         * @param operation
+         *            one of {@link PubSubConstants#CREATE}, {@link PubSubConstants#UPDATE} or
+         *            {@link PubSubConstants#DELETE}
+         */
+        public void enqueue(String operation, Metacard entry) {
+            synchronized (this) {
+                if (closed) {
+                    droppedEntries.incrementAndGet();
+                    return;
+                }
+                if (pending.size() >= Math.max(1, queueCapacity)) {
+                    pending.pollFirst();
+                    overflowed(subscriptionId);
+                }
+                pending.addLast(new Pending(operation, entry));
+                if (!scheduled) {
+                    scheduled = true;
+                    execute(0);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean completed = false;
+            boolean retrying = false;
+            try {
+                retrying = deliverBatch();
+                completed = true;
+            } finally {
+                synchronized (this) {
+                    if (!completed && !inFlight.isEmpty()) {
+                        LOGGER.warn("Delivery to subscription {} failed unexpectedly, dropping {} "
+                                + "entries", subscriptionId, inFlight.size());
+                        failedEntries.addAndGet(inFlight.size());
+                        attempts = 0;
+                        inFlight.clear();
+                    }
+                    if (!retrying) {
+                        if (!closed && !pending.isEmpty()) {
+                            // go to the back of the pool's queue so other subscriptions get a turn
+                            execute(0);
+                        } else {
+                            scheduled = false;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Delivers the in flight batch, taking the next one first if there is none.
+         *
+         * @return true if a retry of the batch has been scheduled
+         */
+        private boolean deliverBatch() {
+            String operation;
+            List<Metacard> entries;
+            synchronized (this) {
+                if (closed) {
+                    dropInFlight();
+                    return false;
+                }
+                if (inFlight.isEmpty()) {
+                    takeBatch();
+                }
+                if (inFlight.isEmpty()) {
+                    return false;
+                }
+                operation = inFlight.get(0).operation;
+                entries = new ArrayList<Metacard>(inFlight.size());
+                for (Pending delivery : inFlight) {
+                    entries.add(delivery.entry);
+                }
+            }
+
+            try {
+                processor.deliver(operation, entries);
+                deliveredEntries.addAndGet(entries.size());
+                synchronized (this) {
+                    attempts = 0;
+                    inFlight.clear();
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    if (closed) {
+                        dropInFlight();
+                        return false;
+                    }
+                    attempts++;
+                    if (attempts <= maxRetries) {
+                        long backoff = getBackoffMillis(attempts);
+                        retries.incrementAndGet();
+                        LOGGER.debug("Delivery to subscription {} failed, retry {} in {} ms",
+                                subscriptionId, attempts, backoff, e);
+                        execute(backoff);
+                        return true;
+                    }
+                    LOGGER.warn("Unable to deliver {} entries to subscription {} after {} attempts",
+                            entries.size(), subscriptionId, attempts, e);
+                    failedEntries.addAndGet(entries.size());
+                    attempts = 0;
+                    inFlight.clear();
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves the oldest waiting entries with the same operation into the in flight batch.
+         */
+        private void takeBatch() {
+            int limit = processor.isBatchDelivery() ? Math.max(1, batchSize) : 1;
+            String operation = null;
+            while (inFlight.size() < limit && !pending.isEmpty()) {
+                Pending next = pending.peekFirst();
+                if (operation != null && !operation.equals(next.operation)) {
+                    break;
+                }
+                operation = next.operation;
+                inFlight.add(pending.pollFirst());
+            }
+        }
+
+        private void execute(long delayMillis) {
+            try {
+                scheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("Delivery executor is shut down, dropping deliveries for {}",
+                        subscriptionId);
+                scheduled = false;
+            }
+        }
+
+        synchronized int getPendingEntries() {
+            return pending.size() + inFlight.size();
+        }
+
+        synchronized long getLagMillis() {
+            Pending oldest = inFlight.isEmpty() ? pending.peekFirst() : inFlight.get(0);
+            return oldest == null ? 0 : TimeUnit.NANOSECONDS
+                    .toMillis(System.nanoTime() - oldest.submitted);
+        }
+
+        /**
+         * Drops the waiting entries. Entries being delivered are dropped by the delivery thread
+         * once it sees the queue is closed.
+         */
+        private synchronized void close() {
+            closed = true;
+            if (!pending.isEmpty()) {
+                LOGGER.debug("Dropping {} entries waiting for subscription {}", pending.size(),
+                        subscriptionId);
+                droppedEntries.addAndGet(pending.size());
+                pending.clear();
+            }
+            if (!scheduled) {
+                dropInFlight();
+            }
+        }
+
+        private void dropInFlight() {
+            droppedEntries.addAndGet(inFlight.size());
+            inFlight.clear();
+            attempts = 0;
+        }
+    }
+
+    private static class Pending {
+
+        private final String operation;
+
+        private final Metacard entry;
+
+        private final long submitted = System.nanoTime();
+
+        Pending(String operation, Metacard entry) {
+            this.operation = operation;
+            this.entry = entry;
+        }
+    }
+
+    private static class DeliveryThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("pubsub-delivery-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
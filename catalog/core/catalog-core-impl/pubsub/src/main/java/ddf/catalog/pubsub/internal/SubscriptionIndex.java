@@ -0,0 +1,784 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.osgi.service.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.pubsub.EventProcessorImpl.DateType;
+import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+import ddf.catalog.pubsub.predicate.AndPredicate;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import ddf.catalog.pubsub.predicate.FalsePredicate;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.NotPredicate;
+import ddf.catalog.pubsub.predicate.OrPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.TemporalPredicate;
+
+/**
+ * Index over the predicates of the registered subscriptions, used to find the subscriptions an
+ * event could match without evaluating every subscription's predicate.
+ * <p/>
+ * Each predicate is reduced to a set of geospatial, temporal, content type or contextual terms
+ * such that the predicate can only match an event that satisfies at least one of them. Geometries
+ * are kept in an R-tree, absolute time periods in an interval tree, relative time periods sorted by
+ * offset, content types in a hash map and contextual search terms in an inverted index. Predicates
+ * that cannot be reduced (negations, wildcards, text paths, ...) are always returned as candidates.
+ * The candidates still have to be evaluated against the event; the index never drops a
+ * subscription whose predicate would match.
+ * <p/>
+ * The lookup structures are rebuilt on the first lookup after a subscription is added or removed.
+ *
+ * @param <T> the value stored for each subscription
+ */
+public class SubscriptionIndex<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionIndex.class);
+
+    private static final String DEFAULT_INDEX = "DEFAULT_INDEX";
+
+    private static final String METADATA = "METADATA";
+
+    private final Map<String, Entry<T>> entries = new LinkedHashMap<String, Entry<T>>();
+
+    private volatile Snapshot<T> snapshot;
+
+    private volatile int contextualSubscriptions;
+
+    /**
+     * Adds or replaces a subscription.
+     *
+     * @param subscriptionId
+     *            the subscription ID
+     * @param predicate
+     *            the subscription's predicate, or null if it matches every event
+     * @param value
+     *            the value returned when the subscription is a candidate for an event
+     */
+    public void add(String subscriptionId, Predicate predicate, T value) {
+        Entry<T> entry = new Entry<T>(value, predicate == null ? null : getKeys(predicate),
+                isContextual(predicate));
+        LOGGER.debug("Indexing subscription {} under {}", subscriptionId, entry.keys);
+
+        synchronized (entries) {
+            Entry<T> previous = entries.put(subscriptionId, entry);
+            updateContextualSubscriptions(previous, entry);
+            snapshot = null;
+        }
+    }
+
+    /**
+     * @return the value of the removed subscription, or null if it was not registered
+     */
+    public T remove(String subscriptionId) {
+        synchronized (entries) {
+            Entry<T> entry = entries.remove(subscriptionId);
+            if (entry == null) {
+                return null;
+            }
+            updateContextualSubscriptions(entry, null);
+            snapshot = null;
+            return entry.value;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return true if any subscription has contextual criteria, i.e. events need a contextual
+     * index of their metadata
+     */
+    public boolean hasContextualSubscriptions() {
+        return contextualSubscriptions > 0;
+    }
+
+    private void updateContextualSubscriptions(Entry<T> removed, Entry<T> added) {
+        int count = contextualSubscriptions;
+        if (removed != null && removed.contextual) {
+            count--;
+        }
+        if (added != null && added.contextual) {
+            count++;
+        }
+        contextualSubscriptions = count;
+    }
+
+    /**
+     * Returns the subscriptions that could match an event published by
+     * {@link ddf.catalog.pubsub.EventProcessorImpl#createPublishedEvent}.
+     */
+    public Collection<T> getCandidates(Event event) {
+        Snapshot<T> current = getSnapshot();
+
+        if (isDeletedEntry(event)) {
+            // every predicate matches a deleted entry without metadata
+            return current.values(current.all);
+        }
+
+        Set<Entry<T>> candidates = Collections
+                .newSetFromMap(new IdentityHashMap<Entry<T>, Boolean>());
+        candidates.addAll(current.unindexed);
+
+        Metacard metacard = (Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY);
+        if (metacard != null) {
+            addGeospatialCandidates(current, event, candidates);
+            addTemporalCandidates(current, metacard, candidates);
+        }
+        addContentTypeCandidates(current, event, candidates);
+        addContextualCandidates(current, event, candidates);
+
+        LOGGER.debug("{} of {} subscriptions are candidates for event", candidates.size(),
+                current.all.size());
+
+        return current.values(candidates);
+    }
+
+    private Snapshot<T> getSnapshot() {
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            synchronized (entries) {
+                current = snapshot;
+                if (current == null) {
+                    current = new Snapshot<T>(new ArrayList<Entry<T>>(entries.values()));
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private boolean isDeletedEntry(Event event) {
+        Map<String, Object> contextualMap = (Map<String, Object>) event
+                .getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY);
+        return contextualMap != null && PubSubConstants.DELETE
+                .equals(event.getProperty(PubSubConstants.HEADER_OPERATION_KEY))
+                && PubSubConstants.METADATA_DELETED.equals(contextualMap.get(METADATA));
+    }
+
+    private void addGeospatialCandidates(Snapshot<T> current, Event event,
+            Set<Entry<T>> candidates) {
+        if (current.geospatialEntries.isEmpty()) {
+            return;
+        }
+
+        Geometry location = GeospatialPredicate.getLocation(event);
+        if (location == null || location.isEmpty()) {
+            // let the geospatial predicates decide
+            candidates.addAll(current.geospatialEntries);
+        } else {
+            candidates.addAll(current.geospatial.query(location.getEnvelopeInternal()));
+        }
+    }
+
+    private void addTemporalCandidates(Snapshot<T> current, Metacard metacard,
+            Set<Entry<T>> candidates) {
+        for (DateType type : DateType.values()) {
+            IntervalTree<T> absolute = current.absolute.get(type);
+            RelativeIndex<T> relative = current.relative.get(type);
+            if (absolute == null && relative == null) {
+                continue;
+            }
+
+            // temporal predicates never match a metacard without the date
+            Date date = getDate(metacard, type);
+            if (date == null) {
+                continue;
+            }
+
+            if (absolute != null) {
+                absolute.query(date.getTime(), candidates);
+            }
+            if (relative != null) {
+                relative.query(System.currentTimeMillis() - date.getTime(), candidates);
+            }
+        }
+    }
+
+    private void addContentTypeCandidates(Snapshot<T> current, Event event,
+            Set<Entry<T>> candidates) {
+        Object contentType = event.getProperty(PubSubConstants.HEADER_CONTENT_TYPE_KEY);
+        if (contentType == null || current.contentTypes.isEmpty()) {
+            return;
+        }
+
+        // same parsing as ContentTypeEvaluator
+        String type = contentType.toString().split(",", -1)[0];
+        List<Entry<T>> matches = current.contentTypes.get(type.isEmpty() ? "null" : type);
+        if (matches != null) {
+            candidates.addAll(matches);
+        }
+    }
+
+    private void addContextualCandidates(Snapshot<T> current, Event event,
+            Set<Entry<T>> candidates) {
+        Map<String, Object> contextualMap = (Map<String, Object>) event
+                .getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY);
+        if (contextualMap == null || current.terms.isEmpty()) {
+            return;
+        }
+
+        Set<String> eventTerms = null;
+        Object index = contextualMap.get(DEFAULT_INDEX);
+        if (index instanceof MemoryIndex) {
+            try {
+                eventTerms = ContextualEvaluator.getIndexedTerms((MemoryIndex) index);
+            } catch (Exception e) {
+                LOGGER.debug("Unable to read terms of the event's contextual index", e);
+            }
+        }
+
+        if (eventTerms == null) {
+            // let the contextual predicates decide
+            candidates.addAll(current.contextualEntries);
+            return;
+        }
+
+        if (eventTerms.size() < current.terms.size()) {
+            for (String term : eventTerms) {
+                List<Entry<T>> matches = current.terms.get(term);
+                if (matches != null) {
+                    candidates.addAll(matches);
+                }
+            }
+        } else {
+            for (Map.Entry<String, List<Entry<T>>> term : current.terms.entrySet()) {
+                if (eventTerms.contains(term.getKey())) {
+                    candidates.addAll(term.getValue());
+                }
+            }
+        }
+    }
+
+    private static Date getDate(Metacard metacard, DateType type) {
+        switch (type) {
+        case modified:
+            return metacard.getModifiedDate();
+        case effective:
+            return metacard.getEffectiveDate();
+        case created:
+            return metacard.getCreatedDate();
+        case expiration:
+            return metacard.getExpirationDate();
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Reduces a predicate to the keys at least one of which an event has to satisfy for the
+     * predicate to match.
+     *
+     * @return the keys, or null if the predicate cannot be reduced
+     */
+    static List<Key> getKeys(Predicate predicate) {
+        if (predicate instanceof AndPredicate) {
+            List<Key> left = getKeys(((AndPredicate) predicate).getLeft());
+            List<Key> right = getKeys(((AndPredicate) predicate).getRight());
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            return getCost(left) <= getCost(right) ? left : right;
+        } else if (predicate instanceof OrPredicate) {
+            List<Key> left = getKeys(((OrPredicate) predicate).getLeft());
+            List<Key> right = getKeys(((OrPredicate) predicate).getRight());
+            if (left == null || right == null) {
+                return null;
+            }
+            List<Key> keys = new ArrayList<Key>(left);
+            keys.addAll(right);
+            return keys;
+        } else if (predicate instanceof FalsePredicate) {
+            return Collections.emptyList();
+        } else if (predicate instanceof GeospatialPredicate) {
+            return getGeospatialKeys((GeospatialPredicate) predicate);
+        } else if (predicate instanceof TemporalPredicate) {
+            return getTemporalKeys((TemporalPredicate) predicate);
+        } else if (predicate instanceof ContentTypePredicate) {
+            return getContentTypeKeys((ContentTypePredicate) predicate);
+        } else if (predicate instanceof ContextualPredicate) {
+            return getContextualKeys((ContextualPredicate) predicate);
+        }
+
+        return null;
+    }
+
+    private static boolean isContextual(Predicate predicate) {
+        if (predicate instanceof AndPredicate) {
+            return isContextual(((AndPredicate) predicate).getLeft()) || isContextual(
+                    ((AndPredicate) predicate).getRight());
+        } else if (predicate instanceof OrPredicate) {
+            return isContextual(((OrPredicate) predicate).getLeft()) || isContextual(
+                    ((OrPredicate) predicate).getRight());
+        } else if (predicate instanceof NotPredicate) {
+            return isContextual(((NotPredicate) predicate).getPredicate());
+        }
+        return predicate instanceof ContextualPredicate;
+    }
+
+    private static List<Key> getGeospatialKeys(GeospatialPredicate predicate) {
+        Geometry criteria = predicate.getGeoCriteria();
+        if (criteria == null) {
+            return null;
+        }
+
+        Envelope envelope = new Envelope(criteria.getEnvelopeInternal());
+        if (predicate.getDistance() != 0.0) {
+            envelope.expandBy(predicate.getDistance());
+        } else {
+            String operation = predicate.getGeoOperation();
+            if (operation == null || !(SpatialOperator.CONTAINS.name()
+                    .equalsIgnoreCase(operation) || SpatialOperator.OVERLAPS.name()
+                    .equalsIgnoreCase(operation))) {
+                return null;
+            }
+        }
+
+        return Collections.<Key>singletonList(new GeospatialKey(envelope));
+    }
+
+    private static List<Key> getTemporalKeys(TemporalPredicate predicate) {
+        if (predicate.getType() == null) {
+            return null;
+        }
+
+        if (predicate.getOffset() > 0) {
+            return Collections.<Key>singletonList(
+                    new TemporalKey(predicate.getType(), predicate.getOffset()));
+        } else if (predicate.getStart() != null && predicate.getEnd() != null) {
+            return Collections.<Key>singletonList(
+                    new TemporalKey(predicate.getType(), predicate.getStart().getTime(),
+                            predicate.getEnd().getTime()));
+        }
+
+        return null;
+    }
+
+    private static List<Key> getContentTypeKeys(ContentTypePredicate predicate) {
+        // ContentTypeEvaluator matches types as regular expressions, only literal types are
+        // looked up by value
+        String type = predicate.getType();
+        if (type == null || !type.matches("[\\w\\s/:;,=@#%'\"<>`~-]*")) {
+            return null;
+        }
+
+        return Collections.<Key>singletonList(new ContentTypeKey(type));
+    }
+
+    private static List<Key> getContextualKeys(ContextualPredicate predicate) {
+        if (predicate.isCaseSensitive() || predicate.hasTextPaths()) {
+            return null;
+        }
+
+        if (predicate.getQuery() == null) {
+            return null;
+        }
+
+        Set<String> terms = ContextualEvaluator.getRequiredTerms(predicate.getQuery());
+        if (terms == null) {
+            return null;
+        }
+
+        List<Key> keys = new ArrayList<Key>(terms.size());
+        for (String term : terms) {
+            keys.add(new ContextualKey(term));
+        }
+        return keys;
+    }
+
+    private static int getCost(List<Key> keys) {
+        int cost = 0;
+        for (Key key : keys) {
+            cost += key.getCost();
+        }
+        return cost;
+    }
+
+    /**
+     * Condition an event has to satisfy for a predicate to match.
+     */
+    abstract static class Key {
+
+        /**
+         * @return rough estimate of how many events satisfy the key, used to pick between the
+         * operands of an AND
+         */
+        abstract int getCost();
+    }
+
+    static class GeospatialKey extends Key {
+
+        private final Envelope envelope;
+
+        GeospatialKey(Envelope envelope) {
+            this.envelope = envelope;
+        }
+
+        @Override
+        int getCost() {
+            return 2;
+        }
+
+        @Override
+        public String toString() {
+            return "geospatial " + envelope;
+        }
+    }
+
+    static class TemporalKey extends Key {
+
+        private final DateType type;
+
+        private final long offset;
+
+        private final long start;
+
+        private final long end;
+
+        TemporalKey(DateType type, long offset) {
+            this.type = type;
+            this.offset = offset;
+            this.start = 0;
+            this.end = 0;
+        }
+
+        TemporalKey(DateType type, long start, long end) {
+            this.type = type;
+            this.offset = 0;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        int getCost() {
+            return 3;
+        }
+
+        @Override
+        public String toString() {
+            return offset > 0 ? "temporal " + type + " last " + offset + "ms"
+                    : "temporal " + type + " [" + start + ", " + end + "]";
+        }
+    }
+
+    static class ContentTypeKey extends Key {
+
+        private final String type;
+
+        ContentTypeKey(String type) {
+            this.type = type;
+        }
+
+        @Override
+        int getCost() {
+            return 4;
+        }
+
+        @Override
+        public String toString() {
+            return "content type " + type;
+        }
+    }
+
+    static class ContextualKey extends Key {
+
+        private final String term;
+
+        ContextualKey(String term) {
+            this.term = term;
+        }
+
+        @Override
+        int getCost() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return "term " + term;
+        }
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+
+        private final List<Key> keys;
+
+        private final boolean contextual;
+
+        Entry(T value, List<Key> keys, boolean contextual) {
+            this.value = value;
+            this.keys = keys;
+            this.contextual = contextual;
+        }
+    }
+
+    /**
+     * Immutable lookup structures for the subscriptions registered at the time it was built.
+     */
+    private static class Snapshot<T> {
+
+        private final List<Entry<T>> all;
+
+        private final List<Entry<T>> unindexed = new ArrayList<Entry<T>>();
+
+        private final STRtree geospatial = new STRtree();
+
+        private final List<Entry<T>> geospatialEntries = new ArrayList<Entry<T>>();
+
+        private final Map<DateType, IntervalTree<T>> absolute = new EnumMap<DateType, IntervalTree<T>>(
+                DateType.class);
+
+        private final Map<DateType, RelativeIndex<T>> relative = new EnumMap<DateType, RelativeIndex<T>>(
+                DateType.class);
+
+        private final Map<String, List<Entry<T>>> contentTypes = new HashMap<String, List<Entry<T>>>();
+
+        private final Map<String, List<Entry<T>>> terms = new HashMap<String, List<Entry<T>>>();
+
+        private final List<Entry<T>> contextualEntries = new ArrayList<Entry<T>>();
+
+        Snapshot(List<Entry<T>> all) {
+            this.all = all;
+
+            Map<DateType, List<TemporalKey>> absoluteKeys = new EnumMap<DateType, List<TemporalKey>>(
+                    DateType.class);
+            Map<DateType, List<Entry<T>>> absoluteEntries = new EnumMap<DateType, List<Entry<T>>>(
+                    DateType.class);
+            Map<DateType, List<TemporalKey>> relativeKeys = new EnumMap<DateType, List<TemporalKey>>(
+                    DateType.class);
+            Map<DateType, List<Entry<T>>> relativeEntries = new EnumMap<DateType, List<Entry<T>>>(
+                    DateType.class);
+
+            for (Entry<T> entry : all) {
+                if (entry.keys == null) {
+                    unindexed.add(entry);
+                    continue;
+                }
+
+                for (Key key : entry.keys) {
+                    if (key instanceof GeospatialKey) {
+                        geospatial.insert(((GeospatialKey) key).envelope, entry);
+                        geospatialEntries.add(entry);
+                    } else if (key instanceof TemporalKey) {
+                        TemporalKey temporalKey = (TemporalKey) key;
+                        if (temporalKey.offset > 0) {
+                            add(relativeKeys, relativeEntries, temporalKey, entry);
+                        } else {
+                            add(absoluteKeys, absoluteEntries, temporalKey, entry);
+                        }
+                    } else if (key instanceof ContentTypeKey) {
+                        add(contentTypes, ((ContentTypeKey) key).type, entry);
+                    } else if (key instanceof ContextualKey) {
+                        add(terms, ((ContextualKey) key).term, entry);
+                        contextualEntries.add(entry);
+                    }
+                }
+            }
+
+            if (!geospatialEntries.isEmpty()) {
+                geospatial.build();
+            }
+
+            for (Map.Entry<DateType, List<TemporalKey>> keys : absoluteKeys.entrySet()) {
+                absolute.put(keys.getKey(),
+                        new IntervalTree<T>(keys.getValue(), absoluteEntries.get(keys.getKey())));
+            }
+            for (Map.Entry<DateType, List<TemporalKey>> keys : relativeKeys.entrySet()) {
+                relative.put(keys.getKey(),
+                        new RelativeIndex<T>(keys.getValue(), relativeEntries.get(keys.getKey())));
+            }
+        }
+
+        private static <K, V> void add(Map<K, List<V>> map, K key, V value) {
+            List<V> values = map.get(key);
+            if (values == null) {
+                values = new ArrayList<V>();
+                map.put(key, values);
+            }
+            values.add(value);
+        }
+
+        private static <T> void add(Map<DateType, List<TemporalKey>> keys,
+                Map<DateType, List<Entry<T>>> entries, TemporalKey key, Entry<T> entry) {
+            add(keys, key.type, key);
+            add(entries, key.type, entry);
+        }
+
+        List<T> values(Collection<Entry<T>> entries) {
+            List<T> values = new ArrayList<T>(entries.size());
+            for (Entry<T> entry : entries) {
+                values.add(entry.value);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Static interval tree over the absolute time periods of one date type. The periods are
+     * sorted by start and laid out as an implicit balanced binary tree in which every node also
+     * records the latest end in its subtree, so a stabbing query visits O(log n + k) nodes.
+     */
+    private static class IntervalTree<T> {
+
+        private final long[] starts;
+
+        private final long[] ends;
+
+        private final long[] maxEnds;
+
+        private final List<Entry<T>> entries;
+
+        IntervalTree(List<TemporalKey> keys, List<Entry<T>> keyEntries) {
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            final List<TemporalKey> sortKeys = keys;
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    long startA = sortKeys.get(a).start;
+                    long startB = sortKeys.get(b).start;
+                    return startA < startB ? -1 : (startA == startB ? 0 : 1);
+                }
+            });
+
+            starts = new long[order.length];
+            ends = new long[order.length];
+            maxEnds = new long[order.length];
+            entries = new ArrayList<Entry<T>>(order.length);
+            for (int i = 0; i < order.length; i++) {
+                starts[i] = keys.get(order[i]).start;
+                ends[i] = keys.get(order[i]).end;
+                entries.add(keyEntries.get(order[i]));
+            }
+            computeMaxEnd(0, order.length - 1);
+        }
+
+        private long computeMaxEnd(int low, int high) {
+            if (low > high) {
+                return Long.MIN_VALUE;
+            }
+            int mid = (low + high) >>> 1;
+            maxEnds[mid] = Math.max(ends[mid],
+                    Math.max(computeMaxEnd(low, mid - 1), computeMaxEnd(mid + 1, high)));
+            return maxEnds[mid];
+        }
+
+        void query(long time, Set<Entry<T>> candidates) {
+            query(0, starts.length - 1, time, candidates);
+        }
+
+        private void query(int low, int high, long time, Set<Entry<T>> candidates) {
+            if (low > high) {
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            if (maxEnds[mid] < time) {
+                return;
+            }
+
+            query(low, mid - 1, time, candidates);
+            if (starts[mid] <= time) {
+                if (time <= ends[mid]) {
+                    candidates.add(entries.get(mid));
+                }
+                query(mid + 1, high, time, candidates);
+            }
+        }
+    }
+
+    /**
+     * Relative time periods ("within the last offset milliseconds") of one date type sorted by
+     * offset. A date that is {@code age} milliseconds old can only match the periods with an
+     * offset of at least {@code age}.
+     */
+    private static class RelativeIndex<T> {
+
+        private final long[] offsets;
+
+        private final List<Entry<T>> entries;
+
+        RelativeIndex(List<TemporalKey> keys, List<Entry<T>> keyEntries) {
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            final List<TemporalKey> sortKeys = keys;
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    long offsetA = sortKeys.get(a).offset;
+                    long offsetB = sortKeys.get(b).offset;
+                    return offsetA < offsetB ? -1 : (offsetA == offsetB ? 0 : 1);
+                }
+            });
+
+            offsets = new long[order.length];
+            entries = new ArrayList<Entry<T>>(order.length);
+            for (int i = 0; i < order.length; i++) {
+                offsets[i] = keys.get(order[i]).offset;
+                entries.add(keyEntries.get(order[i]));
+            }
+        }
+
+        void query(long age, Set<Entry<T>> candidates) {
+            int index = Arrays.binarySearch(offsets, age);
+            if (index < 0) {
+                index = -index - 1;
+            } else {
+                while (index > 0 && offsets[index - 1] == age) {
+                    index--;
+                }
+            }
+            candidates.addAll(entries.subList(index, entries.size()));
+        }
+    }
+}
@@ -22,13 +22,13 @@
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.lucene.index.memory.MemoryIndex;
 import org.apache.lucene.queryParser.ParseException;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.search.Query;
 import org.osgi.service.event.Event;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluationCriteria;
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluationCriteriaImpl;
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
 import ddf.catalog.pubsub.criteria.contextual.ContextualTokenizer;
@@ -45,6 +45,8 @@ public class ContextualPredicate implements Predicate {
 
     private Collection<String> textPaths;
 
+    private Query query;
+
     public ContextualPredicate(String searchPhrase, boolean fuzzy, boolean caseSensitiveSearch,
             Collection<String> textPaths) {
         this.fuzzy = fuzzy;
@@ -55,6 +57,15 @@ public ContextualPredicate(String searchPhrase, boolean fuzzy, boolean caseSensi
             this.textPaths = new ArrayList<String>(textPaths);
         }
         this.searchPhrase = normalizePhrase(searchPhrase, fuzzy);
+
+        // parse once so every event is evaluated with the same query
+        if (!this.searchPhrase.isEmpty()) {
+            try {
+                this.query = ContextualEvaluator.parseQuery(this.searchPhrase, caseSensitiveSearch);
+            } catch (ParseException e) {
+                LOGGER.debug("Unable to parse search phrase [{}]", this.searchPhrase, e);
+            }
+        }
     }
 
     public static boolean isContextual(String searchPhrase) {
@@ -206,7 +217,7 @@ public boolean matches(Event properties) {
 
         LOGGER.debug("Headers: {}", properties);
 
-        ContextualEvaluationCriteria cec = null;
+        ContextualEvaluationCriteriaImpl cec = null;
         Map<String, Object> contextualMap = (Map<String, Object>) properties
                 .getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY);
 
@@ -254,9 +265,20 @@ public boolean matches(Event properties) {
         // data
         } else {
             LOGGER.debug("using default Lucene search index for metadata");
+            MemoryIndex index = (MemoryIndex) contextualMap.get("DEFAULT_INDEX");
+            if (index == null) {
+                // the event was published before any contextual subscription existed
+                try {
+                    index = ContextualEvaluator.buildIndex(metadata);
+                } catch (IOException e) {
+                    LOGGER.error("IO exception during context evaluation", e);
+                    return false;
+                }
+            }
             cec = new ContextualEvaluationCriteriaImpl(searchPhrase, fuzzy, caseSensitiveSearch,
-                    (Directory) contextualMap.get("DEFAULT_INDEX"));
+                    index);
         }
+        cec.setQuery(query);
 
         try {
             return ContextualEvaluator.evaluate(cec);
@@ -291,6 +313,13 @@ public Collection<String> getTextPaths() {
         return textPaths;
     }
 
+    /**
+     * @return the search phrase parsed into a Lucene query, or null if there is no search phrase
+     */
+    public Query getQuery() {
+        return query;
+    }
+
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
     }
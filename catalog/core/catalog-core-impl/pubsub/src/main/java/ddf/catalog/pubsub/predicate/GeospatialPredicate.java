@@ -23,12 +23,9 @@
 import org.slf4j.LoggerFactory;
 
 import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.io.ParseException;
 
 import ddf.catalog.data.Metacard;
-import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteria;
-import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteriaImpl;
-import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluator;
+import ddf.catalog.pubsub.criteria.geospatial.PreparedGeospatialCriteria;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 
 public class GeospatialPredicate implements Predicate {
@@ -40,6 +37,8 @@ public class GeospatialPredicate implements Predicate {
 
     private double distance;
 
+    private PreparedGeospatialCriteria preparedCriteria;
+
     /**
      * Instantiates a new geospatial predicate.
      *
@@ -58,6 +57,7 @@ public GeospatialPredicate(String wkt, String geoOperation, double distance) {
         } catch (Exception e) {
             LOGGER.error("Exception reading WKT", e);
         }
+        prepareCriteria();
     }
 
     public GeospatialPredicate(Geometry geo, String geoOperation, double distance) {
@@ -65,6 +65,44 @@ public GeospatialPredicate(Geometry geo, String geoOperation, double distance) {
         this.distance = distance;
 
         this.geoCriteria = geo;
+        prepareCriteria();
+    }
+
+    private void prepareCriteria() {
+        if (geoCriteria != null) {
+            preparedCriteria = new PreparedGeospatialCriteria(geoCriteria, geoOperation,
+                    distance);
+        }
+    }
+
+    /**
+     * Returns the location of the event's catalog entry, as parsed once when the event was
+     * published, see {@link PubSubConstants#HEADER_GEOSPATIAL_KEY}. The entry's WKT location is
+     * parsed for events published without it.
+     *
+     * @return the entry's location or null if it has none or it cannot be parsed
+     */
+    public static Geometry getLocation(Event event) {
+        Object location = event.getProperty(PubSubConstants.HEADER_GEOSPATIAL_KEY);
+        if (location instanceof Geometry) {
+            return (Geometry) location;
+        }
+        return readLocation((Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY));
+    }
+
+    /**
+     * @return the metacard's location or null if it has none or it cannot be parsed
+     */
+    public static Geometry readLocation(Metacard metacard) {
+        if (metacard == null || metacard.getLocation() == null) {
+            return null;
+        }
+        try {
+            return new WKTReader2().read(metacard.getLocation());
+        } catch (Exception e) {
+            LOGGER.debug("Unable to read location of metacard {}", metacard.getId(), e);
+            return null;
+        }
     }
 
     public static boolean isGeospatial(Map geoCriteria, String geoOperation) {
@@ -82,8 +120,6 @@ public static boolean isGeospatial(Map geoCriteria, String geoOperation) {
     }
 
     public boolean matches(Event properties) {
-        Metacard entry = (Metacard) properties.getProperty(PubSubConstants.HEADER_ENTRY_KEY);
-
         Map<String, Object> contextualMap = (Map<String, Object>) properties
                 .getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY);
 
@@ -107,15 +143,12 @@ public boolean matches(Event properties) {
 
         }
 
-        GeospatialEvaluationCriteria gec;
-        try {
-            gec = new GeospatialEvaluationCriteriaImpl(geoCriteria, geoOperation,
-                    entry.getLocation(), distance);
-            return GeospatialEvaluator.evaluate(gec);
-        } catch (ParseException e) {
-            LOGGER.warn("Error parsing WKT string.  Unable to compare geos.  Returning false.");
+        Geometry location = getLocation(properties);
+        if (location == null || preparedCriteria == null) {
+            LOGGER.debug("Missing entry location or geospatial criteria.  Returning false.");
             return false;
         }
+        return preparedCriteria.evaluate(location);
     }
 
     public Geometry getGeoCriteria() {
@@ -142,6 +142,10 @@ public Date getStart() {
         return start;
     }
 
+    public long getOffset() {
+        return offset;
+    }
+
     public DateType getType() {
         return type;
     }
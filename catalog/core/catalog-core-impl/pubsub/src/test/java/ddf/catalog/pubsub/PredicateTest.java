@@ -35,7 +35,7 @@
 import javax.xml.datatype.XMLGregorianCalendar;
 
 import org.apache.commons.lang.StringEscapeUtils;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.index.memory.MemoryIndex;
 import org.geotools.filter.FilterTransformer;
 import org.junit.Test;
 import org.opengis.filter.Filter;
@@ -294,7 +294,7 @@ public void testContentTypeFilter() throws Exception {
     }
 
     private Map<String, Object> constructContextualMap(MetacardImpl metacard) throws IOException {
-        Directory index = ContextualEvaluator.buildIndex(metacard.getMetadata());
+        MemoryIndex index = ContextualEvaluator.buildIndex(metacard.getMetadata());
         Map<String, Object> contextualMap = new HashMap<>();
         contextualMap.put("DEFAULT_INDEX", index);
         contextualMap.put("METADATA", metacard.getMetadata());
@@ -1081,7 +1081,7 @@ public void testContextualQuery() throws Exception {
         contextualMap.clear();
         properties.clear();
         metacard.setMetadata(TestDataLibrary.getDogEntry());
-        Directory index1 = ContextualEvaluator.buildIndex(metacard.getMetadata());
+        MemoryIndex index1 = ContextualEvaluator.buildIndex(metacard.getMetadata());
         contextualMap.put("DEFAULT_INDEX", index1);
         contextualMap.put("METADATA", metacard.getMetadata());
         properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
@@ -1095,6 +1095,23 @@ public void testContextualQuery() throws Exception {
         LOGGER.debug("***************  END: " + methodName + "  *****************");
     }
 
+    @Test
+    public void testContextualQueryWithoutDefaultIndex() throws Exception {
+        Predicate predicate = getPredicate("laZy BROwn foX", true);
+
+        String metadata = String.format(METADATA_FORMAT, "laZy BROwn foX");
+        Event testEvent = getEvent(metadata);
+        ((Map<String, Object>) testEvent.getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY))
+                .remove("DEFAULT_INDEX");
+        assertTrue(predicate.matches(testEvent));
+
+        metadata = String.format(METADATA_FORMAT, "lazy brown fox");
+        testEvent = getEvent(metadata);
+        ((Map<String, Object>) testEvent.getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY))
+                .remove("DEFAULT_INDEX");
+        assertFalse(predicate.matches(testEvent));
+    }
+
     @Test
     public void testCaseSensitiveContextualQuery() throws Exception {
         String methodName = "testCaseSensitiveContextualQuery";
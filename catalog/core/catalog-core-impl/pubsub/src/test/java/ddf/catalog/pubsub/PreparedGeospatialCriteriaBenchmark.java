@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+
+import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteriaImpl;
+import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluator;
+import ddf.catalog.pubsub.criteria.geospatial.PreparedGeospatialCriteria;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+
+/**
+ * Measures how many entries per second are evaluated against polygon subscriptions by
+ * {@link GeospatialEvaluator} and by {@link PreparedGeospatialCriteria}, for each spatial
+ * operation.
+ * <p>
+ * Run from this module's directory, after {@code mvn test-compile}, with the test classpath:
+ * {@code java -cp <test classpath> ddf.catalog.pubsub.PreparedGeospatialCriteriaBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PreparedGeospatialCriteriaBenchmark {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static final int SUBSCRIPTIONS = 200;
+
+    private static final int EVENTS = 200;
+
+    @Param({"CONTAINS", "OVERLAPS", "DISTANCE"})
+    private String operation;
+
+    @Param({"8", "64"})
+    private int vertices;
+
+    private String spatialOperation;
+
+    private double distance;
+
+    private List<Geometry> subscriptions;
+
+    private List<PreparedGeospatialCriteria> prepared;
+
+    private List<Geometry> events;
+
+    @Setup
+    public void setUp() {
+        if ("DISTANCE".equals(operation)) {
+            spatialOperation = null;
+            distance = 2.5;
+        } else {
+            spatialOperation = SpatialOperator.valueOf(operation).name();
+            distance = 0.0;
+        }
+
+        Random random = new Random(42);
+        subscriptions = new ArrayList<>(SUBSCRIPTIONS);
+        prepared = new ArrayList<>(SUBSCRIPTIONS);
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            Geometry subscription = randomPolygon(random, vertices);
+            subscriptions.add(subscription);
+            prepared.add(new PreparedGeospatialCriteria(subscription, spatialOperation,
+                    distance));
+        }
+        events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(i % 2 == 0 ?
+                    GEOMETRY_FACTORY.createPoint(randomCoordinate(random)) :
+                    randomPolygon(random, 8));
+        }
+    }
+
+    /**
+     * Per thread position in the subscription and event lists.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int size) {
+            next = (next + 1) % size;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public boolean evaluator(Cursor cursor) {
+        int index = cursor.next(SUBSCRIPTIONS * EVENTS);
+        return GeospatialEvaluator.evaluate(new GeospatialEvaluationCriteriaImpl(
+                subscriptions.get(index % SUBSCRIPTIONS), spatialOperation,
+                events.get(index / SUBSCRIPTIONS), distance));
+    }
+
+    @Benchmark
+    public boolean prepared(Cursor cursor) {
+        int index = cursor.next(SUBSCRIPTIONS * EVENTS);
+        return prepared.get(index % SUBSCRIPTIONS).evaluate(events.get(index / SUBSCRIPTIONS));
+    }
+
+    private static Polygon randomPolygon(Random random, int vertices) {
+        Coordinate center = randomCoordinate(random);
+        double radius = 1 + random.nextDouble() * 15;
+        Coordinate[] ring = new Coordinate[vertices + 1];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radius * (0.6 + 0.4 * random.nextDouble());
+            ring[i] = new Coordinate(center.x + r * Math.cos(angle),
+                    center.y + r * Math.sin(angle));
+        }
+        ring[vertices] = ring[0];
+        return GEOMETRY_FACTORY.createPolygon(GEOMETRY_FACTORY.createLinearRing(ring), null);
+    }
+
+    private static Coordinate randomCoordinate(Random random) {
+        return new Coordinate(random.nextDouble() * 100 - 50, random.nextDouble() * 60 - 30);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PreparedGeospatialCriteriaBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.operation.distance.DistanceOp;
+
+import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteriaImpl;
+import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluator;
+import ddf.catalog.pubsub.criteria.geospatial.PreparedGeospatialCriteria;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+
+/**
+ * Compares the prepared geospatial criteria against {@link GeospatialEvaluator} for
+ * polygon heavy subscriptions.
+ */
+public class PreparedGeospatialCriteriaTest {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static final int SUBSCRIPTIONS = 200;
+
+    private static final int EVENTS = 200;
+
+    @Test
+    public void testContainsMatchesEvaluator() {
+        compare(SpatialOperator.CONTAINS.name(), 0.0);
+    }
+
+    @Test
+    public void testOverlapsMatchesEvaluator() {
+        compare(SpatialOperator.OVERLAPS.name(), 0.0);
+    }
+
+    @Test
+    public void testDistanceMatchesEvaluator() {
+        compare(null, 2.5);
+    }
+
+    /**
+     * Points within half a percent of the distance, around criteria with many small spikes that
+     * JTS simplifies when it buffers them.
+     */
+    @Test
+    public void testDistanceBoundary() {
+        Random random = new Random(7);
+        double distance = 2.5;
+        List<Geometry> criteria = new ArrayList<Geometry>();
+        for (int i = 0; i < 10; i++) {
+            Coordinate[] spikes = new Coordinate[100];
+            double amplitude = distance * (0.005 + random.nextDouble() * 0.03);
+            for (int j = 0; j < spikes.length; j++) {
+                spikes[j] = new Coordinate(j * distance * 0.02 * (1 + random.nextDouble()),
+                        (random.nextBoolean() ? 1 : -1) * amplitude * random.nextDouble());
+            }
+            Geometry line = GEOMETRY_FACTORY.createLineString(spikes);
+            criteria.add(line);
+            criteria.add(line.buffer(distance * 0.01 * (1 + i)));
+        }
+
+        for (Geometry geometry : criteria) {
+            PreparedGeospatialCriteria prepared = new PreparedGeospatialCriteria(geometry, null,
+                    distance);
+            Envelope envelope = new Envelope(geometry.getEnvelopeInternal());
+            envelope.expandBy(distance * 1.1);
+            int checked = 0;
+            while (checked < 500) {
+                Point point = GEOMETRY_FACTORY.createPoint(new Coordinate(
+                        envelope.getMinX() + random.nextDouble() * envelope.getWidth(),
+                        envelope.getMinY() + random.nextDouble() * envelope.getHeight()));
+                double actual = DistanceOp.distance(point, geometry);
+                if (Math.abs(actual - distance) > distance * 0.005) {
+                    continue;
+                }
+                assertThat(point + " at distance " + actual, prepared.evaluate(point),
+                        is(actual <= distance));
+                checked++;
+            }
+        }
+    }
+
+    @Test
+    public void testMultiPolygonCriteria() {
+        Geometry criteria = GEOMETRY_FACTORY.createMultiPolygon(
+                new Polygon[] {square(0, 0, 10), square(20, 0, 10)});
+        Geometry spanning = square(5, 2, 20);
+        Geometry inFirst = square(2, 2, 2);
+        Geometry inBoth = GEOMETRY_FACTORY.createMultiPolygon(
+                new Polygon[] {square(2, 2, 2), square(22, 2, 2)});
+
+        PreparedGeospatialCriteria contains = new PreparedGeospatialCriteria(criteria,
+                SpatialOperator.CONTAINS.name(), 0.0);
+        assertThat(contains.evaluate(inFirst), is(true));
+        assertThat(contains.evaluate(inBoth), is(true));
+        assertThat(contains.evaluate(spanning), is(false));
+
+        PreparedGeospatialCriteria overlaps = new PreparedGeospatialCriteria(criteria,
+                SpatialOperator.OVERLAPS.name(), 0.0);
+        assertThat(overlaps.evaluate(spanning), is(true));
+        assertThat(overlaps.evaluate(square(12, 2, 5)), is(false));
+    }
+
+    @Test
+    public void testUnsupportedOperation() {
+        PreparedGeospatialCriteria criteria = new PreparedGeospatialCriteria(square(0, 0, 10),
+                "EQUALS", 0.0);
+        assertThat(criteria.evaluate(square(0, 0, 10)), is(false));
+        assertThat(criteria.evaluate(null), is(false));
+    }
+
+    private void compare(String operation, double distance) {
+        Random random = new Random(42);
+        List<Geometry> subscriptions = new ArrayList<Geometry>();
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            subscriptions.add(randomPolygon(random, 64));
+        }
+        List<Geometry> events = new ArrayList<Geometry>();
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(i % 2 == 0 ?
+                    GEOMETRY_FACTORY.createPoint(randomCoordinate(random)) :
+                    randomPolygon(random, 8));
+        }
+
+        List<PreparedGeospatialCriteria> prepared = new ArrayList<PreparedGeospatialCriteria>();
+        for (Geometry subscription : subscriptions) {
+            prepared.add(new PreparedGeospatialCriteria(subscription, operation, distance));
+        }
+
+        for (int e = 0; e < EVENTS; e++) {
+            for (int s = 0; s < SUBSCRIPTIONS; s++) {
+                boolean expected = GeospatialEvaluator.evaluate(
+                        new GeospatialEvaluationCriteriaImpl(subscriptions.get(s), operation,
+                                events.get(e), distance));
+                assertThat("subscription " + s + ", event " + e,
+                        prepared.get(s).evaluate(events.get(e)), is(expected));
+            }
+        }
+    }
+
+    private Polygon randomPolygon(Random random, int vertices) {
+        Coordinate center = randomCoordinate(random);
+        double radius = 1 + random.nextDouble() * 15;
+        Coordinate[] ring = new Coordinate[vertices + 1];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radius * (0.6 + 0.4 * random.nextDouble());
+            ring[i] = new Coordinate(center.x + r * Math.cos(angle),
+                    center.y + r * Math.sin(angle));
+        }
+        ring[vertices] = ring[0];
+        return GEOMETRY_FACTORY.createPolygon(GEOMETRY_FACTORY.createLinearRing(ring), null);
+    }
+
+    private Coordinate randomCoordinate(Random random) {
+        return new Coordinate(random.nextDouble() * 100 - 50, random.nextDouble() * 60 - 30);
+    }
+
+    private Polygon square(double x, double y, double size) {
+        return GEOMETRY_FACTORY.createPolygon(GEOMETRY_FACTORY.createLinearRing(
+                new Coordinate[] {new Coordinate(x, y), new Coordinate(x + size, y),
+                        new Coordinate(x + size, y + size), new Coordinate(x, y + size),
+                        new Coordinate(x, y)}), null);
+    }
+}
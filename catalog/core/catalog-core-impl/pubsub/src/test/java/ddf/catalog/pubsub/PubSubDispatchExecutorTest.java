@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ddf.catalog.pubsub.internal.PubSubDispatchExecutor;
+import ddf.catalog.pubsub.internal.PubSubDispatchExecutor.BatchHandler;
+import ddf.catalog.pubsub.internal.PubSubDispatchExecutor.OverflowPolicy;
+
+public class PubSubDispatchExecutorTest {
+
+    private PubSubDispatchExecutor<String> executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testEventsForSameKeyAreDispatchedInOrder() throws Exception {
+        final Map<String, List<Integer>> dispatched = new HashMap<String, List<Integer>>();
+        final CountDownLatch done = new CountDownLatch(1000);
+        executor = new PubSubDispatchExecutor<String>(4, 1000, 10, OverflowPolicy.BLOCK, 10000,
+                new BatchHandler<String>() {
+                    @Override
+                    public void handle(List<String> events) {
+                        for (String event : events) {
+                            String[] parts = event.split(":");
+                            synchronized (dispatched) {
+                                List<Integer> sequence = dispatched.get(parts[0]);
+                                if (sequence == null) {
+                                    sequence = new ArrayList<Integer>();
+                                    dispatched.put(parts[0], sequence);
+                                }
+                                sequence.add(Integer.valueOf(parts[1]));
+                            }
+                            done.countDown();
+                        }
+                    }
+                });
+
+        for (int i = 0; i < 100; i++) {
+            for (int key = 0; key < 10; key++) {
+                executor.execute("metacard" + key, "metacard" + key + ":" + i);
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (List<Integer> sequence : dispatched.values()) {
+            assertThat(sequence.size(), is(100));
+            for (int i = 0; i < sequence.size(); i++) {
+                assertThat(sequence.get(i), is(i));
+            }
+        }
+        assertThat(executor.getDispatchedEvents(), is(1000L));
+        assertThat(executor.getDroppedEvents(), is(0L));
+    }
+
+    @Test
+    public void testWaitingEventsAreDispatchedInBatches() throws Exception {
+        BlockingHandler handler = new BlockingHandler();
+        executor = new PubSubDispatchExecutor<String>(1, 100, 5, OverflowPolicy.BLOCK, 1000,
+                handler);
+
+        executor.execute("id", "first");
+        assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 12; i++) {
+            executor.execute("id", "event" + i);
+        }
+        handler.release.countDown();
+        executor.shutdown(5, TimeUnit.SECONDS);
+
+        assertThat(executor.getDispatchedEvents(), is(13L));
+        assertThat(handler.batchSizes.subList(1, handler.batchSizes.size()).toString(),
+                is("[5, 5, 2]"));
+    }
+
+    @Test
+    public void testDropOldestWhenQueueIsFull() throws Exception {
+        BlockingHandler handler = new BlockingHandler();
+        executor = new PubSubDispatchExecutor<String>(1, 2, 10, OverflowPolicy.DROP_OLDEST, 0,
+                handler);
+
+        executor.execute("id", "first");
+        assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            executor.execute("id", "event" + i);
+        }
+        assertThat(executor.getQueueDepth(), is(2));
+        assertThat(executor.getDroppedEvents(), is(3L));
+
+        handler.release.countDown();
+        executor.shutdown(5, TimeUnit.SECONDS);
+        assertThat(handler.events.toString(), is("[first, event3, event4]"));
+    }
+
+    @Test
+    public void testCallerRunsWhenQueueIsFull() throws Exception {
+        BlockingHandler handler = new BlockingHandler();
+        executor = new PubSubDispatchExecutor<String>(1, 1, 10, OverflowPolicy.CALLER_RUNS, 0,
+                handler);
+
+        executor.execute("id", "first");
+        assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+        executor.execute("id", "queued");
+        executor.execute("id", "caller");
+        assertThat(executor.getCallerRunsEvents(), is(1L));
+        assertThat(handler.events.toString(), is("[caller]"));
+
+        handler.release.countDown();
+        executor.shutdown(5, TimeUnit.SECONDS);
+        assertThat(executor.getDroppedEvents(), is(0L));
+        assertThat(executor.getDispatchedEvents(), is(3L));
+    }
+
+    @Test
+    public void testBlockDropsAfterTimeout() throws Exception {
+        BlockingHandler handler = new BlockingHandler();
+        executor = new PubSubDispatchExecutor<String>(1, 1, 10, OverflowPolicy.BLOCK, 50,
+                handler);
+
+        executor.execute("id", "first");
+        assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+        executor.execute("id", "queued");
+        executor.execute("id", "blocked");
+        assertThat(executor.getDroppedEvents(), is(1L));
+
+        handler.release.countDown();
+        executor.shutdown(5, TimeUnit.SECONDS);
+        assertThat(handler.events.toString(), is("[first, queued]"));
+    }
+
+    @Test
+    public void testEventsAfterShutdownAreDropped() throws Exception {
+        final AtomicInteger dispatched = new AtomicInteger();
+        executor = new PubSubDispatchExecutor<String>(2, 10, 10, OverflowPolicy.DROP_OLDEST, 0,
+                new BatchHandler<String>() {
+                    @Override
+                    public void handle(List<String> events) {
+                        dispatched.addAndGet(events.size());
+                    }
+                });
+        executor.shutdown(1, TimeUnit.SECONDS);
+        executor.execute("id", "late");
+
+        assertThat(dispatched.get(), is(0));
+        assertThat(executor.getDroppedEvents(), is(1L));
+    }
+
+    @Test
+    public void testOverflowPolicyFromString() {
+        assertThat(OverflowPolicy.fromString("caller-runs", OverflowPolicy.DROP_OLDEST),
+                is(OverflowPolicy.CALLER_RUNS));
+        assertThat(OverflowPolicy.fromString(" block ", OverflowPolicy.DROP_OLDEST),
+                is(OverflowPolicy.BLOCK));
+        assertThat(OverflowPolicy.fromString("unknown", OverflowPolicy.DROP_OLDEST),
+                is(OverflowPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void testReconfigureKeepsOrderAndCounters() throws Exception {
+        BlockingHandler handler = new BlockingHandler();
+        executor = new PubSubDispatchExecutor<String>(1, 100, 10, OverflowPolicy.BLOCK, 1000,
+                handler);
+
+        executor.execute("id", "first");
+        assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+        executor.execute("id", "queued");
+
+        PubSubDispatchExecutor<String> previous = executor;
+        executor = previous.reconfigure(4, 10, 5);
+        executor.execute("id", "after");
+        handler.release.countDown();
+        previous.shutdown(5, TimeUnit.SECONDS);
+        executor.shutdown(5, TimeUnit.SECONDS);
+
+        assertThat(handler.events.toString(), is("[first, queued, after]"));
+        assertThat(executor.getThreads(), is(4));
+        assertThat(executor.getOverflowPolicy(), is(OverflowPolicy.BLOCK));
+        assertThat(executor.getSubmittedEvents(), is(3L));
+        assertThat(executor.getDispatchedEvents(), is(3L));
+    }
+
+    /**
+     * Holds up the first batch until released so that later events wait in the queue.
+     */
+    private static class BlockingHandler implements BatchHandler<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final List<String> events = new ArrayList<String>();
+
+        private final List<Integer> batchSizes = new ArrayList<Integer>();
+
+        @Override
+        public void handle(List<String> batch) {
+            if (calls.getAndIncrement() == 0) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                events.addAll(batch);
+                batchSizes.add(batch.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+
+public class PublishedEventDispatcherTest {
+
+    private final PublishedEventDispatcher dispatcher = new PublishedEventDispatcher();
+
+    @Test
+    public void testEvaluateOnlyCandidates() {
+        PublishedEventHandler nitfHandler = mock(PublishedEventHandler.class);
+        PublishedEventHandler pdfHandler = mock(PublishedEventHandler.class);
+        dispatcher.addSubscription("nitf", new ContentTypePredicate("nitf", null), nitfHandler);
+        dispatcher.addSubscription("pdf", new ContentTypePredicate("pdf", null), pdfHandler);
+
+        Event event = createEvent("nitf,1.0");
+        dispatcher.evaluate(event);
+
+        verify(nitfHandler).handleEvent(event);
+        verify(pdfHandler, never()).handleEvent(any(Event.class));
+    }
+
+    @Test
+    public void testEvaluateAfterHandlerFailure() {
+        PublishedEventHandler failingHandler = mock(PublishedEventHandler.class);
+        doThrow(new IllegalStateException("test")).when(failingHandler)
+                .handleEvent(any(Event.class));
+        PublishedEventHandler handler = mock(PublishedEventHandler.class);
+        dispatcher.addSubscription("failing", new ContentTypePredicate("nitf", null),
+                failingHandler);
+        dispatcher.addSubscription("nitf", new ContentTypePredicate("nitf", null), handler);
+
+        Event event = createEvent("nitf,1.0");
+        dispatcher.evaluate(event);
+
+        verify(failingHandler).handleEvent(event);
+        verify(handler).handleEvent(event);
+    }
+
+    private Event createEvent(String contentType) {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+        properties.put(PubSubConstants.HEADER_ENTRY_KEY, new MetacardImpl());
+        properties.put(PubSubConstants.HEADER_CONTENT_TYPE_KEY, contentType);
+        return new Event("topic", properties);
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.internal.DeliveryProcessor;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.internal.SubscriptionDeliveryExecutor;
+import ddf.catalog.pubsub.internal.SubscriptionDeliveryExecutor.DeliveryQueue;
+
+public class SubscriptionDeliveryExecutorTest {
+
+    private SubscriptionDeliveryExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEntriesAreDeliveredInBatchesInOrder() throws Exception {
+        executor = new SubscriptionDeliveryExecutor(2, 100, 3, 0, 0, 0);
+        RecordingProcessor recorder = new RecordingProcessor(7);
+        DeliveryProcessor processor = recorder.mock(true);
+        DeliveryQueue queue = executor.addSubscription("sub", processor);
+
+        recorder.block();
+        queue.enqueue(PubSubConstants.CREATE, metacard("0"));
+        assertTrue(recorder.started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 5; i++) {
+            queue.enqueue(PubSubConstants.CREATE, metacard(String.valueOf(i)));
+        }
+        queue.enqueue(PubSubConstants.DELETE, metacard("5"));
+        queue.enqueue(PubSubConstants.DELETE, metacard("6"));
+        recorder.release();
+
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        assertThat(recorder.batches.toString(),
+                is("[CREATE[0], CREATE[1, 2, 3], CREATE[4], DELETE[5, 6]]"));
+        waitForDelivered(7);
+        assertThat(executor.getDeliveredEntries(), is(7L));
+        assertThat(executor.getPendingEntries(), is(0));
+    }
+
+    @Test
+    public void testEntriesAreDeliveredOneAtATimeWithoutBatchSupport() throws Exception {
+        executor = new SubscriptionDeliveryExecutor(2, 100, 10, 0, 0, 0);
+        RecordingProcessor recorder = new RecordingProcessor(3);
+        DeliveryQueue queue = executor.addSubscription("sub", recorder.mock(false));
+
+        for (int i = 0; i < 3; i++) {
+            queue.enqueue(PubSubConstants.UPDATE, metacard(String.valueOf(i)));
+        }
+
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        assertThat(recorder.batches.toString(), is("[UPDATE[0], UPDATE[1], UPDATE[2]]"));
+    }
+
+    @Test
+    public void testFailedDeliveryIsRetriedWithBackoff() throws Exception {
+        executor = new SubscriptionDeliveryExecutor(1, 100, 10, 2, 10, 100);
+        RecordingProcessor recorder = new RecordingProcessor(1);
+        recorder.failures = 2;
+        DeliveryQueue queue = executor.addSubscription("sub", recorder.mock(true));
+
+        queue.enqueue(PubSubConstants.CREATE, metacard("0"));
+
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        waitForDelivered(1);
+        assertThat(executor.getRetries(), is(2L));
+        assertThat(executor.getDeliveredEntries(), is(1L));
+        assertThat(executor.getFailedEntries(), is(0L));
+    }
+
+    @Test
+    public void testDeliveryIsDroppedAfterMaxRetries() throws Exception {
+        executor = new SubscriptionDeliveryExecutor(1, 100, 10, 1, 1, 1);
+        DeliveryProcessor processor = mock(DeliveryProcessor.class);
+        doThrow(new IllegalStateException("unreachable")).when(processor)
+                .deliver(anyString(), anyListOf(Metacard.class));
+        DeliveryQueue queue = executor.addSubscription("sub", processor);
+
+        queue.enqueue(PubSubConstants.CREATE, metacard("0"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getFailedEntries() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.getFailedEntries(), is(1L));
+        assertThat(executor.getRetries(), is(1L));
+        assertThat(executor.getPendingEntries(), is(0));
+    }
+
+    @Test
+    public void testQueueKeepsDeliveringAfterError() throws Exception {
+        executor = new SubscriptionDeliveryExecutor(1, 100, 10, 1, 1, 1);
+        final RecordingProcessor recorder = new RecordingProcessor(1);
+        final DeliveryProcessor delegate = recorder.mock(false);
+        DeliveryProcessor processor = mock(DeliveryProcessor.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                @SuppressWarnings("unchecked")
+                List<Metacard> entries = (List<Metacard>) invocation.getArguments()[1];
+                if ("0".equals(entries.get(0).getId())) {
+                    throw new AssertionError("delivery failed");
+                }
+                delegate.deliver((String) invocation.getArguments()[0], entries);
+                return null;
+            }
+        }).when(processor).deliver(anyString(), anyListOf(Metacard.class));
+        DeliveryQueue queue = executor.addSubscription("sub", processor);
+
+        queue.enqueue(PubSubConstants.CREATE, metacard("0"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getFailedEntries() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        queue.enqueue(PubSubConstants.CREATE, metacard("1"));
+
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        assertThat(recorder.batches.toString(), is("[CREATE[1]]"));
+        assertThat(executor.getFailedEntries(), is(1L));
+        assertThat(executor.getRetries(), is(0L));
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotBlockOthers() throws Exception {
+        executor = new SubscriptionDeliveryExecutor(2, 3, 10, 0, 0, 0);
+        RecordingProcessor slow = new RecordingProcessor(1);
+        RecordingProcessor fast = new RecordingProcessor(3);
+        DeliveryQueue slowQueue = executor.addSubscription("slow", slow.mock(false));
+        DeliveryQueue fastQueue = executor.addSubscription("fast", fast.mock(false));
+
+        slow.block();
+        slowQueue.enqueue(PubSubConstants.CREATE, metacard("0"));
+        assertTrue(slow.started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 6; i++) {
+            slowQueue.enqueue(PubSubConstants.CREATE, metacard(String.valueOf(i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            fastQueue.enqueue(PubSubConstants.CREATE, metacard(String.valueOf(i)));
+        }
+
+        assertTrue(fast.done.await(5, TimeUnit.SECONDS));
+        assertThat(executor.getDroppedEntries(), is(2L));
+        assertThat(executor.getOverflowedEntries(), is(2L));
+        assertThat(executor.getPendingEntriesBySubscription().get("slow"), is(4));
+        assertTrue(executor.getLagMillisBySubscription().containsKey("slow"));
+        slow.release();
+    }
+
+    @Test
+    public void testRemovedSubscriptionDropsPendingEntries() throws Exception {
+        executor = new SubscriptionDeliveryExecutor(1, 100, 10, 0, 0, 0);
+        RecordingProcessor recorder = new RecordingProcessor(1);
+        DeliveryQueue queue = executor.addSubscription("sub", recorder.mock(false));
+
+        recorder.block();
+        queue.enqueue(PubSubConstants.CREATE, metacard("0"));
+        assertTrue(recorder.started.await(5, TimeUnit.SECONDS));
+        queue.enqueue(PubSubConstants.CREATE, metacard("1"));
+        executor.removeSubscription("sub");
+        recorder.release();
+        queue.enqueue(PubSubConstants.CREATE, metacard("2"));
+
+        assertThat(executor.getDroppedEntries(), is(2L));
+        assertThat(executor.getOverflowedEntries(), is(0L));
+        assertThat(executor.getSubscriptions(), is(0));
+    }
+
+    private void waitForDelivered(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getDeliveredEntries() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Metacard metacard(String id) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        return metacard;
+    }
+
+    /**
+     * Records the batches handed to a mock {@link DeliveryProcessor}, optionally holding up the
+     * first delivery or failing a number of deliveries.
+     */
+    private static class RecordingProcessor {
+
+        private final List<String> batches = new ArrayList<String>();
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch done;
+
+        private volatile CountDownLatch release;
+
+        private volatile int failures;
+
+        RecordingProcessor(int expectedEntries) {
+            done = new CountDownLatch(expectedEntries);
+        }
+
+        void block() {
+            release = new CountDownLatch(1);
+        }
+
+        void release() {
+            release.countDown();
+        }
+
+        DeliveryProcessor mock(boolean batchDelivery) {
+            DeliveryProcessor processor = org.mockito.Mockito.mock(DeliveryProcessor.class);
+            when(processor.isBatchDelivery()).thenReturn(batchDelivery);
+            doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) throws Throwable {
+                    started.countDown();
+                    if (release != null) {
+                        release.await(5, TimeUnit.SECONDS);
+                        release = null;
+                    }
+                    if (failures > 0) {
+                        failures--;
+                        throw new IllegalStateException("delivery failed");
+                    }
+                    @SuppressWarnings("unchecked")
+                    List<Metacard> entries = (List<Metacard>) invocation.getArguments()[1];
+                    List<String> ids = new ArrayList<String>();
+                    for (Metacard entry : entries) {
+                        ids.add(entry.getId());
+                    }
+                    synchronized (batches) {
+                        batches.add(invocation.getArguments()[0] + ids.toString());
+                    }
+                    for (int i = 0; i < entries.size(); i++) {
+                        done.countDown();
+                    }
+                    return null;
+                }
+            }).when(processor).deliver(anyString(), anyListOf(Metacard.class));
+            return processor;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.osgi.service.event.Event;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.internal.SubscriptionIndex;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+
+/**
+ * Measures how many published events per second are matched against geospatial subscriptions
+ * when only the candidates found by a {@link SubscriptionIndex} are evaluated, compared with
+ * evaluating every subscription.
+ * <p>
+ * Run from this module's directory, after {@code mvn test-compile}, with the test classpath:
+ * {@code java -cp <test classpath> ddf.catalog.pubsub.SubscriptionIndexBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SubscriptionIndexBenchmark {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    @Param({"10", "1000", "10000"})
+    private int subscriptions;
+
+    private SubscriptionIndex<Predicate> index;
+
+    private List<Predicate> predicates;
+
+    private List<Event> events;
+
+    @Setup
+    public void setUp() {
+        index = new SubscriptionIndex<>();
+        predicates = new ArrayList<>(subscriptions);
+        int side = (int) Math.ceil(Math.sqrt(subscriptions));
+        for (int i = 0; i < subscriptions; i++) {
+            double x = -180 + (i % side) * 360.0 / side;
+            double y = -90 + (i / side) * 180.0 / side;
+            Predicate predicate = (i % 2 == 0) ?
+                    new GeospatialPredicate(GEOMETRY_FACTORY.createPoint(new Coordinate(x, y)),
+                            null, 1.0) :
+                    new GeospatialPredicate(
+                            GEOMETRY_FACTORY.createPoint(new Coordinate(x, y)).buffer(1.0),
+                            SpatialOperator.OVERLAPS.name(), 0.0);
+            index.add("sub" + i, predicate, predicate);
+            predicates.add(predicate);
+        }
+
+        events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setLocation("POINT(" + (i * 3.3 - 165) + " " + (i * 1.7 - 85) + ")");
+            Map<String, Object> properties = new HashMap<>();
+            properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+            properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+            events.add(new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties));
+        }
+    }
+
+    /**
+     * Per thread position in the event list.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int size) {
+            next = (next + 1) % size;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public int indexedCandidates(Cursor cursor) {
+        Event event = events.get(cursor.next(events.size()));
+        return countMatches(index.getCandidates(event), event);
+    }
+
+    @Benchmark
+    public int allSubscriptions(Cursor cursor) {
+        Event event = events.get(cursor.next(events.size()));
+        return countMatches(predicates, event);
+    }
+
+    private static int countMatches(Iterable<Predicate> candidates, Event event) {
+        int matches = 0;
+        for (Predicate predicate : candidates) {
+            if (predicate.matches(event)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SubscriptionIndexBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
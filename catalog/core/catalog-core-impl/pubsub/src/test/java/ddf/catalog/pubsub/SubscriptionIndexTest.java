@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.EventProcessorImpl.DateType;
+import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.internal.SubscriptionFilterVisitor;
+import ddf.catalog.pubsub.internal.SubscriptionIndex;
+import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.TemporalPredicate;
+
+public class SubscriptionIndexTest {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Test
+    public void testGeospatialCandidates() throws Exception {
+        for (int subscriptions : new int[] {10, 1000, 10000}) {
+            SubscriptionIndex<Predicate> index = new SubscriptionIndex<>();
+            int side = (int) Math.ceil(Math.sqrt(subscriptions));
+            for (int i = 0; i < subscriptions; i++) {
+                double x = -180 + (i % side) * 360.0 / side;
+                double y = -90 + (i / side) * 180.0 / side;
+                Predicate predicate = (i % 2 == 0) ?
+                        new GeospatialPredicate(GEOMETRY_FACTORY.createPoint(
+                                new Coordinate(x, y)), null, 1.0) :
+                        new GeospatialPredicate(GEOMETRY_FACTORY.createPoint(
+                                new Coordinate(x, y)).buffer(1.0),
+                                SpatialOperator.OVERLAPS.name(), 0.0);
+                index.add("sub" + i, predicate, predicate);
+            }
+
+            List<Event> events = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                MetacardImpl metacard = new MetacardImpl();
+                metacard.setLocation("POINT(" + (i * 3.3 - 165) + " " + (i * 1.7 - 85) + ")");
+                events.add(createEvent(metacard, null));
+            }
+
+            long candidates = 0;
+            for (Event event : events) {
+                candidates += assertCandidatesContainMatches(index, event).size();
+            }
+            assertTrue("candidates per event should not grow with the subscription count",
+                    candidates <= events.size() * 8);
+        }
+    }
+
+    @Test
+    public void testContentTypeCandidates() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("nitf", new ContentTypePredicate("nitf", null), "nitf");
+        index.add("video", new ContentTypePredicate("video", "1.0"), "video");
+        index.add("wildcard", new ContentTypePredicate("ni*", null), "wildcard");
+
+        MetacardImpl metacard = new MetacardImpl();
+        Event event = createEvent(metacard, "nitf,2.0");
+
+        Collection<String> candidates = index.getCandidates(event);
+        assertThat(candidates, hasItem("nitf"));
+        assertThat(candidates, hasItem("wildcard"));
+        assertThat(candidates, not(hasItem("video")));
+    }
+
+    @Test
+    public void testTemporalCandidates() throws Exception {
+        long now = System.currentTimeMillis();
+        SubscriptionIndex<Predicate> index = new SubscriptionIndex<>();
+        for (int i = 0; i < 100; i++) {
+            Predicate absolute = new TemporalPredicate(new Date(now - (i + 1) * HOUR),
+                    new Date(now - i * HOUR), DateType.modified);
+            index.add("absolute" + i, absolute, absolute);
+            Predicate relative = new TemporalPredicate((i + 1) * HOUR, DateType.modified);
+            index.add("relative" + i, relative, relative);
+        }
+
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setModifiedDate(new Date(now - 50 * HOUR - HOUR / 2));
+        Event event = createEvent(metacard, null);
+
+        Collection<Predicate> candidates = assertCandidatesContainMatches(index, event);
+        // one absolute period and the relative periods of at least 51 hours
+        assertThat(candidates.size(), is(51));
+
+        metacard.setModifiedDate(null);
+        assertThat(index.getCandidates(createEvent(metacard, null)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testContextualCandidates() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("dog", new ContextualPredicate("dog", false, false, null), "dog");
+        index.add("serengeti", new ContextualPredicate("serengeti event", false, false, null),
+                "serengeti");
+        index.add("zebra", new ContextualPredicate("zebra AND dog", false, false, null),
+                "zebra");
+        index.add("fuzzy", new ContextualPredicate("zebra", true, false, null), "fuzzy");
+
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setMetadata(TestDataLibrary.getDogEntry());
+        Event event = createEvent(metacard, null);
+
+        Collection<String> candidates = index.getCandidates(event);
+        assertThat(candidates, hasItem("dog"));
+        assertThat(candidates, hasItem("fuzzy"));
+        assertThat(candidates, not(hasItem("zebra")));
+    }
+
+    @Test
+    public void testContextualSubscriptionCount() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("nitf", new ContentTypePredicate("nitf", null), "nitf");
+        assertThat(index.hasContextualSubscriptions(), is(false));
+
+        index.add("dog", SubscriptionFilterVisitor.not(
+                new ContextualPredicate("dog", false, false, null)), "dog");
+        assertThat(index.hasContextualSubscriptions(), is(true));
+
+        index.add("dog", new ContentTypePredicate("video", null), "video");
+        assertThat(index.hasContextualSubscriptions(), is(false));
+    }
+
+    @Test
+    public void testCombinedPredicates() throws Exception {
+        Predicate nitf = new ContentTypePredicate("nitf", null);
+        Predicate video = new ContentTypePredicate("video", null);
+
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("and", SubscriptionFilterVisitor
+                .and(SubscriptionFilterVisitor.not(video), nitf), "and");
+        index.add("or", SubscriptionFilterVisitor.or(video, nitf), "or");
+        index.add("not", SubscriptionFilterVisitor.not(nitf), "not");
+        index.add("filterless", null, "filterless");
+
+        Collection<String> candidates = index.getCandidates(createEvent(new MetacardImpl(),
+                "video,1.0"));
+        assertThat(candidates, not(hasItem("and")));
+        assertThat(candidates, hasItem("or"));
+        assertThat(candidates, hasItem("not"));
+        assertThat(candidates, hasItem("filterless"));
+
+        index.remove("or");
+        assertThat(index.getCandidates(createEvent(new MetacardImpl(), "video,1.0")),
+                not(hasItem("or")));
+    }
+
+    @Test
+    public void testDeletedEntryMatchesAll() throws Exception {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("nitf", new ContentTypePredicate("nitf", null), "nitf");
+
+        Map<String, Object> contextualMap = new HashMap<>();
+        contextualMap.put("METADATA", PubSubConstants.METADATA_DELETED);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.DELETE);
+        properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+        properties.put(PubSubConstants.HEADER_ENTRY_KEY, new MetacardImpl());
+
+        assertThat(index.getCandidates(new Event("topic", properties)), hasItem("nitf"));
+    }
+
+    private Collection<Predicate> assertCandidatesContainMatches(
+            SubscriptionIndex<Predicate> index, Event event) {
+        Collection<Predicate> candidates = index.getCandidates(event);
+        Set<Predicate> candidateSet = new HashSet<>(candidates);
+        for (Predicate predicate : getAll(index, event)) {
+            if (predicate.matches(event)) {
+                assertThat(candidateSet, hasItem(predicate));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns every registered predicate by looking them up with a deleted entry event.
+     */
+    private Collection<Predicate> getAll(SubscriptionIndex<Predicate> index, Event event) {
+        Map<String, Object> contextualMap = new HashMap<>();
+        contextualMap.put("METADATA", PubSubConstants.METADATA_DELETED);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.DELETE);
+        properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+        return index.getCandidates(new Event("topic", properties));
+    }
+
+    private Event createEvent(MetacardImpl metacard, String contentType) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+        properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+        if (contentType != null) {
+            properties.put(PubSubConstants.HEADER_CONTENT_TYPE_KEY, contentType);
+        }
+        if (metacard.getMetadata() != null) {
+            Map<String, Object> contextualMap = new HashMap<>();
+            contextualMap.put("DEFAULT_INDEX", ContextualEvaluator.buildIndex(metacard.getMetadata()));
+            contextualMap.put("METADATA", metacard.getMetadata());
+            properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+        }
+        return new Event("topic", properties);
+    }
+}
@@ -16,7 +16,6 @@
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.configuration.ConfigurationManager;
@@ -26,7 +25,6 @@
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingTimeWindowReservoir;
 
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterAdapter;
@@ -45,6 +43,7 @@
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
+import ddf.metrics.collector.HdrReservoir;
 
 /**
  * Catalog plug-in to capture metrics on catalog operations.
@@ -110,7 +109,7 @@ public CatalogMetrics(FilterAdapter filterAdapter) {
 
         this.filterAdapter = filterAdapter;
 
-        resultCount = metrics.register(MetricRegistry.name(QUERIES_SCOPE, "TotalResults"), new Histogram(new SlidingTimeWindowReservoir(1, TimeUnit.MINUTES)));
+        resultCount = metrics.register(MetricRegistry.name(QUERIES_SCOPE, "TotalResults"), new Histogram(new HdrReservoir()));
 
         queries = metrics.meter(MetricRegistry.name(QUERIES_SCOPE));
         federatedQueries = metrics.meter(MetricRegistry.name(QUERIES_SCOPE, "Federated"));
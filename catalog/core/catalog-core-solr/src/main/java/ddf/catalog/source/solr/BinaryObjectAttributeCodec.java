@@ -0,0 +1,315 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+
+import ddf.catalog.source.solr.codec.ObjectAttributeCodec;
+
+/**
+ * Default {@link ObjectAttributeCodec} for strings, boxed primitives, dates, byte arrays and the
+ * common {@link java.util.List}, {@link java.util.Set} and {@link Map} implementations of them.
+ * Only exact classes are encoded, so a value always decodes to an object of the class it was
+ * indexed with; subclasses and other collection types are left to Java serialization.
+ */
+public class BinaryObjectAttributeCodec implements ObjectAttributeCodec {
+
+    public static final String ID = "binary";
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final byte NULL = 0;
+
+    private static final byte STRING = 1;
+
+    private static final byte INTEGER = 2;
+
+    private static final byte LONG = 3;
+
+    private static final byte SHORT = 4;
+
+    private static final byte BYTE = 5;
+
+    private static final byte DOUBLE = 6;
+
+    private static final byte FLOAT = 7;
+
+    private static final byte BOOLEAN = 8;
+
+    private static final byte CHARACTER = 9;
+
+    private static final byte DATE = 10;
+
+    private static final byte BYTES = 11;
+
+    private static final byte ARRAY_LIST = 12;
+
+    private static final byte LINKED_LIST = 13;
+
+    private static final byte HASH_SET = 14;
+
+    private static final byte LINKED_HASH_SET = 15;
+
+    private static final byte HASH_MAP = 16;
+
+    private static final byte LINKED_HASH_MAP = 17;
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean canEncode(Serializable value) {
+        return canEncode(value, 0);
+    }
+
+    @Override
+    public void encode(Serializable value, DataOutput out) throws IOException {
+        write(value, out);
+    }
+
+    @Override
+    public Serializable decode(DataInput in) throws IOException {
+        return (Serializable) read(in);
+    }
+
+    private boolean canEncode(Object value, int depth) {
+        if (depth > MAX_DEPTH) {
+            return false;
+        }
+
+        byte tag = getTag(value);
+        switch (tag) {
+        case -1:
+            return false;
+        case ARRAY_LIST:
+        case LINKED_LIST:
+        case HASH_SET:
+        case LINKED_HASH_SET:
+            for (Object element : (Collection<?>) value) {
+                if (!canEncode(element, depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        case HASH_MAP:
+        case LINKED_HASH_MAP:
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!canEncode(entry.getKey(), depth + 1) || !canEncode(entry.getValue(),
+                        depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        default:
+            return true;
+        }
+    }
+
+    private byte getTag(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            return STRING;
+        } else if (type == Integer.class) {
+            return INTEGER;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == Short.class) {
+            return SHORT;
+        } else if (type == Byte.class) {
+            return BYTE;
+        } else if (type == Double.class) {
+            return DOUBLE;
+        } else if (type == Float.class) {
+            return FLOAT;
+        } else if (type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == Character.class) {
+            return CHARACTER;
+        } else if (type == Date.class) {
+            return DATE;
+        } else if (type == byte[].class) {
+            return BYTES;
+        } else if (type == ArrayList.class) {
+            return ARRAY_LIST;
+        } else if (type == LinkedList.class) {
+            return LINKED_LIST;
+        } else if (type == HashSet.class) {
+            return HASH_SET;
+        } else if (type == LinkedHashSet.class) {
+            return LINKED_HASH_SET;
+        } else if (type == HashMap.class) {
+            return HASH_MAP;
+        } else if (type == LinkedHashMap.class) {
+            return LINKED_HASH_MAP;
+        }
+        return -1;
+    }
+
+    private void write(Object value, DataOutput out) throws IOException {
+        byte tag = getTag(value);
+        out.writeByte(tag);
+
+        switch (tag) {
+        case NULL:
+            break;
+        case STRING:
+            writeBytes(((String) value).getBytes(StandardCharsets.UTF_8), out);
+            break;
+        case INTEGER:
+            out.writeInt((Integer) value);
+            break;
+        case LONG:
+            out.writeLong((Long) value);
+            break;
+        case SHORT:
+            out.writeShort((Short) value);
+            break;
+        case BYTE:
+            out.writeByte((Byte) value);
+            break;
+        case DOUBLE:
+            out.writeDouble((Double) value);
+            break;
+        case FLOAT:
+            out.writeFloat((Float) value);
+            break;
+        case BOOLEAN:
+            out.writeBoolean((Boolean) value);
+            break;
+        case CHARACTER:
+            out.writeChar((Character) value);
+            break;
+        case DATE:
+            out.writeLong(((Date) value).getTime());
+            break;
+        case BYTES:
+            writeBytes((byte[]) value, out);
+            break;
+        case ARRAY_LIST:
+        case LINKED_LIST:
+        case HASH_SET:
+        case LINKED_HASH_SET:
+            Collection<?> collection = (Collection<?>) value;
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                write(element, out);
+            }
+            break;
+        case HASH_MAP:
+        case LINKED_HASH_MAP:
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(entry.getKey(), out);
+                write(entry.getValue(), out);
+            }
+            break;
+        default:
+            throw new IOException("Cannot encode value of type " + value.getClass().getName());
+        }
+    }
+
+    private Object read(DataInput in) throws IOException {
+        byte tag = in.readByte();
+
+        switch (tag) {
+        case NULL:
+            return null;
+        case STRING:
+            return new String(readBytes(in), StandardCharsets.UTF_8);
+        case INTEGER:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case SHORT:
+            return in.readShort();
+        case BYTE:
+            return in.readByte();
+        case DOUBLE:
+            return in.readDouble();
+        case FLOAT:
+            return in.readFloat();
+        case BOOLEAN:
+            return in.readBoolean();
+        case CHARACTER:
+            return in.readChar();
+        case DATE:
+            return new Date(in.readLong());
+        case BYTES:
+            return readBytes(in);
+        case ARRAY_LIST:
+            return readCollection(in, new ArrayList<>());
+        case LINKED_LIST:
+            return readCollection(in, new LinkedList<>());
+        case HASH_SET:
+            return readCollection(in, new HashSet<>());
+        case LINKED_HASH_SET:
+            return readCollection(in, new LinkedHashSet<>());
+        case HASH_MAP:
+            return readMap(in, new HashMap<>());
+        case LINKED_HASH_MAP:
+            return readMap(in, new LinkedHashMap<>());
+        default:
+            throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private Collection<Object> readCollection(DataInput in, Collection<Object> collection)
+            throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            collection.add(read(in));
+        }
+        return collection;
+    }
+
+    private Map<Object, Object> readMap(DataInput in, Map<Object, Object> map)
+            throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            map.put(read(in), read(in));
+        }
+        return map;
+    }
+
+    private void writeBytes(byte[] bytes, DataOutput out) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private byte[] readBytes(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -14,20 +14,21 @@
 package ddf.catalog.source.solr;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -37,6 +38,7 @@
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -59,6 +61,7 @@
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeDescriptorImpl;
 import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.source.solr.codec.ObjectAttributeCodec;
 
 /**
  * This class tries to resolve all user given field names to their corresponding dynamic Solr index
@@ -85,7 +88,9 @@ public class DynamicSchemaResolver {
 
     private static final List<String> PRIVATE_SOLR_FIELDS = Arrays
             .asList(SOLR_CLOUD_VERSION_FIELD, SchemaFields.METACARD_TYPE_FIELD_NAME,
-                    SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME);
+                    SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
+                    SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME,
+                    SchemaFields.METACARD_TYPE_REGISTRY_FIELD_NAME);
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamicSchemaResolver.class);
 
@@ -113,13 +118,29 @@ public class DynamicSchemaResolver {
         }
     }
 
-    protected Set<String> fieldsCache = new HashSet<>();
+    /*
+     * The caches are shared by ingest and query threads. They are read on every document and only
+     * written the first time a field or metacard type is seen, so reads never lock.
+     */
+    protected Set<String> fieldsCache = newConcurrentSet();
 
     protected SchemaFields schemaFields;
 
-    protected Map<String, MetacardType> metacardTypesCache = new HashMap<>();
+    protected ConcurrentMap<String, MetacardType> metacardTypesCache = new ConcurrentHashMap<>();
+
+    protected ConcurrentMap<String, byte[]> metacardTypeNameToSerialCache =
+            new ConcurrentHashMap<>();
+
+    protected ConcurrentMap<String, String> metacardTypeNameToVersionCache =
+            new ConcurrentHashMap<>();
 
-    protected Map<String, byte[]> metacardTypeNameToSerialCache = new HashMap<>();
+    protected ConcurrentMap<String, MetacardType> metacardTypeVersionsCache =
+            new ConcurrentHashMap<>();
+
+    protected Set<String> registeredMetacardTypeVersions = newConcurrentSet();
+
+    private final ObjectAttributeSerializer objectAttributeSerializer =
+            new ObjectAttributeSerializer();
 
     public DynamicSchemaResolver() {
         this.schemaFields = new SchemaFields();
@@ -130,6 +151,19 @@ public DynamicSchemaResolver() {
                 + SchemaFields.HAS_CASE);
     }
 
+    /**
+     * Sets the codecs used to store {@link AttributeFormat#OBJECT} attribute values. They are tried
+     * in order before the default {@link BinaryObjectAttributeCodec}; values none of them can
+     * encode are stored with Java serialization. The list is not copied, so codecs added to it
+     * later, for instance by a blueprint reference-list, are used as well.
+     *
+     * @param codecs
+     *            custom codecs, may be {@code null} or empty
+     */
+    public void setObjectAttributeCodecs(List<ObjectAttributeCodec> codecs) {
+        objectAttributeSerializer.setCodecs(codecs);
+    }
+
     /**
      * Adds the fields that are already in the server to the cache. This method should be called
      * once the SolrServer is up to ensure the cache is synchronized with the server.
@@ -211,18 +245,16 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
                     } else if (AttributeFormat.GEOMETRY.equals(format)) {
                         solrInputDocument.addField(formatIndexName, attributeValue);
                     } else if (AttributeFormat.OBJECT.equals(format)) {
-                        ByteArrayOutputStream byteArrayOS = new ByteArrayOutputStream();
+                        byte[] bytes;
 
                         try {
-                            ObjectOutputStream out = new ObjectOutputStream(byteArrayOS);
-                            out.writeObject(attributeValue);
-                            out.close();
+                            bytes = objectAttributeSerializer.serialize(attributeValue);
                         } catch (IOException e) {
                             LOGGER.warn(COULD_NOT_SERIALIZE_OBJECT_MESSAGE, e);
                             throw new MetacardCreationException(COULD_NOT_SERIALIZE_OBJECT_MESSAGE);
                         }
 
-                        solrInputDocument.addField(formatIndexName, byteArrayOS.toByteArray());
+                        solrInputDocument.addField(formatIndexName, bytes);
                     } else {
                         solrInputDocument.addField(formatIndexName, attributeValue);
                     }
@@ -237,24 +269,167 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
         }
 
         /*
-         * Lastly the metacardType must be added to the solr document. These are internal fields
+         * Lastly the metacardType must be added to the solr document. These are internal fields.
+         * Only the name and version are stored with the metacard, the type itself is stored once
+         * in a registry document, see getMetacardTypeDocuments.
          */
         solrInputDocument.addField(SchemaFields.METACARD_TYPE_FIELD_NAME, schema.getName());
-        byte[] metacardTypeBytes = metacardTypeNameToSerialCache.get(schema.getName());
+        String metacardTypeVersion = metacardTypeNameToVersionCache.get(schema.getName());
+
+        if (metacardTypeVersion == null) {
+            metacardTypeVersion = addMetacardType(schema);
+        }
+
+        solrInputDocument
+                .addField(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME, metacardTypeVersion);
+    }
+
+    /**
+     * Serializes and caches a metacard type the first time it is seen. Only this slow path is
+     * synchronized so concurrent ingest threads do not serialize the same type more than once.
+     *
+     * @return the version of the metacard type
+     */
+    private synchronized String addMetacardType(MetacardType schema)
+            throws MetacardCreationException {
+        String metacardTypeVersion = metacardTypeNameToVersionCache.get(schema.getName());
+
+        if (metacardTypeVersion != null) {
+            return metacardTypeVersion;
+        }
+
+        MetacardType coreMetacardType = new MetacardTypeImpl(schema.getName(),
+                convertAttributeDescriptors(schema.getAttributeDescriptors()));
+
+        byte[] metacardTypeBytes = serialize(coreMetacardType);
+        metacardTypeVersion = MetacardTypeCodec.version(metacardTypeBytes);
+
+        addToFieldsCache(coreMetacardType.getAttributeDescriptors());
+        metacardTypesCache.put(schema.getName(), coreMetacardType);
+        metacardTypeNameToSerialCache.put(schema.getName(), metacardTypeBytes);
+        metacardTypeVersionsCache.put(metacardTypeVersion, coreMetacardType);
+
+        // published last, readers that find the version also find everything above
+        metacardTypeNameToVersionCache.put(schema.getName(), metacardTypeVersion);
+
+        return metacardTypeVersion;
+    }
+
+    /**
+     * Creates the registry documents for the {@link MetacardType}s of the given metacards that
+     * have not been written to the server yet. Must be called after
+     * {@link #addFields(Metacard, SolrInputDocument)} has been called for the metacards.
+     *
+     * @param metacards
+     *            metacards being added to the server
+     * @return one document per unregistered metacard type, empty if all types are registered
+     */
+    public List<SolrInputDocument> getMetacardTypeDocuments(List<Metacard> metacards) {
+        List<SolrInputDocument> typeDocuments = new ArrayList<>();
+        Set<String> versions = new HashSet<>();
+
+        for (Metacard metacard : metacards) {
+            String name = metacard.getMetacardType().getName();
+            String version = metacardTypeNameToVersionCache.get(name);
+
+            if (version != null && !registeredMetacardTypeVersions.contains(version) && versions
+                    .add(version)) {
+                SolrInputDocument typeDocument = new SolrInputDocument();
+                typeDocument.addField(Metacard.ID + SchemaFields.TEXT_SUFFIX,
+                        SchemaFields.METACARD_TYPE_REGISTRY_ID_PREFIX + version);
+                typeDocument.addField(SchemaFields.METACARD_TYPE_FIELD_NAME, name);
+                typeDocument.addField(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME, version);
+                typeDocument.addField(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
+                        metacardTypeNameToSerialCache.get(name));
+                typeDocument.addField(SchemaFields.METACARD_TYPE_REGISTRY_FIELD_NAME, true);
+                typeDocuments.add(typeDocument);
+            }
+        }
+
+        return typeDocuments;
+    }
+
+    /**
+     * Records that the given registry documents have been written to the server so they are not
+     * written again.
+     */
+    public void setMetacardTypesRegistered(List<SolrInputDocument> typeDocuments) {
+        for (SolrInputDocument typeDocument : typeDocuments) {
+            registeredMetacardTypeVersions.add(typeDocument
+                    .getFieldValue(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME).toString());
+        }
+    }
+
+    /**
+     * Forgets which metacard types have been written to the server, used when the registry
+     * documents may have been deleted.
+     */
+    public void clearRegisteredMetacardTypes() {
+        registeredMetacardTypeVersions.clear();
+    }
 
-        if (metacardTypeBytes == null) {
-            MetacardType coreMetacardType = new MetacardTypeImpl(schema.getName(),
-                    convertAttributeDescriptors(schema.getAttributeDescriptors()));
+    /**
+     * @return filter query that excludes the metacard type registry documents from a search
+     */
+    public String getMetacardTypeRegistryFilter() {
+        return "-" + SchemaFields.METACARD_TYPE_REGISTRY_FIELD_NAME + ":true";
+    }
+
+    /**
+     * Loads the {@link MetacardType}s referenced by the given documents that are not in the cache
+     * from their registry documents. All missing types are retrieved with a single query.
+     *
+     * @param server
+     *            the SolrServer we are working with
+     * @param docs
+     *            documents that are about to be converted into metacards
+     */
+    public void addMetacardTypesFromServer(SolrServer server, Collection<SolrDocument> docs) {
+        Set<String> missingVersions = new HashSet<>();
+        for (SolrDocument doc : docs) {
+            Object version = doc.getFieldValue(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME);
+            if (version != null && !metacardTypeVersionsCache.containsKey(version.toString())) {
+                missingVersions.add(version.toString());
+            }
+        }
 
-            metacardTypesCache.put(schema.getName(), coreMetacardType);
+        if (missingVersions.isEmpty()) {
+            return;
+        }
 
-            metacardTypeBytes = serialize(coreMetacardType);
-            metacardTypeNameToSerialCache.put(schema.getName(), metacardTypeBytes);
+        if (server == null) {
+            LOGGER.warn("Server is null, could not load metacard types {}.", missingVersions);
+            return;
+        }
 
-            addToFieldsCache(coreMetacardType.getAttributeDescriptors());
+        StringBuilder queryBuilder = new StringBuilder();
+        for (String version : missingVersions) {
+            if (queryBuilder.length() > 0) {
+                queryBuilder.append(" OR ");
+            }
+            queryBuilder.append(Metacard.ID).append(SchemaFields.TEXT_SUFFIX).append(":\"")
+                    .append(SchemaFields.METACARD_TYPE_REGISTRY_ID_PREFIX).append(version)
+                    .append("\"");
         }
 
-        solrInputDocument.addField(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME, metacardTypeBytes);
+        SolrQuery query = new SolrQuery(queryBuilder.toString());
+        query.setRows(missingVersions.size());
+
+        try {
+            QueryResponse response = server.query(query, SolrRequest.METHOD.POST);
+            for (SolrDocument typeDocument : response.getResults()) {
+                String version = typeDocument
+                        .getFieldValue(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME).toString();
+                MetacardType metacardType = deserialize((byte[]) typeDocument
+                        .getFieldValue(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME));
+
+                addToFieldsCache(metacardType.getAttributeDescriptors());
+                metacardTypeVersionsCache.putIfAbsent(version, metacardType);
+                registeredMetacardTypeVersions.add(version);
+            }
+        } catch (SolrServerException | SolrException | MetacardCreationException e) {
+            LOGGER.warn("Could not load metacard types {}.", missingVersions, e);
+        }
     }
 
     /**
@@ -288,21 +463,13 @@ public Serializable getDocValue(String solrFieldName, Object docValue) {
              */
             return Short.parseShort(docValue.toString());
         } else if (AttributeFormat.OBJECT.equals(format)) {
-
-            ByteArrayInputStream bais = null;
-            ObjectInputStream in = null;
             try {
-                bais = new ByteArrayInputStream((byte[]) docValue);
-                in = new ObjectInputStream(bais);
-                return (Serializable) in.readObject();
+                return objectAttributeSerializer.deserialize((byte[]) docValue);
             } catch (IOException e) {
                 LOGGER.warn("IO exception loading input document", e);
             } catch (ClassNotFoundException e) {
                 LOGGER.warn("Could not create object to return.", e);
                 // TODO which exception to throw?
-            } finally {
-                IOUtils.closeQuietly(bais);
-                IOUtils.closeQuietly(in);
             }
 
             return null;
@@ -405,7 +572,31 @@ public String getFieldSuffix(AttributeFormat format) {
         return schemaFields.getFieldSuffix(format);
     }
 
+    /**
+     * Returns the {@link MetacardType} of a document. Types of documents that reference a registry
+     * document must have been loaded with
+     * {@link #addMetacardTypesFromServer(SolrServer, Collection)} first. Documents indexed before
+     * the registry existed still carry the Java serialized type and are read as before.
+     */
     public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationException {
+        Object version = doc.getFieldValue(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME);
+
+        if (version != null) {
+            MetacardType metacardType = metacardTypeVersionsCache.get(version.toString());
+
+            if (metacardType == null) {
+                LOGGER.warn("No registered metacard type found for version {}", version);
+                throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE);
+            }
+
+            return metacardType;
+        }
+
+        return getLegacyMetacardType(doc);
+    }
+
+    private MetacardType getLegacyMetacardType(SolrDocument doc)
+            throws MetacardCreationException {
         String mTypeFieldName = doc.getFieldValue(SchemaFields.METACARD_TYPE_FIELD_NAME).toString();
 
         MetacardType cachedMetacardType = metacardTypesCache.get(mTypeFieldName);
@@ -440,10 +631,10 @@ public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationExc
             IOUtils.closeQuietly(in);
         }
 
-        metacardTypeNameToSerialCache.put(mTypeFieldName, bytes);
-        metacardTypesCache.put(mTypeFieldName, cachedMetacardType);
         addToFieldsCache(cachedMetacardType.getAttributeDescriptors());
-        return cachedMetacardType;
+        MetacardType previousMetacardType = metacardTypesCache
+                .putIfAbsent(mTypeFieldName, cachedMetacardType);
+        return previousMetacardType != null ? previousMetacardType : cachedMetacardType;
     }
 
     public String getCaseSensitiveField(String mappedPropertyName) {
@@ -471,6 +662,10 @@ protected String getSpecialIndexSuffix(AttributeFormat format) {
         return "";
     }
 
+    private static Set<String> newConcurrentSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
     private void addToFieldsCache(Set<AttributeDescriptor> descriptors) {
         for (AttributeDescriptor ad : descriptors) {
 
@@ -499,23 +694,21 @@ private void addToFieldsCache(Set<AttributeDescriptor> descriptors) {
     }
 
     private byte[] serialize(MetacardType anywhereMType) throws MetacardCreationException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
         try {
-            ObjectOutputStream out = new ObjectOutputStream(baos);
-            out.writeObject(anywhereMType);
-
-            byte[] bytes = baos.toByteArray();
-
-            baos.close();
-            out.close();
-
-            return bytes;
+            return MetacardTypeCodec.encode(anywhereMType);
         } catch (IOException e) {
-            LOGGER.warn("IO exception reading metacard type message", e);
+            LOGGER.warn("IO exception writing metacard type", e);
             throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE);
         }
+    }
 
+    private MetacardType deserialize(byte[] bytes) throws MetacardCreationException {
+        try {
+            return MetacardTypeCodec.decode(bytes);
+        } catch (IOException e) {
+            LOGGER.warn("IO exception reading metacard type", e);
+            throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE);
+        }
     }
 
     private String findAnyMatchingNumericalField(String propertyName) {
@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.hash.Hashing;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+
+/**
+ * Compact, versioned binary form of a {@link MetacardType} stored once per type in the Solr index.
+ * <p/>
+ * Attribute descriptors are written sorted by name so the same type always encodes to the same
+ * bytes, which makes the hash of the encoded form usable as the type version. Attribute types that
+ * are one of the {@link BasicTypes} are written as their {@link AttributeFormat}; any other
+ * attribute type falls back to Java serialization.
+ */
+final class MetacardTypeCodec {
+
+    static final byte FORMAT_VERSION = 1;
+
+    private static final byte BASIC_ATTRIBUTE_TYPE = 0;
+
+    private static final byte SERIALIZED_ATTRIBUTE_TYPE = 1;
+
+    private static final int INDEXED = 1;
+
+    private static final int STORED = 1 << 1;
+
+    private static final int TOKENIZED = 1 << 2;
+
+    private static final int MULTI_VALUED = 1 << 3;
+
+    private static final Map<AttributeFormat, AttributeType<?>> BASIC_ATTRIBUTE_TYPES = new EnumMap<>(
+            AttributeFormat.class);
+
+    static {
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.BINARY, BasicTypes.BINARY_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.BOOLEAN, BasicTypes.BOOLEAN_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.DATE, BasicTypes.DATE_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.DOUBLE, BasicTypes.DOUBLE_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.FLOAT, BasicTypes.FLOAT_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.GEOMETRY, BasicTypes.GEO_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.INTEGER, BasicTypes.INTEGER_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.LONG, BasicTypes.LONG_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.OBJECT, BasicTypes.OBJECT_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.SHORT, BasicTypes.SHORT_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.STRING, BasicTypes.STRING_TYPE);
+        BASIC_ATTRIBUTE_TYPES.put(AttributeFormat.XML, BasicTypes.XML_TYPE);
+    }
+
+    private static final Comparator<AttributeDescriptor> BY_NAME = new Comparator<AttributeDescriptor>() {
+        @Override
+        public int compare(AttributeDescriptor descriptorA, AttributeDescriptor descriptorB) {
+            return descriptorA.getName().compareTo(descriptorB.getName());
+        }
+    };
+
+    private MetacardTypeCodec() {
+    }
+
+    static byte[] encode(MetacardType metacardType) throws IOException {
+        List<AttributeDescriptor> descriptors = new ArrayList<>(
+                metacardType.getAttributeDescriptors());
+        Collections.sort(descriptors, BY_NAME);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(metacardType.getName());
+            out.writeInt(descriptors.size());
+
+            for (AttributeDescriptor descriptor : descriptors) {
+                out.writeUTF(descriptor.getName());
+                out.writeByte(getFlags(descriptor));
+
+                AttributeType<?> type = descriptor.getType();
+                if (isBasicType(type)) {
+                    out.writeByte(BASIC_ATTRIBUTE_TYPE);
+                    out.writeUTF(type.getAttributeFormat().name());
+                } else {
+                    byte[] serializedType = serialize(type);
+                    out.writeByte(SERIALIZED_ATTRIBUTE_TYPE);
+                    out.writeInt(serializedType.length);
+                    out.write(serializedType);
+                }
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    static MetacardType decode(byte[] encoded) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            byte formatVersion = in.readByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported metacard type format version " + formatVersion);
+            }
+
+            String name = in.readUTF();
+            int count = in.readInt();
+            Set<AttributeDescriptor> descriptors = new HashSet<>(count);
+
+            for (int i = 0; i < count; i++) {
+                String attributeName = in.readUTF();
+                int flags = in.readByte();
+
+                AttributeType<?> type;
+                if (in.readByte() == BASIC_ATTRIBUTE_TYPE) {
+                    type = BASIC_ATTRIBUTE_TYPES.get(AttributeFormat.valueOf(in.readUTF()));
+                } else {
+                    byte[] serializedType = new byte[in.readInt()];
+                    in.readFully(serializedType);
+                    type = deserialize(serializedType);
+                }
+
+                descriptors.add(new AttributeDescriptorImpl(attributeName,
+                        (flags & INDEXED) != 0, (flags & STORED) != 0, (flags & TOKENIZED) != 0,
+                        (flags & MULTI_VALUED) != 0, type));
+            }
+
+            return new MetacardTypeImpl(name, descriptors);
+        }
+    }
+
+    /**
+     * @return short hash identifying the encoded form of a metacard type
+     */
+    static String version(byte[] encoded) {
+        return Hashing.murmur3_128().hashBytes(encoded).toString();
+    }
+
+    private static int getFlags(AttributeDescriptor descriptor) {
+        int flags = 0;
+        if (descriptor.isIndexed()) {
+            flags |= INDEXED;
+        }
+        if (descriptor.isStored()) {
+            flags |= STORED;
+        }
+        if (descriptor.isTokenized()) {
+            flags |= TOKENIZED;
+        }
+        if (descriptor.isMultiValued()) {
+            flags |= MULTI_VALUED;
+        }
+        return flags;
+    }
+
+    private static boolean isBasicType(AttributeType<?> type) {
+        if (type == null || type.getAttributeFormat() == null) {
+            return false;
+        }
+        AttributeType<?> basicType = BASIC_ATTRIBUTE_TYPES.get(type.getAttributeFormat());
+        return basicType != null && basicType.getBinding().equals(type.getBinding());
+    }
+
+    private static byte[] serialize(AttributeType<?> type) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(type);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static AttributeType<?> deserialize(byte[] serializedType) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(serializedType))) {
+            return (AttributeType<?>) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Could not load attribute type", e);
+        }
+    }
+}
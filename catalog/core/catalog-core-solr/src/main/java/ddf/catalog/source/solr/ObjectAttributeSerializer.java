@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import ddf.catalog.source.solr.codec.ObjectAttributeCodec;
+
+/**
+ * Converts {@link ddf.catalog.data.AttributeType.AttributeFormat#OBJECT} attribute values to and
+ * from the bytes stored in the Solr index using the first {@link ObjectAttributeCodec} that can
+ * encode the value. Codec encoded values start with {@link #CODEC_HEADER} followed by the codec
+ * id; anything else is read as Java serialization, which is also how values indexed before the
+ * codecs existed were written.
+ */
+class ObjectAttributeSerializer {
+
+    static final byte CODEC_HEADER = 0x01;
+
+    private static final ObjectAttributeCodec DEFAULT_CODEC = new BinaryObjectAttributeCodec();
+
+    private volatile List<ObjectAttributeCodec> customCodecs = Collections.emptyList();
+
+    /**
+     * Replaces the custom codecs. Custom codecs are tried in order before the default
+     * {@link BinaryObjectAttributeCodec}. The list is not copied, so a live list such as a
+     * blueprint reference-list picks up codecs registered later.
+     */
+    void setCodecs(List<ObjectAttributeCodec> codecs) {
+        if (codecs == null) {
+            customCodecs = Collections.emptyList();
+        } else {
+            customCodecs = codecs;
+        }
+    }
+
+    byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ObjectAttributeCodec codec = findEncoder(value);
+        if (codec != null) {
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(CODEC_HEADER);
+                out.writeUTF(codec.getId());
+                codec.encode(value, out);
+            }
+            return bytes.toByteArray();
+        }
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    Serializable deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        if (bytes.length > 0 && bytes[0] == CODEC_HEADER) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                in.readByte();
+                String id = in.readUTF();
+                ObjectAttributeCodec codec = findDecoder(id);
+
+                if (codec == null) {
+                    throw new IOException("No object attribute codec found with id " + id);
+                }
+
+                return codec.decode(in);
+            }
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) in.readObject();
+        }
+    }
+
+    private ObjectAttributeCodec findEncoder(Serializable value) {
+        for (ObjectAttributeCodec codec : customCodecs) {
+            if (codec.canEncode(value)) {
+                return codec;
+            }
+        }
+        return DEFAULT_CODEC.canEncode(value) ? DEFAULT_CODEC : null;
+    }
+
+    private ObjectAttributeCodec findDecoder(String id) {
+        for (ObjectAttributeCodec codec : customCodecs) {
+            if (id.equals(codec.getId())) {
+                return codec;
+            }
+        }
+        return DEFAULT_CODEC.getId().equals(id) ? DEFAULT_CODEC : null;
+    }
+}
@@ -63,6 +63,14 @@ public class SchemaFields {
 
     public static final String METACARD_TYPE_OBJECT_FIELD_NAME = "metacard_type" + OBJECT_SUFFIX;
 
+    public static final String METACARD_TYPE_VERSION_FIELD_NAME =
+            "metacard_type_version" + TEXT_SUFFIX;
+
+    public static final String METACARD_TYPE_REGISTRY_FIELD_NAME =
+            "metacard_type_registry" + BOOLEAN_SUFFIX;
+
+    public static final String METACARD_TYPE_REGISTRY_ID_PREFIX = "metacard-type-";
+
     private static final Map<String, AttributeFormat> SUFFIX_TO_FORMAT_MAP = new HashMap<>();
 
     private static final Map<AttributeFormat, String> FORMAT_TO_SUFFIX_MAP = new HashMap<>();
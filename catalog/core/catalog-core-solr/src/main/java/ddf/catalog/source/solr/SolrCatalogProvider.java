@@ -15,8 +15,10 @@
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,6 +27,16 @@
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -89,6 +101,37 @@ public class SolrCatalogProvider extends MaskableImpl implements CatalogProvider
 
     public static final int MAX_BOOLEAN_CLAUSES = 1024;
 
+    public static final int DEFAULT_ITERATOR_BATCH_SIZE = 500;
+
+    /**
+     * Updates with more entries than this are looked up and rebuilt in batches of this size by
+     * several threads.
+     */
+    public static final int UPDATE_BATCH_SIZE = 1000;
+
+    /**
+     * {@link UpdateRequest} property that, when {@link Boolean#TRUE}, lets an update with more
+     * than {@link #UPDATE_BATCH_SIZE} entries add each batch to Solr as soon as it has been
+     * rebuilt instead of adding all of them at the end. Such an update is not atomic: when a batch
+     * fails, the batches added before it stay in the index.
+     */
+    public static final String UPDATE_ADD_BATCHES = "solr.update.add.batches";
+
+    public static final String UPDATE_LOOKUP_MILLIS = "solr.update.lookup.millis";
+
+    public static final String UPDATE_REBUILD_MILLIS = "solr.update.rebuild.millis";
+
+    public static final String UPDATE_ADD_MILLIS = "solr.update.add.millis";
+
+    public static final String UPDATE_COMMIT_MILLIS = "solr.update.commit.millis";
+
+    public static final String UPDATE_TOTAL_MILLIS = "solr.update.total.millis";
+
+    private static final int UPDATE_THREADS = Math
+            .max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    private static final long UPDATE_THREAD_IDLE_SECONDS = 60;
+
     private static Properties describableProperties = new Properties();
 
     static {
@@ -106,6 +149,10 @@ public class SolrCatalogProvider extends MaskableImpl implements CatalogProvider
 
     private SolrMetacardClient client;
 
+    private final ThreadPoolExecutor updateExecutor = new ThreadPoolExecutor(UPDATE_THREADS,
+            UPDATE_THREADS, UPDATE_THREAD_IDLE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new UpdateThreadFactory());
+
     /**
      * Constructor that creates a new instance and allows for a custom {@link DynamicSchemaResolver}
      *
@@ -124,6 +171,8 @@ public SolrCatalogProvider(SolrServer server, FilterAdapter adapter,
 
         this.server = server;
         this.resolver = resolver;
+        // the update threads of a provider that is never shut down do not outlive its use
+        updateExecutor.allowCoreThreadTimeOut(true);
 
         resolver.addFieldsFromServer(server);
         client = new ProviderSolrMetacardClient(server, adapter, solrFilterDelegateFactory,
@@ -281,6 +330,28 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         return client.query(request);
     }
 
+    /**
+     * Returns the results of a query as an iterator that reads them from Solr a page at a time,
+     * for callers such as exports that process results one by one and should not hold the whole
+     * result set in memory.
+     *
+     * @param request query request, a page size less than 1 iterates over every match
+     * @return iterator over the results, see {@link SolrResultIterator} for error handling
+     */
+    public SolrResultIterator queryIterator(QueryRequest request)
+            throws UnsupportedQueryException {
+        return queryIterator(request, DEFAULT_ITERATOR_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize number of results read from Solr at a time
+     * @see #queryIterator(QueryRequest)
+     */
+    public SolrResultIterator queryIterator(QueryRequest request, int batchSize)
+            throws UnsupportedQueryException {
+        return client.queryIterator(request, batchSize);
+    }
+
     @Override
     public CreateResponse create(CreateRequest request) throws IngestException {
         if (request == null) {
@@ -352,6 +423,10 @@ public UpdateResponse update(UpdateRequest updateRequest) throws IngestException
             return new UpdateResponseImpl(updateRequest, null, new ArrayList<Update>());
         }
 
+        if (updates.size() > UPDATE_BATCH_SIZE) {
+            return bulkUpdate(updateRequest, attributeName, now);
+        }
+
         /* 1. QUERY */
 
         // Loop to get all identifiers
@@ -363,6 +438,7 @@ public UpdateResponse update(UpdateRequest updateRequest) throws IngestException
         String attributeQuery = getQuery(attributeName, identifiers);
 
         SolrQuery query = new SolrQuery(attributeQuery);
+        query.setRows(identifiers.size());
 
         QueryResponse idResults = null;
 
@@ -459,6 +535,157 @@ public UpdateResponse update(UpdateRequest updateRequest) throws IngestException
         return new UpdateResponseImpl(updateRequest, null, updateList);
     }
 
+    /**
+     * Pipelined update for large requests. The update entries are split into batches and the old
+     * metacards of each batch are looked up and rebuilt on the update threads. At most two
+     * batches per thread are in flight at a time. Once every batch has been rebuilt, all new
+     * metacards are added to Solr at once, so a failing batch leaves the index unchanged, and a
+     * single commit is done at the end.
+     * <p/>
+     * When the request sets {@link #UPDATE_ADD_BATCHES}, the calling thread instead adds each
+     * batch to Solr in request order as soon as it has been rebuilt. When a later batch fails, the
+     * batches added before it are not rolled back; the {@link IngestException} reports how many
+     * of the leading entries were added. They become visible with the next commit, whether that
+     * is an automatic commit of the Solr server or the commit of a later request.
+     * <p/>
+     * The time spent in each phase is returned in the response properties. Lookup and rebuild
+     * times are summed over the update threads.
+     */
+    private UpdateResponse bulkUpdate(UpdateRequest updateRequest, String attributeName,
+            Date now) throws IngestException {
+        long start = System.nanoTime();
+        List<Entry<Serializable, Metacard>> updates = updateRequest.getUpdates();
+
+        List<String> mappedNames = resolver.getAnonymousField(attributeName);
+        if (mappedNames.isEmpty()) {
+            throw new IngestException("Could not resolve attribute name [" + attributeName + "]");
+        }
+        String fieldName = mappedNames.get(0);
+        boolean addBatches = Boolean.TRUE
+                .equals(updateRequest.getPropertyValue(UPDATE_ADD_BATCHES));
+
+        AtomicLong lookupNanos = new AtomicLong();
+        AtomicLong rebuildNanos = new AtomicLong();
+        long addNanos = 0;
+        long commitNanos = 0;
+
+        List<Update> updateList = new ArrayList<>();
+        Deque<Future<List<Update>>> batches = new ArrayDeque<>();
+        int addedEntries = 0;
+
+        try {
+            int from = 0;
+            while (from < updates.size() || !batches.isEmpty()) {
+                if (from < updates.size() && batches.size() < UPDATE_THREADS * 2) {
+                    List<Entry<Serializable, Metacard>> batch = updates
+                            .subList(from, Math.min(from + UPDATE_BATCH_SIZE, updates.size()));
+                    batches.add(updateExecutor.submit(
+                            new UpdateBatch(batch, attributeName, fieldName, now, lookupNanos,
+                                    rebuildNanos)));
+                    from += UPDATE_BATCH_SIZE;
+                    continue;
+                }
+
+                // batches are taken in request order, so the added entries are a prefix
+                List<Update> batchUpdates = getUpdateBatch(batches.poll());
+                updateList.addAll(batchUpdates);
+                if (addBatches) {
+                    addNanos += addUpdates(batchUpdates);
+                    addedEntries = Math.min(addedEntries + UPDATE_BATCH_SIZE, updates.size());
+                }
+            }
+
+            if (!addBatches) {
+                addNanos += addUpdates(updateList);
+            }
+
+            if (isForcedAutoCommit() && !updateList.isEmpty()) {
+                long commitStart = System.nanoTime();
+                client.commit();
+                commitNanos = System.nanoTime() - commitStart;
+            }
+        } catch (SolrServerException | SolrException | IOException e) {
+            throw partialUpdateFailure(new IngestException("Server could not ingest metacard(s)."),
+                    addedEntries, updates.size());
+        } catch (IngestException e) {
+            throw partialUpdateFailure(e, addedEntries, updates.size());
+        } finally {
+            for (Future<List<Update>> batch : batches) {
+                batch.cancel(true);
+            }
+        }
+
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(UPDATE_LOOKUP_MILLIS, TimeUnit.NANOSECONDS.toMillis(lookupNanos.get()));
+        properties.put(UPDATE_REBUILD_MILLIS, TimeUnit.NANOSECONDS.toMillis(rebuildNanos.get()));
+        properties.put(UPDATE_ADD_MILLIS, TimeUnit.NANOSECONDS.toMillis(addNanos));
+        properties.put(UPDATE_COMMIT_MILLIS, TimeUnit.NANOSECONDS.toMillis(commitNanos));
+        properties.put(UPDATE_TOTAL_MILLIS,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        LOGGER.debug("Updated {} metacard(s): {}", updateList.size(), properties);
+
+        return new UpdateResponseImpl(updateRequest, properties, updateList);
+    }
+
+    /**
+     * Waits for a batch to be looked up and rebuilt.
+     */
+    private List<Update> getUpdateBatch(Future<List<Update>> batch) throws IngestException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IngestException("Interrupted while updating metacard(s).");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IngestException) {
+                throw (IngestException) e.getCause();
+            }
+            LOGGER.warn("Could not update metacard(s).", e.getCause());
+            throw new IngestException("Could not update metacard(s).");
+        }
+    }
+
+    /**
+     * Adds the new metacards of the updates to Solr without committing.
+     *
+     * @return time spent adding the metacards, in nanoseconds
+     */
+    private long addUpdates(List<Update> updates)
+            throws IngestException, SolrServerException, IOException {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        List<Metacard> newMetacards = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            newMetacards.add(update.getNewMetacard());
+        }
+
+        long addStart = System.nanoTime();
+        try {
+            client.add(newMetacards, false);
+        } catch (MetacardCreationException e) {
+            throw new IngestException("Server could not ingest metacard(s).");
+        }
+        return System.nanoTime() - addStart;
+    }
+
+    /**
+     * Adds to the failure of a bulk update how many of its leading entries were already added to
+     * Solr, if any. Only updates that set {@link #UPDATE_ADD_BATCHES} can fail after adding.
+     */
+    private IngestException partialUpdateFailure(IngestException e, int added, int total) {
+        if (added == 0) {
+            return e;
+        }
+        LOGGER.warn("Update of {} entries failed after the first {} of them were added to Solr. "
+                + "Those are not rolled back.", total, added);
+        return new IngestException(
+                e.getMessage() + " The first " + added + " of " + total + " entries were added "
+                        + "and are not rolled back.", e);
+    }
+
     @Override
     public DeleteResponse delete(DeleteRequest deleteRequest) throws IngestException {
 
@@ -605,11 +832,140 @@ public boolean isForcedAutoCommit() {
         return ConfigurationStore.getInstance().isForceAutoCommit();
     }
 
+    /**
+     * Publishes the commit metrics of this provider. Only called for the provider registered as a
+     * service, so that short lived providers do not replace its MBean.
+     */
+    public void init() {
+        client.getCommitScheduler().register();
+    }
+
     public void shutdown() {
+        updateExecutor.shutdownNow();
+        client.getCommitScheduler().unregister();
+        client.shutdown();
         LOGGER.info("Shutting down solr server.");
         server.shutdown();
     }
 
+    /**
+     * Looks up and rebuilds the old metacards of one batch of a bulk update and prepares the new
+     * metacards.
+     */
+    private class UpdateBatch implements Callable<List<Update>> {
+
+        private final List<Entry<Serializable, Metacard>> updates;
+
+        private final String attributeName;
+
+        private final String fieldName;
+
+        private final Date now;
+
+        private final AtomicLong lookupNanos;
+
+        private final AtomicLong rebuildNanos;
+
+        UpdateBatch(List<Entry<Serializable, Metacard>> updates, String attributeName,
+                String fieldName, Date now, AtomicLong lookupNanos, AtomicLong rebuildNanos) {
+            this.updates = updates;
+            this.attributeName = attributeName;
+            this.fieldName = fieldName;
+            this.now = now;
+            this.lookupNanos = lookupNanos;
+            this.rebuildNanos = rebuildNanos;
+        }
+
+        @Override
+        public List<Update> call() throws IngestException {
+            long lookupStart = System.nanoTime();
+            SolrDocumentList docs = lookup();
+            long rebuildStart = System.nanoTime();
+            lookupNanos.addAndGet(rebuildStart - lookupStart);
+
+            if (docs.size() > updates.size()) {
+                throw new IngestException(
+                        "Found more metacards than updated metacards provided. Please ensure your attribute values match unique records.");
+            }
+
+            Map<Serializable, Metacard> idToMetacardMap = new HashMap<>(
+                    (int) (docs.size() / HASHMAP_DEFAULT_LOAD_FACTOR) + 1);
+
+            for (SolrDocument doc : docs) {
+                Metacard old;
+                try {
+                    old = client.createMetacard(doc);
+                } catch (MetacardCreationException e) {
+                    throw new IngestException("Could not create metacard(s).");
+                }
+
+                Serializable value = old.getAttribute(attributeName).getValue();
+                if (idToMetacardMap.put(value, old) != null) {
+                    throw new IngestException("The attribute value given [" + value
+                            + "] matched multiple records. Attribute values must at most match only one unique Metacard.");
+                }
+            }
+
+            List<Update> updateList = new ArrayList<>(docs.size());
+            for (Entry<Serializable, Metacard> updateEntry : updates) {
+                Metacard oldMetacard = idToMetacardMap.get(updateEntry.getKey().toString());
+
+                // partial updates are skipped, as in update
+                if (oldMetacard != null) {
+                    MetacardImpl newMetacard = new MetacardImpl(updateEntry.getValue());
+                    prepareForUpdate(now, oldMetacard.getId(), newMetacard, oldMetacard);
+                    newMetacard.setSourceId(getId());
+                    updateList.add(new UpdateImpl(newMetacard, oldMetacard));
+                }
+            }
+
+            rebuildNanos.addAndGet(System.nanoTime() - rebuildStart);
+            return updateList;
+        }
+
+        private SolrDocumentList lookup() throws IngestException {
+            List<String> identifiers = new ArrayList<>(updates.size());
+            boolean separatorInIdentifier = false;
+            for (Entry<Serializable, Metacard> updateEntry : updates) {
+                String identifier = updateEntry.getKey().toString();
+                separatorInIdentifier |= identifier.contains(",");
+                identifiers.add(identifier);
+            }
+
+            // the terms query parser avoids building a boolean query clause per identifier
+            SolrQuery query;
+            if (separatorInIdentifier) {
+                query = new SolrQuery(client.getIdentifierQuery(fieldName, identifiers));
+            } else {
+                query = new SolrQuery("{!terms f=" + fieldName + "}" + StringUtils
+                        .join(identifiers, ","));
+            }
+            query.setRows(identifiers.size());
+
+            try {
+                return server.query(query, METHOD.POST).getResults();
+            } catch (SolrServerException | SolrException e) {
+                LOGGER.warn("SOLR server exception during query", e);
+                throw new IngestException("Could not find metacard(s) to update.");
+            }
+        }
+    }
+
+    private static class UpdateThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("solr-update-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private class ProviderSolrMetacardClient extends SolrMetacardClient {
 
         public ProviderSolrMetacardClient(SolrServer solrServer, FilterAdapter catalogFilterAdapter,
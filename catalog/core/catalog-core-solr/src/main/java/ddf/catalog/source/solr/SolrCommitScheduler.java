@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.codice.solr.factory.ConfigurationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Groups the commits requested by concurrent create, update and delete requests into one soft
+ * commit. The first request of a group schedules a soft commit after the configured commit window;
+ * the commit is sent earlier once the group holds the configured maximum number of documents.
+ * Requests that arrive while a commit is running start the next group, so with a window of 0
+ * requests still share a commit whenever Solr is slower than the rate at which they arrive.
+ * <p/>
+ * Callers that need their documents to be visible to searches wait on the returned {@link Future},
+ * which fails with the exception thrown by the commit.
+ */
+class SolrCommitScheduler implements SolrCommitSchedulerMBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolrCommitScheduler.class);
+
+    private final Callable<?> committer;
+
+    private final ConfigurationStore configurationStore;
+
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+            new CommitThreadFactory());
+
+    private final Runnable commitTask = new Runnable() {
+        @Override
+        public void run() {
+            commitPending();
+        }
+    };
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong commits = new AtomicLong();
+
+    private final AtomicLong commitRequests = new AtomicLong();
+
+    private final AtomicLong committedDocuments = new AtomicLong();
+
+    private final AtomicLong totalCommitMillis = new AtomicLong();
+
+    private volatile long lastCommitMillis;
+
+    private SettableFuture<Void> pendingCommit;
+
+    private int pendingDocuments;
+
+    private ObjectName objectName;
+
+    private MBeanServer mbeanServer;
+
+    /**
+     * @param committer          sends one soft commit to Solr
+     * @param configurationStore source of the commit window and maximum documents per commit,
+     *                           read for every group so configuration changes apply right away
+     */
+    SolrCommitScheduler(Callable<?> committer, ConfigurationStore configurationStore) {
+        this.committer = committer;
+        this.configurationStore = configurationStore;
+        // the commit thread of a provider that is never shut down does not outlive its use
+        executor.setKeepAliveTime(IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Requests a soft commit that makes the given number of already added documents visible.
+     *
+     * @param documents number of documents added or deleted by the caller
+     * @return future completed once a soft commit including the caller's documents has finished
+     */
+    Future<Void> requestCommit(int documents) {
+        commitRequests.incrementAndGet();
+
+        SettableFuture<Void> commit;
+        boolean commitNow;
+        synchronized (this) {
+            boolean newGroup = pendingCommit == null;
+            if (newGroup) {
+                pendingCommit = SettableFuture.create();
+                pendingDocuments = 0;
+            }
+            pendingDocuments += documents;
+            commit = pendingCommit;
+
+            int maxDocuments = configurationStore.getCommitMaxDocuments();
+            commitNow = maxDocuments > 0 && pendingDocuments >= maxDocuments;
+
+            try {
+                if (commitNow) {
+                    executor.execute(commitTask);
+                } else if (newGroup) {
+                    executor.schedule(commitTask,
+                            Math.max(0, configurationStore.getCommitWindowMillis()),
+                            TimeUnit.MILLISECONDS);
+                }
+            } catch (RejectedExecutionException e) {
+                pendingCommit = null;
+                commit.setException(e);
+            }
+        }
+
+        return commit;
+    }
+
+    /**
+     * Stops scheduling commits. Commit requests still waiting for a commit fail.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (pendingCommit != null) {
+                pendingCommit.setException(new RejectedExecutionException(
+                        "Commit scheduler is shut down"));
+                pendingCommit = null;
+            }
+        }
+    }
+
+    void register() {
+        LOGGER.debug("Registering Commit Scheduler MBean");
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            objectName = new ObjectName(SolrCommitSchedulerMBean.OBJECTNAME);
+            try {
+                mbeanServer.registerMBean(
+                        new StandardMBean(this, SolrCommitSchedulerMBean.class), objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.info("Re-registering Commit Scheduler MBean");
+                mbeanServer.unregisterMBean(objectName);
+                mbeanServer.registerMBean(
+                        new StandardMBean(this, SolrCommitSchedulerMBean.class), objectName);
+            }
+        } catch (MalformedObjectNameException e) {
+            LOGGER.info("Could not create object name", e);
+        } catch (Exception e) {
+            LOGGER.warn("Could not register MBean.", e);
+        }
+    }
+
+    void unregister() {
+        try {
+            if (objectName != null && mbeanServer != null && mbeanServer
+                    .isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Exception unregistering MBean: ", e);
+        }
+    }
+
+    /**
+     * Runs on the single scheduler thread, so only one soft commit is sent at a time. A task
+     * scheduled for a group that was already committed because it filled up commits the group
+     * that followed it early, which is harmless.
+     */
+    private void commitPending() {
+        SettableFuture<Void> commit;
+        int documents;
+        synchronized (this) {
+            if (pendingCommit == null) {
+                return;
+            }
+            commit = pendingCommit;
+            documents = pendingDocuments;
+            pendingCommit = null;
+            pendingDocuments = 0;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            committer.call();
+            commit.set(null);
+        } catch (Exception e) {
+            LOGGER.debug("Soft commit of {} documents failed", documents, e);
+            commit.setException(e);
+        } finally {
+            long elapsed = System.currentTimeMillis() - start;
+            lastCommitMillis = elapsed;
+            totalCommitMillis.addAndGet(elapsed);
+            commits.incrementAndGet();
+            committedDocuments.addAndGet(documents);
+        }
+    }
+
+    @Override
+    public long getCommits() {
+        return commits.get();
+    }
+
+    @Override
+    public long getCommitRequests() {
+        return commitRequests.get();
+    }
+
+    @Override
+    public long getCommittedDocuments() {
+        return committedDocuments.get();
+    }
+
+    @Override
+    public synchronized int getPendingDocuments() {
+        return pendingDocuments;
+    }
+
+    @Override
+    public double getCommitsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds <= 0 ? 0 : commits.get() / seconds;
+    }
+
+    @Override
+    public double getAverageDocumentsPerCommit() {
+        long count = commits.get();
+        return count == 0 ? 0 : (double) committedDocuments.get() / count;
+    }
+
+    @Override
+    public double getAverageCommitLatencyMillis() {
+        long count = commits.get();
+        return count == 0 ? 0 : (double) totalCommitMillis.get() / count;
+    }
+
+    @Override
+    public long getLastCommitLatencyMillis() {
+        return lastCommitMillis;
+    }
+
+    private static class CommitThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("solr-commit-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+/**
+ * Exposes how commits requested by concurrent ingest requests are grouped into Solr soft commits.
+ */
+public interface SolrCommitSchedulerMBean {
+
+    String OBJECTNAME = "ddf.catalog.source.solr.SolrCatalogProvider:service=commit-scheduler";
+
+    /**
+     * @return number of soft commits sent to Solr
+     */
+    long getCommits();
+
+    /**
+     * @return number of commit requests, each of which waited on one of the soft commits
+     */
+    long getCommitRequests();
+
+    /**
+     * @return number of documents made visible by the soft commits
+     */
+    long getCommittedDocuments();
+
+    /**
+     * @return number of documents waiting for the next soft commit
+     */
+    int getPendingDocuments();
+
+    /**
+     * @return average number of soft commits per second since the scheduler was created
+     */
+    double getCommitsPerSecond();
+
+    /**
+     * @return average number of documents made visible by one soft commit
+     */
+    double getAverageDocumentsPerCommit();
+
+    /**
+     * @return average time taken by a soft commit, in milliseconds
+     */
+    double getAverageCommitLatencyMillis();
+
+    /**
+     * @return time taken by the most recent soft commit, in milliseconds
+     */
+    long getLastCommitLatencyMillis();
+}
@@ -17,7 +17,11 @@
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Transformer;
@@ -31,6 +35,7 @@
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.codice.solr.factory.ConfigurationStore;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
 import org.slf4j.Logger;
@@ -69,6 +74,8 @@ public class SolrMetacardClient {
 
     private final DynamicSchemaResolver resolver;
 
+    private final SolrCommitScheduler commitScheduler;
+
     public SolrMetacardClient(SolrServer solrServer, FilterAdapter catalogFilterAdapter,
             SolrFilterDelegateFactory solrFilterDelegateFactory,
             DynamicSchemaResolver dynamicSchemaResolver) {
@@ -76,6 +83,13 @@ public SolrMetacardClient(SolrServer solrServer, FilterAdapter catalogFilterAdap
         filterDelegateFactory = solrFilterDelegateFactory;
         filterAdapter = catalogFilterAdapter;
         resolver = dynamicSchemaResolver;
+        commitScheduler = new SolrCommitScheduler(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                softCommit(Collections.<SolrInputDocument>emptyList());
+                return null;
+            }
+        }, ConfigurationStore.getInstance());
     }
 
     public SourceResponse query(QueryRequest request) throws UnsupportedQueryException {
@@ -84,6 +98,7 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         }
 
         SolrQuery query = getSolrQuery(request, filterDelegateFactory.newInstance(resolver));
+        query.addFilterQuery(resolver.getMetacardTypeRegistryFilter());
         String sortProperty = getSortProperty(request, query);
 
         long totalHits;
@@ -92,6 +107,7 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
             QueryResponse solrResponse = server.query(query, SolrRequest.METHOD.POST);
             totalHits = solrResponse.getResults().getNumFound();
             SolrDocumentList docs = solrResponse.getResults();
+            resolver.addMetacardTypesFromServer(server, docs);
 
             for (SolrDocument doc : docs) {
                 if (LOGGER.isDebugEnabled()) {
@@ -126,12 +142,60 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         return sourceResponseImpl;
     }
 
+    /**
+     * Runs the query with a Solr cursor and returns an iterator that fetches {@code batchSize}
+     * documents at a time and converts them into {@link Result}s as they are read. Start index and
+     * page size of the request are honored, a page size less than 1 iterates over every match.
+     *
+     * @param request   query request
+     * @param batchSize number of documents fetched from Solr at a time
+     */
+    public SolrResultIterator queryIterator(QueryRequest request, int batchSize)
+            throws UnsupportedQueryException {
+        if (request == null || request.getQuery() == null) {
+            throw new UnsupportedQueryException("Query request must not be null.");
+        }
+
+        SolrQuery query = getSolrQuery(request, filterDelegateFactory.newInstance(resolver));
+        query.addFilterQuery(resolver.getMetacardTypeRegistryFilter());
+        String sortProperty = getSortProperty(request, query);
+
+        // cursors require the unique key as the final sort and do not support a start offset
+        query.addSort(Metacard.ID + SchemaFields.TEXT_SUFFIX, SolrQuery.ORDER.asc);
+        int skip = request.getQuery().getStartIndex() - 1;
+        int pageSize = request.getQuery().getPageSize();
+        query.setStart(0);
+        if (pageSize > 0) {
+            query.setRows((int) Math.min(batchSize, (long) skip + pageSize));
+        } else {
+            query.setRows(batchSize);
+        }
+
+        return new SolrResultIterator(this, query, sortProperty, skip, pageSize);
+    }
+
+    QueryResponse queryPage(SolrQuery query) throws UnsupportedQueryException {
+        try {
+            QueryResponse solrResponse = server.query(query, SolrRequest.METHOD.POST);
+            resolver.addMetacardTypesFromServer(server, solrResponse.getResults());
+            return solrResponse;
+        } catch (SolrServerException e) {
+            LOGGER.warn("Failure in Solr server query.", e);
+            throw new UnsupportedQueryException("Could not complete solr query.");
+        } catch (SolrException e) {
+            LOGGER.error("Could not complete solr query.", e);
+            throw new UnsupportedQueryException("Could not complete solr query.");
+        }
+    }
+
     public List<Metacard> query(String queryString) throws UnsupportedQueryException {
         SolrQuery query = new SolrQuery();
         query.setQuery(queryString);
+        query.addFilterQuery(resolver.getMetacardTypeRegistryFilter());
         try {
             QueryResponse solrResponse = server.query(query, SolrRequest.METHOD.POST);
             SolrDocumentList docs = solrResponse.getResults();
+            resolver.addMetacardTypesFromServer(server, docs);
 
             List<Metacard> results = new ArrayList<>();
             for (SolrDocument doc : docs) {
@@ -230,7 +294,7 @@ protected String getSortProperty(QueryRequest request, SolrQuery query) {
         return sortProperty;
     }
 
-    private ResultImpl createResult(SolrDocument doc, String sortProperty)
+    ResultImpl createResult(SolrDocument doc, String sortProperty)
             throws MetacardCreationException {
         ResultImpl result = new ResultImpl(createMetacard(doc));
 
@@ -260,6 +324,7 @@ private Double degreesToMeters(double distance) {
     }
 
     public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationException {
+        resolver.addMetacardTypesFromServer(server, Collections.singletonList(doc));
         MetacardType metacardType = resolver.getMetacardType(doc);
         MetacardImpl metacard = new MetacardImpl(metacardType);
 
@@ -285,12 +350,24 @@ public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCo
             docs.add(getSolrInputDocument(metacard));
         }
 
-        if (!forceAutoCommit) {
-            server.add(docs);
-        } else {
-            softCommit(docs);
+        /*
+         * Metacard types seen for the first time are written in the same request as the metacards
+         * so they become visible together.
+         */
+        List<SolrInputDocument> typeDocs = resolver.getMetacardTypeDocuments(metacards);
+        List<SolrInputDocument> allDocs = docs;
+        if (!typeDocs.isEmpty()) {
+            allDocs = new ArrayList<>(docs);
+            allDocs.addAll(typeDocs);
         }
 
+        server.add(allDocs);
+        if (forceAutoCommit) {
+            commit(docs.size());
+        }
+
+        resolver.setMetacardTypesRegistered(typeDocs);
+
         return docs;
     }
 
@@ -303,6 +380,41 @@ protected SolrInputDocument getSolrInputDocument(Metacard metacard)
         return solrInputDocument;
     }
 
+    /**
+     * Makes all documents added so far visible to searches with a soft commit, which may be shared
+     * with concurrent requests. Blocks until the soft commit has finished.
+     */
+    public void commit() throws SolrServerException, IOException {
+        commit(0);
+    }
+
+    /**
+     * Requests a soft commit without waiting for it. The soft commit is shared with the other
+     * requests made within the configured commit window.
+     *
+     * @param documents number of documents added or deleted since the last commit request
+     * @return future completed once the documents are visible to searches
+     */
+    public Future<Void> requestCommit(int documents) {
+        return commitScheduler.requestCommit(documents);
+    }
+
+    SolrCommitScheduler getCommitScheduler() {
+        return commitScheduler;
+    }
+
+    /**
+     * Stops the thread sending shared soft commits.
+     */
+    public void shutdown() {
+        commitScheduler.shutdown();
+    }
+
+    /**
+     * Deletes the documents whose {@code fieldName} matches one of the identifiers. When
+     * {@code forceCommit} is set, the deletes are made durable with a hard commit of their own
+     * rather than the shared soft commit used for adds.
+     */
     public void deleteByIds(String fieldName, List<? extends Serializable> identifiers,
             boolean forceCommit) throws IOException, SolrServerException {
         if (identifiers == null || identifiers.size() == 0) {
@@ -338,6 +450,7 @@ public Object transform(Object o) {
 
     public void deleteByQuery(String query) throws IOException, SolrServerException {
         server.deleteByQuery(query);
+        resolver.clearRegisteredMetacardTypes();
     }
 
     public String getIdentifierQuery(String fieldName, List<? extends Serializable> identifiers) {
@@ -352,6 +465,25 @@ public String getIdentifierQuery(String fieldName, List<? extends Serializable>
         return queryBuilder.toString();
     }
 
+    private void commit(int documents) throws SolrServerException, IOException {
+        try {
+            requestCommit(documents).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SolrServerException) {
+                throw (SolrServerException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Could not commit", cause);
+        }
+    }
+
     private org.apache.solr.client.solrj.response.UpdateResponse softCommit(
             List<SolrInputDocument> docs) throws SolrServerException, IOException {
         return new org.apache.solr.client.solrj.request.UpdateRequest().add(docs)
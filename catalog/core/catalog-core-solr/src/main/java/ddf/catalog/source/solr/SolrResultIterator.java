@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+
+import ddf.catalog.data.MetacardCreationException;
+import ddf.catalog.data.Result;
+import ddf.catalog.source.UnsupportedQueryException;
+
+/**
+ * Iterates over the results of a query one Solr page at a time using a cursor, so only the current
+ * page of documents is held in memory and each document is converted into a {@link Result} when
+ * it is returned.
+ * <p/>
+ * The first page is fetched when the iterator is created, so query errors are reported as
+ * {@link UnsupportedQueryException}s. Errors fetching later pages are thrown from
+ * {@link #hasNext()} as {@link IllegalStateException}s.
+ */
+public class SolrResultIterator implements Iterator<Result> {
+
+    private final SolrMetacardClient client;
+
+    private final SolrQuery query;
+
+    private final String sortProperty;
+
+    private final long limit;
+
+    private long skip;
+
+    private long returned;
+
+    private long hits;
+
+    private String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+
+    private boolean lastPage;
+
+    private Iterator<SolrDocument> page = Collections.emptyIterator();
+
+    /**
+     * @param client       client used to run the query and convert documents
+     * @param query        query sorted on the unique key, without start or cursor
+     * @param sortProperty sort property of the original request
+     * @param skip         number of matching documents to skip
+     * @param limit        maximum number of results to return, less than 1 for all of them
+     */
+    SolrResultIterator(SolrMetacardClient client, SolrQuery query, String sortProperty, long skip,
+            long limit) throws UnsupportedQueryException {
+        this.client = client;
+        this.query = query;
+        this.sortProperty = sortProperty;
+        this.skip = skip;
+        this.limit = limit;
+
+        fetchPage();
+    }
+
+    /**
+     * @return total number of documents matching the query
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (limit > 0 && returned >= limit) {
+            return false;
+        }
+
+        try {
+            while (true) {
+                while (skip > 0 && page.hasNext()) {
+                    page.next();
+                    skip--;
+                }
+
+                if (page.hasNext() || lastPage) {
+                    return page.hasNext();
+                }
+
+                fetchPage();
+            }
+        } catch (UnsupportedQueryException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Result next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        SolrDocument doc = page.next();
+        returned++;
+
+        try {
+            return client.createResult(doc, sortProperty);
+        } catch (MetacardCreationException e) {
+            throw new IllegalStateException("Could not create metacard.", e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Results cannot be removed.");
+    }
+
+    private void fetchPage() throws UnsupportedQueryException {
+        query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+        QueryResponse response = client.queryPage(query);
+
+        if (CursorMarkParams.CURSOR_MARK_START.equals(cursorMark)) {
+            hits = response.getResults().getNumFound();
+        }
+
+        String nextCursorMark = response.getNextCursorMark();
+        lastPage = nextCursorMark == null || nextCursorMark.equals(cursorMark);
+        cursorMark = nextCursorMark;
+        page = response.getResults().iterator();
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Encodes {@link ddf.catalog.data.AttributeType.AttributeFormat#OBJECT} attribute values into the
+ * bytes stored in the Solr index and decodes them when documents are read back. Values no codec
+ * can encode are stored with Java serialization.
+ */
+public interface ObjectAttributeCodec {
+
+    /**
+     * @return identifier stored in front of every value encoded by this codec. It is used to
+     * pick the codec when reading the value back and must not change once values are indexed.
+     */
+    String getId();
+
+    /**
+     * @param value attribute value, never {@code null}
+     * @return {@code true} if {@link #encode(Serializable, DataOutput)} can encode the value
+     */
+    boolean canEncode(Serializable value);
+
+    void encode(Serializable value, DataOutput out) throws IOException;
+
+    Serializable decode(DataInput in) throws IOException;
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardCreationException;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+
+/**
+ * Measures the throughput of {@link DynamicSchemaResolver#addFields(Metacard, SolrInputDocument)}
+ * and {@link DynamicSchemaResolver#getMetacardType(SolrDocument)} on a single shared resolver as
+ * the number of calling threads grows.
+ * <p>
+ * Run from this module's directory, after {@code mvn test-compile}, with the test classpath:
+ * {@code java -cp <test classpath> ddf.catalog.source.solr.DynamicSchemaResolverBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DynamicSchemaResolverBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+    @Param({"1", "16"})
+    private int metacardTypeCount;
+
+    private DynamicSchemaResolver resolver;
+
+    private List<Metacard> metacards;
+
+    private List<SolrDocument> documents;
+
+    @Setup
+    public void setUp() throws MetacardCreationException {
+        resolver = new DynamicSchemaResolver();
+        metacards = new ArrayList<>(metacardTypeCount);
+        documents = new ArrayList<>(metacardTypeCount);
+        for (int i = 0; i < metacardTypeCount; i++) {
+            Metacard metacard = getMetacard("benchmark" + i);
+            metacards.add(metacard);
+
+            SolrInputDocument inputDocument = new SolrInputDocument();
+            resolver.addFields(metacard, inputDocument);
+            SolrDocument document = new SolrDocument();
+            for (String field : inputDocument.getFieldNames()) {
+                document.setField(field, inputDocument.getFieldValue(field));
+            }
+            documents.add(document);
+        }
+    }
+
+    /**
+     * Per thread position in the metacard list, so that threads do not contend on a shared
+     * counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int size) {
+            next = (next + 1) % size;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public SolrInputDocument addFields(Cursor cursor) throws MetacardCreationException {
+        SolrInputDocument inputDocument = new SolrInputDocument();
+        resolver.addFields(metacards.get(cursor.next(metacards.size())), inputDocument);
+        return inputDocument;
+    }
+
+    @Benchmark
+    public MetacardType getMetacardType(Cursor cursor) throws MetacardCreationException {
+        return resolver.getMetacardType(documents.get(cursor.next(documents.size())));
+    }
+
+    private static Metacard getMetacard(String metacardTypeName) {
+        Set<AttributeDescriptor> descriptors = new HashSet<>();
+        descriptors.add(new AttributeDescriptorImpl(Metacard.TITLE, true, true, true, false,
+                BasicTypes.STRING_TYPE));
+        descriptors.add(new AttributeDescriptorImpl(Metacard.CREATED, true, true, false, false,
+                BasicTypes.DATE_TYPE));
+        MetacardImpl metacard = new MetacardImpl(
+                new MetacardTypeImpl(metacardTypeName, descriptors));
+        metacard.setTitle(metacardTypeName);
+        metacard.setCreatedDate(new Date());
+        return metacard;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(DynamicSchemaResolverBenchmark.class.getSimpleName())
+                    .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -15,20 +15,33 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -36,9 +49,12 @@
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardCreationException;
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeDescriptorImpl;
 import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
 
 public class DynamicSchemaResolverTest {
     /**
@@ -67,32 +83,170 @@ public void testAddFields() throws Exception {
         when(mockMetacard.getMetacardType().getAttributeDescriptors())
                 .thenReturn(addtributeDescriptors);
         when(mockMetacard.getAttribute(name)).thenReturn(mockAttribute);
-        ArgumentCaptor<byte[]> metacardTypeBytes = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<String> metacardTypeVersion = ArgumentCaptor.forClass(String.class);
         SolrInputDocument mockSolrInputDocument = mock(SolrInputDocument.class);
         DynamicSchemaResolver resolver = new DynamicSchemaResolver();
 
         // Perform Test
         resolver.addFields(mockMetacard, mockSolrInputDocument);
+        List<SolrInputDocument> typeDocuments = resolver
+                .getMetacardTypeDocuments(Collections.singletonList(mockMetacard));
 
         // Verify: Verify that TestAttributeDescritorImpl has been recreated as a AttributeDescriptorImpl.
-        verify(mockSolrInputDocument).addField(eq(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME),
-                metacardTypeBytes.capture());
-        byte[] serializedMetacardType = metacardTypeBytes.getValue();
-        MetacardType metacardType = deserializeMetacardType(serializedMetacardType);
+        verify(mockSolrInputDocument).addField(eq(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME),
+                metacardTypeVersion.capture());
+        assertThat(typeDocuments.size(), is(1));
+        SolrInputDocument typeDocument = typeDocuments.get(0);
+        assertThat(typeDocument.getFieldValue(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME)
+                .toString(), is(metacardTypeVersion.getValue()));
+        MetacardType metacardType = MetacardTypeCodec.decode((byte[]) typeDocument
+                .getFieldValue(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME));
+        assertThat(metacardType.getName(), is(metacardTypeName));
         for (AttributeDescriptor attributeDescriptor : metacardType.getAttributeDescriptors()) {
             assertThat(attributeDescriptor.getClass().getName(),
                     is(AttributeDescriptorImpl.class.getName()));
         }
     }
 
-    private MetacardType deserializeMetacardType(byte[] serializedMetacardType)
-            throws ClassNotFoundException, IOException {
-        ByteArrayInputStream bais = new ByteArrayInputStream((byte[]) serializedMetacardType);
-        ObjectInputStream in = new ObjectInputStream(bais);
-        MetacardType metacardType = (MetacardType) in.readObject();
-        IOUtils.closeQuietly(bais);
-        IOUtils.closeQuietly(in);
-        return metacardType;
+    @Test
+    public void testMetacardTypeRegisteredOnce() throws Exception {
+        Metacard metacard = getMetacard("registered");
+        DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+        resolver.addFields(metacard, new SolrInputDocument());
+
+        List<SolrInputDocument> typeDocuments = resolver
+                .getMetacardTypeDocuments(Collections.singletonList(metacard));
+        resolver.setMetacardTypesRegistered(typeDocuments);
+
+        assertThat(typeDocuments.size(), is(1));
+        assertThat(resolver.getMetacardTypeDocuments(Collections.singletonList(metacard)).size(),
+                is(0));
+
+        resolver.clearRegisteredMetacardTypes();
+
+        assertThat(resolver.getMetacardTypeDocuments(Collections.singletonList(metacard)).size(),
+                is(1));
+    }
+
+    @Test
+    public void testGetMetacardTypeFromServer() throws Exception {
+        Metacard metacard = getMetacard("remote");
+        DynamicSchemaResolver writer = new DynamicSchemaResolver();
+        SolrInputDocument inputDocument = new SolrInputDocument();
+        writer.addFields(metacard, inputDocument);
+        SolrInputDocument typeInputDocument = writer
+                .getMetacardTypeDocuments(Collections.singletonList(metacard)).get(0);
+
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SchemaFields.METACARD_TYPE_FIELD_NAME, "remote");
+        doc.setField(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME,
+                inputDocument.getFieldValue(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME));
+        SolrDocument typeDocument = new SolrDocument();
+        for (String field : typeInputDocument.getFieldNames()) {
+            typeDocument.setField(field, typeInputDocument.getFieldValue(field));
+        }
+        SolrDocumentList typeDocuments = new SolrDocumentList();
+        typeDocuments.add(typeDocument);
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(typeDocuments);
+        SolrServer server = mock(SolrServer.class);
+        when(server.query(any(SolrQuery.class), eq(SolrRequest.METHOD.POST)))
+                .thenReturn(response);
+        DynamicSchemaResolver reader = new DynamicSchemaResolver();
+
+        reader.addMetacardTypesFromServer(server, Collections.singletonList(doc));
+        MetacardType metacardType = reader.getMetacardType(doc);
+
+        assertThat(metacardType.getName(), is("remote"));
+        assertThat(metacardType.getAttributeDescriptor(Metacard.TITLE), notNullValue());
+
+        // second lookup is served from the cache
+        reader.addMetacardTypesFromServer(server, Collections.singletonList(doc));
+        verify(server).query(any(SolrQuery.class), eq(SolrRequest.METHOD.POST));
+    }
+
+    @Test(expected = MetacardCreationException.class)
+    public void testGetMetacardTypeNotRegistered() throws Exception {
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SchemaFields.METACARD_TYPE_FIELD_NAME, "missing");
+        doc.setField(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME, "0123456789abcdef");
+
+        new DynamicSchemaResolver().getMetacardType(doc);
     }
-}
 
+    @Test
+    public void testGetLegacyMetacardType() throws Exception {
+        MetacardType legacyType = getMetacard("legacy").getMetacardType();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(legacyType);
+        }
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SchemaFields.METACARD_TYPE_FIELD_NAME, "legacy");
+        doc.setField(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME, bytes.toByteArray());
+
+        MetacardType metacardType = new DynamicSchemaResolver().getMetacardType(doc);
+
+        assertThat(metacardType.getName(), is("legacy"));
+        assertThat(metacardType.getAttributeDescriptors(),
+                is(legacyType.getAttributeDescriptors()));
+    }
+
+    @Test
+    public void testConcurrentAddFieldsAndGetMetacardType() throws Exception {
+        final int threads = 8;
+        final int iterations = 200;
+        final DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+        final List<Metacard> metacards = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            metacards.add(getMetacard("concurrent" + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Set<String>>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<Set<String>>() {
+                    @Override
+                    public Set<String> call() throws Exception {
+                        Set<String> versions = new HashSet<>();
+                        for (int i = 0; i < iterations; i++) {
+                            Metacard metacard = metacards.get(i % metacards.size());
+                            SolrInputDocument inputDocument = new SolrInputDocument();
+                            resolver.addFields(metacard, inputDocument);
+
+                            SolrDocument doc = new SolrDocument();
+                            for (String field : inputDocument.getFieldNames()) {
+                                doc.setField(field, inputDocument.getFieldValue(field));
+                            }
+                            assertThat(resolver.getMetacardType(doc).getName(),
+                                    is(metacard.getMetacardType().getName()));
+                            versions.add(doc.getFieldValue(
+                                    SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME).toString());
+                        }
+                        return versions;
+                    }
+                }));
+            }
+
+            Set<String> versions = new HashSet<>();
+            for (Future<Set<String>> future : futures) {
+                versions.addAll(future.get());
+            }
+
+            assertThat(versions.size(), is(metacards.size()));
+            assertThat(resolver.getMetacardTypeDocuments(metacards).size(), is(metacards.size()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Metacard getMetacard(String metacardTypeName) {
+        Set<AttributeDescriptor> descriptors = new HashSet<>();
+        descriptors.add(new AttributeDescriptorImpl(Metacard.TITLE, true, true, true, false,
+                BasicTypes.STRING_TYPE));
+        descriptors.add(new AttributeDescriptorImpl(Metacard.CREATED, true, true, false, false,
+                BasicTypes.DATE_TYPE));
+        return new MetacardImpl(new MetacardTypeImpl(metacardTypeName, descriptors));
+    }
+}
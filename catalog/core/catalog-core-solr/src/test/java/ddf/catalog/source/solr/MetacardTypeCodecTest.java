@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+
+public class MetacardTypeCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MetacardType metacardType = new MetacardTypeImpl("roundtrip",
+                BasicTypes.BASIC_METACARD.getAttributeDescriptors());
+
+        MetacardType decoded = MetacardTypeCodec.decode(MetacardTypeCodec.encode(metacardType));
+
+        assertThat(decoded.getName(), is(metacardType.getName()));
+        assertThat(decoded.getAttributeDescriptors(), is(metacardType.getAttributeDescriptors()));
+    }
+
+    @Test
+    public void testVersionIgnoresDescriptorOrder() throws Exception {
+        List<AttributeDescriptor> descriptors = new ArrayList<>(
+                BasicTypes.BASIC_METACARD.getAttributeDescriptors());
+        Set<AttributeDescriptor> forward = new LinkedHashSet<>(descriptors);
+        Collections.reverse(descriptors);
+        Set<AttributeDescriptor> reverse = new LinkedHashSet<>(descriptors);
+
+        String forwardVersion = MetacardTypeCodec
+                .version(MetacardTypeCodec.encode(new MetacardTypeImpl("ordered", forward)));
+        String reverseVersion = MetacardTypeCodec
+                .version(MetacardTypeCodec.encode(new MetacardTypeImpl("ordered", reverse)));
+
+        assertThat(forwardVersion, is(reverseVersion));
+    }
+
+    @Test
+    public void testVersionChangesWithDescriptors() throws Exception {
+        Set<AttributeDescriptor> descriptors = new HashSet<>(
+                BasicTypes.BASIC_METACARD.getAttributeDescriptors());
+        String version = MetacardTypeCodec
+                .version(MetacardTypeCodec.encode(new MetacardTypeImpl("changed", descriptors)));
+
+        descriptors.add(new AttributeDescriptorImpl("extra", true, true, false, true,
+                BasicTypes.LONG_TYPE));
+        String changedVersion = MetacardTypeCodec
+                .version(MetacardTypeCodec.encode(new MetacardTypeImpl("changed", descriptors)));
+
+        assertThat(changedVersion, is(not(version)));
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares writing and reading the OBJECT attribute values of a document with
+ * {@link ObjectAttributeSerializer} against one {@link ObjectOutputStream} per value, which is how
+ * they were stored before the codecs. The bytes per document of both are printed before the
+ * benchmarks run.
+ * <p>
+ * Run from this module's directory, after {@code mvn test-compile}, with the test classpath:
+ * {@code java -cp <test classpath> ddf.catalog.source.solr.ObjectAttributeSerializerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ObjectAttributeSerializerBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int valuesPerAttribute;
+
+    private ObjectAttributeSerializer serializer;
+
+    private List<Serializable> document;
+
+    private List<byte[]> codecBytes;
+
+    private List<byte[]> javaBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        serializer = new ObjectAttributeSerializer();
+        document = createDocument(valuesPerAttribute);
+        codecBytes = codecSerialize(serializer, document);
+        javaBytes = javaSerialize(document);
+    }
+
+    @Benchmark
+    public List<byte[]> codecSerialize() throws IOException {
+        return codecSerialize(serializer, document);
+    }
+
+    @Benchmark
+    public List<byte[]> javaSerialize() throws IOException {
+        return javaSerialize(document);
+    }
+
+    @Benchmark
+    public List<Serializable> codecDeserialize() throws IOException, ClassNotFoundException {
+        List<Serializable> values = new ArrayList<>(codecBytes.size());
+        for (byte[] bytes : codecBytes) {
+            values.add(serializer.deserialize(bytes));
+        }
+        return values;
+    }
+
+    @Benchmark
+    public List<Serializable> javaDeserialize() throws IOException, ClassNotFoundException {
+        List<Serializable> values = new ArrayList<>(javaBytes.size());
+        for (byte[] bytes : javaBytes) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                values.add((Serializable) in.readObject());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Builds the OBJECT attribute values of one document: a map, a list and a date.
+     */
+    private static List<Serializable> createDocument(int valuesPerAttribute) {
+        HashMap<String, Serializable> map = new HashMap<>();
+        ArrayList<Serializable> list = new ArrayList<>();
+        for (int i = 0; i < valuesPerAttribute; i++) {
+            map.put("key" + i, new ArrayList<>(Arrays.asList(i, (long) i, "value" + i)));
+            list.add("entry" + i);
+        }
+        return Arrays.<Serializable>asList(map, list, new Date());
+    }
+
+    private static List<byte[]> codecSerialize(ObjectAttributeSerializer serializer,
+            List<Serializable> document) throws IOException {
+        List<byte[]> values = new ArrayList<>(document.size());
+        for (Serializable value : document) {
+            values.add(serializer.serialize(value));
+        }
+        return values;
+    }
+
+    private static List<byte[]> javaSerialize(List<Serializable> document) throws IOException {
+        List<byte[]> values = new ArrayList<>(document.size());
+        for (Serializable value : document) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(value);
+            }
+            values.add(bytes.toByteArray());
+        }
+        return values;
+    }
+
+    private static int size(List<byte[]> values) {
+        int size = 0;
+        for (byte[] value : values) {
+            size += value.length;
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        ObjectAttributeSerializer serializer = new ObjectAttributeSerializer();
+        for (int valuesPerAttribute : new int[] {1, 10, 100}) {
+            List<Serializable> document = createDocument(valuesPerAttribute);
+            System.out.printf("valuesPerAttribute=%d: codec %d bytes/document, "
+                            + "java serialization %d bytes/document%n", valuesPerAttribute,
+                    size(codecSerialize(serializer, document)), size(javaSerialize(document)));
+        }
+
+        Options options = new OptionsBuilder()
+                .include(ObjectAttributeSerializerBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ddf.catalog.source.solr.codec.ObjectAttributeCodec;
+
+public class ObjectAttributeSerializerTest {
+
+    private final ObjectAttributeSerializer serializer = new ObjectAttributeSerializer();
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        LinkedHashMap<String, Serializable> value = new LinkedHashMap<>();
+        value.put("string", "value é");
+        value.put("int", 1);
+        value.put("long", 2L);
+        value.put("short", (short) 3);
+        value.put("double", 4.5d);
+        value.put("float", 5.5f);
+        value.put("boolean", true);
+        value.put("date", new Date(1000L));
+        value.put("null", null);
+        value.put("list", new ArrayList<>(Arrays.asList("a", 1, 2L)));
+        value.put("set", new LinkedHashSet<>(Arrays.asList("x", "y")));
+
+        byte[] bytes = serializer.serialize(value);
+
+        assertThat(bytes[0], is(ObjectAttributeSerializer.CODEC_HEADER));
+        Serializable decoded = serializer.deserialize(bytes);
+        assertThat(decoded, instanceOf(LinkedHashMap.class));
+        assertThat(decoded, is((Serializable) value));
+        assertThat(new ArrayList<>(((Map<?, ?>) decoded).keySet()),
+                is((List<Object>) new ArrayList<Object>(value.keySet())));
+    }
+
+    @Test
+    public void testJavaSerializationFallback() throws Exception {
+        Serializable value = (Serializable) Collections
+                .unmodifiableList(Arrays.asList("a", "b"));
+
+        byte[] bytes = serializer.serialize(value);
+
+        assertThat(bytes[0], is((byte) 0xAC));
+        assertThat(serializer.deserialize(bytes), is(value));
+    }
+
+    @Test
+    public void testReadsJavaSerializedValues() throws Exception {
+        HashMap<String, Integer> value = new HashMap<>();
+        value.put("legacy", 1);
+
+        assertThat(serializer.deserialize(javaSerialize(value)), is((Serializable) value));
+    }
+
+    @Test
+    public void testCustomCodec() throws Exception {
+        serializer.setCodecs(Collections.<ObjectAttributeCodec>singletonList(new PointCodec()));
+        Point value = new Point(3, 4);
+
+        Serializable decoded = serializer.deserialize(serializer.serialize(value));
+
+        assertThat(decoded, instanceOf(Point.class));
+        assertThat(((Point) decoded).x, is(3));
+        assertThat(((Point) decoded).y, is(4));
+    }
+
+    @Test
+    public void testCodecAddedAfterSet() throws Exception {
+        List<ObjectAttributeCodec> codecs = new ArrayList<>();
+        serializer.setCodecs(codecs);
+        codecs.add(new PointCodec());
+
+        Serializable decoded = serializer.deserialize(serializer.serialize(new Point(5, 6)));
+
+        assertThat(decoded, instanceOf(Point.class));
+        assertThat(((Point) decoded).x, is(5));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownCodec() throws Exception {
+        serializer.setCodecs(Collections.<ObjectAttributeCodec>singletonList(new PointCodec()));
+        byte[] bytes = serializer.serialize(new Point(1, 2));
+
+        new ObjectAttributeSerializer().deserialize(bytes);
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception {
+        HashMap<String, Serializable> value = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            value.put("key" + i, new ArrayList<>(Arrays.asList(i, (long) i, "value" + i)));
+        }
+
+        assertThat(serializer.serialize(value).length, lessThan(javaSerialize(value).length));
+    }
+
+    private byte[] javaSerialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class Point implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int x;
+
+        private final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static class PointCodec implements ObjectAttributeCodec {
+
+        @Override
+        public String getId() {
+            return "point";
+        }
+
+        @Override
+        public boolean canEncode(Serializable value) {
+            return value instanceof Point;
+        }
+
+        @Override
+        public void encode(Serializable value, DataOutput out) throws IOException {
+            out.writeInt(((Point) value).x);
+            out.writeInt(((Point) value).y);
+        }
+
+        @Override
+        public Serializable decode(DataInput in) throws IOException {
+            return new Point(in.readInt(), in.readInt());
+        }
+    }
+}
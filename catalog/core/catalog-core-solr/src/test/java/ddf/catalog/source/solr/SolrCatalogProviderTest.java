@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.codice.solr.factory.ConfigurationStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.UpdateRequestImpl;
+import ddf.catalog.source.IngestException;
+
+public class SolrCatalogProviderTest {
+
+    private static final String ID_FIELD = Metacard.ID + SchemaFields.TEXT_SUFFIX;
+
+    private static final String FAILING_ID = "failing";
+
+    private final boolean forceAutoCommit = ConfigurationStore.getInstance().isForceAutoCommit();
+
+    private SolrServer server;
+
+    private SolrCatalogProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        ConfigurationStore.getInstance().setForceAutoCommit(false);
+
+        server = mock(SolrServer.class);
+        when(server.query(any(SolrQuery.class), eq(METHOD.POST)))
+                .thenAnswer(new LookupAnswer());
+
+        DynamicSchemaResolver resolver = mock(DynamicSchemaResolver.class);
+        when(resolver.getAnonymousField(Metacard.ID))
+                .thenReturn(Collections.singletonList(ID_FIELD));
+        when(resolver.getMetacardType(any(SolrDocument.class)))
+                .thenReturn(BasicTypes.BASIC_METACARD);
+        when(resolver.resolveFieldName(ID_FIELD)).thenReturn(Metacard.ID);
+        when(resolver.getDocValue(anyString(), anyObject())).thenAnswer(new Answer<Serializable>() {
+            @Override
+            public Serializable answer(InvocationOnMock invocation) {
+                return (Serializable) invocation.getArguments()[1];
+            }
+        });
+        when(resolver.getMetacardTypeDocuments(anyListOf(Metacard.class)))
+                .thenReturn(Collections.<SolrInputDocument>emptyList());
+
+        provider = new SolrCatalogProvider(server, mock(FilterAdapter.class),
+                mock(SolrFilterDelegateFactory.class), resolver);
+    }
+
+    @After
+    public void tearDown() {
+        provider.shutdown();
+        ConfigurationStore.getInstance().setForceAutoCommit(forceAutoCommit);
+    }
+
+    @Test
+    public void testBulkUpdateAddsAllBatchesAtOnce() throws Exception {
+        int count = SolrCatalogProvider.UPDATE_BATCH_SIZE * 2 + 500;
+
+        UpdateResponse response = provider.update(updateRequest(count, -1, false));
+
+        assertThat(response.getUpdatedMetacards().size(), is(count));
+        assertThat(response.getUpdatedMetacards().get(count - 1).getNewMetacard().getId(),
+                is("id" + (count - 1)));
+        assertThat(response.getProperties().get(SolrCatalogProvider.UPDATE_TOTAL_MILLIS),
+                is(notNullValue()));
+        assertThat(getAddedDocumentCounts(1), is(Collections.singletonList(count)));
+    }
+
+    @Test
+    public void testBulkUpdateFailureAddsNothing() throws Exception {
+        int count = SolrCatalogProvider.UPDATE_BATCH_SIZE * 2 + 500;
+
+        try {
+            provider.update(updateRequest(count, count - 1, false));
+            fail("Expected the update to fail");
+        } catch (IngestException e) {
+            assertThat(e.getMessage(), is("Could not find metacard(s) to update."));
+        }
+
+        verify(server, never()).add(anyListOf(SolrInputDocument.class));
+    }
+
+    @Test
+    public void testBulkUpdateAddingBatchesReportsAddedEntries() throws Exception {
+        int count = SolrCatalogProvider.UPDATE_BATCH_SIZE * 2 + 500;
+
+        try {
+            provider.update(updateRequest(count, count - 1, true));
+            fail("Expected the update to fail");
+        } catch (IngestException e) {
+            assertThat(e.getMessage(), containsString(
+                    "The first " + SolrCatalogProvider.UPDATE_BATCH_SIZE * 2 + " of " + count
+                            + " entries were added"));
+        }
+
+        assertThat(getAddedDocumentCounts(2), is((List<Integer>) new ArrayList<>(
+                Collections.nCopies(2, SolrCatalogProvider.UPDATE_BATCH_SIZE))));
+    }
+
+    private UpdateRequestImpl updateRequest(int count, int failingIndex, boolean addBatches) {
+        List<Entry<Serializable, Metacard>> updates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = (i == failingIndex) ? FAILING_ID : "id" + i;
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setTitle("updated");
+            updates.add(new SimpleEntry<Serializable, Metacard>(id, metacard));
+        }
+
+        Map<String, Serializable> properties = new HashMap<>();
+        if (addBatches) {
+            properties.put(SolrCatalogProvider.UPDATE_ADD_BATCHES, true);
+        }
+        return new UpdateRequestImpl(updates, Metacard.ID, properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Integer> getAddedDocumentCounts(int adds) throws Exception {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(server, times(adds)).add(captor.capture());
+        List<Integer> counts = new ArrayList<>();
+        for (List<?> docs : captor.getAllValues()) {
+            counts.add(docs.size());
+        }
+        return counts;
+    }
+
+    /**
+     * Answers the terms query of an update batch with one document per identifier, failing when
+     * the batch contains {@link #FAILING_ID}.
+     */
+    private static class LookupAnswer implements Answer<QueryResponse> {
+
+        @Override
+        public QueryResponse answer(InvocationOnMock invocation) throws SolrServerException {
+            String query = ((SolrQuery) invocation.getArguments()[0]).getQuery();
+            SolrDocumentList docs = new SolrDocumentList();
+            for (String id : query.substring(query.indexOf('}') + 1).split(",")) {
+                if (FAILING_ID.equals(id)) {
+                    throw new SolrServerException("Lookup failed");
+                }
+                SolrDocument doc = new SolrDocument();
+                doc.setField(ID_FIELD, id);
+                docs.add(doc);
+            }
+
+            QueryResponse response = mock(QueryResponse.class);
+            when(response.getResults()).thenReturn(docs);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codice.solr.factory.ConfigurationStore;
+import org.junit.After;
+import org.junit.Test;
+
+public class SolrCommitSchedulerTest {
+
+    private final ConfigurationStore configurationStore = ConfigurationStore.getInstance();
+
+    private final AtomicInteger commits = new AtomicInteger();
+
+    private SolrCommitScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        configurationStore.setCommitWindowMillis(0);
+        configurationStore.setCommitMaxDocuments(10000);
+    }
+
+    @Test
+    public void testRequestsWithinWindowShareCommit() throws Exception {
+        configurationStore.setCommitWindowMillis(200);
+        scheduler = new SolrCommitScheduler(new CountingCommitter(null), configurationStore);
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.requestCommit(3));
+        }
+        for (Future<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(commits.get(), is(1));
+        assertThat(scheduler.getCommits(), is(1L));
+        assertThat(scheduler.getCommitRequests(), is(10L));
+        assertThat(scheduler.getCommittedDocuments(), is(30L));
+        assertThat(scheduler.getAverageDocumentsPerCommit(), is(30.0));
+    }
+
+    @Test
+    public void testMaxDocumentsCommitsBeforeWindow() throws Exception {
+        configurationStore.setCommitWindowMillis(TimeUnit.MINUTES.toMillis(10));
+        configurationStore.setCommitMaxDocuments(5);
+        scheduler = new SolrCommitScheduler(new CountingCommitter(null), configurationStore);
+
+        Future<Void> first = scheduler.requestCommit(2);
+        Future<Void> second = scheduler.requestCommit(3);
+
+        second.get(5, TimeUnit.SECONDS);
+        assertThat(first.isDone(), is(true));
+        assertThat(commits.get(), is(1));
+        assertThat(scheduler.getPendingDocuments(), is(0));
+    }
+
+    @Test
+    public void testRequestsDuringCommitShareNextCommit() throws Exception {
+        final CountDownLatch commitStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        scheduler = new SolrCommitScheduler(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (commits.incrementAndGet() == 1) {
+                    commitStarted.countDown();
+                    release.await();
+                }
+                return null;
+            }
+        }, configurationStore);
+
+        Future<Void> first = scheduler.requestCommit(1);
+        assertThat(commitStarted.await(5, TimeUnit.SECONDS), is(true));
+
+        List<Future<Void>> waiting = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waiting.add(scheduler.requestCommit(1));
+        }
+        assertThat(scheduler.getPendingDocuments(), is(5));
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (Future<Void> future : waiting) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(commits.get(), is(2));
+    }
+
+    @Test
+    public void testCommitFailureCompletesFutures() throws Exception {
+        scheduler = new SolrCommitScheduler(new CountingCommitter(new IOException("failed")),
+                configurationStore);
+
+        try {
+            scheduler.requestCommit(1).get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+            return;
+        }
+        throw new AssertionError("Expected the commit to fail");
+    }
+
+    private class CountingCommitter implements Callable<Void> {
+
+        private final Exception failure;
+
+        CountingCommitter(Exception failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            commits.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+    }
+}
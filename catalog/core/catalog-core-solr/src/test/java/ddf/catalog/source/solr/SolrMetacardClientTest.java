@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.filter.FilterAdapter;
+
+public class SolrMetacardClientTest {
+
+    private SolrServer server;
+
+    private SolrMetacardClient client;
+
+    @Before
+    public void setUp() {
+        server = mock(SolrServer.class);
+        client = new SolrMetacardClient(server, mock(FilterAdapter.class),
+                mock(SolrFilterDelegateFactory.class), mock(DynamicSchemaResolver.class));
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    public void testForcedDeleteHardCommits() throws Exception {
+        client.deleteByIds(Metacard.ID, new ArrayList<Serializable>(Arrays.asList("1", "2")), true);
+
+        verify(server).deleteById(anyListOf(String.class));
+        verify(server).commit();
+        verify(server, never()).request(any(SolrRequest.class));
+        assertThat(client.getCommitScheduler().getCommitRequests(), is(0L));
+    }
+
+    @Test
+    public void testUnforcedDeleteDoesNotCommit() throws Exception {
+        client.deleteByIds(Metacard.ID, new ArrayList<Serializable>(Arrays.asList("1", "2")), false);
+
+        verify(server).deleteById(anyListOf(String.class));
+        verify(server, never()).commit();
+        assertThat(client.getCommitScheduler().getCommitRequests(), is(0L));
+    }
+}
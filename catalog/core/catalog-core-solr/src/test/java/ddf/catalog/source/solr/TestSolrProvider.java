@@ -933,6 +933,44 @@ public String getAttributeName() {
      * @throws IngestException
      * @throws UnsupportedQueryException
      */
+    @Test
+    public void testBulkUpdate() throws Exception {
+        deleteAllIn(provider);
+
+        int count = SolrCatalogProvider.UPDATE_BATCH_SIZE + 100;
+        List<Metacard> list = new ArrayList<Metacard>();
+        for (int i = 0; i < count; i++) {
+            list.add(new MockMetacard(Library.getFlagstaffRecord()));
+        }
+        List<Metacard> created = create(list).getCreatedMetacards();
+
+        String[] ids = new String[count];
+        List<Metacard> updatedList = new ArrayList<Metacard>();
+        for (int i = 0; i < count; i++) {
+            ids[i] = created.get(i).getId();
+            MockMetacard updated = new MockMetacard(Library.getTampaRecord());
+            updated.setContentTypeName("bulk");
+            updatedList.add(updated);
+        }
+
+        UpdateResponse updateResponse = update(ids, updatedList);
+
+        assertEquals(count, updateResponse.getUpdatedMetacards().size());
+        for (Update update : updateResponse.getUpdatedMetacards()) {
+            assertEquals(update.getOldMetacard().getId(), update.getNewMetacard().getId());
+            assertEquals("bulk", update.getNewMetacard().getContentTypeName());
+        }
+        assertThat(updateResponse.getProperties().get(SolrCatalogProvider.UPDATE_LOOKUP_MILLIS),
+                is(notNullValue()));
+        assertThat(updateResponse.getProperties().get(SolrCatalogProvider.UPDATE_ADD_MILLIS),
+                is(notNullValue()));
+
+        QueryImpl query = new CommonQueryBuilder()
+                .queryByProperty(Metacard.CONTENT_TYPE, "bulk");
+        query.setPageSize(ALL_RESULTS);
+        assertEquals(count, provider.query(new QueryRequestImpl(query)).getResults().size());
+    }
+
     @Test
     public void testUpdateOperationWithNoResults()
             throws IngestException, UnsupportedQueryException {
@@ -3714,6 +3752,44 @@ public void testStartIndex() throws Exception {
 
     }
 
+    @Test
+    public void testQueryIterator() throws Exception {
+        deleteAllIn(provider);
+
+        List<Metacard> list = new ArrayList<Metacard>();
+        for (int i = 0; i < 25; i++) {
+            list.add(new MockMetacard(Library.getFlagstaffRecord()));
+        }
+        create(list);
+
+        QueryImpl query = new CommonQueryBuilder()
+                .queryByProperty(Metacard.TITLE, FLAGSTAFF_QUERY_PHRASE);
+        query.setPageSize(ALL_RESULTS);
+        query.setStartIndex(3);
+
+        SolrResultIterator iterator = provider.queryIterator(new QueryRequestImpl(query), 4);
+
+        Set<String> ids = new HashSet<String>();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next().getMetacard().getId());
+        }
+
+        assertEquals(25L, iterator.getHits());
+        assertEquals(23, ids.size());
+
+        query.setStartIndex(1);
+        query.setPageSize(10);
+        iterator = provider.queryIterator(new QueryRequestImpl(query), 4);
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+
+        assertEquals(10, count);
+    }
+
     @Test
     public void testSpatialPointRadius() throws Exception {
 
@@ -19,6 +19,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -33,6 +34,7 @@
 import com.codahale.metrics.MetricRegistry;
 
 import ddf.catalog.data.Result;
+import ddf.catalog.federation.SourceLatencyMetrics;
 import ddf.catalog.operation.ProcessingDetails;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
@@ -43,12 +45,14 @@
 import ddf.catalog.source.CatalogProvider;
 import ddf.catalog.source.FederatedSource;
 import ddf.catalog.source.Source;
+import ddf.metrics.collector.HdrReservoir;
 import ddf.metrics.collector.rrd4j.RrdJmxCollector;
 
 /**
  * This class manages the metrics for individual {@link CatalogProvider} and {@link FederatedSource}
- * {@link Source}s. These metrics currently include the count of queries, results per query, and
- * exceptions per {@link Source}.
+ * {@link Source}s. These metrics currently include the count of queries, results per query,
+ * exceptions and query latency per {@link Source}. The query latency histograms are also made
+ * available to federation strategies as {@link SourceLatencyMetrics}.
  *
  * The metrics and their associated {@link ddf.metrics.collector.JmxCollector}s are created when the {@link Source} is
  * created and deleted when the {@link Source} is deleted. (The associated RRD file remains
@@ -65,7 +69,8 @@
  * @author ddf.isgs@lmco.com
  *
  */
-public class SourceMetricsImpl implements PreFederatedQueryPlugin, PostFederatedQueryPlugin {
+public class SourceMetricsImpl
+        implements PreFederatedQueryPlugin, PostFederatedQueryPlugin, SourceLatencyMetrics {
 
     /**
      * Package name for the JMX MBean where metrics for {@link Source}s are stored.
@@ -90,6 +95,12 @@ public class SourceMetricsImpl implements PreFederatedQueryPlugin, PostFederated
      */
     public static final String QUERIES_TOTAL_RESULTS_SCOPE = "Queries.TotalResults";
 
+    /**
+     * Name of the JMX MBean scope for source-level metrics tracking query latency, in
+     * milliseconds, while querying a specific {@link Source}
+     */
+    public static final String QUERIES_LATENCY_SCOPE = "Queries.Latency";
+
     public static final String DERIVE_DATA_SOURCE_TYPE = "DERIVE";
 
     public static final String GAUGE_DATA_SOURCE_TYPE = "GAUGE";
@@ -102,13 +113,16 @@ public class SourceMetricsImpl implements PreFederatedQueryPlugin, PostFederated
 
     private static final String ALPHA_NUMERIC_REGEX = "[^a-zA-Z0-9]";
 
+    // Fewer samples than this do not give a meaningful latency percentile
+    private static final int MINIMUM_LATENCY_SAMPLES = 20;
+
     private final MetricRegistry metricsRegistry = new MetricRegistry();
 
     private final JmxReporter reporter = JmxReporter.forRegistry(metricsRegistry)
             .inDomain(MBEAN_PACKAGE_NAME).build();
 
     // Map of sourceId to Source's metric data
-    protected Map<String, SourceMetric> metrics = new HashMap<String, SourceMetric>();
+    protected Map<String, SourceMetric> metrics = new ConcurrentHashMap<String, SourceMetric>();
 
 
     // Injected list of CatalogProviders and FederatedSources
@@ -211,6 +225,30 @@ public QueryResponse process(QueryResponse input)
         return input;
     }
 
+    @Override
+    public void updateLatency(String sourceId, long latencyMillis) {
+        updateMetric(sourceId, QUERIES_LATENCY_SCOPE,
+                (int) Math.min(Math.max(latencyMillis, 0), Integer.MAX_VALUE));
+    }
+
+    @Override
+    public long getLatency(String sourceId, double quantile) {
+        if (StringUtils.isBlank(sourceId)) {
+            return -1;
+        }
+
+        SourceMetric sourceMetric = metrics.get(sourceId + "." + QUERIES_LATENCY_SCOPE);
+        if (sourceMetric == null) {
+            return -1;
+        }
+
+        Histogram histogram = (Histogram) sourceMetric.getMetric();
+        if (histogram.getCount() < MINIMUM_LATENCY_SAMPLES) {
+            return -1;
+        }
+        return (long) Math.ceil(histogram.getSnapshot().getValue(quantile));
+    }
+
     public void updateMetric(String sourceId, String name, int incrementAmount) {
 
         LOGGER.debug("sourceId = {},   name = {}", sourceId, name);
@@ -264,11 +302,13 @@ private boolean createMetric(List<? extends Source> sources, String sourceId) {
                     deleteMetric(oldSourceId, QUERIES_TOTAL_RESULTS_SCOPE);
                     deleteMetric(oldSourceId, QUERIES_SCOPE);
                     deleteMetric(oldSourceId, EXCEPTIONS_SCOPE);
+                    deleteMetric(oldSourceId, QUERIES_LATENCY_SCOPE);
 
                     // Create metrics for Source with new sourceId
                     createMetric(sourceId, QUERIES_TOTAL_RESULTS_SCOPE, MetricType.HISTOGRAM);
                     createMetric(sourceId, QUERIES_SCOPE, MetricType.METER);
                     createMetric(sourceId, EXCEPTIONS_SCOPE, MetricType.METER);
+                    createMetric(sourceId, QUERIES_LATENCY_SCOPE, MetricType.HISTOGRAM);
 
                     // Add Source to map with its new sourceId
                     sourceToSourceIdMap.put(source, sourceId);
@@ -283,6 +323,7 @@ private boolean createMetric(List<? extends Source> sources, String sourceId) {
                     createMetric(sourceId, QUERIES_TOTAL_RESULTS_SCOPE, MetricType.HISTOGRAM);
                     createMetric(sourceId, QUERIES_SCOPE, MetricType.METER);
                     createMetric(sourceId, EXCEPTIONS_SCOPE, MetricType.METER);
+                    createMetric(sourceId, QUERIES_LATENCY_SCOPE, MetricType.HISTOGRAM);
 
                     sourceToSourceIdMap.put(source, sourceId);
                 }
@@ -345,6 +386,7 @@ public void deletingSource(final Source source, final Map props) {
         deleteMetric(sourceId, QUERIES_TOTAL_RESULTS_SCOPE);
         deleteMetric(sourceId, QUERIES_SCOPE);
         deleteMetric(sourceId, EXCEPTIONS_SCOPE);
+        deleteMetric(sourceId, QUERIES_LATENCY_SCOPE);
 
         // Delete source from internal map used when updating metrics by sourceId
         sourceToSourceIdMap.remove(source);
@@ -367,6 +409,7 @@ void createSourceMetrics(final Source source) {
         createMetric(sourceId, QUERIES_TOTAL_RESULTS_SCOPE, MetricType.HISTOGRAM);
         createMetric(sourceId, QUERIES_SCOPE, MetricType.METER);
         createMetric(sourceId, EXCEPTIONS_SCOPE, MetricType.METER);
+        createMetric(sourceId, QUERIES_LATENCY_SCOPE, MetricType.HISTOGRAM);
 
         // Add new source to internal map used when updating metrics by sourceId
         sourceToSourceIdMap.put(source, sourceId);
@@ -384,8 +427,9 @@ private void createMetric(String sourceId, String mbeanName, MetricType type) {
         // as the local catalog provider).
         if (!metrics.containsKey(key)) {
             if (type == MetricType.HISTOGRAM) {
-                Histogram histogram = metricsRegistry
-                        .histogram(MetricRegistry.name(sourceId, mbeanName));
+                Histogram histogram = metricsRegistry.register(
+                        MetricRegistry.name(sourceId, mbeanName),
+                        new Histogram(new HdrReservoir()));
                 RrdJmxCollector collector = createGaugeMetricsCollector(sourceId, mbeanName);
                 metrics.put(key, new SourceMetric(histogram, sourceId, collector, true));
             } else if (type == MetricType.METER) {
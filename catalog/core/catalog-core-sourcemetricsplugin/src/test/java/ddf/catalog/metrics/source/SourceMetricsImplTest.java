@@ -14,8 +14,11 @@
 package ddf.catalog.metrics.source;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
@@ -244,6 +247,30 @@ public void testGetRrdFilenameNonAlphanumerics() throws Exception {
         assertThat(rrdFilename, equalTo("sourceDib30rhEL58QueriesTotalResults"));
     }
 
+    @Test
+    public void testLatencyPercentiles() throws Exception {
+        String sourceId = "cp-1";
+
+        sourceMetrics = configureSourceMetrics(sourceId);
+        addSource();
+
+        sourceMetrics.updateLatency(sourceId, 10);
+        assertThat(sourceMetrics.getLatency(sourceId, 0.5), is(-1L));
+
+        for (int i = 1; i <= 100; i++) {
+            sourceMetrics.updateLatency(sourceId, i);
+        }
+        assertMetricCount(sourceId, SourceMetricsImpl.QUERIES_LATENCY_SCOPE, 101);
+        assertThat(sourceMetrics.getLatency(sourceId, 0.5),
+                allOf(greaterThanOrEqualTo(45L), lessThanOrEqualTo(55L)));
+        assertThat(sourceMetrics.getLatency(sourceId, 0.99),
+                allOf(greaterThanOrEqualTo(95L), lessThanOrEqualTo(100L)));
+        assertThat(sourceMetrics.getLatency("unknown", 0.5), is(-1L));
+
+        sourceMetrics.deletingSource(catalogProvider, null);
+        assertThat(sourceMetrics.getLatency(sourceId, 0.5), is(-1L));
+    }
+
     /************************************************************************************/
 
     private SourceMetricsImpl configureSourceMetrics(String sourceId) throws Exception {
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache;
+
+/**
+ * Exposes the state of the executors that write federated query results to the Solr cache.
+ */
+public interface SolrCacheMetricsMBean {
+
+    String OBJECTNAME = "ddf.catalog.cache.solr.impl.SolrCache:service=cache-metrics";
+
+    /**
+     * @return number of cache tasks waiting for a worker thread
+     */
+    int getQueueDepth();
+
+    /**
+     * @return maximum number of cache tasks that can wait for a worker thread
+     */
+    int getQueueCapacity();
+
+    /**
+     * @return number of worker threads currently caching results
+     */
+    int getActiveThreads();
+
+    /**
+     * @return number of worker threads in the pool
+     */
+    int getPoolSize();
+
+    /**
+     * @return name of the policy applied when the cache task queue is full
+     */
+    String getRejectionPolicy();
+
+    /**
+     * @return number of cache tasks rejected because the queue was full
+     */
+    long getRejectedTasks();
+
+    /**
+     * @return number of results that were not cached because a queue or backlog was full
+     */
+    long getDroppedResults();
+
+    /**
+     * @return number of metacards waiting to be bulk added to the cache
+     */
+    int getBacklogSize();
+
+    /**
+     * @return number of batches bulk added to the cache
+     */
+    long getFlushedBatches();
+
+    /**
+     * @return time taken by the most recent bulk add, in milliseconds
+     */
+    long getLastFlushLatencyMillis();
+
+    /**
+     * @return average time taken by a bulk add, in milliseconds
+     */
+    double getAverageFlushLatencyMillis();
+
+    /**
+     * @return average number of metacards per bulk added batch
+     */
+    double getAverageDocumentsPerBatch();
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.MapLoader;
+import com.hazelcast.core.MapStoreFactory;
+
+/**
+ * Hazelcast @MapStoreFactory creating a @SegmentedPersistenceProvider for every map. The
+ * properties of the <map-store> node in the Hazelcast XML config file
+ * (reliableResource-hazelcast.xml) configure the segment size, sync interval and compaction.
+ */
+public class SegmentedMapStoreFactory implements MapStoreFactory<String, Object> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedMapStoreFactory.class);
+
+    @Override
+    public MapLoader<String, Object> newMapStore(String mapName, Properties properties) {
+        LOGGER.trace("INSIDE: newMapStore()");
+        return new SegmentedPersistenceProvider(mapName, properties);
+    }
+
+}
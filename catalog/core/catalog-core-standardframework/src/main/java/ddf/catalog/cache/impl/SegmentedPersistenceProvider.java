@@ -0,0 +1,820 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.MapLoader;
+import com.hazelcast.core.MapLoaderLifecycleSupport;
+import com.hazelcast.core.MapStore;
+
+/**
+ * Hazelcast persistence provider that appends entries to a small number of segment files instead
+ * of writing one file per key like {@link FileSystemPersistenceProvider}.
+ * <p/>
+ * Every record holds the key, the serialized value and a CRC32 checksum of both; deletes append a
+ * record without a value. The location of the latest record of every key is kept in memory, so
+ * {@link #loadAllKeys()} only scans the segments once at startup instead of listing a directory
+ * with one file per cached product. Full segments are memory mapped for reads, a batch of stores
+ * or deletes is forced to disk with a single fsync, and a background task rewrites the live
+ * records of segments that are mostly garbage and removes them.
+ * <p/>
+ * Entries left behind by {@link FileSystemPersistenceProvider} in the same directory are imported
+ * the first time the keys are loaded. Selected with {@link SegmentedMapStoreFactory} in the
+ * {@code <map-store>} node of the Hazelcast XML config.
+ */
+public class SegmentedPersistenceProvider
+        implements MapLoader<String, Object>, MapStore<String, Object>,
+        MapLoaderLifecycleSupport {
+
+    public static final String MAX_SEGMENT_BYTES = "maxSegmentBytes";
+
+    public static final String SYNC_INTERVAL_MILLIS = "syncIntervalMillis";
+
+    public static final String COMPACTION_INTERVAL_SECONDS = "compactionIntervalSeconds";
+
+    public static final String COMPACTION_THRESHOLD = "compactionThreshold";
+
+    static final long DEFAULT_MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    static final long DEFAULT_SYNC_INTERVAL_MILLIS = 0;
+
+    static final long DEFAULT_COMPACTION_INTERVAL_SECONDS = 300;
+
+    static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SegmentedPersistenceProvider.class);
+
+    private static final String PERSISTENCE_PATH = "data/";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String SER = ".ser";
+
+    private static final int RECORD_MAGIC = 0x44534731;
+
+    /**
+     * magic, key length, value length (-1 for a delete) and checksum
+     */
+    private static final int HEADER_BYTES = 16;
+
+    private static final int TOMBSTONE = -1;
+
+    private final File directory;
+
+    private final long maxSegmentBytes;
+
+    private final long syncIntervalMillis;
+
+    private final double compactionThreshold;
+
+    private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final ScheduledExecutorService maintenanceExecutor;
+
+    private volatile Segment activeSegment;
+
+    private boolean unsynced;
+
+    private volatile boolean opened;
+
+    SegmentedPersistenceProvider(String mapName) {
+        this(new File(PERSISTENCE_PATH + mapName), DEFAULT_MAX_SEGMENT_BYTES,
+                DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_COMPACTION_INTERVAL_SECONDS,
+                DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    SegmentedPersistenceProvider(String mapName, Properties properties) {
+        this(new File(PERSISTENCE_PATH + mapName),
+                getLong(properties, MAX_SEGMENT_BYTES, DEFAULT_MAX_SEGMENT_BYTES),
+                getLong(properties, SYNC_INTERVAL_MILLIS, DEFAULT_SYNC_INTERVAL_MILLIS),
+                getLong(properties, COMPACTION_INTERVAL_SECONDS,
+                        DEFAULT_COMPACTION_INTERVAL_SECONDS),
+                getDouble(properties, COMPACTION_THRESHOLD, DEFAULT_COMPACTION_THRESHOLD));
+    }
+
+    /**
+     * @param directory                 directory holding the segment files
+     * @param maxSegmentBytes           size after which a new segment is started, at most
+     *                                  {@link Integer#MAX_VALUE} since full segments are memory
+     *                                  mapped
+     * @param syncIntervalMillis        0 to force every store and delete to disk before
+     *                                  returning, otherwise the interval at which a background
+     *                                  task forces them to disk
+     * @param compactionIntervalSeconds interval at which segments are checked for compaction, 0
+     *                                  to disable compaction
+     * @param compactionThreshold       fraction of live bytes below which a full segment is
+     *                                  compacted
+     */
+    SegmentedPersistenceProvider(File directory, long maxSegmentBytes, long syncIntervalMillis,
+            long compactionIntervalSeconds, double compactionThreshold) {
+        LOGGER.trace("INSIDE: SegmentedPersistenceProvider constructor, directory = {}",
+                directory);
+        if (maxSegmentBytes <= 0 || maxSegmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    MAX_SEGMENT_BYTES + " must be between 1 and " + Integer.MAX_VALUE + " but was "
+                            + maxSegmentBytes);
+        }
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.compactionThreshold = compactionThreshold;
+
+        maintenanceExecutor = Executors
+                .newSingleThreadScheduledExecutor(new MaintenanceThreadFactory());
+        if (syncIntervalMillis > 0) {
+            maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    sync();
+                }
+            }, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (compactionIntervalSeconds > 0) {
+            maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    compact();
+                }
+            }, compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void init(HazelcastInstance hazelcastInstance, Properties properties,
+            String mapName) {
+        open();
+    }
+
+    @Override
+    public void destroy() {
+        close();
+    }
+
+    @Override
+    public void store(String key, Object value) {
+        storeAll(Collections.singletonMap(key, value));
+    }
+
+    @Override
+    public void storeAll(Map<String, Object> keyValueMap) {
+        open();
+        synchronized (writeLock) {
+            for (Map.Entry<String, Object> entry : keyValueMap.entrySet()) {
+                try {
+                    append(entry.getKey(), serialize(entry.getValue()));
+                } catch (IOException e) {
+                    LOGGER.info("IOException storing value in cache with key = {}",
+                            entry.getKey(), e);
+                }
+            }
+            syncIfRequired();
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        deleteAll(Collections.singletonList(key));
+    }
+
+    @Override
+    public void deleteAll(Collection<String> keys) {
+        open();
+        synchronized (writeLock) {
+            for (String key : keys) {
+                if (!index.containsKey(key)) {
+                    continue;
+                }
+                try {
+                    append(key, null);
+                } catch (IOException e) {
+                    LOGGER.info("IOException deleting value in cache with key = {}", key, e);
+                }
+            }
+            syncIfRequired();
+        }
+    }
+
+    @Override
+    public Object load(String key) {
+        // Not implemented because the Hazelcast data grid is all in cache,
+        // so never have something persisted that is
+        // not in memory and want to avoid a performance hit on the file system
+        return null;
+    }
+
+    Object loadFromPersistence(String key) {
+        open();
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        try {
+            return deserialize(location.segment.readValue(location.offset));
+        } catch (IOException e) {
+            LOGGER.info("IOException loading value from cache with key = {}", key, e);
+        } catch (ClassNotFoundException e) {
+            LOGGER.info("ClassNotFoundException", e);
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> loadAll(Collection<String> keys) {
+        Map<String, Object> values = new HashMap<>();
+
+        for (String key : keys) {
+            Object obj = loadFromPersistence(key);
+            if (obj != null) {
+                values.put(key, obj);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Set<String> loadAllKeys() {
+        open();
+        return new HashSet<>(index.keySet());
+    }
+
+    public void clear() {
+        open();
+        synchronized (writeLock) {
+            for (String key : new ArrayList<>(index.keySet())) {
+                try {
+                    append(key, null);
+                } catch (IOException e) {
+                    LOGGER.info("IOException deleting value in cache with key = {}", key, e);
+                }
+            }
+            syncIfRequired();
+        }
+    }
+
+    /**
+     * Forces all records written so far to disk.
+     */
+    void sync() {
+        synchronized (writeLock) {
+            if (unsynced && activeSegment != null) {
+                try {
+                    activeSegment.channel.force(false);
+                    unsynced = false;
+                } catch (IOException e) {
+                    LOGGER.warn("Could not sync cache segment {}", activeSegment, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites the live records of full segments whose fraction of live bytes is below the
+     * compaction threshold into the active segment and removes those segments.
+     */
+    void compact() {
+        if (!opened) {
+            return;
+        }
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == activeSegment || segment.liveRatio() >= compactionThreshold) {
+                continue;
+            }
+            try {
+                compact(segment);
+            } catch (IOException e) {
+                LOGGER.warn("Could not compact cache segment {}", segment, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the background tasks, forces pending records to disk and closes the segments.
+     */
+    void close() {
+        maintenanceExecutor.shutdownNow();
+        synchronized (writeLock) {
+            sync();
+            for (Segment segment : segments.values()) {
+                IOUtils.closeQuietly(segment.file);
+            }
+            segments.clear();
+            index.clear();
+            activeSegment = null;
+            opened = false;
+        }
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Deletes are kept while an older segment exists, since that segment may still hold a value
+     * for the key that the delete hides. Records whose checksum does not match are not copied;
+     * keys whose latest value could not be copied are dropped from the cache before the segment is
+     * removed.
+     */
+    private void compact(Segment segment) throws IOException {
+        LOGGER.debug("Compacting cache segment {}", segment);
+        ByteBuffer buffer = segment.map();
+        boolean keepDeletes = !segments.headMap(segment.id).isEmpty();
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.limit()) {
+            Record record = readRecord(buffer, offset, true);
+            if (record == null) {
+                LOGGER.warn("Could not read cache segment {} after offset {}", segment, offset);
+                break;
+            }
+            if (record.corrupt) {
+                LOGGER.warn("Skipping corrupt record at offset {} of cache segment {}", offset,
+                        segment);
+                offset += record.length;
+                continue;
+            }
+            synchronized (writeLock) {
+                if (record.value == null) {
+                    if (keepDeletes && !index.containsKey(record.key)) {
+                        append(record.key, null);
+                    }
+                } else {
+                    Location location = index.get(record.key);
+                    if (location != null && location.segment == segment
+                            && location.offset == offset) {
+                        append(record.key, record.value);
+                    }
+                }
+            }
+            offset += record.length;
+        }
+
+        synchronized (writeLock) {
+            dropEntriesOf(segment);
+            if (activeSegment != null) {
+                activeSegment.channel.force(true);
+                unsynced = false;
+            }
+            segments.remove(segment.id);
+        }
+        segment.delete();
+    }
+
+    /**
+     * Records a delete for every key whose latest value is still in the segment, i.e. could not be
+     * copied out of it. Must be called while holding the write lock.
+     */
+    private void dropEntriesOf(Segment segment) throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (entry.getValue().segment == segment) {
+                keys.add(entry.getKey());
+            }
+        }
+        if (!keys.isEmpty()) {
+            LOGGER.warn("Dropping {} cache entries that could not be read from segment {}",
+                    keys.size(), segment);
+        }
+        for (String key : keys) {
+            append(key, null);
+        }
+    }
+
+    private void open() {
+        if (opened) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (opened) {
+                return;
+            }
+            if (!directory.exists() && !directory.mkdirs()) {
+                LOGGER.error("Could not make directory: {}", directory.getAbsolutePath());
+            }
+
+            File[] files = directory.listFiles(new SuffixFilter(SEGMENT_SUFFIX));
+            if (files != null) {
+                Arrays.sort(files);
+                for (int i = 0; i < files.length; i++) {
+                    try {
+                        scan(openSegment(files[i]), i == files.length - 1);
+                    } catch (IOException | NumberFormatException e) {
+                        LOGGER.warn("Could not read cache segment {}", files[i], e);
+                    }
+                }
+            }
+
+            opened = true;
+            importLegacyEntries();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the records of a segment. Only the last segment can end with a
+     * partially written record, so only its checksums are verified and it is truncated after its
+     * last valid record; records of other segments are verified when they are read.
+     */
+    private void scan(Segment segment, boolean last) throws IOException {
+        ByteBuffer buffer = segment.map();
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.limit()) {
+            Record record = readRecord(buffer, offset, last);
+            if (record == null || record.corrupt) {
+                break;
+            }
+            index(record.key, segment, offset, record.length, record.value == null);
+            offset += record.length;
+        }
+
+        if (offset < segment.size) {
+            LOGGER.warn("Truncating cache segment {} after {} valid bytes", segment, offset);
+            segment.truncate(offset);
+        }
+        if (last) {
+            segment.unmap();
+            activeSegment = segment;
+        }
+    }
+
+    private void importLegacyEntries() {
+        File[] files = directory.listFiles(new SuffixFilter(SER));
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        LOGGER.info("Importing {} cache entries from {}", files.length, directory);
+        for (File file : files) {
+            String key = file.getName().substring(0, file.getName().length() - SER.length());
+            try (FileInputStream input = new FileInputStream(file)) {
+                append(key, IOUtils.toByteArray(input));
+            } catch (IOException e) {
+                LOGGER.info("Could not import cache entry {}", file, e);
+                continue;
+            }
+            if (!file.delete()) {
+                LOGGER.error("Could not delete file {}", file.getAbsolutePath());
+            }
+        }
+        syncIfRequired();
+    }
+
+    /**
+     * Appends a record to the active segment and points the index at it. Must be called while
+     * holding the write lock.
+     *
+     * @param value serialized value, or null to record a delete
+     */
+    private void append(String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value == null ? TOMBSTONE : value.length;
+        int length = HEADER_BYTES + keyBytes.length + Math.max(valueLength, 0);
+
+        if (activeSegment == null || activeSegment.size > 0
+                && activeSegment.size + length > maxSegmentBytes) {
+            rollSegment();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(RECORD_MAGIC);
+        buffer.putInt(keyBytes.length);
+        buffer.putInt(valueLength);
+        buffer.putInt(checksum(keyBytes, value));
+        buffer.put(keyBytes);
+        if (value != null) {
+            buffer.put(value);
+        }
+        buffer.flip();
+
+        Segment segment = activeSegment;
+        long offset = segment.size;
+        while (buffer.hasRemaining()) {
+            segment.channel.write(buffer, offset + buffer.position());
+        }
+        segment.size += length;
+        unsynced = true;
+
+        index(key, segment, offset, length, value == null);
+    }
+
+    private void index(String key, Segment segment, long offset, int length, boolean delete) {
+        segment.totalBytes.addAndGet(length);
+        Location previous;
+        if (delete) {
+            previous = index.remove(key);
+        } else {
+            segment.liveBytes.addAndGet(length);
+            previous = index.put(key, new Location(segment, offset, length));
+        }
+        if (previous != null) {
+            previous.segment.liveBytes.addAndGet(-previous.length);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        if (activeSegment != null) {
+            activeSegment.channel.force(false);
+            unsynced = false;
+        }
+        int id = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        activeSegment = openSegment(new File(directory,
+                String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)));
+    }
+
+    private Segment openSegment(File file) throws IOException {
+        String name = file.getName();
+        int id = Integer.parseInt(
+                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        Segment segment = new Segment(id, file);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void syncIfRequired() {
+        if (syncIntervalMillis <= 0) {
+            sync();
+        }
+    }
+
+    /**
+     * @param verify whether to compare the checksum of the record, otherwise the record is never
+     *               marked as corrupt
+     * @return the record at the offset, or null if there is no complete record there
+     */
+    private static Record readRecord(ByteBuffer buffer, int offset, boolean verify) {
+        if (buffer.getInt(offset) != RECORD_MAGIC) {
+            return null;
+        }
+        int keyLength = buffer.getInt(offset + 4);
+        int valueLength = buffer.getInt(offset + 8);
+        int checksum = buffer.getInt(offset + 12);
+        long length = (long) HEADER_BYTES + keyLength + Math.max(valueLength, 0);
+        if (keyLength < 0 || valueLength < TOMBSTONE || offset + length > buffer.limit()) {
+            return null;
+        }
+
+        byte[] keyBytes = new byte[keyLength];
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + HEADER_BYTES);
+        record.get(keyBytes);
+        byte[] value = null;
+        if (valueLength != TOMBSTONE) {
+            value = new byte[valueLength];
+            record.get(value);
+        }
+
+        boolean corrupt = verify && checksum(keyBytes, value) != checksum;
+        return new Record(new String(keyBytes, StandardCharsets.UTF_8), value, (int) length,
+                corrupt);
+    }
+
+    private static int checksum(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        if (value != null) {
+            crc.update(value);
+        }
+        return (int) crc.getValue();
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] value) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(value))) {
+            return input.readObject();
+        }
+    }
+
+    private static long getLong(Properties properties, String name, long defaultValue) {
+        return properties == null ?
+                defaultValue :
+                NumberUtils.toLong(properties.getProperty(name), defaultValue);
+    }
+
+    private static double getDouble(Properties properties, String name, double defaultValue) {
+        return properties == null ?
+                defaultValue :
+                NumberUtils.toDouble(properties.getProperty(name), defaultValue);
+    }
+
+    private static class Location {
+
+        private final Segment segment;
+
+        private final long offset;
+
+        private final int length;
+
+        Location(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class Record {
+
+        private final String key;
+
+        private final byte[] value;
+
+        private final int length;
+
+        private final boolean corrupt;
+
+        Record(String key, byte[] value, int length, boolean corrupt) {
+            this.key = key;
+            this.value = value;
+            this.length = length;
+            this.corrupt = corrupt;
+        }
+    }
+
+    /**
+     * Segment file. Reads of the active segment use positional reads on its channel; once the
+     * segment is full it is memory mapped on its first read.
+     */
+    private class Segment {
+
+        private final int id;
+
+        private final RandomAccessFile file;
+
+        private final File path;
+
+        private final FileChannel channel;
+
+        private final AtomicLong liveBytes = new AtomicLong();
+
+        private final AtomicLong totalBytes = new AtomicLong();
+
+        private volatile long size;
+
+        private volatile MappedByteBuffer mapped;
+
+        Segment(int id, File path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.file = new RandomAccessFile(path, "rw");
+            this.channel = file.getChannel();
+            this.size = channel.size();
+        }
+
+        ByteBuffer map() throws IOException {
+            MappedByteBuffer buffer = mapped;
+            if (buffer == null) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                mapped = buffer;
+            }
+            return buffer;
+        }
+
+        void unmap() {
+            mapped = null;
+        }
+
+        byte[] readValue(long offset) throws IOException {
+            ByteBuffer buffer;
+            int position;
+            if (this == activeSegment) {
+                buffer = readActive(offset);
+                position = 0;
+            } else {
+                buffer = map();
+                position = (int) offset;
+            }
+
+            Record record = readRecord(buffer, position, true);
+            if (record == null || record.corrupt || record.value == null) {
+                throw new IOException("Invalid cache record at offset " + offset + " of " + path);
+            }
+            return record.value;
+        }
+
+        private ByteBuffer readActive(long offset) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, offset);
+            int length = HEADER_BYTES + header.getInt(4) + Math.max(header.getInt(8), 0);
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(record, offset);
+            return record;
+        }
+
+        private void readFully(ByteBuffer buffer, long offset) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + path);
+                }
+            }
+        }
+
+        double liveRatio() {
+            long total = totalBytes.get();
+            return total == 0 ? 1 : (double) liveBytes.get() / total;
+        }
+
+        void truncate(long length) throws IOException {
+            channel.truncate(length);
+            size = length;
+            mapped = null;
+        }
+
+        void delete() {
+            IOUtils.closeQuietly(file);
+            if (!path.delete()) {
+                LOGGER.error("Could not delete file {}", path.getAbsolutePath());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+
+    private static class SuffixFilter implements FilenameFilter {
+
+        private final String suffix;
+
+        SuffixFilter(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.toLowerCase().endsWith(suffix);
+        }
+    }
+
+    private static class MaintenanceThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("product-cache-store");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
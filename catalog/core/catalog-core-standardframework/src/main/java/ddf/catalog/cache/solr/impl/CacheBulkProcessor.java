@@ -22,6 +22,7 @@
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,16 @@ class CacheBulkProcessor {
 
     private Date lastBulkAdd = new Date();
 
+    private final AtomicLong droppedResults = new AtomicLong();
+
+    private final AtomicLong flushedBatches = new AtomicLong();
+
+    private final AtomicLong flushedMetacards = new AtomicLong();
+
+    private final AtomicLong totalFlushMillis = new AtomicLong();
+
+    private volatile long lastFlushMillis;
+
     public CacheBulkProcessor(final SolrCache cache) {
         this(cache, 1, TimeUnit.SECONDS);
     }
@@ -75,7 +86,9 @@ public void run() {
                         List<Metacard> metacards = new ArrayList<>(metacardsToCache.values());
                         for (Collection<Metacard> batch : Lists.partition(metacards, batchSize)) {
                             LOGGER.debug("Caching a batch of {} metacards", batch.size());
+                            long start = System.currentTimeMillis();
                             cache.create(batch);
+                            recordFlush(batch.size(), System.currentTimeMillis() - start);
 
                             for (Metacard metacard : batch) {
                                 metacardsToCache.remove(metacard.getId());
@@ -112,9 +125,19 @@ public void add(final List<Result> results) {
                     }
                 }
             }
+        } else {
+            LOGGER.debug("Cache backlog is full, dropping {} results", results.size());
+            droppedResults.addAndGet(results.size());
         }
     }
 
+    private void recordFlush(int metacards, long elapsedMillis) {
+        flushedBatches.incrementAndGet();
+        flushedMetacards.addAndGet(metacards);
+        totalFlushMillis.addAndGet(elapsedMillis);
+        lastFlushMillis = elapsedMillis;
+    }
+
     /**
      * Shutdown scheduled tasks.
      */
@@ -126,6 +149,26 @@ int pendingMetacards() {
         return metacardsToCache.size();
     }
 
+    long getDroppedResults() {
+        return droppedResults.get();
+    }
+
+    long getFlushedBatches() {
+        return flushedBatches.get();
+    }
+
+    long getFlushedMetacards() {
+        return flushedMetacards.get();
+    }
+
+    long getTotalFlushMillis() {
+        return totalFlushMillis.get();
+    }
+
+    long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
     public void setFlushInterval(long flushInterval) {
         this.flushInterval = flushInterval;
     }
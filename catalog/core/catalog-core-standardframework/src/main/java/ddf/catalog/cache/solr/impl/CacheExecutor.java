@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded thread pool used to write federated query results to the cache. When the queue is full
+ * the configured {@link RejectionPolicy} decides whether the oldest queued task is dropped, the
+ * submitting thread runs the task itself or the submitting thread waits for room in the queue.
+ */
+class CacheExecutor extends ThreadPoolExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheExecutor.class);
+
+    private final int queueCapacity;
+
+    private final AtomicLong rejectedTasks;
+
+    private final AtomicLong droppedResults;
+
+    private volatile RejectionPolicy rejectionPolicy;
+
+    private volatile long blockTimeoutMillis;
+
+    /**
+     * @param threads            number of worker threads
+     * @param queueCapacity      maximum number of tasks waiting for a worker thread
+     * @param rejectionPolicy    policy applied when the queue is full
+     * @param blockTimeoutMillis maximum time to wait for room in the queue with
+     *                           {@link RejectionPolicy#BLOCK}
+     */
+    CacheExecutor(int threads, int queueCapacity, RejectionPolicy rejectionPolicy,
+            long blockTimeoutMillis) {
+        this(threads, queueCapacity, rejectionPolicy, blockTimeoutMillis, new AtomicLong(),
+                new AtomicLong());
+    }
+
+    private CacheExecutor(int threads, int queueCapacity, RejectionPolicy rejectionPolicy,
+            long blockTimeoutMillis, AtomicLong rejectedTasks, AtomicLong droppedResults) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new CacheThreadFactory());
+        this.queueCapacity = queueCapacity;
+        this.rejectedTasks = rejectedTasks;
+        this.droppedResults = droppedResults;
+        this.rejectionPolicy = rejectionPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        setRejectedExecutionHandler(new PolicyRejectionHandler());
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Creates an executor with a different queue capacity but the same threads, policy and
+     * counters, so that tasks rejected or dropped by either executor are counted together.
+     */
+    CacheExecutor withQueueCapacity(int capacity) {
+        return new CacheExecutor(getMaximumPoolSize(), capacity, rejectionPolicy,
+                blockTimeoutMillis, rejectedTasks, droppedResults);
+    }
+
+    RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    long getBlockTimeoutMillis() {
+        return blockTimeoutMillis;
+    }
+
+    void setBlockTimeoutMillis(long blockTimeoutMillis) {
+        this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    /**
+     * Changes the number of worker threads.
+     */
+    void setThreads(int threads) {
+        if (threads > getMaximumPoolSize()) {
+            setMaximumPoolSize(threads);
+            setCorePoolSize(threads);
+        } else {
+            setCorePoolSize(threads);
+            setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * @return number of tasks that were dropped or run by the submitting thread because the queue
+     * was full
+     */
+    long getRejectedTasks() {
+        return rejectedTasks.get();
+    }
+
+    /**
+     * @return number of results in tasks that were dropped without being run
+     */
+    long getDroppedResults() {
+        return droppedResults.get();
+    }
+
+    private void onDropped(Runnable task) {
+        if (task instanceof ResultsTask) {
+            droppedResults.addAndGet(((ResultsTask) task).getResultCount());
+        }
+    }
+
+    /**
+     * Cache task that knows how many results it would have cached, so that dropped results can
+     * be counted. Tasks must be passed to {@link #execute(Runnable)} rather than {@code submit}
+     * for the count to be available.
+     */
+    abstract static class ResultsTask implements Runnable {
+
+        private final int resultCount;
+
+        ResultsTask(int resultCount) {
+            this.resultCount = resultCount;
+        }
+
+        int getResultCount() {
+            return resultCount;
+        }
+    }
+
+    /**
+     * Policies applied to cache tasks submitted while the queue is full.
+     */
+    enum RejectionPolicy {
+        /**
+         * Drop the task that has been waiting the longest and queue the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Run the task on the submitting thread, slowing down the producer.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Wait for room in the queue up to the block timeout, then drop the new task.
+         */
+        BLOCK;
+
+        static RejectionPolicy fromString(String policy, RejectionPolicy defaultPolicy) {
+            if (policy != null) {
+                for (RejectionPolicy value : values()) {
+                    if (value.name().equalsIgnoreCase(policy.trim().replace('-', '_'))) {
+                        return value;
+                    }
+                }
+            }
+            LOGGER.warn("Unknown cache rejection policy [{}], using {}", policy, defaultPolicy);
+            return defaultPolicy;
+        }
+    }
+
+    private class PolicyRejectionHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                LOGGER.debug("Cache executor is shut down, dropping cache task");
+                onDropped(task);
+                return;
+            }
+
+            rejectedTasks.incrementAndGet();
+
+            switch (rejectionPolicy) {
+            case CALLER_RUNS:
+                task.run();
+                break;
+            case BLOCK:
+                try {
+                    if (!executor.getQueue()
+                            .offer(task, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        LOGGER.debug("Timed out waiting for room in the cache queue");
+                        onDropped(task);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    onDropped(task);
+                }
+                break;
+            case DROP_OLDEST:
+            default:
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest != null) {
+                    onDropped(oldest);
+                }
+                executor.execute(task);
+                break;
+            }
+        }
+    }
+
+    private static class CacheThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("solr-cache-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -21,6 +21,7 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
@@ -29,21 +30,27 @@
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codice.ddf.platform.util.Exceptions;
-import org.opengis.filter.expression.PropertyName;
-import org.opengis.filter.sort.SortBy;
-import org.opengis.filter.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.federation.FederationStrategy;
+import ddf.catalog.federation.SourceLatencyMetrics;
+import ddf.catalog.federation.base.AdaptiveSourceTimeouts;
+import ddf.catalog.federation.base.SourceQueryTracker;
+import ddf.catalog.federation.base.SourceQueryTracker.CompletedQuery;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.ProcessingDetails;
@@ -64,15 +71,14 @@
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.Source;
 import ddf.catalog.source.UnsupportedQueryException;
-import ddf.catalog.util.impl.DistanceResultComparator;
-import ddf.catalog.util.impl.RelevanceResultComparator;
-import ddf.catalog.util.impl.TemporalResultComparator;
+import ddf.catalog.util.impl.ResultComparators;
 
 /**
  * This class represents a {@link ddf.catalog.federation.FederationStrategy} based on sorting {@link ddf.catalog.data.Metacard}s. The
  * sorting is based on the {@link ddf.catalog.operation.Query}'s {@link org.opengis.filter.sort.SortBy} propertyName. The possible sorting values
- * are {@link ddf.catalog.data.Metacard.EFFECTIVE}, {@link ddf.catalog.data.Result.TEMPORAL}, {@link ddf.catalog.data.Result.DISTANCE}, or
- * {@link ddf.catalog.data.Result.RELEVANCE} . The supported ordering includes {@link org.opengis.filter.sort.SortOrder.DESCENDING} and
+ * are {@link ddf.catalog.data.Metacard.EFFECTIVE}, {@link ddf.catalog.data.Result.TEMPORAL}, {@link ddf.catalog.data.Result.DISTANCE},
+ * {@link ddf.catalog.data.Result.RELEVANCE} or the name of any other attribute, with additional sort keys taken from the
+ * {@link ddf.catalog.Constants#ADDITIONAL_SORT_BYS} request property, see {@link ResultComparators}. The supported ordering includes {@link org.opengis.filter.sort.SortOrder.DESCENDING} and
  * {@link org.opengis.filter.sort.SortOrder.ASCENDING}. For this class to function properly a sort value and sort order must
  * be provided.
  *
@@ -85,8 +91,8 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
     /**
      * The default comparator for sorting by {@link ddf.catalog.data.Result.RELEVANCE}, {@link org.opengis.filter.sort.SortOrder.DESCENDING}
      */
-    protected static final Comparator<Result> DEFAULT_COMPARATOR = new RelevanceResultComparator(
-            SortOrder.DESCENDING);
+    protected static final Comparator<Result> DEFAULT_COMPARATOR =
+            ResultComparators.DEFAULT_COMPARATOR;
 
     protected static final String QUERY_MODE = "mode";
 
@@ -112,11 +118,23 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
 
     private static final int DEFAULT_MAX_START_INDEX = 50000;
 
+    private static final int DEFAULT_CACHE_THREADS = 8;
+
+    private static final int DEFAULT_CACHE_QUEUE_CAPACITY = 1000;
+
+    private static final long DEFAULT_CACHE_BLOCK_TIMEOUT_MILLIS = 1000;
+
+    private static final int DEFAULT_STREAMING_MERGE_THREADS = 8;
+
+    private static final long STREAMING_MERGE_KEEP_ALIVE_SECONDS = 60;
+
     private static Logger logger = LoggerFactory.getLogger(CachingFederationStrategy.class);
 
     private final SolrCache cache;
 
-    private final ExecutorService cacheExecutorService = Executors.newFixedThreadPool(8);
+    private volatile CacheExecutor cacheExecutorService = new CacheExecutor(DEFAULT_CACHE_THREADS,
+            DEFAULT_CACHE_QUEUE_CAPACITY, CacheExecutor.RejectionPolicy.DROP_OLDEST,
+            DEFAULT_CACHE_BLOCK_TIMEOUT_MILLIS);
 
     /**
      * The {@link List} of pre-federated query plugins to execute on the query request before the
@@ -132,14 +150,28 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
 
     private ExecutorService queryExecutorService;
 
+    /**
+     * Fetches the pages after the first one for the streaming merge. The merge monitors run on
+     * {@link #queryExecutorService} and wait for these pages, so fetching them on the same pool
+     * could leave every thread waiting on a fetch that is queued behind them.
+     */
+    private final ThreadPoolExecutor pageFetchExecutorService = createPageFetchExecutor(
+            DEFAULT_STREAMING_MERGE_THREADS);
+
     private int maxStartIndex;
 
     private CacheCommitPhaser cacheCommitPhaser = new CacheCommitPhaser();
 
     private CacheBulkProcessor cacheBulkProcessor;
 
+    private SolrCacheMetrics cacheMetrics;
+
     private boolean isCachingEverything = false;
 
+    private boolean isStreamingMerge = false;
+
+    private final AdaptiveSourceTimeouts sourceTimeouts = new AdaptiveSourceTimeouts();
+
     /**
      * Instantiates an {@code AbstractFederationStrategy} with the provided {@link ExecutorService}.
      *
@@ -155,6 +187,8 @@ public CachingFederationStrategy(ExecutorService queryExecutorService,
         this.maxStartIndex = DEFAULT_MAX_START_INDEX;
         this.cache = cache;
         cacheBulkProcessor = new CacheBulkProcessor(cache);
+        cacheMetrics = new SolrCacheMetrics(cacheExecutorService, cacheBulkProcessor);
+        cacheMetrics.register();
     }
 
     @Override
@@ -209,20 +243,30 @@ private QueryResponse sourceFederate(List<Source> sources, final QueryRequest qu
 
         final QueryResponseImpl queryResponseQueue = new QueryResponseImpl(queryRequest, null);
 
-        Map<Future<SourceResponse>, Source> futures = new HashMap<Future<SourceResponse>, Source>();
+        Map<Source, QueryRequest> sourceRequests = new HashMap<Source, QueryRequest>();
 
-        Query modifiedQuery = getModifiedQuery(originalQuery, sources.size(), offset, pageSize);
+        // Streaming merge pages through each source instead of asking every source for all
+        // results up to the offset, so it does not apply when results come from the cache
+        final boolean streamingMerge =
+                isStreamingMerge && offset > 1 && sources.size() > 1 && pageSize > 0
+                        && !INDEX_QUERY_MODE.equals(queryRequest.getPropertyValue(QUERY_MODE));
+
+        Query modifiedQuery = streamingMerge ?
+                getStreamingQuery(originalQuery, pageSize) :
+                getModifiedQuery(originalQuery, sources.size(), offset, pageSize);
         QueryRequest modifiedQueryRequest = new QueryRequestImpl(modifiedQuery,
                 queryRequest.isEnterprise(), queryRequest.getSourceIds(),
                 queryRequest.getProperties());
 
         CompletionService<SourceResponse> queryCompletion = new ExecutorCompletionService<SourceResponse>(
                 queryExecutorService);
+        SourceQueryTracker tracker = sourceTimeouts
+                .track(queryCompletion, queryResponseQueue.getProcessingDetails());
 
         // Do NOT call source.isAvailable() when checking sources
         for (final Source source : sources) {
             if (source != null) {
-                if (!futures.containsValue(source)) {
+                if (!sourceRequests.containsKey(source)) {
                     logger.debug("running query on source: {}", source.getId());
 
                     try {
@@ -238,9 +282,11 @@ private QueryResponse sourceFederate(List<Source> sources, final QueryRequest qu
                         logger.warn("Plugin stopped processing", e);
                     }
 
-                    futures.put(queryCompletion
-                            .submit(new CallableSourceResponse(source, modifiedQueryRequest)),
-                            source);
+                    CallableSourceResponse sourceQuery = new CallableSourceResponse(source,
+                            modifiedQueryRequest);
+                    tracker.submit(source, sourceQuery,
+                            modifiedQueryRequest.getQuery().getTimeoutMillis());
+                    sourceRequests.put(source, modifiedQueryRequest);
                 } else {
                     logger.warn("Duplicate source found with name {}. Ignoring second one.",
                             source.getId());
@@ -253,18 +299,23 @@ private QueryResponse sourceFederate(List<Source> sources, final QueryRequest qu
         // results back and then
         // transfer them into a different Queue. That is what the
         // OffsetResultHandler does.
-        if (offset > 1 && sources.size() > 1) {
+        if (offset > 1 && sources.size() > 1 && !streamingMerge) {
             offsetResults = new QueryResponseImpl(queryRequest, null);
             queryExecutorService
                     .submit(new OffsetResultHandler(queryResponseQueue, offsetResults, pageSize,
                             offset));
         }
 
-        queryExecutorService.submit(createMonitor(queryCompletion, futures, queryResponseQueue,
-                modifiedQueryRequest));
+        if (streamingMerge) {
+            queryExecutorService.submit(new StreamingMergeMonitor(tracker, sourceRequests,
+                    queryResponseQueue, modifiedQueryRequest, offset, pageSize));
+        } else {
+            queryExecutorService.submit(createMonitor(tracker, queryResponseQueue,
+                    modifiedQueryRequest));
+        }
 
         QueryResponse queryResponse = null;
-        if (offset > 1 && sources.size() > 1) {
+        if (offset > 1 && sources.size() > 1 && !streamingMerge) {
             queryResponse = offsetResults;
             logger.debug("returning offsetResults");
         } else {
@@ -321,6 +372,18 @@ private Query getModifiedQuery(Query originalQuery, int numberOfSources, int off
         return query;
     }
 
+    /**
+     * Query used by the streaming merge, each source is paged through from an offset of 1 using
+     * the original page size.
+     */
+    private Query getStreamingQuery(Query originalQuery, int pageSize) {
+        logger.debug("Creating new query for federated sources to page through each source "
+                + "{} results at a time.", pageSize);
+
+        return new QueryImpl(originalQuery, 1, pageSize, originalQuery.getSortBy(),
+                originalQuery.requestsTotalResultsCount(), originalQuery.getTimeoutMillis());
+    }
+
     /**
      * Base 1 offset, hence page size is one less.
      */
@@ -405,16 +468,268 @@ public void setCachingEverything(boolean cachingEverything) {
         this.isCachingEverything = cachingEverything;
     }
 
-    protected Runnable createMonitor(final CompletionService<SourceResponse> completionService,
-            final Map<Future<SourceResponse>, Source> futures,
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param streamingMerge
+     *            true to merge paged queries across multiple sources with a streaming k-way merge
+     *            instead of retrieving and sorting every result up to the requested offset
+     */
+    public void setStreamingMerge(boolean streamingMerge) {
+        this.isStreamingMerge = streamingMerge;
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param streamingMergeThreads
+     *            number of threads used to fetch the following pages of results from federated
+     *            sources during a streaming merge
+     */
+    public void setStreamingMergeThreads(int streamingMergeThreads) {
+        if (streamingMergeThreads < 1) {
+            logger.debug("Invalid streaming merge threads input. Keeping current value: {}",
+                    pageFetchExecutorService.getMaximumPoolSize());
+            return;
+        }
+
+        // The maximum pool size can never be below the core pool size
+        if (streamingMergeThreads > pageFetchExecutorService.getMaximumPoolSize()) {
+            pageFetchExecutorService.setMaximumPoolSize(streamingMergeThreads);
+            pageFetchExecutorService.setCorePoolSize(streamingMergeThreads);
+        } else {
+            pageFetchExecutorService.setCorePoolSize(streamingMergeThreads);
+            pageFetchExecutorService.setMaximumPoolSize(streamingMergeThreads);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param sourceLatencyMetrics
+     *            the {@link SourceLatencyMetrics} that record the query latency of each source
+     */
+    public void setSourceLatencyMetrics(List<SourceLatencyMetrics> sourceLatencyMetrics) {
+        sourceTimeouts.setLatencyMetrics(sourceLatencyMetrics);
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param adaptiveTimeouts
+     *            true to cut off each source after a timeout based on its recent query latency
+     *            instead of waiting for the full query timeout
+     */
+    public void setAdaptiveTimeouts(boolean adaptiveTimeouts) {
+        sourceTimeouts.setAdaptiveTimeouts(adaptiveTimeouts);
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param timeoutPercentile
+     *            percentile of a source's recent query latency its adaptive timeout is based on
+     */
+    public void setTimeoutPercentile(double timeoutPercentile) {
+        sourceTimeouts.setTimeoutPercentile(timeoutPercentile);
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param timeoutMultiplier
+     *            multiplier applied to the timeout percentile latency to get the adaptive timeout
+     */
+    public void setTimeoutMultiplier(double timeoutMultiplier) {
+        sourceTimeouts.setTimeoutMultiplier(timeoutMultiplier);
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param minimumSourceTimeoutMillis
+     *            shortest adaptive timeout given to a source
+     */
+    public void setMinimumSourceTimeoutMillis(long minimumSourceTimeoutMillis) {
+        sourceTimeouts.setMinimumTimeoutMillis(minimumSourceTimeoutMillis);
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param hedgedRequests
+     *            true to send a second query to a source that is slower than usual and use the
+     *            first response
+     */
+    public void setHedgedRequests(boolean hedgedRequests) {
+        sourceTimeouts.setHedgedRequests(hedgedRequests);
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param hedgePercentile
+     *            percentile of a source's recent query latency after which a hedged query is sent
+     */
+    public void setHedgePercentile(double hedgePercentile) {
+        sourceTimeouts.setHedgePercentile(hedgePercentile);
+    }
+
+    /**
+     * Creates the {@link Comparator} used to merge results from multiple sources, defaulting to
+     * {@link #DEFAULT_COMPARATOR} when the request has no sort.
+     *
+     * @see ResultComparators
+     */
+    protected Comparator<Result> getResultComparator(QueryRequest request) {
+        return ResultComparators.create(request);
+    }
+
+    protected Runnable createMonitor(final SourceQueryTracker tracker,
             final QueryResponseImpl returnResults, final QueryRequest request) {
 
-        return new SortedQueryMonitor(completionService, futures, returnResults, request);
+        return new SortedQueryMonitor(tracker, returnResults, request);
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param cacheThreads
+     *            number of threads used to add federated query results to the cache
+     */
+    public void setCacheThreads(int cacheThreads) {
+        if (cacheThreads > 0) {
+            cacheExecutorService.setThreads(cacheThreads);
+        } else {
+            logger.debug("Invalid cache threads input. Keeping current value: {}",
+                    cacheExecutorService.getMaximumPoolSize());
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint. Replaces the cache executor, results already queued on the
+     * current executor are still added to the cache. The rejected task and dropped result counts
+     * carry over to the new executor.
+     *
+     * @param cacheQueueCapacity
+     *            maximum number of federated query responses waiting to be added to the cache
+     */
+    public void setCacheQueueCapacity(int cacheQueueCapacity) {
+        if (cacheQueueCapacity < 1) {
+            logger.debug("Invalid cache queue capacity input. Keeping current value: {}",
+                    cacheExecutorService.getQueueCapacity());
+            return;
+        }
+
+        CacheExecutor current = cacheExecutorService;
+        if (current.getQueueCapacity() != cacheQueueCapacity) {
+            cacheExecutorService = current.withQueueCapacity(cacheQueueCapacity);
+            cacheMetrics.setCacheExecutor(cacheExecutorService);
+            current.shutdown();
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param cacheRejectionPolicy
+     *            one of {@code DROP_OLDEST}, {@code CALLER_RUNS} or {@code BLOCK}, applied when
+     *            the cache queue is full
+     */
+    public void setCacheRejectionPolicy(String cacheRejectionPolicy) {
+        cacheExecutorService.setRejectionPolicy(CacheExecutor.RejectionPolicy
+                .fromString(cacheRejectionPolicy, CacheExecutor.RejectionPolicy.DROP_OLDEST));
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param cacheBlockTimeoutMillis
+     *            maximum time a query waits for room in a full cache queue with the {@code BLOCK}
+     *            rejection policy
+     */
+    public void setCacheBlockTimeoutMillis(long cacheBlockTimeoutMillis) {
+        cacheExecutorService.setBlockTimeoutMillis(Math.max(0, cacheBlockTimeoutMillis));
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param cacheBatchSize
+     *            maximum number of metacards added to the cache in one bulk add
+     */
+    public void setCacheBatchSize(int cacheBatchSize) {
+        if (cacheBatchSize > 0) {
+            cacheBulkProcessor.setBatchSize(cacheBatchSize);
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param cacheFlushIntervalInSeconds
+     *            maximum time metacards wait in the backlog before being bulk added to the cache
+     */
+    public void setCacheFlushIntervalInSeconds(long cacheFlushIntervalInSeconds) {
+        if (cacheFlushIntervalInSeconds > 0) {
+            cacheBulkProcessor.setFlushInterval(TimeUnit.SECONDS.toMillis(
+                    cacheFlushIntervalInSeconds));
+        }
+    }
+
+    /**
+     * To be set via Spring/Blueprint
+     *
+     * @param cacheMaximumBacklogSize
+     *            maximum number of metacards waiting to be bulk added to the cache; results are
+     *            dropped while the backlog is full
+     */
+    public void setCacheMaximumBacklogSize(int cacheMaximumBacklogSize) {
+        if (cacheMaximumBacklogSize > 0) {
+            cacheBulkProcessor.setMaximumBacklogSize(cacheMaximumBacklogSize);
+        }
     }
 
     public void shutdown() {
         cacheCommitPhaser.shutdown();
         cacheBulkProcessor.shutdown();
+        cacheExecutorService.shutdown();
+        pageFetchExecutorService.shutdown();
+        cacheMetrics.unregister();
+    }
+
+    /**
+     * Each cursor of a streaming merge has at most one page request outstanding, so the queue
+     * only grows with the number of merges in progress. Idle threads time out, so no threads
+     * are kept while streaming merge is not used.
+     */
+    private static ThreadPoolExecutor createPageFetchExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                STREAMING_MERGE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new PageFetchThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void interruptRemainingSources(SourceQueryTracker tracker,
+            Set<ProcessingDetails> processingDetails, InterruptedException interruptedException) {
+        for (Source interruptedSource : tracker.getPendingSources()) {
+            if (interruptedSource != null) {
+                logger.info("Search interrupted for {}", interruptedSource.getId());
+                processingDetails.add(new ProcessingDetailsImpl(interruptedSource.getId(),
+                        interruptedException));
+            }
+        }
+    }
+
+    private long getTimeRemaining(long deadline) {
+        long timeLeft;
+        if (System.currentTimeMillis() > deadline) {
+            timeLeft = 0;
+        } else {
+            timeLeft = deadline - System.currentTimeMillis();
+        }
+        return timeLeft;
     }
 
     private static class OffsetResultHandler implements Runnable {
@@ -474,12 +789,18 @@ public void run() {
 
     }
 
+    /**
+     * Queries a source and adds its results to the cache. The same instance is run again when the
+     * {@link SourceQueryTracker} hedges the query, so only the first response is cached.
+     */
     private class CallableSourceResponse implements Callable<SourceResponse> {
 
         private final QueryRequest request;
 
         private final Source source;
 
+        private final AtomicBoolean cached = new AtomicBoolean();
+
         public CallableSourceResponse(Source source, QueryRequest request) {
             this.source = source;
             this.request = request;
@@ -490,12 +811,17 @@ public SourceResponse call() throws Exception {
             final SourceResponse sourceResponse = source
                     .query(new QueryRequestImpl(request.getQuery(), request.getProperties()));
 
+            if (!cached.compareAndSet(false, true)) {
+                return sourceResponse;
+            }
+
             if (INDEX_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
                 cacheCommitPhaser.add(sourceResponse.getResults());
             } else if (!NATIVE_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
                 if (isCachingEverything || UPDATE_QUERY_MODE
                         .equals(request.getPropertyValue(QUERY_MODE))) {
-                    cacheExecutorService.submit(new Runnable() {
+                    cacheExecutorService.execute(new CacheExecutor.ResultsTask(
+                            sourceResponse.getResults().size()) {
                         @Override
                         public void run() {
                             try {
@@ -516,79 +842,42 @@ private class SortedQueryMonitor implements Runnable {
 
         private final QueryRequest request;
 
-        private final CompletionService<SourceResponse> completionService;
+        private final SourceQueryTracker tracker;
 
         private QueryResponseImpl returnResults;
 
-        private Map<Future<SourceResponse>, Source> futures;
-
         private Query query;
 
-        public SortedQueryMonitor(CompletionService<SourceResponse> completionService,
-                Map<Future<SourceResponse>, Source> futures, QueryResponseImpl returnResults,
+        public SortedQueryMonitor(SourceQueryTracker tracker, QueryResponseImpl returnResults,
                 QueryRequest request) {
 
-            this.completionService = completionService;
+            this.tracker = tracker;
             this.returnResults = returnResults;
             this.request = request;
             this.query = request.getQuery();
-            this.futures = futures;
         }
 
         @Override
         public void run() {
-            SortBy sortBy = query.getSortBy();
             // Prepare the Comparators that we will use
-            Comparator<Result> coreComparator = DEFAULT_COMPARATOR;
-
-            if (sortBy != null && sortBy.getPropertyName() != null) {
-                PropertyName sortingProp = sortBy.getPropertyName();
-                String sortType = sortingProp.getPropertyName();
-                SortOrder sortOrder = (sortBy.getSortOrder() == null) ?
-                        SortOrder.DESCENDING :
-                        sortBy.getSortOrder();
-                logger.debug("Sorting type: {}", sortType);
-                logger.debug("Sorting order: {}", sortBy.getSortOrder());
-
-                // Temporal searches are currently sorted by the effective time
-                if (Metacard.EFFECTIVE.equals(sortType) || Result.TEMPORAL.equals(sortType)) {
-                    coreComparator = new TemporalResultComparator(sortOrder);
-                } else if (Result.DISTANCE.equals(sortType)) {
-                    coreComparator = new DistanceResultComparator(sortOrder);
-                } else if (Result.RELEVANCE.equals(sortType)) {
-                    coreComparator = new RelevanceResultComparator(sortOrder);
-                }
-            }
+            Comparator<Result> coreComparator = getResultComparator(request);
 
             List<Result> resultList = new ArrayList<Result>();
             long totalHits = 0;
             Set<ProcessingDetails> processingDetails = returnResults.getProcessingDetails();
 
-            long deadline = System.currentTimeMillis() + query.getTimeoutMillis();
-
             Map<String, Serializable> returnProperties = returnResults.getProperties();
 
-            for (int i = futures.size(); i > 0; i--) {
+            while (true) {
                 String sourceId = "Unknown Source";
                 try {
-                    Future<SourceResponse> future;
-                    if (query.getTimeoutMillis() < 1) {
-                        future = completionService.take();
-                    } else {
-                        future = completionService
-                                .poll(getTimeRemaining(deadline), TimeUnit.MILLISECONDS);
-                        if (future == null) {
-                            timeoutRemainingSources(processingDetails);
-                            break;
-                        }
-                    }
-
-                    Source source = futures.remove(future);
-                    if (source != null) {
-                        sourceId = source.getId();
+                    CompletedQuery completed = tracker.take();
+                    if (completed == null) {
+                        break;
                     }
+                    sourceId = completed.getSource().getId();
 
-                    SourceResponse sourceResponse = future.get();
+                    SourceResponse sourceResponse = completed.getFuture().get();
 
                     if (sourceResponse == null) {
                         logger.info("Source {} returned null response", sourceId);
@@ -602,7 +891,7 @@ public void run() {
                         returnProperties.putAll(properties);
                     }
                 } catch (InterruptedException e) {
-                    interruptRemainingSources(processingDetails, e);
+                    interruptRemainingSources(tracker, processingDetails, e);
                     break;
                 } catch (ExecutionException e) {
                     logger.warn("Couldn't get results from completed federated query. {}, {}",
@@ -634,37 +923,190 @@ List<Result> sortedResults(List<Result> results, Comparator<? super Result> comp
             return results.size() > maxResults ? results.subList(0, maxResults) : results;
         }
 
-        private void timeoutRemainingSources(Set<ProcessingDetails> processingDetails) {
-            for (Source expiredSource : futures.values()) {
-                if (expiredSource != null) {
-                    logger.info("Search timed out for {}", expiredSource.getId());
-                    processingDetails.add(new ProcessingDetailsImpl(expiredSource.getId(),
-                            new TimeoutException()));
+    }
+
+    /**
+     * Merges the already sorted results of each source through a heap of
+     * {@link SourceResultCursor}s. Results before the requested offset are skipped as they stream
+     * past and results within the page are handed to the response queue as soon as they are
+     * merged, so memory use depends on the page size and number of sources rather than the
+     * offset. Only the first page of each source is queried on the query executor, the following
+     * pages are fetched on a separate executor so the monitor never waits on its own pool.
+     */
+    private class StreamingMergeMonitor implements Runnable {
+
+        private final SourceQueryTracker tracker;
+
+        private final Map<Source, QueryRequest> sourceRequests;
+
+        private final QueryResponseImpl returnResults;
+
+        private final QueryRequest request;
+
+        private final Query query;
+
+        private final int offset;
+
+        private final int pageSize;
+
+        public StreamingMergeMonitor(SourceQueryTracker tracker,
+                Map<Source, QueryRequest> sourceRequests, QueryResponseImpl returnResults,
+                QueryRequest request, int offset, int pageSize) {
+            this.tracker = tracker;
+            this.sourceRequests = sourceRequests;
+            this.returnResults = returnResults;
+            this.request = request;
+            this.query = request.getQuery();
+            this.offset = offset;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public void run() {
+            Comparator<Result> coreComparator = getResultComparator(request);
+            PriorityQueue<SourceResultCursor> frontier = new PriorityQueue<SourceResultCursor>(
+                    Math.max(1, sourceRequests.size()),
+                    new SourceResultCursor.HeadComparator(coreComparator));
+
+            long totalHits = 0;
+            Set<ProcessingDetails> processingDetails = returnResults.getProcessingDetails();
+            Map<String, Serializable> returnProperties = returnResults.getProperties();
+
+            long deadline = System.currentTimeMillis() + query.getTimeoutMillis();
+
+            try {
+                while (true) {
+                    String sourceId = "Unknown Source";
+                    try {
+                        CompletedQuery completed = tracker.take();
+                        if (completed == null) {
+                            break;
+                        }
+                        Source source = completed.getSource();
+                        sourceId = source.getId();
+
+                        SourceResponse sourceResponse = completed.getFuture().get();
+
+                        if (sourceResponse == null) {
+                            logger.info("Source {} returned null response", sourceId);
+                            processingDetails.add(new ProcessingDetailsImpl(sourceId,
+                                    new NullPointerException()));
+                        } else {
+                            totalHits += sourceResponse.getHits();
+                            returnProperties.putAll(sourceResponse.getProperties());
+
+                            SourceResultCursor cursor = new SourceResultCursor(sourceId,
+                                    sourceResponse, pageSize, createPageFetcher(source));
+                            if (cursor.hasNext()) {
+                                frontier.add(cursor);
+                            } else {
+                                cursor.close();
+                            }
+                        }
+                    } catch (ExecutionException e) {
+                        logger.warn("Couldn't get results from completed federated query. {}, {}",
+                                sourceId, Exceptions.getFullMessage(e), e);
+
+                        processingDetails.add(new ProcessingDetailsImpl(sourceId,
+                                new Exception(Exceptions.getFullMessage(e))));
+                    }
+                }
+
+                returnResults.setHits(totalHits);
+                merge(frontier, processingDetails, deadline);
+            } catch (InterruptedException e) {
+                interruptRemainingSources(tracker, processingDetails, e);
+            } finally {
+                for (SourceResultCursor cursor : frontier) {
+                    cursor.close();
                 }
+                returnResults.closeResultQueue();
             }
         }
 
-        private void interruptRemainingSources(Set<ProcessingDetails> processingDetails,
-                InterruptedException interruptedException) {
-            for (Source interruptedSource : futures.values()) {
-                if (interruptedSource != null) {
-                    logger.info("Search interrupted for {}", interruptedSource.getId());
-                    processingDetails.add(new ProcessingDetailsImpl(interruptedSource.getId(),
-                            interruptedException));
+        private void merge(PriorityQueue<SourceResultCursor> frontier,
+                Set<ProcessingDetails> processingDetails, long deadline)
+                throws InterruptedException {
+            int skipped = 0;
+            int sent = 0;
+
+            while (sent < pageSize && !frontier.isEmpty()) {
+                SourceResultCursor cursor = frontier.poll();
+                Result result = cursor.next(timeRemaining(deadline));
+
+                if (cursor.hasNext()) {
+                    frontier.add(cursor);
+                } else {
+                    reportFailure(cursor, processingDetails);
+                    cursor.close();
+                }
+
+                if (skipped < offset - 1) {
+                    skipped++;
+                } else {
+                    returnResults.addResult(result, false);
+                    sent++;
                 }
             }
+
+            logger.debug("Streaming merge skipped {} results and returned {}", skipped, sent);
         }
 
-        private long getTimeRemaining(long deadline) {
-            long timeLeft;
-            if (System.currentTimeMillis() > deadline) {
-                timeLeft = 0;
-            } else {
-                timeLeft = deadline - System.currentTimeMillis();
+        private void reportFailure(SourceResultCursor cursor,
+                Set<ProcessingDetails> processingDetails) {
+            Exception failure = cursor.getFailure();
+            if (failure instanceof TimeoutException) {
+                logger.info("Search timed out for {}", cursor.getSourceId());
+                processingDetails.add(new ProcessingDetailsImpl(cursor.getSourceId(), failure));
+            } else if (failure != null) {
+                logger.warn("Couldn't get next page of results from federated source. {}, {}",
+                        cursor.getSourceId(), Exceptions.getFullMessage(failure), failure);
+                processingDetails.add(new ProcessingDetailsImpl(cursor.getSourceId(),
+                        new Exception(Exceptions.getFullMessage(failure))));
+            }
+        }
+
+        private long timeRemaining(long deadline) {
+            if (query.getTimeoutMillis() < 1) {
+                return 0;
             }
-            return timeLeft;
+            // A zero wait would block forever in the cursor, so always wait at least 1ms
+            return Math.max(1, getTimeRemaining(deadline));
         }
 
+        private SourceResultCursor.PageFetcher createPageFetcher(final Source source) {
+            final QueryRequest sourceRequest = sourceRequests.get(source);
+
+            return new SourceResultCursor.PageFetcher() {
+                @Override
+                public Future<SourceResponse> fetch(int startIndex, int size) {
+                    Query sourceQuery = sourceRequest.getQuery();
+                    Query pageQuery = new QueryImpl(sourceQuery, startIndex, size,
+                            sourceQuery.getSortBy(), sourceQuery.requestsTotalResultsCount(),
+                            sourceQuery.getTimeoutMillis());
+
+                    return pageFetchExecutorService.submit(new CallableSourceResponse(source,
+                            new QueryRequestImpl(pageQuery, sourceRequest.isEnterprise(),
+                                    sourceRequest.getSourceIds(),
+                                    sourceRequest.getProperties())));
+                }
+            };
+        }
+    }
+
+    private static class PageFetchThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("streaming-merge-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 
     /**
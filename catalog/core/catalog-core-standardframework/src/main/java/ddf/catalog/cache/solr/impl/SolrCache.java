@@ -264,6 +264,9 @@ public void updateServer(String newUrl) {
                     server.shutdown();
                     LOGGER.info("Shutdown complete.");
                 }
+                if (client != null) {
+                    client.shutdown();
+                }
 
                 server = SolrServerFactory.getHttpSolrServer(url, METACARD_CACHE_CORE_NAME);
                 client = new CacheSolrMetacardClient(this.server, filterAdapter,
@@ -295,6 +298,10 @@ public String getMetacardSource(SolrDocument doc) {
     public void shutdown() {
         LOGGER.info("Shutting down cache expiration scheduler.");
         shutdownCacheExpirationScheduler();
+        if (client != null) {
+            LOGGER.info("Shutting down solr commit scheduler.");
+            client.shutdown();
+        }
         LOGGER.info("Shutting down solr server.");
         server.shutdown();
     }
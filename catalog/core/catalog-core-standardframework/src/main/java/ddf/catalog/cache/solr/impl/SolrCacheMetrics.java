@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.cache.SolrCacheMetricsMBean;
+
+/**
+ * Publishes the state of the {@link CacheExecutor} and {@link CacheBulkProcessor} used by the
+ * {@link CachingFederationStrategy} as an MBean next to the {@link SolrCache} MBean.
+ */
+class SolrCacheMetrics implements SolrCacheMetricsMBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolrCacheMetrics.class);
+
+    private final CacheBulkProcessor cacheBulkProcessor;
+
+    private volatile CacheExecutor cacheExecutor;
+
+    private ObjectName objectName;
+
+    private MBeanServer mbeanServer;
+
+    SolrCacheMetrics(CacheExecutor cacheExecutor, CacheBulkProcessor cacheBulkProcessor) {
+        this.cacheExecutor = cacheExecutor;
+        this.cacheBulkProcessor = cacheBulkProcessor;
+    }
+
+    /**
+     * Replaces the executor being monitored, used when the executor is reconfigured.
+     */
+    void setCacheExecutor(CacheExecutor cacheExecutor) {
+        this.cacheExecutor = cacheExecutor;
+    }
+
+    void register() {
+        LOGGER.debug("Registering Cache Metrics MBean");
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            objectName = new ObjectName(SolrCacheMetricsMBean.OBJECTNAME);
+            try {
+                mbeanServer.registerMBean(new StandardMBean(this, SolrCacheMetricsMBean.class),
+                        objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.info("Re-registering Cache Metrics MBean");
+                mbeanServer.unregisterMBean(objectName);
+                mbeanServer.registerMBean(new StandardMBean(this, SolrCacheMetricsMBean.class),
+                        objectName);
+            }
+        } catch (MalformedObjectNameException e) {
+            LOGGER.info("Could not create object name", e);
+        } catch (Exception e) {
+            LOGGER.warn("Could not register MBean.", e);
+        }
+    }
+
+    void unregister() {
+        try {
+            if (objectName != null && mbeanServer != null && mbeanServer
+                    .isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Exception unregistering MBean: ", e);
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return cacheExecutor.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return cacheExecutor.getQueueCapacity();
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return cacheExecutor.getActiveCount();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return cacheExecutor.getPoolSize();
+    }
+
+    @Override
+    public String getRejectionPolicy() {
+        return cacheExecutor.getRejectionPolicy().name();
+    }
+
+    @Override
+    public long getRejectedTasks() {
+        return cacheExecutor.getRejectedTasks();
+    }
+
+    @Override
+    public long getDroppedResults() {
+        return cacheExecutor.getDroppedResults() + cacheBulkProcessor.getDroppedResults();
+    }
+
+    @Override
+    public int getBacklogSize() {
+        return cacheBulkProcessor.pendingMetacards();
+    }
+
+    @Override
+    public long getFlushedBatches() {
+        return cacheBulkProcessor.getFlushedBatches();
+    }
+
+    @Override
+    public long getLastFlushLatencyMillis() {
+        return cacheBulkProcessor.getLastFlushMillis();
+    }
+
+    @Override
+    public double getAverageFlushLatencyMillis() {
+        long batches = cacheBulkProcessor.getFlushedBatches();
+        return batches == 0 ? 0 : (double) cacheBulkProcessor.getTotalFlushMillis() / batches;
+    }
+
+    @Override
+    public double getAverageDocumentsPerBatch() {
+        long batches = cacheBulkProcessor.getFlushedBatches();
+        return batches == 0 ? 0 : (double) cacheBulkProcessor.getFlushedMetacards() / batches;
+    }
+}
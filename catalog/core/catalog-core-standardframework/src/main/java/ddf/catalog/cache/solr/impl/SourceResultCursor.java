@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.operation.SourceResponse;
+
+/**
+ * Forward-only cursor over the sorted results of a single federated source. Results are pulled
+ * from the source one page at a time and the next page is requested as soon as the current one
+ * is loaded, so at most two pages per source are held in memory regardless of how deep the
+ * requested offset is.
+ */
+class SourceResultCursor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceResultCursor.class);
+
+    private final String sourceId;
+
+    private final int pageSize;
+
+    private final long hits;
+
+    private final PageFetcher pageFetcher;
+
+    private Iterator<Result> currentPage = Collections.<Result>emptyIterator();
+
+    private Future<SourceResponse> nextPage;
+
+    private int nextStartIndex = 1;
+
+    private Result head;
+
+    private Exception failure;
+
+    /**
+     * Creates a cursor positioned on the first result of {@code firstPage}.
+     *
+     * @param sourceId    id of the source the results come from
+     * @param firstPage   first page of results, starting at index 1
+     * @param pageSize    number of results requested per page
+     * @param pageFetcher used to request the following pages from the source
+     */
+    SourceResultCursor(String sourceId, SourceResponse firstPage, int pageSize,
+            PageFetcher pageFetcher) {
+        this.sourceId = sourceId;
+        this.pageSize = pageSize;
+        this.hits = firstPage.getHits();
+        this.pageFetcher = pageFetcher;
+
+        loadPage(firstPage);
+        head = nextFromCurrentPage();
+    }
+
+    String getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * @return the result the cursor is positioned on, or {@code null} if the cursor is exhausted
+     */
+    Result peek() {
+        return head;
+    }
+
+    boolean hasNext() {
+        return head != null;
+    }
+
+    /**
+     * Returns the result the cursor is positioned on and moves to the next one, waiting for the
+     * next page of results from the source if needed. If the next page cannot be retrieved the
+     * cursor is left exhausted and the cause is available from {@link #getFailure()}.
+     *
+     * @param timeoutMillis maximum time to wait for the next page, less than 1 to wait forever
+     * @return the current result
+     * @throws InterruptedException if interrupted while waiting for the next page
+     */
+    Result next(long timeoutMillis) throws InterruptedException {
+        Result current = head;
+        head = null;
+
+        Result following = nextFromCurrentPage();
+        while (following == null && nextPage != null) {
+            Future<SourceResponse> pending = nextPage;
+            nextPage = null;
+
+            SourceResponse response;
+            try {
+                if (timeoutMillis < 1) {
+                    response = pending.get();
+                } else {
+                    response = pending.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                pending.cancel(true);
+                failure = e;
+                break;
+            }
+
+            if (response == null) {
+                LOGGER.debug("Source {} returned a null page at index {}", sourceId,
+                        nextStartIndex);
+                break;
+            }
+
+            loadPage(response);
+            following = nextFromCurrentPage();
+        }
+
+        head = following;
+        return current;
+    }
+
+    /**
+     * @return the exception that stopped the cursor from retrieving more results, or
+     * {@code null} if all pages were retrieved successfully
+     */
+    Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Cancels any outstanding page request.
+     */
+    void close() {
+        head = null;
+        currentPage = Collections.<Result>emptyIterator();
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+    }
+
+    private void loadPage(SourceResponse response) {
+        List<Result> results = response.getResults();
+        int size = (results == null) ? 0 : results.size();
+
+        currentPage = (size == 0) ? Collections.<Result>emptyIterator() : results.iterator();
+        nextStartIndex += size;
+
+        boolean lastPage = size < pageSize || (hits >= 0 && nextStartIndex > hits);
+        if (!lastPage) {
+            LOGGER.debug("Requesting results {} to {} from source {}", nextStartIndex,
+                    nextStartIndex + pageSize - 1, sourceId);
+            nextPage = pageFetcher.fetch(nextStartIndex, pageSize);
+        }
+    }
+
+    private Result nextFromCurrentPage() {
+        while (currentPage.hasNext()) {
+            Result result = currentPage.next();
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Requests pages of results from the source backing a {@link SourceResultCursor}.
+     */
+    interface PageFetcher {
+
+        /**
+         * @param startIndex 1-based index of the first result to retrieve
+         * @param pageSize   number of results to retrieve
+         * @return future response for the requested page
+         */
+        Future<SourceResponse> fetch(int startIndex, int pageSize);
+    }
+
+    /**
+     * Orders cursors by the result each one is currently positioned on.
+     */
+    static class HeadComparator implements Comparator<SourceResultCursor> {
+
+        private final Comparator<Result> resultComparator;
+
+        HeadComparator(Comparator<Result> resultComparator) {
+            this.resultComparator = resultComparator;
+        }
+
+        @Override
+        public int compare(SourceResultCursor cursorA, SourceResultCursor cursorB) {
+            return resultComparator.compare(cursorA.peek(), cursorB.peek());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentedPersistenceProviderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private List<SegmentedPersistenceProvider> providers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        directory = new File(temporaryFolder.getRoot(), "Product_Cache");
+    }
+
+    @After
+    public void tearDown() {
+        for (SegmentedPersistenceProvider provider : providers) {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void storeAndLoad() {
+        SegmentedPersistenceProvider provider = newProvider(1024 * 1024);
+        Map<String, Object> values = new HashMap<>();
+        values.put("key1", "value1");
+        values.put("key2", 2L);
+        provider.storeAll(values);
+        provider.store("key3", "value3");
+        provider.store("key1", "value1-updated");
+
+        assertThat(provider.loadAllKeys()).containsOnly("key1", "key2", "key3");
+        assertThat(provider.loadFromPersistence("key1")).isEqualTo("value1-updated");
+        assertThat(provider.loadFromPersistence("key2")).isEqualTo(2L);
+        assertThat(provider.loadFromPersistence("missing")).isNull();
+    }
+
+    @Test
+    public void keysAndDeletesSurviveRestart() {
+        SegmentedPersistenceProvider provider = newProvider(256);
+        for (int i = 0; i < 20; i++) {
+            provider.store("key" + i, "value" + i);
+        }
+        provider.delete("key3");
+        provider.close();
+
+        SegmentedPersistenceProvider reopened = newProvider(256);
+
+        assertThat(reopened.loadAllKeys()).hasSize(19).doesNotContain("key3");
+        assertThat(reopened.getSegmentCount()).isGreaterThan(1);
+        assertThat(reopened.loadFromPersistence("key19")).isEqualTo("value19");
+        assertThat(reopened.loadFromPersistence("key0")).isEqualTo("value0");
+    }
+
+    @Test
+    public void partialRecordIsTruncated() throws Exception {
+        SegmentedPersistenceProvider provider = newProvider(1024 * 1024);
+        provider.store("key1", "value1");
+        provider.store("key2", "value2");
+        provider.close();
+
+        File segment = directory.listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        SegmentedPersistenceProvider reopened = newProvider(1024 * 1024);
+        assertThat(reopened.loadAllKeys()).containsOnly("key1");
+
+        reopened.store("key3", "value3");
+        assertThat(reopened.loadFromPersistence("key3")).isEqualTo("value3");
+    }
+
+    @Test
+    public void compactionRemovesSegmentsOfOverwrittenEntries() {
+        SegmentedPersistenceProvider provider = newProvider(256);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 5; i++) {
+                provider.store("key" + i, "value" + round);
+            }
+        }
+        provider.store("deleted", "value");
+        provider.delete("deleted");
+        int segmentsBefore = provider.getSegmentCount();
+
+        provider.compact();
+
+        assertThat(provider.getSegmentCount()).isLessThan(segmentsBefore);
+        for (int i = 0; i < 5; i++) {
+            assertThat(provider.loadFromPersistence("key" + i)).isEqualTo("value4");
+        }
+        provider.close();
+
+        SegmentedPersistenceProvider reopened = newProvider(256);
+        assertThat(reopened.loadAllKeys()).containsOnly("key0", "key1", "key2", "key3", "key4");
+    }
+
+    @Test
+    public void compactionDropsCorruptRecords() throws Exception {
+        SegmentedPersistenceProvider provider = newProvider(256);
+        provider.store("key0", "keep");
+        provider.store("corrupt", "value");
+        for (int i = 0; i < 20; i++) {
+            provider.store("filler", "value" + i);
+        }
+        provider.close();
+
+        File segment = new File(directory, "segment-0000000000.seg");
+        byte[] key = "corrupt".getBytes(StandardCharsets.UTF_8);
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+            int keyOffset = indexOf(bytes, key);
+            file.seek(keyOffset - 8);
+            int valueLength = file.readInt();
+            int lastValueByte = keyOffset + key.length + valueLength - 1;
+            file.seek(lastValueByte);
+            file.writeByte(bytes[lastValueByte] ^ 0xff);
+        }
+
+        SegmentedPersistenceProvider reopened = newProvider(256);
+        assertThat(reopened.loadAllKeys()).contains("corrupt");
+        reopened.compact();
+
+        assertThat(segment).doesNotExist();
+        assertThat(reopened.loadAllKeys()).containsOnly("key0", "filler");
+        assertThat(reopened.loadFromPersistence("key0")).isEqualTo("keep");
+        assertThat(reopened.loadFromPersistence("filler")).isEqualTo("value19");
+        reopened.close();
+
+        assertThat(newProvider(256).loadAllKeys()).containsOnly("key0", "filler");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void segmentsLargerThanTwoGigabytesAreRejected() {
+        newProvider(Integer.MAX_VALUE + 1L);
+    }
+
+    @Test
+    public void legacyEntriesAreImported() throws Exception {
+        assertThat(directory.mkdirs()).isTrue();
+        try (ObjectOutputStream output = new ObjectOutputStream(
+                new FileOutputStream(new File(directory, "legacy.ser")))) {
+            output.writeObject("legacy value");
+        }
+
+        SegmentedPersistenceProvider provider = newProvider(1024 * 1024);
+
+        assertThat(provider.loadAllKeys()).containsOnly("legacy");
+        assertThat(provider.loadFromPersistence("legacy")).isEqualTo("legacy value");
+        assertThat(new File(directory, "legacy.ser")).doesNotExist();
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        for (int i = 0; i <= bytes.length - target.length; i++) {
+            boolean found = true;
+            for (int j = 0; j < target.length && found; j++) {
+                found = bytes[i + j] == target[j];
+            }
+            if (found) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Bytes not found");
+    }
+
+    private SegmentedPersistenceProvider newProvider(long maxSegmentBytes) {
+        SegmentedPersistenceProvider provider = new SegmentedPersistenceProvider(directory,
+                maxSegmentBytes, 0, 0, 0.5);
+        providers.add(provider);
+        return provider;
+    }
+}
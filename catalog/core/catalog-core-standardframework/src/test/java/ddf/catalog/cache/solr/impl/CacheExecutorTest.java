@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CacheExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private CacheExecutor cacheExecutor;
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        if (cacheExecutor != null) {
+            cacheExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        cacheExecutor = new CacheExecutor(1, 1, CacheExecutor.RejectionPolicy.DROP_OLDEST, 0);
+        fillExecutor(5);
+
+        cacheExecutor.execute(new BlockingTask(7));
+
+        assertThat(cacheExecutor.getRejectedTasks()).isEqualTo(1);
+        assertThat(cacheExecutor.getDroppedResults()).isEqualTo(5);
+        assertThat(cacheExecutor.getQueue()).hasSize(1);
+    }
+
+    @Test
+    public void callerRuns() throws Exception {
+        cacheExecutor = new CacheExecutor(1, 1, CacheExecutor.RejectionPolicy.CALLER_RUNS, 0);
+        fillExecutor(5);
+
+        final AtomicReference<Thread> runner = new AtomicReference<>();
+        cacheExecutor.execute(new CacheExecutor.ResultsTask(3) {
+            @Override
+            public void run() {
+                runner.set(Thread.currentThread());
+            }
+        });
+
+        assertThat(runner.get()).isEqualTo(Thread.currentThread());
+        assertThat(cacheExecutor.getRejectedTasks()).isEqualTo(1);
+        assertThat(cacheExecutor.getDroppedResults()).isEqualTo(0);
+    }
+
+    @Test
+    public void blockTimesOut() throws Exception {
+        cacheExecutor = new CacheExecutor(1, 1, CacheExecutor.RejectionPolicy.BLOCK, 10);
+        fillExecutor(5);
+
+        cacheExecutor.execute(new BlockingTask(3));
+
+        assertThat(cacheExecutor.getRejectedTasks()).isEqualTo(1);
+        assertThat(cacheExecutor.getDroppedResults()).isEqualTo(3);
+    }
+
+    @Test
+    public void countersSurviveQueueCapacityChange() throws Exception {
+        cacheExecutor = new CacheExecutor(1, 1, CacheExecutor.RejectionPolicy.DROP_OLDEST, 0);
+        fillExecutor(5);
+        cacheExecutor.execute(new BlockingTask(7));
+
+        CacheExecutor previous = cacheExecutor;
+        cacheExecutor = previous.withQueueCapacity(10);
+        previous.shutdownNow();
+
+        assertThat(cacheExecutor.getQueueCapacity()).isEqualTo(10);
+        assertThat(cacheExecutor.getRejectionPolicy())
+                .isEqualTo(CacheExecutor.RejectionPolicy.DROP_OLDEST);
+        assertThat(cacheExecutor.getRejectedTasks()).isEqualTo(1);
+        assertThat(cacheExecutor.getDroppedResults()).isEqualTo(5);
+    }
+
+    @Test
+    public void policyFromString() {
+        assertThat(CacheExecutor.RejectionPolicy
+                .fromString("caller-runs", CacheExecutor.RejectionPolicy.BLOCK))
+                .isEqualTo(CacheExecutor.RejectionPolicy.CALLER_RUNS);
+        assertThat(CacheExecutor.RejectionPolicy
+                .fromString("unknown", CacheExecutor.RejectionPolicy.BLOCK))
+                .isEqualTo(CacheExecutor.RejectionPolicy.BLOCK);
+    }
+
+    /**
+     * Occupies the single worker thread and the single queue slot.
+     */
+    private void fillExecutor(int queuedResults) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        cacheExecutor.execute(new CacheExecutor.ResultsTask(1) {
+            @Override
+            public void run() {
+                started.countDown();
+                awaitRelease();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        cacheExecutor.execute(new BlockingTask(queuedResults));
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class BlockingTask extends CacheExecutor.ResultsTask {
+
+        BlockingTask(int resultCount) {
+            super(resultCount);
+        }
+
+        @Override
+        public void run() {
+            awaitRelease();
+        }
+    }
+}
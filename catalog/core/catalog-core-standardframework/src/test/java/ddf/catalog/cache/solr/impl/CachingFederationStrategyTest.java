@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opengis.filter.Filter;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.plugin.PostFederatedQueryPlugin;
+import ddf.catalog.plugin.PreFederatedQueryPlugin;
+import ddf.catalog.source.Source;
+import ddf.catalog.source.UnsupportedQueryException;
+
+public class CachingFederationStrategyTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private ExecutorService queryExecutor;
+
+    private CachingFederationStrategy strategy;
+
+    @After
+    public void tearDown() {
+        if (strategy != null) {
+            strategy.shutdown();
+        }
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void streamingMergeSkipsToDeepOffset() throws Exception {
+        List<PagedSource> sources = getSources(3, 60, null);
+
+        QueryResponse response = federate(Executors.newCachedThreadPool(), sources, 41, 5);
+
+        assertThat(getIds(response.getResults())).containsExactly("41", "42", "43", "44", "45");
+        assertThat(response.getHits()).isEqualTo(60);
+        assertThat(response.getProcessingDetails()).isEmpty();
+        for (PagedSource source : sources) {
+            assertThat(source.requestedPageSizes).containsOnly(5);
+            assertThat(source.requestedPageSizes.size()).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    public void streamingMergeOrdersResultsAcrossSources() throws Exception {
+        PagedSource sourceA = new PagedSource("a", getResults(1, 2, 3, 4, 9, 10), false);
+        PagedSource sourceB = new PagedSource("b", getResults(5, 11, 12), false);
+        PagedSource sourceC = new PagedSource("c", getResults(6, 7, 8, 13, 14), false);
+
+        QueryResponse response = federate(Executors.newCachedThreadPool(),
+                Arrays.asList(sourceA, sourceB, sourceC), 3, 10);
+
+        assertThat(getIds(response.getResults()))
+                .containsExactly("3", "4", "5", "6", "7", "8", "9", "10", "11", "12");
+        assertThat(response.getHits()).isEqualTo(14);
+    }
+
+    @Test
+    public void sourceFailingMidStreamKeepsOtherSources() throws Exception {
+        List<PagedSource> sources = getSources(3, 30, "source2");
+
+        QueryResponse response = federate(Executors.newCachedThreadPool(), sources, 16, 6);
+
+        // source2 fails after its first page of ranks 2, 5, 8, 11, 14 and 17, so 20 is missing
+        assertThat(getIds(response.getResults()))
+                .containsExactly("16", "17", "18", "19", "21", "22");
+        assertThat(response.getHits()).isEqualTo(30);
+        assertThat(getSourceIds(response.getProcessingDetails())).containsExactly("source2");
+    }
+
+    @Test
+    public void streamingMergeDoesNotWaitOnSaturatedQueryExecutor() throws Exception {
+        List<PagedSource> sources = getSources(3, 60, null);
+
+        // The single query thread runs the first page queries and then the merge monitor, so
+        // following pages must be fetched elsewhere
+        QueryResponse response = federate(Executors.newFixedThreadPool(1), sources, 31, 5);
+
+        assertThat(getIds(response.getResults())).containsExactly("31", "32", "33", "34", "35");
+        assertThat(response.getProcessingDetails()).isEmpty();
+    }
+
+    private QueryResponse federate(ExecutorService executor, List<PagedSource> pagedSources,
+            int startIndex, int pageSize) {
+        queryExecutor = executor;
+        strategy = new CachingFederationStrategy(queryExecutor,
+                new ArrayList<PreFederatedQueryPlugin>(),
+                new ArrayList<PostFederatedQueryPlugin>(), mock(SolrCache.class));
+        strategy.setStreamingMerge(true);
+
+        List<Source> sources = new ArrayList<>();
+        for (PagedSource pagedSource : pagedSources) {
+            sources.add(pagedSource.source);
+        }
+
+        Query query = new QueryImpl(mock(Filter.class), startIndex, pageSize, null, true,
+                TIMEOUT_MILLIS);
+        return strategy.federate(sources, new QueryRequestImpl(query));
+    }
+
+    /**
+     * Spreads results of descending relevance over the sources in turn, the result ranked
+     * {@code n} has id {@code n}.
+     */
+    private static List<PagedSource> getSources(int count, int results, String failingSourceId) {
+        List<List<Result>> sourceResults = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sourceResults.add(new ArrayList<Result>());
+        }
+        for (int rank = 1; rank <= results; rank++) {
+            sourceResults.get((rank - 1) % count).add(getResult(rank));
+        }
+
+        List<PagedSource> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String id = "source" + (i + 1);
+            sources.add(new PagedSource(id, sourceResults.get(i), id.equals(failingSourceId)));
+        }
+        return sources;
+    }
+
+    private static List<Result> getResults(int... ranks) {
+        List<Result> results = new ArrayList<>(ranks.length);
+        for (int rank : ranks) {
+            results.add(getResult(rank));
+        }
+        return results;
+    }
+
+    private static Result getResult(int rank) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(String.valueOf(rank));
+        ResultImpl result = new ResultImpl(metacard);
+        result.setRelevanceScore(1.0 - rank / 1000.0);
+        return result;
+    }
+
+    private static List<String> getIds(List<Result> results) {
+        List<String> ids = new ArrayList<>(results.size());
+        for (Result result : results) {
+            ids.add(result.getMetacard().getId());
+        }
+        return ids;
+    }
+
+    private static List<String> getSourceIds(Iterable<ProcessingDetails> details) {
+        List<String> ids = new ArrayList<>();
+        for (ProcessingDetails detail : details) {
+            ids.add(detail.getSourceId());
+        }
+        return ids;
+    }
+
+    /**
+     * Source that returns the requested page of its sorted results, failing every page after the
+     * first one when {@code failing} is set.
+     */
+    private static class PagedSource {
+
+        private final Source source = mock(Source.class);
+
+        private final List<Integer> requestedPageSizes = Collections
+                .synchronizedList(new ArrayList<Integer>());
+
+        PagedSource(String id, final List<Result> results, final boolean failing) {
+            when(source.getId()).thenReturn(id);
+            try {
+                when(source.query(any(QueryRequest.class)))
+                        .thenAnswer(new Answer<SourceResponse>() {
+                            @Override
+                            public SourceResponse answer(InvocationOnMock invocation)
+                                    throws UnsupportedQueryException {
+                                QueryRequest request = (QueryRequest) invocation
+                                        .getArguments()[0];
+                                Query query = request.getQuery();
+                                requestedPageSizes.add(query.getPageSize());
+
+                                if (failing && query.getStartIndex() > 1) {
+                                    throw new UnsupportedQueryException("Page failed");
+                                }
+
+                                int from = Math.min(query.getStartIndex() - 1, results.size());
+                                int to = Math.min(from + query.getPageSize(), results.size());
+                                return new SourceResponseImpl(request,
+                                        new ArrayList<>(results.subList(from, to)),
+                                        (long) results.size());
+                            }
+                        });
+            } catch (UnsupportedQueryException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
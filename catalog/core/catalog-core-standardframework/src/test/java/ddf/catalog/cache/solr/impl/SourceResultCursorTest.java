@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+import com.google.common.util.concurrent.Futures;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+
+public class SourceResultCursorTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    @Test
+    public void singlePage() throws Exception {
+        SourceResultCursor.PageFetcher fetcher = mock(SourceResultCursor.PageFetcher.class);
+        SourceResultCursor cursor = new SourceResultCursor("source",
+                getResponse(getResults(0.9, 0.8), 2), PAGE_SIZE, fetcher);
+
+        assertThat(drain(cursor)).containsExactly(0.9, 0.8);
+        verify(fetcher, never()).fetch(anyInt(), anyInt());
+    }
+
+    @Test
+    public void pagesThroughSource() throws Exception {
+        List<Result> all = getResults(0.9, 0.8, 0.7, 0.6, 0.5, 0.4, 0.3);
+        SourceResultCursor cursor = new SourceResultCursor("source",
+                getResponse(all.subList(0, PAGE_SIZE), all.size()), PAGE_SIZE,
+                new ListPageFetcher(all));
+
+        assertThat(drain(cursor)).containsExactly(0.9, 0.8, 0.7, 0.6, 0.5, 0.4, 0.3);
+        assertThat(cursor.getFailure()).isNull();
+    }
+
+    @Test
+    public void failedPageExhaustsCursor() throws Exception {
+        SourceResultCursor.PageFetcher fetcher = mock(SourceResultCursor.PageFetcher.class);
+        Future<SourceResponse> failed = mock(Future.class);
+        when(failed.get()).thenThrow(new ExecutionException(new RuntimeException("failed")));
+        when(fetcher.fetch(PAGE_SIZE + 1, PAGE_SIZE)).thenReturn(failed);
+
+        SourceResultCursor cursor = new SourceResultCursor("source",
+                getResponse(getResults(0.9, 0.8, 0.7), 10), PAGE_SIZE, fetcher);
+
+        assertThat(drain(cursor)).containsExactly(0.9, 0.8, 0.7);
+        assertThat(cursor.getFailure()).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    public void mergesCursorsInSortOrder() throws Exception {
+        List<Result> sourceA = getResults(0.9, 0.6, 0.5, 0.2, 0.1);
+        List<Result> sourceB = getResults(0.8, 0.7, 0.4, 0.3);
+
+        PriorityQueue<SourceResultCursor> frontier = new PriorityQueue<>(2,
+                new SourceResultCursor.HeadComparator(
+                        new RelevanceResultComparator(SortOrder.DESCENDING)));
+        frontier.add(new SourceResultCursor("a", getResponse(sourceA.subList(0, 2), 5), 2,
+                new ListPageFetcher(sourceA)));
+        frontier.add(new SourceResultCursor("b", getResponse(sourceB.subList(0, 2), 4), 2,
+                new ListPageFetcher(sourceB)));
+
+        List<Double> merged = new ArrayList<>();
+        while (!frontier.isEmpty()) {
+            SourceResultCursor cursor = frontier.poll();
+            merged.add(cursor.next(0).getRelevanceScore());
+            if (cursor.hasNext()) {
+                frontier.add(cursor);
+            }
+        }
+
+        assertThat(merged).containsExactly(0.9, 0.8, 0.7, 0.6, 0.5, 0.4, 0.3, 0.2, 0.1);
+    }
+
+    private List<Double> drain(SourceResultCursor cursor) throws InterruptedException {
+        List<Double> scores = new ArrayList<>();
+        while (cursor.hasNext()) {
+            scores.add(cursor.next(0).getRelevanceScore());
+        }
+        return scores;
+    }
+
+    private static SourceResponse getResponse(List<Result> results, long hits) {
+        SourceResponse response = mock(SourceResponse.class);
+        when(response.getResults()).thenReturn(results);
+        when(response.getHits()).thenReturn(hits);
+        return response;
+    }
+
+    private static List<Result> getResults(double... scores) {
+        List<Result> results = new ArrayList<>(scores.length);
+        for (double score : scores) {
+            Result result = mock(Result.class);
+            when(result.getRelevanceScore()).thenReturn(score);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static class ListPageFetcher implements SourceResultCursor.PageFetcher {
+
+        private final List<Result> results;
+
+        ListPageFetcher(List<Result> results) {
+            this.results = results;
+        }
+
+        @Override
+        public Future<SourceResponse> fetch(int startIndex, int pageSize) {
+            int from = Math.min(startIndex - 1, results.size());
+            int to = Math.min(from + pageSize, results.size());
+            List<Result> page = (from < to) ?
+                    results.subList(from, to) :
+                    Collections.<Result>emptyList();
+            return Futures.immediateFuture(getResponse(page, results.size()));
+        }
+    }
+}
@@ -14,10 +14,12 @@
 package org.codice.ddf.endpoints.rest;
 
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -85,6 +87,8 @@
 import ddf.catalog.transform.InputTransformer;
 import ddf.mime.MimeTypeResolver;
 import ddf.mime.MimeTypeToTransformerMapper;
+import ddf.util.ByteRange;
+import ddf.util.FileChannelStreamingOutput;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import net.minidev.json.JSONValue;
@@ -107,6 +111,8 @@ public class RESTEndpoint implements RESTService {
 
     private static final String HEADER_CONTENT_LENGTH = "Content-Length";
 
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+
     private static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
 
     private static final String FILE_ATTACHMENT_CONTENT_ID = "file";
@@ -451,7 +457,13 @@ public Response getDocument(@PathParam("sourceid") String sourceid, @PathParam("
                         .transform(card, transformer, convertedMap);
                 LOGGER.debug("Read and transform complete, preparing response.");
 
-                responseBuilder = Response.ok(content.getInputStream(), content.getMimeTypeValue());
+                InputStream stream = content.getInputStream();
+                if (stream instanceof FileInputStream) {
+                    responseBuilder = getFileResponseBuilder((FileInputStream) stream,
+                            content.getMimeTypeValue(), httpRequest);
+                } else {
+                    responseBuilder = Response.ok(stream, content.getMimeTypeValue());
+                }
 
                 // Add the Accept-ranges header to let the client know that we accept ranges in bytes
                 responseBuilder.header(HEADER_ACCEPT_RANGES, BYTES);
@@ -475,6 +487,10 @@ public Response getDocument(@PathParam("sourceid") String sourceid, @PathParam("
                 }
 
                 response = responseBuilder.build();
+            } catch (IOException e) {
+                String exceptionMessage = "Unable to read product: ";
+                LOGGER.warn(exceptionMessage, e);
+                throw new ServerErrorException(exceptionMessage, Status.INTERNAL_SERVER_ERROR);
             } catch (FederationException e) {
                 String exceptionMessage = "READ failed due to unexpected exception: ";
                 LOGGER.warn(exceptionMessage, e);
@@ -856,6 +872,45 @@ private boolean rangeHeaderExists(HttpServletRequest httpRequest) {
         return response;
     }
 
+    /**
+     * Products read from a file, which includes every product served from the product cache, are
+     * written straight from the file channel. The Range header is applied to the file here since
+     * the catalog framework does not skip bytes of cached products. A Range header that is not a
+     * single valid range is ignored and the whole file is sent.
+     */
+    private ResponseBuilder getFileResponseBuilder(FileInputStream stream, String mimeType,
+            HttpServletRequest httpRequest) throws IOException {
+        FileChannel channel = stream.getChannel();
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            IOUtils.closeQuietly(stream);
+            throw e;
+        }
+        String rangeHeader = httpRequest != null ? httpRequest.getHeader(HEADER_RANGE) : null;
+        ByteRange range = ByteRange.parse(rangeHeader, size);
+
+        if (range == ByteRange.UNSATISFIABLE) {
+            channel.close();
+            return Response.status(Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HEADER_CONTENT_RANGE, range.getContentRange(size));
+        }
+
+        if (range == null) {
+            // positions are absolute, so bytes a resource reader skipped are sent as well
+            return Response.ok(new FileChannelStreamingOutput(channel, 0, size), mimeType)
+                    .header(HEADER_CONTENT_LENGTH, size);
+        }
+
+        LOGGER.debug("Sending bytes {} of {}", range, size);
+        return Response.status(Status.PARTIAL_CONTENT).type(mimeType)
+                .entity(new FileChannelStreamingOutput(channel, range.getStart(),
+                        range.getLength()))
+                .header(HEADER_CONTENT_RANGE, range.getContentRange(size))
+                .header(HEADER_CONTENT_LENGTH, range.getLength());
+    }
+
     // Return 0 (beginning of stream) if the range header does not exist.
     private long getRangeStart(HttpServletRequest httpRequest) throws UnsupportedQueryException {
         long response = 0;
@@ -29,6 +29,9 @@
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -47,9 +50,11 @@
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
@@ -530,6 +535,76 @@ public void testGetDocumentFedSuccess()
         assertEquals(GET_TYPE_OUTPUT, response.getMetadata().toString());
     }
 
+    @Test
+    public void testGetDocumentFromFileRange() throws Exception {
+        File file = File.createTempFile("product", ".bin");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "0123456789");
+
+        CatalogFramework framework = givenCatalogFramework(SAMPLE_ID);
+        String transformer = mockTestSetup(framework, TestType.SUCCESS_TEST);
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(new FileInputStream(file));
+        when(resource.getMimeTypeValue()).thenReturn(GET_MIME_TYPE);
+        when(resource.getName()).thenReturn(GET_FILENAME);
+        when(framework.transform(isA(Metacard.class), anyString(), isA(Map.class)))
+                .thenReturn(resource);
+
+        Response response = executeTest(framework, transformer, true,
+                createServletRequest("2-5"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeaderString("Content-Range"));
+        assertEquals("4", response.getHeaderString("Content-Length"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        assertEquals("2345", output.toString());
+    }
+
+    @Test
+    public void testGetDocumentFromFileUnsatisfiableRange() throws Exception {
+        File file = File.createTempFile("product", ".bin");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "0123456789");
+
+        CatalogFramework framework = givenCatalogFramework(SAMPLE_ID);
+        String transformer = mockTestSetup(framework, TestType.SUCCESS_TEST);
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(new FileInputStream(file));
+        when(framework.transform(isA(Metacard.class), anyString(), isA(Map.class)))
+                .thenReturn(resource);
+
+        Response response = executeTest(framework, transformer, true,
+                createServletRequest("20"));
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeaderString("Content-Range"));
+    }
+
+    @Test
+    public void testGetDocumentFromFileInvalidRange() throws Exception {
+        File file = File.createTempFile("product", ".bin");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "0123456789");
+
+        CatalogFramework framework = givenCatalogFramework(SAMPLE_ID);
+        String transformer = mockTestSetup(framework, TestType.SUCCESS_TEST);
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(new FileInputStream(file));
+        when(framework.transform(isA(Metacard.class), anyString(), isA(Map.class)))
+                .thenReturn(resource);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(HEADER_RANGE)).thenReturn("bytes=5-2");
+
+        Response response = executeTest(framework, transformer, true, request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("10", response.getHeaderString("Content-Length"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        assertEquals("0123456789", output.toString());
+    }
+
     /**
      * Tests getting source information
      *
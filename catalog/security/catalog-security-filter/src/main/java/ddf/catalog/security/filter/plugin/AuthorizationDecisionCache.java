@@ -0,0 +1,332 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.security.filter.plugin;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ddf.security.permission.CollectionPermission;
+import ddf.security.permission.KeyValueCollectionPermission;
+
+/**
+ * Decides whether a {@link Subject} may read results with the given security markings, evaluating
+ * each distinct set of markings only once.
+ * <p>
+ * Markings are canonicalized, with keys and values sorted and duplicate values removed, so markings
+ * that differ only in order share a decision. The distinct markings of a batch that are not already
+ * decided are sent to the security realms in a single
+ * {@link Subject#isPermitted(List)} call. If a time to live is set, decisions are also kept for
+ * that long, up to a maximum number of entries, and reused by later queries of a subject with the
+ * same principals.
+ */
+public class AuthorizationDecisionCache implements AuthorizationDecisionCacheMBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthorizationDecisionCache.class);
+
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final Map<DecisionKey, CachedDecision> cachedDecisions = new LinkedHashMap<DecisionKey, CachedDecision>(
+            16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DecisionKey, CachedDecision> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final AtomicLong decisions = new AtomicLong();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    private final AtomicLong evaluations = new AtomicLong();
+
+    private final AtomicLong evaluationBatches = new AtomicLong();
+
+    private volatile long timeToLiveNanos;
+
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private ObjectName objectName;
+
+    private MBeanServer mbeanServer;
+
+    /**
+     * @param markings
+     *            the security markings of each result, where a null entry means no markings
+     * @return whether the subject may read each result
+     */
+    public boolean[] isPermitted(Subject subject, List<Map<String, List<String>>> markings) {
+        PrincipalCollection principals = (timeToLiveNanos > 0) ? subject.getPrincipals() : null;
+        long now = System.nanoTime();
+
+        Map<SortedMap<String, List<String>>, Boolean> decided = new HashMap<>();
+        List<SortedMap<String, List<String>>> canonicalMarkings = new ArrayList<>(
+                markings.size());
+        List<SortedMap<String, List<String>>> undecided = new ArrayList<>();
+
+        for (Map<String, List<String>> marking : markings) {
+            SortedMap<String, List<String>> canonical = canonicalize(marking);
+            canonicalMarkings.add(canonical);
+
+            if (decided.containsKey(canonical)) {
+                continue;
+            }
+            Boolean cached = getCachedDecision(principals, canonical, now);
+            decided.put(canonical, cached);
+            if (cached == null) {
+                undecided.add(canonical);
+            }
+        }
+
+        if (!undecided.isEmpty()) {
+            evaluate(subject, principals, undecided, decided, now);
+        }
+
+        boolean[] permitted = new boolean[markings.size()];
+        for (int i = 0; i < permitted.length; i++) {
+            permitted[i] = decided.get(canonicalMarkings.get(i));
+        }
+
+        decisions.addAndGet(permitted.length);
+        cacheHits.addAndGet(permitted.length - undecided.size());
+        return permitted;
+    }
+
+    private void evaluate(Subject subject, PrincipalCollection principals,
+            List<SortedMap<String, List<String>>> undecided,
+            Map<SortedMap<String, List<String>>, Boolean> decided, long now) {
+        List<Permission> permissions = new ArrayList<>(undecided.size());
+        for (Map<String, List<String>> marking : undecided) {
+            permissions.add(new KeyValueCollectionPermission(CollectionPermission.READ_ACTION,
+                    marking));
+        }
+
+        boolean[] permitted = subject.isPermitted(permissions);
+        evaluationBatches.incrementAndGet();
+        evaluations.addAndGet(permitted.length);
+
+        for (int i = 0; i < permitted.length; i++) {
+            decided.put(undecided.get(i), permitted[i]);
+        }
+
+        if (principals != null) {
+            long expiration = now + timeToLiveNanos;
+            synchronized (cachedDecisions) {
+                for (int i = 0; i < permitted.length; i++) {
+                    cachedDecisions.put(new DecisionKey(principals, undecided.get(i)),
+                            new CachedDecision(permitted[i], expiration));
+                }
+            }
+        }
+    }
+
+    private Boolean getCachedDecision(PrincipalCollection principals,
+            SortedMap<String, List<String>> marking, long now) {
+        if (principals == null) {
+            return null;
+        }
+
+        DecisionKey key = new DecisionKey(principals, marking);
+        synchronized (cachedDecisions) {
+            CachedDecision cached = cachedDecisions.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (now - cached.expiration >= 0) {
+                cachedDecisions.remove(key);
+                return null;
+            }
+            return cached.permitted;
+        }
+    }
+
+    static SortedMap<String, List<String>> canonicalize(Map<String, List<String>> marking) {
+        SortedMap<String, List<String>> canonical = new TreeMap<>();
+        if (marking == null) {
+            return canonical;
+        }
+
+        for (Map.Entry<String, List<String>> entry : marking.entrySet()) {
+            List<String> values = Collections.emptyList();
+            if (entry.getValue() != null) {
+                TreeSet<String> sorted = new TreeSet<>();
+                for (String value : entry.getValue()) {
+                    if (value != null) {
+                        sorted.add(value);
+                    }
+                }
+                values = new ArrayList<>(sorted);
+            }
+            canonical.put(entry.getKey(), values);
+        }
+        return canonical;
+    }
+
+    /**
+     * @param timeToLive
+     *            how long decisions are reused across queries, or 0 to only reuse decisions within
+     *            a query
+     */
+    public void setTimeToLive(long timeToLive, TimeUnit unit) {
+        timeToLiveNanos = Math.max(0, unit.toNanos(timeToLive));
+        clear();
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        clear();
+    }
+
+    public void register() {
+        LOGGER.debug("Registering Authorization Decision Cache MBean");
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            objectName = new ObjectName(AuthorizationDecisionCacheMBean.OBJECTNAME);
+            try {
+                mbeanServer.registerMBean(
+                        new StandardMBean(this, AuthorizationDecisionCacheMBean.class),
+                        objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                LOGGER.info("Re-registering Authorization Decision Cache MBean");
+                mbeanServer.unregisterMBean(objectName);
+                mbeanServer.registerMBean(
+                        new StandardMBean(this, AuthorizationDecisionCacheMBean.class),
+                        objectName);
+            }
+        } catch (MalformedObjectNameException e) {
+            LOGGER.info("Could not create object name", e);
+        } catch (Exception e) {
+            LOGGER.warn("Could not register MBean.", e);
+        }
+    }
+
+    public void unregister() {
+        try {
+            if (objectName != null && mbeanServer != null && mbeanServer
+                    .isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Exception unregistering MBean: ", e);
+        }
+    }
+
+    @Override
+    public long getDecisions() {
+        return decisions.get();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations.get();
+    }
+
+    @Override
+    public long getEvaluationBatches() {
+        return evaluationBatches.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long total = decisions.get();
+        return total == 0 ? 0 : (double) cacheHits.get() / total;
+    }
+
+    @Override
+    public int getCachedDecisions() {
+        synchronized (cachedDecisions) {
+            return cachedDecisions.size();
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (cachedDecisions) {
+            cachedDecisions.clear();
+        }
+    }
+
+    private static final class DecisionKey {
+
+        private final PrincipalCollection principals;
+
+        private final SortedMap<String, List<String>> marking;
+
+        private final int hashCode;
+
+        private DecisionKey(PrincipalCollection principals,
+                SortedMap<String, List<String>> marking) {
+            this.principals = principals;
+            this.marking = marking;
+            this.hashCode = 31 * principals.hashCode() + marking.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DecisionKey)) {
+                return false;
+            }
+            DecisionKey other = (DecisionKey) obj;
+            return hashCode == other.hashCode && principals.equals(other.principals) && marking
+                    .equals(other.marking);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class CachedDecision {
+
+        private final boolean permitted;
+
+        private final long expiration;
+
+        private CachedDecision(boolean permitted, long expiration) {
+            this.permitted = permitted;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.security.filter.plugin;
+
+/**
+ * Exposes how often the {@link FilterPlugin} reused an authorization decision instead of
+ * evaluating a result's security markings.
+ */
+public interface AuthorizationDecisionCacheMBean {
+
+    String OBJECTNAME = "ddf.catalog.security.filter.plugin.FilterPlugin:service=decision-cache";
+
+    /**
+     * @return number of results whose security markings were checked
+     */
+    long getDecisions();
+
+    /**
+     * @return number of results decided by an earlier decision for the same markings, in the same
+     *         query or cached for the same subject
+     */
+    long getCacheHits();
+
+    /**
+     * @return number of distinct markings evaluated by the security realms
+     */
+    long getEvaluations();
+
+    /**
+     * @return number of batches of markings sent to the security realms
+     */
+    long getEvaluationBatches();
+
+    /**
+     * @return fraction of decisions that were cache hits
+     */
+    double getHitRatio();
+
+    /**
+     * @return number of decisions currently cached across queries
+     */
+    int getCachedDecisions();
+
+    /**
+     * Removes all decisions cached across queries.
+     */
+    void clear();
+}
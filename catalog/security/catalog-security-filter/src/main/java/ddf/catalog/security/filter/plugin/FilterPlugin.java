@@ -16,6 +16,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
@@ -30,18 +31,42 @@
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.security.SecurityConstants;
 import ddf.security.common.audit.SecurityLogger;
-import ddf.security.permission.CollectionPermission;
-import ddf.security.permission.KeyValueCollectionPermission;
 
 /**
  * This {@link PostQueryPlugin} performs redaction and filtering on {@link QueryResponse} objects as
  * they pass through the framework.
+ * <p>
+ * Results with the same security markings share one authorization decision, see
+ * {@link AuthorizationDecisionCache}.
  *
  */
 public class FilterPlugin implements PostQueryPlugin {
 
     private final Logger logger = LoggerFactory.getLogger(FilterPlugin.class);
 
+    private final AuthorizationDecisionCache decisionCache = new AuthorizationDecisionCache();
+
+    public void init() {
+        decisionCache.register();
+    }
+
+    public void destroy() {
+        decisionCache.unregister();
+    }
+
+    /**
+     * @param seconds
+     *            how long a subject's decisions are reused by later queries, or 0 to only reuse
+     *            decisions within a query
+     */
+    public void setDecisionCacheTimeToLiveSeconds(long seconds) {
+        decisionCache.setTimeToLive(seconds, TimeUnit.SECONDS);
+    }
+
+    public void setDecisionCacheMaxEntries(int maxEntries) {
+        decisionCache.setMaxEntries(maxEntries);
+    }
+
     /**
      * Processes a {@link ddf.catalog.operation.QueryResponse} after the execution of the
      * {@link ddf.catalog.operation.Query}.
@@ -77,22 +102,25 @@ public QueryResponse process(QueryResponse input)
         }
 
         List<Result> results = input.getResults();
-        List<Result> newResults = new ArrayList<Result>(results.size());
-        Metacard metacard;
-        KeyValueCollectionPermission securityPermission = new KeyValueCollectionPermission(
-                CollectionPermission.READ_ACTION);
+        List<Map<String, List<String>>> markings = new ArrayList<Map<String, List<String>>>(
+                results.size());
         for (Result result : results) {
-            metacard = result.getMetacard();
-            Attribute attr = metacard.getAttribute(Metacard.SECURITY);
+            Attribute attr = result.getMetacard().getAttribute(Metacard.SECURITY);
             Map<String, List<String>> map = null;
             if (null != attr) {
                 map = (Map<String, List<String>>) attr.getValue();
             }
-            securityPermission.clear();
-            if (map != null) {
-                securityPermission.addAll(map);
-            }
-            if (!subject.isPermitted(securityPermission)) {
+            markings.add(map);
+        }
+
+        boolean[] permitted = decisionCache.isPermitted(subject, markings);
+
+        List<Result> newResults = new ArrayList<Result>(results.size());
+        Metacard metacard;
+        int i = 0;
+        for (Result result : results) {
+            metacard = result.getMetacard();
+            if (!permitted[i++]) {
                 logger.debug("Filtering metacard {}", metacard.getId());
                 SecurityLogger.logInfo("Filtering metacard " + metacard.getId());
             } else {
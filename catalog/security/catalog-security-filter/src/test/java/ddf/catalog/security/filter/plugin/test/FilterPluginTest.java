@@ -16,6 +16,8 @@
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.Serializable;
@@ -77,13 +79,15 @@ public class FilterPluginTest {
 
     QueryResponseImpl incomingResponse;
 
+    AuthorizingRealm realm;
+
+    Subject subject;
+
     @Before
     public void setup() {
         plugin = new FilterPlugin();
-        QueryRequestImpl request = getSampleRequest();
-        Map<String, Serializable> properties = new HashMap<String, Serializable>();
 
-        AuthorizingRealm realm = mock(AuthorizingRealm.class);
+        realm = mock(AuthorizingRealm.class);
 
         when(realm.getName()).thenReturn("mockRealm");
         when(realm.isPermitted(any(PrincipalCollection.class), any(Permission.class)))
@@ -103,22 +107,29 @@ public String getName() {
                     }
                 }, realm.getName());
 
-        Subject subject = new MockSubject(manager, principalCollection);
+        subject = new MockSubject(manager, principalCollection);
+        incomingResponse = createResponse();
+    }
+
+    private QueryResponseImpl createResponse() {
+        QueryRequestImpl request = getSampleRequest();
+        Map<String, Serializable> properties = new HashMap<String, Serializable>();
         properties.put(SecurityConstants.SECURITY_SUBJECT, subject);
         request.setProperties(properties);
 
-        incomingResponse = new QueryResponseImpl(request);
+        QueryResponseImpl response = new QueryResponseImpl(request);
 
         ResultImpl result1 = new ResultImpl(getMoreRolesMetacard());
         ResultImpl result2 = new ResultImpl(getMissingRolesMetacard());
         ResultImpl result3 = new ResultImpl(getExactRolesMetacard());
         ResultImpl result4 = new ResultImpl(getNoRolesMetacard());
         ResultImpl result5 = new ResultImpl(getNoSecurityAttributeMetacard());
-        incomingResponse.addResult(result1, false);
-        incomingResponse.addResult(result2, false);
-        incomingResponse.addResult(result3, false);
-        incomingResponse.addResult(result4, false);
-        incomingResponse.addResult(result5, true);
+        response.addResult(result1, false);
+        response.addResult(result2, false);
+        response.addResult(result3, false);
+        response.addResult(result4, false);
+        response.addResult(result5, true);
+        return response;
     }
 
     public Answer<Boolean> makeDecision() {
@@ -155,6 +166,40 @@ public void testPluginFilter() {
         }
     }
 
+    @Test
+    public void testPluginFilterEvaluatesDistinctMarkingsOnce() throws Exception {
+        QueryResponseImpl response = createResponse();
+        response.addResult(new ResultImpl(getExactRolesMetacard()), false);
+        response.addResult(new ResultImpl(getMissingRolesMetacard()), true);
+
+        plugin.process(response);
+
+        // the metacards without markings and with empty markings share a decision
+        verify(realm, times(4)).isPermitted(any(PrincipalCollection.class),
+                any(Permission.class));
+        Assert.assertEquals(6, response.getResults().size());
+    }
+
+    @Test
+    public void testPluginFilterReusesDecisionsAcrossQueries() throws Exception {
+        plugin.setDecisionCacheTimeToLiveSeconds(60);
+
+        verifyFilterResponse(plugin.process(incomingResponse));
+        verifyFilterResponse(plugin.process(createResponse()));
+
+        verify(realm, times(4)).isPermitted(any(PrincipalCollection.class),
+                any(Permission.class));
+    }
+
+    @Test
+    public void testPluginFilterWithoutDecisionCacheTimeToLive() throws Exception {
+        verifyFilterResponse(plugin.process(incomingResponse));
+        verifyFilterResponse(plugin.process(createResponse()));
+
+        verify(realm, times(8)).isPermitted(any(PrincipalCollection.class),
+                any(Permission.class));
+    }
+
     @Test(expected = StopProcessingException.class)
     public void testNoSubject() throws Exception {
         QueryResponseImpl response = new QueryResponseImpl(getSampleRequest());
@@ -14,6 +14,7 @@
 package ddf.catalog.solr.external;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
@@ -41,6 +42,7 @@
 import ddf.catalog.source.solr.DynamicSchemaResolver;
 import ddf.catalog.source.solr.SolrCatalogProvider;
 import ddf.catalog.source.solr.SolrFilterDelegateFactory;
+import ddf.catalog.source.solr.codec.ObjectAttributeCodec;
 import ddf.catalog.util.impl.MaskableImpl;
 
 /**
@@ -74,18 +76,18 @@ public class SolrHttpCatalogProvider extends MaskableImpl implements CatalogProv
 
     private String url = SolrServerFactory.DEFAULT_HTTPS_ADDRESS;
 
-    private CatalogProvider provider = new UnconfiguredCatalogProvider();
+    private volatile SolrCatalogProvider provider;
 
     private SolrServer server;
 
     private FilterAdapter filterAdapter;
 
-    private boolean firstUse;
-
     private SolrFilterDelegateFactory solrFilterDelegateFactory;
 
     private DynamicSchemaResolver resolver;
 
+    private List<ObjectAttributeCodec> objectAttributeCodecs;
+
     /**
      * Simple constructor
      *
@@ -97,7 +99,6 @@ public SolrHttpCatalogProvider(FilterAdapter filterAdapter, SolrServer server,
 
         this.filterAdapter = filterAdapter;
         this.server = server;
-        this.firstUse = true;
         this.solrFilterDelegateFactory = solrFilterDelegateFactory;
         this.resolver = resolver;
     }
@@ -117,8 +118,9 @@ public SolrHttpCatalogProvider(FilterAdapter filterAdapter,
     @Override
     public void maskId(String id) {
         super.maskId(id);
-        if (provider != null && !(provider instanceof UnconfiguredCatalogProvider)) {
-            provider.maskId(id);
+        CatalogProvider currentProvider = provider;
+        if (currentProvider != null) {
+            currentProvider.maskId(id);
         }
     }
 
@@ -137,6 +139,28 @@ public void setDisableTextPath(boolean disableTextPath) {
         ConfigurationStore.getInstance().setDisableTextPath(disableTextPath);
     }
 
+    public void setCommitWindowMillis(long commitWindowMillis) {
+        ConfigurationStore.getInstance().setCommitWindowMillis(commitWindowMillis);
+    }
+
+    public void setCommitMaxDocuments(int commitMaxDocuments) {
+        ConfigurationStore.getInstance().setCommitMaxDocuments(commitMaxDocuments);
+    }
+
+    /**
+     * Sets the codecs used to store OBJECT attribute values, see
+     * {@link DynamicSchemaResolver#setObjectAttributeCodecs(List)}. To be set via Spring/Blueprint.
+     *
+     * @param objectAttributeCodecs
+     *            custom codecs, may be {@code null} or empty
+     */
+    public void setObjectAttributeCodecs(List<ObjectAttributeCodec> objectAttributeCodecs) {
+        this.objectAttributeCodecs = objectAttributeCodecs;
+        if (resolver != null) {
+            resolver.setObjectAttributeCodecs(objectAttributeCodecs);
+        }
+    }
+
     @Override
     public Set<ContentType> getContentTypes() {
         return getProvider().getContentTypes();
@@ -199,11 +223,9 @@ public UpdateResponse update(UpdateRequest updateRequest) throws IngestException
     /**
      * Shutdown the connection to the Solr Server and releases resources.
      */
-    public void shutdown() {
+    public synchronized void shutdown() {
         LOGGER.info("Releasing connection to solr server.");
-        if (server != null) {
-            server.shutdown();
-        }
+        shutdownServer();
     }
 
     public String getUrl() {
@@ -226,7 +248,7 @@ public void setUrl(String url) {
      *
      * @param urlValue - url to the Solr Server
      */
-    public void updateServer(String urlValue) {
+    public synchronized void updateServer(String urlValue) {
         LOGGER.info("New url {}", urlValue);
 
         if (urlValue != null) {
@@ -236,14 +258,12 @@ public void updateServer(String urlValue) {
                 if (server != null) {
                     LOGGER.info(
                             "Shutting down the connection manager to the Solr Server and releasing allocated resources.");
-                    server.shutdown();
+                    shutdownServer();
                     LOGGER.info("Shutdown complete.");
                 }
 
                 server = SolrServerFactory
                         .getHttpSolrServer(url, SOLR_CATALOG_CORE_NAME, SOLR_CATALOG_CONFIG_FILE);
-
-                firstUse = true;
             }
         } else {
             // sets to null
@@ -251,24 +271,43 @@ public void updateServer(String urlValue) {
         }
     }
 
+    /**
+     * Shuts down the Solr Catalog Provider built for the current server, which also shuts down the
+     * server, or the server alone if no provider was built for it yet.
+     */
+    private void shutdownServer() {
+        if (provider != null) {
+            provider.shutdown();
+            provider = null;
+        } else if (server != null) {
+            server.shutdown();
+        }
+    }
+
     private CatalogProvider getProvider() {
-        if (firstUse) {
-            if (isServerUp(this.server)) {
-                if (resolver == null) {
-                    provider = new SolrCatalogProvider(server, filterAdapter,
-                            solrFilterDelegateFactory);
-                } else {
-                    provider = new SolrCatalogProvider(server, filterAdapter,
-                            solrFilterDelegateFactory, resolver);
+        CatalogProvider currentProvider = provider;
+        if (currentProvider != null) {
+            return currentProvider;
+        }
+
+        synchronized (this) {
+            if (provider == null && isServerUp(this.server)) {
+                DynamicSchemaResolver schemaResolver = resolver;
+                if (schemaResolver == null) {
+                    schemaResolver = new DynamicSchemaResolver();
+                    schemaResolver.setObjectAttributeCodecs(objectAttributeCodecs);
                 }
-                provider.maskId(getId());
-                this.firstUse = false;
+                SolrCatalogProvider newProvider = new SolrCatalogProvider(server, filterAdapter,
+                        solrFilterDelegateFactory, schemaResolver);
+                newProvider.maskId(getId());
+                newProvider.init();
+                provider = newProvider;
+            }
+            if (provider != null) {
                 return provider;
             }
-            return new UnconfiguredCatalogProvider();
         }
-        return provider;
-
+        return new UnconfiguredCatalogProvider();
     }
 
     private boolean isServerUp(SolrServer solrServer) {
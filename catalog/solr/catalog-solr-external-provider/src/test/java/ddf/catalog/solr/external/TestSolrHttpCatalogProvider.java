@@ -19,28 +19,49 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.DataOutput;
 import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.codice.solr.factory.ConfigurationStore;
 import org.junit.Test;
 
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
 import ddf.catalog.operation.CreateRequest;
+import ddf.catalog.operation.impl.CreateRequestImpl;
 import ddf.catalog.operation.DeleteRequest;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.UpdateRequest;
 import ddf.catalog.source.CatalogProvider;
 import ddf.catalog.source.IngestException;
 import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.source.solr.SolrCommitSchedulerMBean;
+import ddf.catalog.source.solr.codec.ObjectAttributeCodec;
 
 /**
  * Unit tests for {@link SolrHttpCatalogProvider}
@@ -243,6 +264,90 @@ public void testShutdown() throws SolrServerException, IOException {
         verify(givenServer, times(1)).shutdown();
     }
 
+    /**
+     * The provider built for a server must be shut down, with its commit scheduler, when the url
+     * changes.
+     */
+    @Test()
+    public void testUpdateServerShutsDownProvider() throws Exception {
+        // given
+        SolrServer givenServer = givenSolrServer(true);
+        when(givenServer.query(any(SolrParams.class)))
+                .thenThrow(new SolrServerException("no schema fields"));
+        SolrHttpCatalogProvider provider = new SolrHttpCatalogProvider(null, givenServer, null);
+        ObjectName commitScheduler = new ObjectName(SolrCommitSchedulerMBean.OBJECTNAME);
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            assertThat(provider.isAvailable(), is(true));
+            assertThat(mbeanServer.isRegistered(commitScheduler), is(true));
+
+            // when
+            provider.updateServer("http://localhost:8183/solr");
+
+            // then
+            verify(givenServer, times(1)).shutdown();
+            assertThat(mbeanServer.isRegistered(commitScheduler), is(false));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test()
+    public void testShutdownShutsDownProvider() throws Exception {
+        // given
+        SolrServer givenServer = givenSolrServer(true);
+        when(givenServer.query(any(SolrParams.class)))
+                .thenThrow(new SolrServerException("no schema fields"));
+        SolrHttpCatalogProvider provider = new SolrHttpCatalogProvider(null, givenServer, null);
+        assertThat(provider.isAvailable(), is(true));
+
+        // when
+        provider.shutdown();
+
+        // then
+        verify(givenServer, times(1)).shutdown();
+        assertThat(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName(SolrCommitSchedulerMBean.OBJECTNAME)), is(false));
+    }
+
+    /**
+     * Codecs set the way the blueprint sets them must reach the schema resolver of the provider
+     * that is created once the server is up.
+     */
+    @Test()
+    public void testObjectAttributeCodecsUsedOnCreate() throws Exception {
+        // given
+        SolrServer givenServer = givenSolrServer(true);
+        when(givenServer.query(any(SolrParams.class)))
+                .thenThrow(new SolrServerException("no schema fields"));
+        ConfigurationStore.getInstance().setForceAutoCommit(false);
+
+        ObjectAttributeCodec codec = mock(ObjectAttributeCodec.class);
+        when(codec.getId()).thenReturn("test");
+        when(codec.canEncode(any(Serializable.class))).thenReturn(true);
+
+        SolrHttpCatalogProvider provider = new SolrHttpCatalogProvider(null, givenServer, null);
+        provider.setObjectAttributeCodecs(Collections.singletonList(codec));
+
+        Set<AttributeDescriptor> descriptors = new HashSet<>();
+        descriptors.add(new AttributeDescriptorImpl("object", true, true, false, false,
+                BasicTypes.OBJECT_TYPE));
+        MetacardImpl metacard = new MetacardImpl(new MetacardTypeImpl("codec", descriptors));
+        String value = "encoded by the test codec";
+        metacard.setAttribute(new AttributeImpl("object", value));
+
+        // when
+        try {
+            provider.create(new CreateRequestImpl(metacard));
+        } finally {
+            provider.shutdown();
+        }
+
+        // then
+        verify(codec).encode(eq(value), any(DataOutput.class));
+    }
+
     /**
      * @return
      * @throws IOException
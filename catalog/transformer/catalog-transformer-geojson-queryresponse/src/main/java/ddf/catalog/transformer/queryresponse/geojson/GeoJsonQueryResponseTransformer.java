@@ -13,10 +13,12 @@
  */
 package ddf.catalog.transformer.queryresponse.geojson;
 
-import java.io.ByteArrayInputStream;
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
@@ -25,21 +27,20 @@
 import org.slf4j.LoggerFactory;
 
 import ddf.catalog.data.BinaryContent;
+import ddf.catalog.data.BinaryContentImpl;
 import ddf.catalog.data.Result;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.catalog.transform.QueryResponseTransformer;
 import ddf.catalog.transformer.metacard.geojson.GeoJsonMetacardTransformer;
-import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
-import net.minidev.json.JSONValue;
 
 /**
  * Implements the {@link QueryResponseTransformer} interface to transform a {@link SourceResponse}
- * instance to GeoJSON. This class creates JSON objects for the list of {@link ddf.catalog.data.Metacard}s that are
- * the results from a query. This class leverages the {@link GeoJsonMetacardTransformer} to convert
- * metacards to JSON.
+ * instance to GeoJSON. The returned content is encoded one result at a time as it is read, so the
+ * whole response is never held in memory as text. Results can optionally be encoded in parallel,
+ * in which case they are still written in the order of the response.
  *
  * @see GeoJsonMetacardTransformer
  * @see QueryResponseTransformer
@@ -56,6 +57,12 @@ public class GeoJsonQueryResponseTransformer implements QueryResponseTransformer
 
     public static MimeType defaultMimeType = null;
 
+    private static final int RESULTS_PER_THREAD = 4;
+
+    private int encodingThreads = 1;
+
+    private ExecutorService executor;
+
     static {
         try {
             defaultMimeType = new MimeType("application/json");
@@ -89,31 +96,55 @@ public BinaryContent transform(SourceResponse upstreamResponse,
                     "Cannot transform null " + SourceResponse.class.getName());
         }
 
-        JSONObject rootObject = new JSONObject();
-
-        addNonNullObject(rootObject, "hits", upstreamResponse.getHits());
+        List<Result> results = upstreamResponse.getResults();
+        if (results == null) {
+            results = Collections.emptyList();
+        }
+        for (Result result : results) {
+            if (result == null) {
+                throw new CatalogTransformerException(
+                        "Cannot transform null " + Result.class.getName());
+            }
+            if (result.getMetacard() == null) {
+                throw new CatalogTransformerException("Cannot transform null metacard.");
+            }
+        }
 
-        JSONArray resultsList = new JSONArray();
+        ExecutorService encodingExecutor;
+        int window;
+        synchronized (this) {
+            encodingExecutor = executor;
+            window = encodingThreads * RESULTS_PER_THREAD;
+        }
+        return new BinaryContentImpl(new GeoJsonResponseInputStream(upstreamResponse.getHits(),
+                results, encodingExecutor, window), defaultMimeType);
+    }
 
-        if (upstreamResponse.getResults() != null) {
-            for (Result result : upstreamResponse.getResults()) {
-                if (result == null) {
-                    throw new CatalogTransformerException(
-                            "Cannot transform null " + Result.class.getName());
-                }
-                JSONObject jsonObj = convertToJSON(result);
-                if (jsonObj != null) {
-                    resultsList.add(jsonObj);
-                }
-            }
+    /**
+     * Sets the number of threads used to encode the results of a response. With a single thread,
+     * results are encoded by the thread reading the content.
+     */
+    public synchronized void setEncodingThreads(int encodingThreads) {
+        int threads = Math.max(encodingThreads, 1);
+        if (threads == this.encodingThreads && (threads == 1) == (executor == null)) {
+            return;
         }
-        addNonNullObject(rootObject, "results", resultsList);
 
-        String jsonText = JSONValue.toJSONString(rootObject);
+        LOGGER.debug("Encoding GeoJSON results with {} threads", threads);
+        ExecutorService oldExecutor = executor;
+        executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        this.encodingThreads = threads;
+        if (oldExecutor != null) {
+            oldExecutor.shutdown();
+        }
+    }
 
-        return new ddf.catalog.data.BinaryContentImpl(
-                new ByteArrayInputStream(jsonText.getBytes(StandardCharsets.UTF_8)),
-                defaultMimeType);
+    public synchronized void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        encodingThreads = 1;
     }
 
     @Override
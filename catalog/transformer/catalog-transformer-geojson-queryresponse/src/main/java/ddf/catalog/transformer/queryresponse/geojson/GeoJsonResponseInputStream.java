@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.queryresponse.geojson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.transform.CatalogTransformerException;
+
+/**
+ * {@link InputStream} that encodes a GeoJSON query response one result at a time as it is read,
+ * so that only the results being encoded are held in memory as text. When an
+ * {@link ExecutorService} is given, up to {@code window} results are encoded ahead of the reader
+ * in parallel, and are still returned in their original order.
+ */
+class GeoJsonResponseInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final byte[] FOOTER = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final Iterator<Result> results;
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] buffer;
+
+    private int position;
+
+    private boolean first = true;
+
+    private boolean footerWritten;
+
+    private boolean closed;
+
+    GeoJsonResponseInputStream(long hits, List<Result> results, ExecutorService executor,
+            int window) {
+        this.results = results.iterator();
+        this.executor = executor;
+        this.window = Math.max(window, 1);
+        this.buffer = ("{\"hits\":" + hits + ",\"results\":[").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int total = 0;
+        while (total < len && fill()) {
+            int count = Math.min(len - total, buffer.length - position);
+            System.arraycopy(buffer, position, b, off + total, count);
+            position += count;
+            total += count;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Future<byte[]> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        buffer = EMPTY;
+        position = 0;
+    }
+
+    /**
+     * Makes sure there are unread bytes in the buffer.
+     *
+     * @return false once the whole response has been read
+     */
+    private boolean fill() throws IOException {
+        while (position >= buffer.length) {
+            if (closed) {
+                return false;
+            }
+
+            byte[] next = nextResult();
+            if (next != null) {
+                buffer = next;
+            } else if (!footerWritten) {
+                buffer = FOOTER;
+                footerWritten = true;
+            } else {
+                return false;
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    private byte[] nextResult() throws IOException {
+        if (executor == null) {
+            if (!results.hasNext()) {
+                return null;
+            }
+            boolean isFirst = first;
+            first = false;
+            return encode(results.next(), isFirst);
+        }
+
+        while (pending.size() < window && results.hasNext()) {
+            final Result result = results.next();
+            final boolean isFirst = first;
+            first = false;
+            Callable<byte[]> task = new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws IOException, CatalogTransformerException {
+                    return encodeResult(result, isFirst);
+                }
+            };
+            try {
+                pending.add(executor.submit(task));
+            } catch (RejectedExecutionException e) {
+                // the transformer was reconfigured while this response was being read
+                FutureTask<byte[]> inline = new FutureTask<>(task);
+                inline.run();
+                pending.add(inline);
+            }
+        }
+
+        Future<byte[]> future = pending.poll();
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException("Interrupted while encoding GeoJSON results", e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Could not encode result as GeoJSON", cause);
+        }
+    }
+
+    private byte[] encode(Result result, boolean isFirst) throws IOException {
+        try {
+            return encodeResult(result, isFirst);
+        } catch (CatalogTransformerException e) {
+            close();
+            throw new IOException("Could not encode result as GeoJSON", e);
+        }
+    }
+
+    private static byte[] encodeResult(Result result, boolean isFirst)
+            throws IOException, CatalogTransformerException {
+        StringBuilder json = new StringBuilder(1024);
+        if (!isFirst) {
+            json.append(',');
+        }
+        GeoJsonWriter.writeResult(result, json);
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.queryresponse.geojson;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transformer.metacard.geojson.GeoJsonMetacardTransformer;
+import ddf.geo.formatter.CompositeGeometry;
+import net.minidev.json.JSONValue;
+
+/**
+ * Writes {@link Result}s as GeoJSON text without building JSON objects first. The output is the
+ * same as serializing {@link GeoJsonQueryResponseTransformer#convertToJSON(Result)}, except for the
+ * order of the keys.
+ */
+final class GeoJsonWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeoJsonWriter.class);
+
+    private static final String METACARD_TYPE_PROPERTY_KEY = "metacard-type";
+
+    private static final String SOURCE_ID_PROPERTY = "source-id";
+
+    private GeoJsonWriter() {
+    }
+
+    static void writeResult(Result result, Appendable out)
+            throws CatalogTransformerException, IOException {
+        out.append('{');
+        if (result.getDistanceInMeters() != null) {
+            writeKey("distance", out);
+            JSONValue.writeJSONString(result.getDistanceInMeters(), out);
+            out.append(',');
+        }
+        if (result.getRelevanceScore() != null) {
+            writeKey("relevance", out);
+            JSONValue.writeJSONString(result.getRelevanceScore(), out);
+            out.append(',');
+        }
+        writeKey("metacard", out);
+        writeMetacard(result.getMetacard(), out);
+        out.append('}');
+    }
+
+    static void writeMetacard(Metacard metacard, Appendable out)
+            throws CatalogTransformerException, IOException {
+        if (metacard == null) {
+            throw new CatalogTransformerException("Cannot transform null metacard.");
+        }
+
+        out.append("{\"type\":\"Feature\",");
+        writeKey(CompositeGeometry.PROPERTIES_KEY, out);
+        out.append('{');
+
+        SimpleDateFormat dateFormat = null;
+        WKTReader reader = null;
+        Geometry geometry = null;
+
+        for (AttributeDescriptor ad : metacard.getMetacardType().getAttributeDescriptors()) {
+            Attribute attribute = metacard.getAttribute(ad.getName());
+            if (attribute == null) {
+                continue;
+            }
+
+            Object value = attribute.getValue();
+            switch (ad.getType().getAttributeFormat()) {
+            case BOOLEAN:
+                writeProperty(attribute.getName(), (Boolean) value, out);
+                break;
+            case DATE:
+                if (value != null) {
+                    if (dateFormat == null) {
+                        dateFormat = new SimpleDateFormat(
+                                GeoJsonMetacardTransformer.ISO_8601_DATE_FORMAT);
+                        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+                    }
+                    writeProperty(attribute.getName(), dateFormat.format((Date) value), out);
+                }
+                break;
+            case BINARY:
+                if (value != null) {
+                    writeProperty(attribute.getName(),
+                            DatatypeConverter.printBase64Binary((byte[]) value), out);
+                }
+                break;
+            case DOUBLE:
+            case LONG:
+            case FLOAT:
+            case INTEGER:
+            case SHORT:
+            case STRING:
+            case XML:
+                if (value != null) {
+                    writeProperty(attribute.getName(), value.toString(), out);
+                }
+                break;
+            case GEOMETRY:
+                // every geometry attribute must parse, the last one is the feature's geometry
+                if (value != null) {
+                    if (reader == null) {
+                        reader = new WKTReader();
+                    }
+                    geometry = readGeometry(reader, value.toString());
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        writeKey(METACARD_TYPE_PROPERTY_KEY, out);
+        JSONValue.writeJSONString(metacard.getMetacardType().getName(), out);
+        if (metacard.getSourceId() != null && !"".equals(metacard.getSourceId())) {
+            out.append(',');
+            writeKey(SOURCE_ID_PROPERTY, out);
+            JSONValue.writeJSONString(metacard.getSourceId(), out);
+        }
+        out.append("},");
+
+        writeKey(CompositeGeometry.GEOMETRY_KEY, out);
+        if (geometry == null) {
+            out.append("null");
+        } else {
+            writeGeometry(geometry, out);
+        }
+        out.append('}');
+    }
+
+    private static Geometry readGeometry(WKTReader reader, String wkt)
+            throws CatalogTransformerException {
+        try {
+            return reader.read(wkt);
+        } catch (ParseException e) {
+            LOGGER.warn("Parse exception during reading of geometry", e);
+            throw new CatalogTransformerException(
+                    "Could not perform transform: could not parse geometry.", e);
+        }
+    }
+
+    static void writeGeometry(Geometry geometry, Appendable out)
+            throws CatalogTransformerException, IOException {
+        out.append("{\"type\":\"").append(geometry.getGeometryType()).append("\",");
+
+        if (geometry instanceof Point) {
+            writeKey(CompositeGeometry.COORDINATES_KEY, out);
+            Coordinate coordinate = geometry.getCoordinate();
+            if (coordinate == null) {
+                out.append("[]");
+            } else {
+                writeCoordinate(coordinate, out);
+            }
+        } else if (geometry instanceof LineString) {
+            writeKey(CompositeGeometry.COORDINATES_KEY, out);
+            writeCoordinates(geometry.getCoordinates(), out);
+        } else if (geometry instanceof Polygon) {
+            writeKey(CompositeGeometry.COORDINATES_KEY, out);
+            writePolygon((Polygon) geometry, out);
+        } else if (geometry instanceof MultiPoint) {
+            writeKey(CompositeGeometry.COORDINATES_KEY, out);
+            writeCoordinates(geometry.getCoordinates(), out);
+        } else if (geometry instanceof MultiLineString) {
+            writeKey(CompositeGeometry.COORDINATES_KEY, out);
+            out.append('[');
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                writeCoordinates(geometry.getGeometryN(i).getCoordinates(), out);
+            }
+            out.append(']');
+        } else if (geometry instanceof MultiPolygon) {
+            writeKey(CompositeGeometry.COORDINATES_KEY, out);
+            out.append('[');
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                writePolygon((Polygon) geometry.getGeometryN(i), out);
+            }
+            out.append(']');
+        } else if (geometry instanceof GeometryCollection) {
+            writeKey(CompositeGeometry.GEOMETRIES_KEY, out);
+            out.append('[');
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                writeGeometry(geometry.getGeometryN(i), out);
+            }
+            out.append(']');
+        } else {
+            throw new CatalogTransformerException(
+                    "Could not perform transform: unsupported geometry [" + geometry + "]");
+        }
+
+        out.append('}');
+    }
+
+    private static void writePolygon(Polygon polygon, Appendable out) throws IOException {
+        out.append('[');
+        writeCoordinates(polygon.getExteriorRing().getCoordinates(), out);
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            out.append(',');
+            writeCoordinates(polygon.getInteriorRingN(i).getCoordinates(), out);
+        }
+        out.append(']');
+    }
+
+    private static void writeCoordinates(Coordinate[] coordinates, Appendable out)
+            throws IOException {
+        out.append('[');
+        for (int i = 0; i < coordinates.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            writeCoordinate(coordinates[i], out);
+        }
+        out.append(']');
+    }
+
+    private static void writeCoordinate(Coordinate coordinate, Appendable out)
+            throws IOException {
+        out.append('[').append(Double.toString(coordinate.x)).append(',')
+                .append(Double.toString(coordinate.y)).append(']');
+    }
+
+    private static void writeProperty(String name, Object value, Appendable out)
+            throws IOException {
+        writeKey(name, out);
+        JSONValue.writeJSONString(value, out);
+        out.append(',');
+    }
+
+    private static void writeKey(String key, Appendable out) throws IOException {
+        JSONValue.writeJSONString(key, out);
+        out.append(':');
+    }
+}
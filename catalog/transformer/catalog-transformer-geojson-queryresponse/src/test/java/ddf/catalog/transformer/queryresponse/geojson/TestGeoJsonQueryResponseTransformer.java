@@ -13,30 +13,39 @@
  */
 package ddf.catalog.transformer.queryresponse.geojson;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
 import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
 import ddf.catalog.data.impl.ResultImpl;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.impl.SourceResponseImpl;
@@ -75,6 +84,8 @@ public class TestGeoJsonQueryResponseTransformer {
 
     private static final Date NOW = new Date();
 
+    private static final String OTHER_GEOMETRY = "other-geometry";
+
     @Test(expected = CatalogTransformerException.class)
     public void testNullResponse() throws CatalogTransformerException {
         new GeoJsonQueryResponseTransformer().transform(null, null);
@@ -121,10 +132,120 @@ public void testGoodResponse() throws CatalogTransformerException, IOException,
         verifyResponse(obj, resultCount, hitCount);
     }
 
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void testGeometry() throws CatalogTransformerException, IOException, ParseException {
+        SourceResponse sourceResponse = setupResponse(1, 1);
+        JSONObject obj = transform(sourceResponse, 1, 1);
+
+        Map metacard = (Map) ((Map) ((List) obj.get("results")).get(0)).get("metacard");
+        assertThat(toString(metacard.get("type")), is("Feature"));
+        Map geometry = (Map) metacard.get("geometry");
+        assertThat(toString(geometry.get("type")), is("Point"));
+        assertThat(((List) geometry.get("coordinates")).size(), is(2));
+        assertThat(toString(((List) geometry.get("coordinates")).get(0)), is("1.0"));
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void testMatchesConvertToJSON()
+            throws CatalogTransformerException, IOException, ParseException {
+        String[] locations = {DEFAULT_LOCATION, "LINESTRING (0 0, 1 1)",
+                "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 1))",
+                "MULTIPOINT ((1 2), (3 4))", "MULTILINESTRING ((0 0, 1 1), (2 2, 3 3))",
+                "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))",
+                "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))"};
+
+        for (String location : locations) {
+            Result result = setupResult();
+            ((MetacardImpl) result.getMetacard()).setLocation(location);
+            List<Result> results = new LinkedList<Result>();
+            results.add(result);
+
+            JSONObject obj = transform(new SourceResponseImpl(null, results, 1L), 1, 1);
+            Object expected = PARSER.parse(
+                    GeoJsonQueryResponseTransformer.convertToJSON(result).toJSONString());
+            assertThat(location, ((List) obj.get("results")).get(0), is(expected));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void testParallelEncodingPreservesOrder()
+            throws CatalogTransformerException, IOException, ParseException {
+        final int resultCount = 100;
+        List<Result> results = new LinkedList<Result>();
+        for (int i = 0; i < resultCount; i++) {
+            Result result = setupResult();
+            ((MetacardImpl) result.getMetacard()).setId(Integer.toString(i));
+            results.add(result);
+        }
+
+        GeoJsonQueryResponseTransformer transformer = new GeoJsonQueryResponseTransformer();
+        transformer.setEncodingThreads(4);
+        try {
+            JSONObject obj = transform(transformer,
+                    new SourceResponseImpl(null, results, (long) resultCount));
+            List jsonResults = (List) obj.get("results");
+            assertThat(jsonResults.size(), is(resultCount));
+            for (int i = 0; i < resultCount; i++) {
+                Map metacard = (Map) ((Map) jsonResults.get(i)).get("metacard");
+                assertThat(toString(((Map) metacard.get("properties")).get(Metacard.ID)),
+                        is(Integer.toString(i)));
+            }
+        } finally {
+            transformer.destroy();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadGeometry() throws CatalogTransformerException, IOException {
+        Result result = setupResult();
+        ((MetacardImpl) result.getMetacard()).setLocation("POINT (1");
+        List<Result> results = new LinkedList<Result>();
+        results.add(result);
+
+        BinaryContent content = new GeoJsonQueryResponseTransformer()
+                .transform(new SourceResponseImpl(null, results, 1L), null);
+        content.getByteArray();
+    }
+
+    @Test
+    public void testEveryGeometryIsParsed() throws CatalogTransformerException {
+        Set<AttributeDescriptor> descriptors = new HashSet<AttributeDescriptor>(
+                BasicTypes.BASIC_METACARD.getAttributeDescriptors());
+        descriptors.add(new AttributeDescriptorImpl(OTHER_GEOMETRY, true, true, false, false,
+                BasicTypes.GEO_TYPE));
+        MetacardType type = new MetacardTypeImpl("twoGeometries", descriptors);
+
+        String[][] geometries = {{"POINT (1", DEFAULT_LOCATION}, {DEFAULT_LOCATION, "POINT (1"}};
+        for (String[] pair : geometries) {
+            MetacardImpl metacard = new MetacardImpl(type);
+            metacard.setLocation(pair[0]);
+            metacard.setAttribute(OTHER_GEOMETRY, pair[1]);
+            List<Result> results = new LinkedList<Result>();
+            results.add(new ResultImpl(metacard));
+
+            BinaryContent content = new GeoJsonQueryResponseTransformer()
+                    .transform(new SourceResponseImpl(null, results, 1L), null);
+            try {
+                content.getByteArray();
+                fail("Expected the invalid geometry to fail the transform");
+            } catch (IOException e) {
+                assertThat(e.getCause(), instanceOf(CatalogTransformerException.class));
+            }
+        }
+    }
+
     private JSONObject transform(SourceResponse sourceResponse, final int resultCount,
             final int hitCount) throws CatalogTransformerException, IOException, ParseException {
-        BinaryContent content = new GeoJsonQueryResponseTransformer()
-                .transform(sourceResponse, null);
+        return transform(new GeoJsonQueryResponseTransformer(), sourceResponse);
+    }
+
+    private JSONObject transform(GeoJsonQueryResponseTransformer transformer,
+            SourceResponse sourceResponse)
+            throws CatalogTransformerException, IOException, ParseException {
+        BinaryContent content = transformer.transform(sourceResponse, null);
 
         assertEquals(content.getMimeTypeValue(),
                 GeoJsonQueryResponseTransformer.defaultMimeType.getBaseType());
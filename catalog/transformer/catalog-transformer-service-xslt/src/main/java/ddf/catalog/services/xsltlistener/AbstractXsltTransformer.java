@@ -21,6 +21,7 @@
 import javax.activation.MimeTypeParseException;
 import javax.xml.transform.Source;
 import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamSource;
@@ -43,8 +44,13 @@ public abstract class AbstractXsltTransformer {
         DEFAULT_MIME_TYPE = unknownMime;
     }
 
+    private static final int MAX_IDLE_TRANSFORMERS = Runtime.getRuntime().availableProcessors()
+            * 2;
+
     protected Templates templates;
 
+    private volatile TransformerPool transformerPool;
+
     protected MimeType mimeType;
 
     protected BundleContext context;
@@ -98,6 +104,7 @@ public void init(String mimeString, InputStream xslStream) {
         xsltSource = new StreamSource(xslStream);
         try {
             templates = tf.newTemplates(xsltSource);
+            transformerPool = new TransformerPool(templates, MAX_IDLE_TRANSFORMERS);
         } catch (TransformerConfigurationException tce) {
             throw new RuntimeException(
                     "Could not create new templates for XsltTransformer ( " + xslStream + ") : "
@@ -112,4 +119,17 @@ public void init(String mimeString, InputStream xslStream) {
             this.mimeType = DEFAULT_MIME_TYPE;
         }
     }
+
+    /**
+     * Gets a {@link Transformer} for the stylesheet, reusing one released by an earlier transform
+     * when possible. The {@link Transformer} must be handed back with
+     * {@link #releaseTransformer(Transformer)} once the transform is done.
+     */
+    protected Transformer acquireTransformer() throws TransformerConfigurationException {
+        return transformerPool.acquire();
+    }
+
+    protected void releaseTransformer(Transformer transformer) {
+        transformerPool.release(transformer);
+    }
 }
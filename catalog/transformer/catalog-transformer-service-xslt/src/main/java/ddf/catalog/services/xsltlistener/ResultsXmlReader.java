@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.codec.binary.Base64;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+
+/**
+ * {@link XMLReader} that produces the SAX events of the results document given to the response
+ * queue stylesheets, without building it in memory first. Each metacard's metadata is parsed
+ * straight into the same {@link ContentHandler}. Use it in a
+ * {@link javax.xml.transform.sax.SAXSource}; the {@link InputSource} passed to
+ * {@link #parse(InputSource)} is ignored.
+ * <p>
+ * The document has the form:
+ *
+ * <pre>
+ * &lt;results&gt;
+ *   &lt;metacard&gt;
+ *     &lt;id/&gt;&lt;type/&gt;&lt;title/&gt;&lt;score/&gt;&lt;distance/&gt;&lt;site/&gt;&lt;content-type qualifier="content-type"/&gt;
+ *     &lt;product/&gt;&lt;thumbnail/&gt;&lt;t_mimetype/&gt;&lt;created/&gt;&lt;updated/&gt;&lt;effective/&gt;&lt;location/&gt;
+ *     &lt;document&gt;metadata&lt;/document&gt;
+ *   &lt;/metacard&gt;
+ * &lt;/results&gt;
+ * </pre>
+ */
+class ResultsXmlReader implements XMLReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultsXmlReader.class);
+
+    private static final String NAMESPACES_FEATURE = "http://xml.org/sax/features/namespaces";
+
+    private static final String NAMESPACE_PREFIXES_FEATURE = "http://xml.org/sax/features/namespace-prefixes";
+
+    private static final String NO_NAMESPACE = "";
+
+    private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    static {
+        PARSER_FACTORY.setNamespaceAware(true);
+    }
+
+    private final List<Result> results;
+
+    private final Map<String, Boolean> features = new HashMap<>();
+
+    private ContentHandler contentHandler;
+
+    private EntityResolver entityResolver;
+
+    private DTDHandler dtdHandler;
+
+    private ErrorHandler errorHandler;
+
+    ResultsXmlReader(List<Result> results) {
+        this.results = results;
+        features.put(NAMESPACES_FEATURE, true);
+        features.put(NAMESPACE_PREFIXES_FEATURE, false);
+    }
+
+    @Override
+    public void parse(InputSource input) throws IOException, SAXException {
+        if (contentHandler == null) {
+            throw new SAXException("No content handler set");
+        }
+
+        XMLReader metadataReader = newMetadataReader();
+        DateTimeFormatter fmt = ISODateTimeFormat.dateTime();
+
+        contentHandler.startDocument();
+        contentHandler.startElement(NO_NAMESPACE, "results", "results", NO_ATTRIBUTES);
+
+        if (results != null) {
+            for (Result result : results) {
+                Metacard metacard = result.getMetacard();
+                if (metacard != null && metacard.getMetadata() != null) {
+                    writeMetacard(result, metacard, fmt, metadataReader);
+                } else {
+                    LOGGER.debug("Null content/document returned to XSLT ResponseQueueTransformer");
+                }
+            }
+        }
+
+        contentHandler.endElement(NO_NAMESPACE, "results", "results");
+        contentHandler.endDocument();
+    }
+
+    @Override
+    public void parse(String systemId) throws IOException, SAXException {
+        parse(new InputSource(systemId));
+    }
+
+    private void writeMetacard(Result result, Metacard metacard, DateTimeFormatter fmt,
+            XMLReader metadataReader) throws IOException, SAXException {
+        contentHandler.startElement(NO_NAMESPACE, "metacard", "metacard", NO_ATTRIBUTES);
+
+        if (metacard.getId() != null) {
+            writeElement("id", metacard.getId());
+        }
+        if (metacard.getMetacardType() != null) {
+            writeElement("type", metacard.getMetacardType().getName());
+        }
+        if (metacard.getTitle() != null) {
+            writeElement("title", metacard.getTitle());
+        }
+        if (result.getRelevanceScore() != null) {
+            writeElement("score", result.getRelevanceScore().toString());
+        }
+        if (result.getDistanceInMeters() != null) {
+            writeElement("distance", result.getDistanceInMeters().toString());
+        }
+        if (metacard.getSourceId() != null) {
+            writeElement("site", metacard.getSourceId());
+        }
+        if (metacard.getContentTypeName() != null) {
+            // TODO revisit what to put in the qualifier
+            AttributesImpl attributes = new AttributesImpl();
+            attributes.addAttribute(NO_NAMESPACE, "qualifier", "qualifier", "CDATA",
+                    "content-type");
+            writeElement("content-type", attributes, metacard.getContentTypeName());
+        }
+        if (metacard.getResourceURI() != null) {
+            writeElement("product", metacard.getResourceURI().toString());
+        }
+        byte[] thumbnail = metacard.getThumbnail();
+        if (thumbnail != null) {
+            writeElement("thumbnail", Base64.encodeBase64String(thumbnail));
+            String mimeType;
+            try {
+                mimeType = URLConnection
+                        .guessContentTypeFromStream(new ByteArrayInputStream(thumbnail));
+            } catch (IOException e) {
+                mimeType = "image/png";
+            }
+            writeElement("t_mimetype", mimeType);
+        }
+        if (metacard.getCreatedDate() != null) {
+            writeElement("created", fmt.print(metacard.getCreatedDate().getTime()));
+        }
+        // looking at the date last modified
+        if (metacard.getModifiedDate() != null) {
+            writeElement("updated", fmt.print(metacard.getModifiedDate().getTime()));
+        }
+        if (metacard.getEffectiveDate() != null) {
+            writeElement("effective", fmt.print(metacard.getEffectiveDate().getTime()));
+        }
+        if (metacard.getLocation() != null) {
+            writeElement("location", metacard.getLocation());
+        }
+
+        contentHandler.startElement(NO_NAMESPACE, "document", "document", NO_ATTRIBUTES);
+        metadataReader.parse(new InputSource(new StringReader(metacard.getMetadata())));
+        contentHandler.endElement(NO_NAMESPACE, "document", "document");
+
+        contentHandler.endElement(NO_NAMESPACE, "metacard", "metacard");
+    }
+
+    private void writeElement(String name, String value) throws SAXException {
+        writeElement(name, NO_ATTRIBUTES, value);
+    }
+
+    private void writeElement(String name, Attributes attributes, String value)
+            throws SAXException {
+        contentHandler.startElement(NO_NAMESPACE, name, name, attributes);
+        if (value != null) {
+            contentHandler.characters(value.toCharArray(), 0, value.length());
+        }
+        contentHandler.endElement(NO_NAMESPACE, name, name);
+    }
+
+    /**
+     * Creates the reader for the metadata of each metacard, which passes everything within the
+     * metadata document to this reader's {@link ContentHandler}.
+     */
+    private XMLReader newMetadataReader() throws SAXException {
+        XMLReader parser;
+        try {
+            // factories are not thread-safe
+            synchronized (PARSER_FACTORY) {
+                parser = PARSER_FACTORY.newSAXParser().getXMLReader();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new SAXException("Unable to create metadata parser", e);
+        }
+        if (entityResolver != null) {
+            parser.setEntityResolver(entityResolver);
+        }
+
+        XMLFilterImpl filter = new XMLFilterImpl(parser) {
+            @Override
+            public void startDocument() {
+                // the metadata is part of the results document
+            }
+
+            @Override
+            public void endDocument() {
+                // the metadata is part of the results document
+            }
+        };
+        filter.setContentHandler(contentHandler);
+        if (errorHandler != null) {
+            filter.setErrorHandler(errorHandler);
+        }
+        return filter;
+    }
+
+    @Override
+    public boolean getFeature(String name) throws SAXNotRecognizedException {
+        Boolean value = features.get(name);
+        if (value == null) {
+            throw new SAXNotRecognizedException(name);
+        }
+        return value;
+    }
+
+    @Override
+    public void setFeature(String name, boolean value) {
+        features.put(name, value);
+    }
+
+    @Override
+    public Object getProperty(String name) throws SAXNotRecognizedException {
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public void setProperty(String name, Object value) throws SAXNotRecognizedException {
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public void setEntityResolver(EntityResolver resolver) {
+        this.entityResolver = resolver;
+    }
+
+    @Override
+    public EntityResolver getEntityResolver() {
+        return entityResolver;
+    }
+
+    @Override
+    public void setDTDHandler(DTDHandler handler) {
+        this.dtdHandler = handler;
+    }
+
+    @Override
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+
+    @Override
+    public void setContentHandler(ContentHandler handler) {
+        this.contentHandler = handler;
+    }
+
+    @Override
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    @Override
+    public void setErrorHandler(ErrorHandler handler) {
+        this.errorHandler = handler;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+}
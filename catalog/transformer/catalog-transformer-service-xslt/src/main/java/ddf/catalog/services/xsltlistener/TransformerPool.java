@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+
+/**
+ * Pool of {@link Transformer}s for one compiled stylesheet. A {@link Transformer} is not
+ * thread-safe and is fairly expensive to create, so idle instances are reset and reused instead
+ * of being created for every transform. Up to {@code maxIdle} instances are kept; any more are
+ * discarded when released.
+ */
+class TransformerPool {
+
+    private final Templates templates;
+
+    private final BlockingQueue<Transformer> idle;
+
+    TransformerPool(Templates templates, int maxIdle) {
+        this.templates = templates;
+        this.idle = new ArrayBlockingQueue<>(Math.max(maxIdle, 1));
+    }
+
+    /**
+     * @return an idle {@link Transformer}, or a new one if none are idle
+     */
+    Transformer acquire() throws TransformerConfigurationException {
+        Transformer transformer = idle.poll();
+        if (transformer == null) {
+            transformer = templates.newTransformer();
+        }
+        return transformer;
+    }
+
+    /**
+     * Resets the {@link Transformer} and makes it available to {@link #acquire()} again.
+     */
+    void release(Transformer transformer) {
+        if (transformer == null) {
+            return;
+        }
+        try {
+            // not every implementation clears the parameters on reset
+            transformer.clearParameters();
+            transformer.reset();
+        } catch (UnsupportedOperationException e) {
+            // cannot be safely reused
+            return;
+        }
+        idle.offer(transformer);
+    }
+}
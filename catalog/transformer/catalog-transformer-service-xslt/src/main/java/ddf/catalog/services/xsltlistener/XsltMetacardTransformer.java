@@ -131,21 +131,21 @@ public BinaryContent transform(Metacard metacard, Map<String, Serializable> argu
         resultOutput = new StreamResult(baos);
 
         try {
-            transformer = templates.newTransformer();
+            transformer = acquireTransformer();
         } catch (TransformerConfigurationException tce) {
             throw new CatalogTransformerException(
                     "Could not perform Xslt transform: " + tce.getException(), tce.getCause());
         }
 
-        if (!mergedMap.isEmpty()) {
-            for (Map.Entry<String, Object> entry : mergedMap.entrySet()) {
-                LOGGER.debug("Adding parameter to transform {}:{}", entry.getKey(),
-                        entry.getValue());
-                transformer.setParameter(entry.getKey(), entry.getValue());
+        try {
+            if (!mergedMap.isEmpty()) {
+                for (Map.Entry<String, Object> entry : mergedMap.entrySet()) {
+                    LOGGER.debug("Adding parameter to transform {}:{}", entry.getKey(),
+                            entry.getValue());
+                    transformer.setParameter(entry.getKey(), entry.getValue());
+                }
             }
-        }
 
-        try {
             transformer.transform(source, resultOutput);
             byte[] bytes = baos.toByteArray();
             IOUtils.closeQuietly(baos);
@@ -155,9 +155,7 @@ public BinaryContent transform(Metacard metacard, Map<String, Serializable> argu
             throw new CatalogTransformerException(
                     "Could not perform Xslt transform: " + te.getMessage(), te.getCause());
         } finally {
-            // TODO: if we ever start to reuse transformers, we should add this
-            // code back in
-            // transformer.reset();
+            releaseTransformer(transformer);
         }
 
         return resultContent;
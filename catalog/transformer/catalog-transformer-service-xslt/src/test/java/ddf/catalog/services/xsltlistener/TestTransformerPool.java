@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.saxon.TransformerFactoryImpl;
+
+public class TestTransformerPool {
+
+    private static final String PARAMETER = "name";
+
+    private static final String STYLESHEET =
+            "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                    + "<xsl:output method=\"text\"/>"
+                    + "<xsl:param name=\"" + PARAMETER + "\" select=\"'default'\"/>"
+                    + "<xsl:template match=\"/\"><xsl:value-of select=\"$" + PARAMETER + "\"/>"
+                    + "</xsl:template></xsl:stylesheet>";
+
+    private Templates templates;
+
+    @Before
+    public void setUp() throws TransformerException {
+        templates = new TransformerFactoryImpl()
+                .newTemplates(new StreamSource(new StringReader(STYLESHEET)));
+    }
+
+    @Test
+    public void testReleasedTransformerIsReused() throws TransformerException {
+        TransformerPool pool = new TransformerPool(templates, 2);
+
+        Transformer transformer = pool.acquire();
+        pool.release(transformer);
+
+        assertSame(transformer, pool.acquire());
+    }
+
+    @Test
+    public void testParametersAreResetOnRelease() throws TransformerException {
+        TransformerPool pool = new TransformerPool(templates, 2);
+
+        Transformer transformer = pool.acquire();
+        transformer.setParameter(PARAMETER, "first");
+        assertEquals("first", transform(transformer));
+        pool.release(transformer);
+
+        Transformer reused = pool.acquire();
+        assertSame(transformer, reused);
+        assertNull(reused.getParameter(PARAMETER));
+        assertEquals("default", transform(reused));
+    }
+
+    @Test
+    public void testIdleTransformersAreLimited() throws TransformerException {
+        TransformerPool pool = new TransformerPool(templates, 1);
+
+        Transformer first = pool.acquire();
+        Transformer second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+
+        assertSame(first, pool.acquire());
+        Transformer created = pool.acquire();
+        assertNotSame(first, created);
+        assertNotSame(second, created);
+    }
+
+    @Test
+    public void testReleaseNull() throws TransformerException {
+        TransformerPool pool = new TransformerPool(templates, 1);
+        pool.release(null);
+
+        assertEquals("default", transform(pool.acquire()));
+    }
+
+    private String transform(Transformer transformer) throws TransformerException {
+        StringWriter writer = new StringWriter();
+        transformer.transform(new StreamSource(new StringReader("<doc/>")),
+                new StreamResult(writer));
+        return writer.toString();
+    }
+}
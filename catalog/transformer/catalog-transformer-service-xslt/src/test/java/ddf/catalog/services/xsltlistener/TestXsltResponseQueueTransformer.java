@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.codec.binary.Base64;
+import org.custommonkey.xmlunit.Diff;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.transform.CatalogTransformerException;
+
+public class TestXsltResponseQueueTransformer {
+
+    private static final String IDENTITY_STYLESHEET =
+            "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                    + "<xsl:template match=\"@*|node()\"><xsl:copy>"
+                    + "<xsl:apply-templates select=\"@*|node()\"/>"
+                    + "</xsl:copy></xsl:template></xsl:stylesheet>";
+
+    private static final String PARAMETER_STYLESHEET =
+            "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                    + "<xsl:output method=\"text\"/>"
+                    + "<xsl:param name=\"grandTotal\"/><xsl:param name=\"title\"/>"
+                    + "<xsl:template match=\"/\">"
+                    + "<xsl:value-of select=\"$title\"/>:<xsl:value-of select=\"$grandTotal\"/>"
+                    + "</xsl:template></xsl:stylesheet>";
+
+    private static final String METADATA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<foo><bar attr=\"value\">text &amp; more</bar><baz/></foo>";
+
+    private static final String NAMESPACED_METADATA =
+            "<ns:record xmlns:ns=\"urn:example:record\" ns:version=\"2\">"
+                    + "<ns:title>Namespaced</ns:title>"
+                    + "<summary xmlns=\"urn:example:summary\">default namespace</summary>"
+                    + "</ns:record>";
+
+    private static final byte[] PNG_THUMBNAIL = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a,
+            '\n', 0, 0};
+
+    private XsltResponseQueueTransformer transformer;
+
+    @Before
+    public void setUp() {
+        transformer = newTransformer(IDENTITY_STYLESHEET);
+    }
+
+    @Test
+    public void testIdentityMatchesDomDocument() throws Exception {
+        List<Result> results = new ArrayList<>();
+
+        MetacardImpl full = new MetacardImpl();
+        full.setId("full");
+        full.setTitle("Full <title>");
+        full.setSourceId("source");
+        full.setContentTypeName("image");
+        full.setResourceURI(new URI("http://example.com/product"));
+        full.setThumbnail(PNG_THUMBNAIL);
+        full.setCreatedDate(new Date(1000));
+        full.setModifiedDate(new Date(2000));
+        full.setEffectiveDate(new Date(3000));
+        full.setLocation("POINT (1 2)");
+        full.setMetadata(METADATA);
+        ResultImpl fullResult = new ResultImpl(full);
+        fullResult.setRelevanceScore(0.5);
+        fullResult.setDistanceInMeters(100.0);
+        results.add(fullResult);
+
+        MetacardImpl minimal = new MetacardImpl();
+        minimal.setMetadata("<minimal/>");
+        results.add(new ResultImpl(minimal));
+
+        MetacardImpl unknownThumbnail = new MetacardImpl();
+        unknownThumbnail.setId("unknownThumbnail");
+        unknownThumbnail.setThumbnail(new byte[] {1, 2, 3});
+        unknownThumbnail.setMetadata(METADATA);
+        results.add(new ResultImpl(unknownThumbnail));
+
+        MetacardImpl namespaced = new MetacardImpl();
+        namespaced.setId("namespaced");
+        namespaced.setMetadata(NAMESPACED_METADATA);
+        results.add(new ResultImpl(namespaced));
+
+        MetacardImpl noMetadata = new MetacardImpl();
+        noMetadata.setId("noMetadata");
+        noMetadata.setTitle("skipped");
+        results.add(new ResultImpl(noMetadata));
+
+        byte[] output = transformer.transform(new SourceResponseImpl(null, results, 5L), null)
+                .getByteArray();
+
+        Diff diff = new Diff(buildDomDocument(results), parse(new InputSource(
+                new ByteArrayInputStream(output))));
+        assertTrue(diff.toString(), diff.identical());
+    }
+
+    @Test
+    public void testEmptyResults() throws Exception {
+        byte[] output = transformer
+                .transform(new SourceResponseImpl(null, new ArrayList<Result>(), 0L), null)
+                .getByteArray();
+
+        Diff diff = new Diff(buildDomDocument(new ArrayList<Result>()),
+                parse(new InputSource(new ByteArrayInputStream(output))));
+        assertTrue(diff.toString(), diff.identical());
+    }
+
+    @Test(expected = CatalogTransformerException.class)
+    public void testMalformedMetadata() throws CatalogTransformerException {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setMetadata("<foo><bar></foo>");
+        List<Result> results = new ArrayList<>();
+        results.add(new ResultImpl(metacard));
+
+        transformer.transform(new SourceResponseImpl(null, results, 1L), null);
+    }
+
+    @Test
+    public void testParameters() throws CatalogTransformerException, IOException {
+        XsltResponseQueueTransformer parameterTransformer = newTransformer(PARAMETER_STYLESHEET);
+        Map<String, Serializable> arguments = new HashMap<>();
+        arguments.put("title", "results");
+
+        byte[] output = parameterTransformer
+                .transform(new SourceResponseImpl(null, new ArrayList<Result>(), 42L), arguments)
+                .getByteArray();
+        assertEquals("results:42", new String(output, StandardCharsets.UTF_8));
+
+        // the parameters of the previous transform are not kept by the pooled transformer
+        output = parameterTransformer
+                .transform(new SourceResponseImpl(null, new ArrayList<Result>(), 7L), null)
+                .getByteArray();
+        assertEquals(":7", new String(output, StandardCharsets.UTF_8));
+    }
+
+    private XsltResponseQueueTransformer newTransformer(String stylesheet) {
+        XsltResponseQueueTransformer xsltTransformer = new XsltResponseQueueTransformer();
+        xsltTransformer.init("text/xml",
+                new ByteArrayInputStream(stylesheet.getBytes(StandardCharsets.UTF_8)));
+        return xsltTransformer;
+    }
+
+    /**
+     * Builds the results document as a DOM, the way the transformer did before it streamed the
+     * results to the stylesheet.
+     */
+    private Document buildDomDocument(List<Result> results)
+            throws ParserConfigurationException, IOException, SAXException {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element resultsElement = (Element) doc.appendChild(doc.createElementNS(null, "results"));
+        DateTimeFormatter fmt = ISODateTimeFormat.dateTime();
+
+        for (Result result : results) {
+            Metacard metacard = result.getMetacard();
+            if (metacard.getMetadata() == null) {
+                continue;
+            }
+            Element metacardElement = doc.createElementNS(null, "metacard");
+            appendElement(metacardElement, "id", metacard.getId());
+            appendElement(metacardElement, "type", metacard.getMetacardType().getName());
+            appendElement(metacardElement, "title", metacard.getTitle());
+            if (result.getRelevanceScore() != null) {
+                appendElement(metacardElement, "score", result.getRelevanceScore().toString());
+            }
+            if (result.getDistanceInMeters() != null) {
+                appendElement(metacardElement, "distance",
+                        result.getDistanceInMeters().toString());
+            }
+            appendElement(metacardElement, "site", metacard.getSourceId());
+            Element contentType = appendElement(metacardElement, "content-type",
+                    metacard.getContentTypeName());
+            if (contentType != null) {
+                contentType.setAttribute("qualifier", "content-type");
+            }
+            if (metacard.getResourceURI() != null) {
+                appendElement(metacardElement, "product", metacard.getResourceURI().toString());
+            }
+            if (metacard.getThumbnail() != null) {
+                appendElement(metacardElement, "thumbnail",
+                        Base64.encodeBase64String(metacard.getThumbnail()));
+                String mimeType = URLConnection.guessContentTypeFromStream(
+                        new ByteArrayInputStream(metacard.getThumbnail()));
+                Element mimeTypeElement = doc.createElementNS(null, "t_mimetype");
+                mimeTypeElement.setTextContent(mimeType);
+                metacardElement.appendChild(mimeTypeElement);
+            }
+            if (metacard.getCreatedDate() != null) {
+                appendElement(metacardElement, "created",
+                        fmt.print(metacard.getCreatedDate().getTime()));
+            }
+            if (metacard.getModifiedDate() != null) {
+                appendElement(metacardElement, "updated",
+                        fmt.print(metacard.getModifiedDate().getTime()));
+            }
+            if (metacard.getEffectiveDate() != null) {
+                appendElement(metacardElement, "effective",
+                        fmt.print(metacard.getEffectiveDate().getTime()));
+            }
+            appendElement(metacardElement, "location", metacard.getLocation());
+
+            Element documentElement = doc.createElementNS(null, "document");
+            documentElement.appendChild(doc.importNode(
+                    parse(new InputSource(new StringReader(metacard.getMetadata())))
+                            .getDocumentElement(), true));
+            metacardElement.appendChild(documentElement);
+            resultsElement.appendChild(metacardElement);
+        }
+        return doc;
+    }
+
+    /**
+     * @return the appended element, or null if the value is null
+     */
+    private Element appendElement(Element parent, String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        Element element = parent.getOwnerDocument().createElementNS(null, name);
+        element.setTextContent(value);
+        parent.appendChild(element);
+        return element;
+    }
+
+    private Document parse(InputSource source)
+            throws ParserConfigurationException, IOException, SAXException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(source);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.xml.sax.InputSource;
+
+import ddf.catalog.data.BinaryContent;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.transform.CatalogTransformerException;
+
+import net.sf.saxon.TransformerFactoryImpl;
+
+/**
+ * Measures the throughput of {@link XsltResponseQueueTransformer} as the number of calling
+ * threads grows, against creating a new {@link Transformer} for every transform of the same
+ * streamed results document.
+ * <p>
+ * Run from this module's directory, after {@code mvn test-compile}, with the test classpath:
+ * {@code java -cp <test classpath> ddf.catalog.services.xsltlistener.XsltResponseQueueTransformerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XsltResponseQueueTransformerBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+    private static final String STYLESHEET =
+            "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                    + "<xsl:param name=\"grandTotal\"/>"
+                    + "<xsl:template match=\"/results\">"
+                    + "<html><body><p><xsl:value-of select=\"$grandTotal\"/></p><ul>"
+                    + "<xsl:for-each select=\"metacard\"><li>"
+                    + "<xsl:value-of select=\"title\"/> <xsl:value-of select=\"updated\"/>"
+                    + "<xsl:copy-of select=\"document/*\"/>"
+                    + "</li></xsl:for-each></ul></body></html>"
+                    + "</xsl:template></xsl:stylesheet>";
+
+    private static final String METADATA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<ns:record xmlns:ns=\"urn:example:record\"><ns:title>title</ns:title>"
+            + "<ns:description>description</ns:description></ns:record>";
+
+    @Param({"10", "100"})
+    private int resultCount;
+
+    private XsltResponseQueueTransformer transformer;
+
+    private Templates templates;
+
+    private SourceResponse response;
+
+    @Setup
+    public void setUp() throws TransformerException {
+        transformer = new XsltResponseQueueTransformer();
+        transformer.init("text/html",
+                new ByteArrayInputStream(STYLESHEET.getBytes(StandardCharsets.UTF_8)));
+        templates = new TransformerFactoryImpl()
+                .newTemplates(new StreamSource(new StringReader(STYLESHEET)));
+
+        List<Result> results = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId("id" + i);
+            metacard.setSourceId("source");
+            metacard.setTitle("title" + i);
+            metacard.setModifiedDate(new Date());
+            metacard.setLocation("POINT (1 2)");
+            metacard.setThumbnail(new byte[] {0, 0, 1});
+            metacard.setMetadata(METADATA);
+            results.add(new ResultImpl(metacard));
+        }
+        response = new SourceResponseImpl(null, results, (long) resultCount);
+    }
+
+    @Benchmark
+    public BinaryContent pooledTransformer() throws CatalogTransformerException {
+        return transformer.transform(response, null);
+    }
+
+    @Benchmark
+    public byte[] newTransformer() throws TransformerException {
+        Transformer newTransformer = templates.newTransformer();
+        newTransformer.setParameter("grandTotal", response.getHits());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        newTransformer.transform(
+                new SAXSource(new ResultsXmlReader(response.getResults()), new InputSource()),
+                new StreamResult(output));
+        return output.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(XsltResponseQueueTransformerBenchmark.class.getSimpleName())
+                    .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+}
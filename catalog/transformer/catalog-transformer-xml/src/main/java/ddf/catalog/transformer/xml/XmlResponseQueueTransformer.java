@@ -16,16 +16,22 @@
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -199,6 +205,9 @@ protected StringWriter compute() {
                 StringWriter rightList = fRight.compute();
                 StringWriter leftList = fLeft.join();
 
+                if (leftList == null || rightList == null) {
+                    return null;
+                }
                 leftList.append(rightList.getBuffer());
                 return leftList;
             }
@@ -214,7 +223,28 @@ private StringWriter doCompute() {
                 throw new ConversionException("Unable to initialize pull parser.", e);
             }
 
+            try {
+                if (!writeResults(writer, parser)) {
+                    return null;
+                }
+            } catch (RuntimeException e) {
+                cancelOperation.set(true);
+                throw e;
+            }
+            writer.flush();
+            return stringWriter;
+        }
+
+        /**
+         * @return false if the chunk was cancelled before all of its results were written
+         */
+        private boolean writeResults(MetacardPrintWriter writer, XmlPullParser parser) {
             for (Result result : resultList) {
+                // another part of the response failed, or its stream was closed
+                if (cancelOperation.get()) {
+                    return false;
+                }
+
                 Metacard metacard = result.getMetacard();
                 writer.startNode("metacard");
                 if (metacard.getId() != null) {
@@ -251,7 +281,6 @@ private StringWriter doCompute() {
                         try {
                             writeAttributeToXml(writer, parser, attribute, format);
                         } catch (CatalogTransformerException | IOException e) {
-                            cancelOperation.set(true);
                             throw new RuntimeException("Failure to write node; operation aborted",
                                     e);
                         }
@@ -259,8 +288,7 @@ private StringWriter doCompute() {
                 }
                 writer.endNode(); // metacard
             }
-            writer.flush();
-            return stringWriter;
+            return true;
         }
 
         private void writeAttributeToXml(MetacardPrintWriter writer, XmlPullParser parser,
@@ -341,12 +369,168 @@ private String geoToXml(BinaryContent content, XmlPullParser parser) {
         }
     }
 
+    /**
+     * Encodes the results of a response in {@code threshold}-sized chunks on the
+     * {@code ForkJoinPool} as the stream is read. At most {@code window} chunks are encoded or
+     * waiting to be read at any time, and chunks are read in result order regardless of the
+     * order in which they complete.
+     */
+    // @NotThreadSafe
+    private static class MetacardStreamInputStream extends InputStream {
+        private static final byte[] EMPTY = new byte[0];
+
+        private final ImmutableList<Result> resultList;
+
+        private final ForkJoinPool fjp;
+
+        private final GeometryTransformer geometryTransformer;
+
+        private final int chunkSize;
+
+        private final int window;
+
+        private final byte[] footer;
+
+        private final AtomicBoolean cancelOperation = new AtomicBoolean(false);
+
+        private final Deque<ForkJoinTask<StringWriter>> pending = new ArrayDeque<>();
+
+        private int nextIndex;
+
+        private byte[] buffer;
+
+        private int position;
+
+        private boolean footerRead;
+
+        MetacardStreamInputStream(String header, String footer, ImmutableList<Result> resultList,
+                ForkJoinPool fjp, GeometryTransformer geometryTransformer, int chunkSize,
+                int window) {
+            this.resultList = resultList;
+            this.fjp = fjp;
+            this.geometryTransformer = geometryTransformer;
+            this.chunkSize = chunkSize;
+            this.window = window;
+            this.buffer = header.getBytes(StandardCharsets.UTF_8);
+            this.footer = footer.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+
+            int total = 0;
+            while (total < len && fill()) {
+                int count = Math.min(len - total, buffer.length - position);
+                System.arraycopy(buffer, position, b, off + total, count);
+                position += count;
+                total += count;
+            }
+            return total == 0 ? -1 : total;
+        }
+
+        @Override
+        public int available() {
+            return buffer.length - position;
+        }
+
+        @Override
+        public void close() {
+            cancelOperation.set(true);
+            for (ForkJoinTask<StringWriter> task : pending) {
+                task.cancel(true);
+            }
+            pending.clear();
+            buffer = EMPTY;
+            position = 0;
+            footerRead = true;
+        }
+
+        private boolean fill() throws IOException {
+            while (position >= buffer.length) {
+                if (footerRead) {
+                    return false;
+                }
+
+                submitChunks();
+                ForkJoinTask<StringWriter> task = pending.poll();
+                if (task != null) {
+                    buffer = awaitChunk(task);
+                } else {
+                    buffer = footer;
+                    footerRead = true;
+                }
+                position = 0;
+            }
+            return true;
+        }
+
+        private void submitChunks() {
+            while (pending.size() < window && nextIndex < resultList.size()) {
+                int end = Math.min(nextIndex + chunkSize, resultList.size());
+                // a fork threshold above the chunk size transforms each chunk serially
+                pending.add(fjp.submit(
+                        new MetacardForkTask(resultList.subList(nextIndex, end), fjp,
+                                geometryTransformer, chunkSize + 1, cancelOperation)));
+                nextIndex = end;
+            }
+        }
+
+        private byte[] awaitChunk(ForkJoinTask<StringWriter> task) throws IOException {
+            try {
+                StringWriter chunk = task.get();
+                if (chunk == null) {
+                    throw cancelled();
+                }
+                return chunk.toString().getBytes(StandardCharsets.UTF_8);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IOException("Interrupted while transforming query response", e);
+            } catch (ExecutionException e) {
+                close();
+                throw new IOException("Failed Query response transformation", e.getCause());
+            }
+        }
+
+        /**
+         * @return the exception for a chunk that was cancelled because another chunk failed,
+         *         caused by that failure if it has completed
+         */
+        private IOException cancelled() {
+            Throwable cause = null;
+            for (ForkJoinTask<StringWriter> task : pending) {
+                if (task.isCompletedAbnormally()) {
+                    cause = task.getException();
+                    break;
+                }
+            }
+            close();
+            return new IOException("Failed Query response transformation", cause);
+        }
+    }
+
     private final ForkJoinPool fjp;
 
     private final GeometryTransformer geometryTransformer;
 
     private int threshold;
 
+    private boolean streaming;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(XmlResponseQueueTransformer.class);
 
     public static final MimeType MIME_TYPE = new MimeType();
@@ -415,11 +599,21 @@ public void setThreshold(int threshold) {
         this.threshold = threshold <= 1 ? 2 : threshold;
     }
 
+    /**
+     * @param streaming if true, the returned content is transformed as it is read, in
+     *                  threshold-sized chunks of results, so that only the chunks being
+     *                  transformed in parallel are held in memory; otherwise the whole response
+     *                  is transformed before it is returned
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     @Override
     public BinaryContent transform(SourceResponse response, Map<String, Serializable> args)
             throws CatalogTransformerException {
         try {
-            Writer stringWriter = new StringWriter(BUFFER_SIZE);
+            StringWriter stringWriter = new StringWriter(BUFFER_SIZE);
             stringWriter.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
 
             MetacardPrintWriter writer = new MetacardPrintWriter(stringWriter);
@@ -429,6 +623,10 @@ public BinaryContent transform(SourceResponse response, Map<String, Serializable
                 writer.addAttribute(nsRow.getKey(), nsRow.getValue());
             }
 
+            if (streaming && response.getResults() != null && !response.getResults().isEmpty()) {
+                return streamingTransform(response, stringWriter, writer);
+            }
+
             if (response.getResults() != null && !response.getResults().isEmpty()) {
                 StringWriter metacardContent = fjp
                         .invoke(new MetacardForkTask(ImmutableList.copyOf(response.getResults()),
@@ -448,4 +646,22 @@ public BinaryContent transform(SourceResponse response, Map<String, Serializable
             throw new CatalogTransformerException("Failed Query response transformation");
         }
     }
+
+    private BinaryContent streamingTransform(SourceResponse response, StringWriter stringWriter,
+            MetacardPrintWriter writer) {
+        // write the metacards element around an empty value to split it into header and footer
+        writer.setRawValue("");
+        writer.flush();
+        StringBuffer document = stringWriter.getBuffer();
+        int headerLength = document.length();
+        writer.endNode(); // metacards
+        writer.flush();
+
+        String header = document.substring(0, headerLength);
+        String footer = document.substring(headerLength);
+
+        return new BinaryContentImpl(new MetacardStreamInputStream(header, footer,
+                ImmutableList.copyOf(response.getResults()), fjp, geometryTransformer, threshold,
+                fjp.getParallelism() * 2), MIME_TYPE);
+    }
 }
@@ -36,7 +36,9 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import org.codice.ddf.parser.Parser;
 import org.codice.ddf.parser.xml.XmlParser;
@@ -52,6 +54,7 @@
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
@@ -350,6 +353,126 @@ public void testCompareSerialToFork() throws IOException, CatalogTransformerExce
         assertEquals(serialOutput.replaceAll("\\s", ""), forkOutput.replaceAll("\\s", ""));
     }
 
+    @Test
+    public void testCompareBufferedToStreaming() throws IOException, CatalogTransformerException {
+        Metacard[] metacards = new Metacard[25];
+        for (int i = 0; i < metacards.length; i++) {
+            metacards[i] = new MetacardStub("source" + i, "id" + i);
+        }
+        SourceResponse response = givenSourceResponse(metacards);
+
+        XmlResponseQueueTransformer bufferedXform = new XmlResponseQueueTransformer(parser, FJP);
+        bufferedXform.setThreshold(4);
+        XmlResponseQueueTransformer streamingXform = new XmlResponseQueueTransformer(parser, FJP);
+        streamingXform.setThreshold(4);
+        streamingXform.setStreaming(true);
+
+        String bufferedOutput = new String(
+                bufferedXform.transform(response, null).getByteArray());
+        String streamingOutput = new String(
+                streamingXform.transform(response, null).getByteArray());
+
+        assertEquals(bufferedOutput.replaceAll("\\s", ""),
+                streamingOutput.replaceAll("\\s", ""));
+    }
+
+    @Test
+    public void testStreamingOrder()
+            throws CatalogTransformerException, IOException, XpathException, SAXException {
+        // given
+        transformer.setThreshold(2);
+        transformer.setStreaming(true);
+
+        Metacard[] metacards = new Metacard[50];
+        for (int i = 0; i < metacards.length; i++) {
+            metacards[i] = new MetacardStub(DEFAULT_SOURCE_ID, "id" + i);
+        }
+        SourceResponse response = givenSourceResponse(metacards);
+
+        // when
+        BinaryContent binaryContent = transformer.transform(response, null);
+
+        // then
+        assertThat(binaryContent.getMimeType(), is(XmlResponseQueueTransformer.MIME_TYPE));
+
+        String output = new String(binaryContent.getByteArray());
+
+        print(output, verboseDebug);
+
+        assertXpathEvaluatesTo("50", "count(/mc:metacards/mc:metacard)", output);
+        for (int i = 0; i < metacards.length; i++) {
+            assertXpathEvaluatesTo("id" + i,
+                    "/mc:metacards/mc:metacard[" + (i + 1) + "]/@gml:id", output);
+        }
+        verifyDefaults("50", output);
+    }
+
+    /**
+     * A chunk that is cancelled because a later chunk failed is read as a failed response.
+     */
+    @Test(expected = IOException.class)
+    public void testStreamingFailedAttribute() throws CatalogTransformerException, IOException {
+        // given
+        final CountDownLatch failing = new CountDownLatch(1);
+        MetacardStub invalidLocation = new MetacardStub(DEFAULT_SOURCE_ID, "invalid") {
+            @Override
+            public Attribute getAttribute(String name) {
+                if (Metacard.GEOGRAPHY.equals(name)) {
+                    failing.countDown();
+                }
+                return super.getAttribute(name);
+            }
+        };
+        invalidLocation.setLocation("POLYGON ((35 10, 10 20");
+        // waits for the invalid location to fail its chunk, which cancels this result's chunk
+        Result waiting = new ResultImpl(new MetacardStub(DEFAULT_SOURCE_ID, "waiting")) {
+            @Override
+            public Metacard getMetacard() {
+                try {
+                    failing.await(5, TimeUnit.SECONDS);
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getMetacard();
+            }
+        };
+        SourceResponse response = new SourceResponseImpl(null, Arrays.asList(waiting,
+                new ResultImpl(new MetacardStub(DEFAULT_SOURCE_ID, "id1")),
+                new ResultImpl(invalidLocation),
+                new ResultImpl(new MetacardStub(DEFAULT_SOURCE_ID, "id3"))));
+
+        ForkJoinPool fjp = new ForkJoinPool(2);
+        try {
+            XmlResponseQueueTransformer streamingXform = new XmlResponseQueueTransformer(parser,
+                    fjp);
+            streamingXform.setThreshold(2);
+            streamingXform.setStreaming(true);
+
+            // when
+            streamingXform.transform(response, null).getByteArray();
+        } finally {
+            fjp.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamingEmptyResponse()
+            throws CatalogTransformerException, IOException, XpathException, SAXException {
+        // given
+        transformer.setStreaming(true);
+
+        SourceResponse response = givenSourceResponse();
+
+        // when
+        BinaryContent binaryContent = transformer.transform(response, null);
+
+        // then
+        String output = new String(binaryContent.getByteArray());
+
+        assertXpathEvaluatesTo("0", "count(/mc:metacards/mc:metacard)", output);
+    }
+
     @Test
     public void testXmlResponseQueueTransformer() throws Exception {
 
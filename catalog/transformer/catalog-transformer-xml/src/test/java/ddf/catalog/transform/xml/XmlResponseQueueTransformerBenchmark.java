@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transform.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.codice.ddf.parser.xml.XmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transformer.xml.XmlResponseQueueTransformer;
+
+/**
+ * Compares the time to read the first whole {@code metacard} element and the time to read the
+ * whole response of {@link XmlResponseQueueTransformer} with and without streaming. The header
+ * before the first metacard is written up front either way, so it is not a useful measure.
+ * <p>
+ * Run from this module's directory, after {@code mvn test-compile}, with the test classpath:
+ * {@code java -cp <test classpath> ddf.catalog.transform.xml.XmlResponseQueueTransformerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XmlResponseQueueTransformerBenchmark {
+
+    private static final String GEOMETRY = "POLYGON ((35 10, 10 20, 15 40, 45 45, 35 10),(20 30, 35 35, 30 20, 20 30))";
+
+    private static final String METADATA = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><foo><bar/></foo>";
+
+    private static final byte[] METACARD_END = "</metacard>".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"100", "1000", "10000"})
+    private int resultCount;
+
+    private ForkJoinPool fjp;
+
+    private XmlResponseQueueTransformer bufferedTransformer;
+
+    private XmlResponseQueueTransformer streamingTransformer;
+
+    private SourceResponse response;
+
+    private final byte[] readBuffer = new byte[8192];
+
+    @Setup
+    public void setUp() {
+        fjp = new ForkJoinPool();
+        XmlParser parser = new XmlParser();
+
+        bufferedTransformer = new XmlResponseQueueTransformer(parser, fjp);
+        bufferedTransformer.setThreshold(50);
+        streamingTransformer = new XmlResponseQueueTransformer(parser, fjp);
+        streamingTransformer.setThreshold(50);
+        streamingTransformer.setStreaming(true);
+
+        List<Result> results = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId("id" + i);
+            metacard.setSourceId("source");
+            metacard.setTitle("title" + i);
+            metacard.setExpirationDate(new Date());
+            metacard.setLocation(GEOMETRY);
+            metacard.setMetadata(METADATA);
+            metacard.setThumbnail(new byte[] {0, 0, 1});
+            results.add(new ResultImpl(metacard));
+        }
+        response = new SourceResponseImpl(null, results);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fjp.shutdown();
+    }
+
+    @Benchmark
+    public long bufferedFirstMetacard() throws CatalogTransformerException, IOException {
+        return firstMetacard(bufferedTransformer);
+    }
+
+    @Benchmark
+    public long streamingFirstMetacard() throws CatalogTransformerException, IOException {
+        return firstMetacard(streamingTransformer);
+    }
+
+    @Benchmark
+    public long bufferedFullResponse() throws CatalogTransformerException, IOException {
+        return fullResponse(bufferedTransformer);
+    }
+
+    @Benchmark
+    public long streamingFullResponse() throws CatalogTransformerException, IOException {
+        return fullResponse(streamingTransformer);
+    }
+
+    /**
+     * @return the length of the response up to the end of its first metacard
+     */
+    private long firstMetacard(XmlResponseQueueTransformer transformer)
+            throws CatalogTransformerException, IOException {
+        long length = 0;
+        int matched = 0;
+        try (InputStream stream = transformer.transform(response, null).getInputStream()) {
+            int read;
+            while ((read = stream.read(readBuffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (readBuffer[i] == METACARD_END[matched]) {
+                        matched++;
+                        if (matched == METACARD_END.length) {
+                            return length + i + 1;
+                        }
+                    } else {
+                        matched = (readBuffer[i] == METACARD_END[0]) ? 1 : 0;
+                    }
+                }
+                length += read;
+            }
+        }
+        throw new IllegalStateException("The response has no metacard");
+    }
+
+    private long fullResponse(XmlResponseQueueTransformer transformer)
+            throws CatalogTransformerException, IOException {
+        long length = 0;
+        try (InputStream stream = transformer.transform(response, null).getInputStream()) {
+            int read;
+            while ((read = stream.read(readBuffer)) != -1) {
+                length += read;
+            }
+        }
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(XmlResponseQueueTransformerBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -30,9 +30,6 @@
 import org.codice.ddf.ui.searchui.query.solr.FilteringDynamicSchemaResolver;
 import org.cometd.bayeux.server.ServerSession;
 import org.opengis.filter.Filter;
-import org.opengis.filter.expression.PropertyName;
-import org.opengis.filter.sort.SortBy;
-import org.opengis.filter.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,9 +54,7 @@
 import ddf.catalog.operation.impl.QueryResponseImpl;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
-import ddf.catalog.util.impl.DistanceResultComparator;
-import ddf.catalog.util.impl.RelevanceResultComparator;
-import ddf.catalog.util.impl.TemporalResultComparator;
+import ddf.catalog.util.impl.ResultComparators;
 import ddf.security.SecurityConstants;
 import ddf.security.Subject;
 
@@ -192,28 +187,7 @@ protected String getResultKey(Metacard metacard) {
     }
 
     protected Comparator<Result> getResultComparator(Query query) {
-        Comparator<Result> sortComparator = new RelevanceResultComparator(SortOrder.DESCENDING);
-        SortBy sortBy = query.getSortBy();
-
-        if (sortBy != null && sortBy.getPropertyName() != null) {
-            PropertyName sortingProp = sortBy.getPropertyName();
-            String sortType = sortingProp.getPropertyName();
-            SortOrder sortOrder = (sortBy.getSortOrder() == null) ?
-                    SortOrder.DESCENDING :
-                    sortBy.getSortOrder();
-
-            // Temporal searches are currently sorted by the effective time
-            if (Metacard.EFFECTIVE.equals(sortType) || Result.TEMPORAL.equals(sortType)) {
-                sortComparator = new TemporalResultComparator(sortOrder);
-            } else if (Metacard.CREATED.equals(sortType) || Metacard.MODIFIED.equals(sortType)) {
-                sortComparator = new TemporalResultComparator(sortOrder, sortType);
-            } else if (Result.DISTANCE.equals(sortType)) {
-                sortComparator = new DistanceResultComparator(sortOrder);
-            } else if (Result.RELEVANCE.equals(sortType)) {
-                sortComparator = new RelevanceResultComparator(sortOrder);
-            }
-        }
-        return sortComparator;
+        return ResultComparators.create(query.getSortBy());
     }
 
     protected QueryResponse queryCatalog(String sourceId, SearchRequest searchRequest,
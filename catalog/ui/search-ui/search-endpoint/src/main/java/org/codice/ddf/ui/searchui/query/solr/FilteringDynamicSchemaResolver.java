@@ -44,6 +44,7 @@ public FilteringDynamicSchemaResolver(FilterAdapter filterAdapter,
 
         usedFields.add(Metacard.ID + SchemaFields.TEXT_SUFFIX);
         usedFields.add(SchemaFields.METACARD_TYPE_FIELD_NAME);
+        usedFields.add(SchemaFields.METACARD_TYPE_VERSION_FIELD_NAME);
 
         SolrFilterDelegate solrFilterDelegate = filterDelegateFactory
                 .newInstance(this);
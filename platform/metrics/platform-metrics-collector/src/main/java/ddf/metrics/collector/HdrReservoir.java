@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A fixed memory {@link Reservoir} that counts values in HdrHistogram style log-linear buckets
+ * rather than keeping every value.
+ * <p>
+ * Values below 64 have their own bucket, larger values share buckets with a relative width of
+ * 1/64, so percentiles are accurate to within about 1.6%. Values larger than 2^40 are counted as
+ * 2^40 and negative values as 0. Recording a value is lock-free and does not allocate.
+ * <p>
+ * Like a {@link com.codahale.metrics.SlidingTimeWindowReservoir}, snapshots only cover recent
+ * values: the reservoir keeps two windows of buckets and a snapshot includes the current window and
+ * the previous one.
+ */
+public class HdrReservoir implements Reservoir {
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_VALUE_BITS = 40;
+
+    static final long MAX_VALUE = 1L << MAX_VALUE_BITS;
+
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final Clock clock;
+
+    private final long windowNanos;
+
+    private volatile Window current;
+
+    private volatile Window previous;
+
+    /**
+     * Creates a reservoir with one minute windows.
+     */
+    public HdrReservoir() {
+        this(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @param window
+     *            the length of a window
+     * @param windowUnit
+     *            the unit of the window
+     */
+    public HdrReservoir(long window, TimeUnit windowUnit) {
+        this(window, windowUnit, Clock.defaultClock());
+    }
+
+    HdrReservoir(long window, TimeUnit windowUnit, Clock clock) {
+        this.clock = clock;
+        this.windowNanos = windowUnit.toNanos(window);
+        long now = clock.getTick();
+        this.current = new Window(now);
+        this.previous = new Window(now - windowNanos);
+    }
+
+    @Override
+    public int size() {
+        Window active = rotate(clock.getTick());
+        return (int) Math.min(Integer.MAX_VALUE, active.count.get() + previous.count.get());
+    }
+
+    @Override
+    public void update(long value) {
+        long clamped = Math.max(0, Math.min(MAX_VALUE, value));
+        Window active = rotate(clock.getTick());
+        active.buckets.incrementAndGet(bucketIndex(clamped));
+        active.count.incrementAndGet();
+        active.sum.addAndGet(clamped);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        Window active = rotate(clock.getTick());
+        Window last = previous;
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = active.buckets.get(i) + last.buckets.get(i);
+        }
+        return new BucketSnapshot(counts, active.sum.get() + last.sum.get());
+    }
+
+    /**
+     * @return the current window, after starting a new one if the current window has ended
+     */
+    private Window rotate(long now) {
+        Window active = current;
+        if (now - active.start < windowNanos) {
+            return active;
+        }
+
+        synchronized (this) {
+            active = current;
+            if (now - active.start >= windowNanos) {
+                // reuse the buckets of the window that is no longer included in snapshots
+                Window reused = previous;
+                if (now - active.start >= 2 * windowNanos) {
+                    active.reset(now - windowNanos);
+                }
+                reused.reset(now);
+                previous = active;
+                current = reused;
+                active = reused;
+            }
+        }
+        return active;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT * (shift + 1) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * @return the value in the middle of the bucket
+     */
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowest = ((long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT)) << shift;
+        return lowest + ((1L << shift) >>> 1);
+    }
+
+    private static final class Window {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong sum = new AtomicLong();
+
+        private volatile long start;
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        private void reset(long newStart) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            start = newStart;
+        }
+    }
+
+    /**
+     * A {@link Snapshot} of the bucket counts.
+     */
+    static final class BucketSnapshot extends Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        private final int lowest;
+
+        private final int highest;
+
+        BucketSnapshot(long[] counts, long sum) {
+            this.counts = counts;
+            this.sum = sum;
+
+            long total = 0;
+            int low = -1;
+            int high = -1;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    total += counts[i];
+                    if (low < 0) {
+                        low = i;
+                    }
+                    high = i;
+                }
+            }
+            this.count = total;
+            this.lowest = low;
+            this.highest = high;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            }
+            if (count == 0) {
+                return 0.0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = lowest; i <= highest; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return bucketValue(i);
+                }
+            }
+            return bucketValue(highest);
+        }
+
+        /**
+         * @return the value of the bucket of each counted value, which allocates an array of
+         *         {@link #size()} values
+         */
+        @Override
+        public long[] getValues() {
+            long[] values = new long[size()];
+            int next = 0;
+            for (int i = lowest; i >= 0 && i <= highest && next < values.length; i++) {
+                long value = bucketValue(i);
+                for (long j = 0; j < counts[i] && next < values.length; j++) {
+                    values[next++] = value;
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(Integer.MAX_VALUE, count);
+        }
+
+        @Override
+        public long getMax() {
+            return (count == 0) ? 0 : bucketValue(highest);
+        }
+
+        @Override
+        public double getMean() {
+            return (count == 0) ? 0.0 : (double) sum / count;
+        }
+
+        @Override
+        public long getMin() {
+            return (count == 0) ? 0 : bucketValue(lowest);
+        }
+
+        @Override
+        public double getStdDev() {
+            if (count <= 1) {
+                return 0.0;
+            }
+            double mean = getMean();
+            double variance = 0.0;
+            for (int i = lowest; i <= highest; i++) {
+                if (counts[i] > 0) {
+                    double diff = bucketValue(i) - mean;
+                    variance += counts[i] * diff * diff;
+                }
+            }
+            return Math.sqrt(variance / (count - 1));
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            PrintWriter out = new PrintWriter(
+                    new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            try {
+                for (int i = lowest; i >= 0 && i <= highest; i++) {
+                    for (long j = 0; j < counts[i]; j++) {
+                        out.printf("%d%n", bucketValue(i));
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
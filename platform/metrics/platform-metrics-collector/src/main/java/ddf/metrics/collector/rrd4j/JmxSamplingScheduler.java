@@ -0,0 +1,410 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.rrd4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the MBean attributes of all the {@link RrdJmxCollector}s with a single scheduler thread.
+ * <p>
+ * Collectors are grouped by sample rate and then by MBean, so that each MBean is read with one
+ * {@link MBeanServer#getAttributes(ObjectName, String[])} call per sampling pass. Sampling passes
+ * run on the step boundaries of their sample rate and write the RRD updates of all their collectors
+ * together once the MBeans have been read, all with the same timestamp. The scheduler thread is
+ * started when the first collector is registered and stopped when the last one is unregistered.
+ * <p>
+ * The scheduler's own metrics are available through JMX as a {@link JmxSamplingSchedulerMBean}.
+ */
+public class JmxSamplingScheduler implements JmxSamplingSchedulerMBean {
+
+    public static final String MBEAN_NAME_PREFIX = "ddf.metrics.collector:type=JmxSamplingScheduler";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JmxSamplingScheduler.class);
+
+    private static final int MILLIS_PER_SECOND = 1000;
+
+    private static final JmxSamplingScheduler INSTANCE = new JmxSamplingScheduler(
+            ManagementFactory.getPlatformMBeanServer());
+
+    private final MBeanServer mBeanServer;
+
+    /**
+     * The sample groups by sample rate, in seconds. Guarded by this.
+     */
+    private final Map<Integer, SampleGroup> groups = new HashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    private ObjectName objectName;
+
+    private final AtomicLong samplesWritten = new AtomicLong();
+
+    private final AtomicLong sampleErrors = new AtomicLong();
+
+    private volatile long lastSampleDurationMillis;
+
+    private volatile long maxSampleDurationMillis;
+
+    private volatile long lastWriteDurationMillis;
+
+    JmxSamplingScheduler(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * @return the scheduler shared by the collectors of this class loader
+     */
+    public static JmxSamplingScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts sampling the collector's MBean attribute at the collector's sample rate.
+     *
+     * @param collector
+     *            the collector to sample
+     * @throws MalformedObjectNameException
+     *             if the collector's MBean name is invalid
+     */
+    public synchronized void register(RrdJmxCollector collector)
+            throws MalformedObjectNameException {
+        ObjectName name = collector.getObjectName();
+        int sampleRate = Math.max(1, collector.getSampleRate());
+
+        if (executor == null) {
+            start();
+        }
+
+        SampleGroup group = groups.get(sampleRate);
+        if (group == null) {
+            group = new SampleGroup(sampleRate);
+            groups.put(sampleRate, group);
+            long periodMillis = sampleRate * MILLIS_PER_SECOND;
+            long initialDelay = periodMillis - (System.currentTimeMillis() % periodMillis);
+            group.future = executor
+                    .scheduleAtFixedRate(group, initialDelay, periodMillis, TimeUnit.MILLISECONDS);
+            LOGGER.debug("Scheduled sampling every {} seconds", sampleRate);
+        }
+        group.add(name, collector);
+    }
+
+    /**
+     * Stops sampling the collector's MBean attribute.
+     *
+     * @param collector
+     *            the collector to stop sampling
+     */
+    public synchronized void unregister(RrdJmxCollector collector) {
+        for (Map.Entry<Integer, SampleGroup> entry : new ArrayList<>(groups.entrySet())) {
+            SampleGroup group = entry.getValue();
+            if (group.remove(collector) && group.isEmpty()) {
+                group.future.cancel(false);
+                groups.remove(entry.getKey());
+                LOGGER.debug("Cancelled sampling every {} seconds", entry.getKey());
+            }
+        }
+
+        if (groups.isEmpty() && executor != null) {
+            stop();
+        }
+    }
+
+    private void start() {
+        ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "JmxSamplingScheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        scheduledExecutor.setRemoveOnCancelPolicy(true);
+        executor = scheduledExecutor;
+
+        try {
+            objectName = new ObjectName(
+                    MBEAN_NAME_PREFIX + ",id=" + Integer.toHexString(System.identityHashCode(this)));
+            try {
+                mBeanServer.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                mBeanServer.unregisterMBean(objectName);
+                mBeanServer.registerMBean(this, objectName);
+            }
+            LOGGER.debug("Registered JMX sampling scheduler MBean {}", objectName);
+        } catch (JMException e) {
+            LOGGER.warn("Unable to register JMX sampling scheduler MBean", e);
+            objectName = null;
+        }
+    }
+
+    private void stop() {
+        executor.shutdownNow();
+        executor = null;
+
+        if (objectName != null) {
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.debug("Unable to unregister JMX sampling scheduler MBean", e);
+            }
+            objectName = null;
+        }
+    }
+
+    @Override
+    public synchronized int getCollectorCount() {
+        int count = 0;
+        for (SampleGroup group : groups.values()) {
+            for (MBeanSamples samples : group.samples) {
+                count += samples.collectors.length;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized int getMBeanCount() {
+        int count = 0;
+        for (SampleGroup group : groups.values()) {
+            count += group.samples.length;
+        }
+        return count;
+    }
+
+    @Override
+    public long getSamplesWritten() {
+        return samplesWritten.get();
+    }
+
+    @Override
+    public long getSampleErrors() {
+        return sampleErrors.get();
+    }
+
+    @Override
+    public long getLastSampleDurationMillis() {
+        return lastSampleDurationMillis;
+    }
+
+    @Override
+    public long getMaxSampleDurationMillis() {
+        return maxSampleDurationMillis;
+    }
+
+    @Override
+    public long getLastWriteDurationMillis() {
+        return lastWriteDurationMillis;
+    }
+
+    /**
+     * Runs a sampling pass of every sample rate in the calling thread.
+     */
+    void sampleNow() {
+        List<SampleGroup> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(groups.values());
+        }
+        for (SampleGroup group : snapshot) {
+            sample(group);
+        }
+    }
+
+    /**
+     * Reads the attributes of each MBean of a sample group and then writes their values.
+     */
+    private void sample(SampleGroup group) {
+        long start = System.currentTimeMillis();
+        MBeanSamples[] samples = group.samples;
+
+        // round to the step boundary the pass was scheduled for
+        long now = Math.round((double) start / (group.sampleRate * MILLIS_PER_SECOND))
+                * group.sampleRate;
+
+        Object[][] values = new Object[samples.length][];
+        for (int i = 0; i < samples.length; i++) {
+            values[i] = read(samples[i]);
+        }
+
+        long writeStart = System.currentTimeMillis();
+        for (int i = 0; i < samples.length; i++) {
+            RrdJmxCollector[] collectors = samples[i].collectors;
+            for (int j = 0; j < collectors.length; j++) {
+                try {
+                    if (collectors[j].recordSample(now, values[i][j])) {
+                        samplesWritten.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    sampleErrors.incrementAndGet();
+                    LOGGER.warn("Error updating RRD for metric {}", collectors[j].getMetricName(),
+                            e);
+                }
+            }
+        }
+
+        long end = System.currentTimeMillis();
+        lastWriteDurationMillis = end - writeStart;
+        lastSampleDurationMillis = end - start;
+        maxSampleDurationMillis = Math.max(maxSampleDurationMillis, lastSampleDurationMillis);
+    }
+
+    /**
+     * @return the attribute value of each of the MBean's collectors, null for attributes that
+     *         could not be read
+     */
+    private Object[] read(MBeanSamples samples) {
+        Object[] values = new Object[samples.collectors.length];
+        try {
+            AttributeList attributes = mBeanServer
+                    .getAttributes(samples.objectName, samples.attributeNames);
+            Map<String, Object> byName = new HashMap<>(attributes.size() * 2);
+            for (Object attribute : attributes) {
+                byName.put(((Attribute) attribute).getName(), ((Attribute) attribute).getValue());
+            }
+            for (int i = 0; i < values.length; i++) {
+                values[i] = byName.get(samples.collectors[i].getMbeanAttributeName());
+            }
+        } catch (InstanceNotFoundException | ReflectionException e) {
+            LOGGER.warn("Problems getting attributes of MBean {}", samples.objectName, e);
+        }
+
+        for (Object value : values) {
+            if (value == null) {
+                sampleErrors.incrementAndGet();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The collectors sampled at the same rate.
+     */
+    private final class SampleGroup implements Runnable {
+
+        private final int sampleRate;
+
+        /**
+         * The collectors by MBean. Guarded by the {@link JmxSamplingScheduler}.
+         */
+        private final Map<ObjectName, List<RrdJmxCollector>> collectors = new LinkedHashMap<>();
+
+        /**
+         * Snapshot of {@link #collectors} read by the sampling passes.
+         */
+        private volatile MBeanSamples[] samples = new MBeanSamples[0];
+
+        private ScheduledFuture<?> future;
+
+        private SampleGroup(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        private void add(ObjectName name, RrdJmxCollector collector) {
+            List<RrdJmxCollector> list = collectors.get(name);
+            if (list == null) {
+                list = new ArrayList<>();
+                collectors.put(name, list);
+            }
+            if (!list.contains(collector)) {
+                list.add(collector);
+                update();
+            }
+        }
+
+        private boolean remove(RrdJmxCollector collector) {
+            for (Map.Entry<ObjectName, List<RrdJmxCollector>> entry : collectors.entrySet()) {
+                if (entry.getValue().remove(collector)) {
+                    if (entry.getValue().isEmpty()) {
+                        collectors.remove(entry.getKey());
+                    }
+                    update();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isEmpty() {
+            return collectors.isEmpty();
+        }
+
+        private void update() {
+            MBeanSamples[] updated = new MBeanSamples[collectors.size()];
+            int i = 0;
+            for (Map.Entry<ObjectName, List<RrdJmxCollector>> entry : collectors.entrySet()) {
+                updated[i++] = new MBeanSamples(entry.getKey(), entry.getValue());
+            }
+            samples = updated;
+        }
+
+        @Override
+        public void run() {
+            try {
+                sample(this);
+            } catch (RuntimeException e) {
+                // an exception would cancel all further sampling passes
+                LOGGER.warn("Error sampling MBeans every {} seconds", sampleRate, e);
+            }
+        }
+    }
+
+    /**
+     * The collectors of a single MBean.
+     */
+    private static final class MBeanSamples {
+
+        private final ObjectName objectName;
+
+        private final RrdJmxCollector[] collectors;
+
+        private final String[] attributeNames;
+
+        private MBeanSamples(ObjectName objectName, List<RrdJmxCollector> collectors) {
+            this.objectName = objectName;
+            this.collectors = collectors.toArray(new RrdJmxCollector[collectors.size()]);
+
+            List<String> names = new ArrayList<>(collectors.size());
+            for (RrdJmxCollector collector : collectors) {
+                if (!names.contains(collector.getMbeanAttributeName())) {
+                    names.add(collector.getMbeanAttributeName());
+                }
+            }
+            this.attributeNames = names.toArray(new String[names.size()]);
+        }
+    }
+}
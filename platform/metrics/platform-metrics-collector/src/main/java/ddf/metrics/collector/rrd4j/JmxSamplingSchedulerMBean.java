@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.rrd4j;
+
+/**
+ * Self metrics of the {@link JmxSamplingScheduler}, exposed through JMX.
+ */
+public interface JmxSamplingSchedulerMBean {
+
+    /**
+     * @return the number of {@link RrdJmxCollector}s being sampled
+     */
+    int getCollectorCount();
+
+    /**
+     * @return the number of distinct MBeans being sampled
+     */
+    int getMBeanCount();
+
+    /**
+     * @return the total number of samples written to RRD files
+     */
+    long getSamplesWritten();
+
+    /**
+     * @return the total number of samples that could not be read or written
+     */
+    long getSampleErrors();
+
+    /**
+     * @return the duration of the last sampling pass, in milliseconds
+     */
+    long getLastSampleDurationMillis();
+
+    /**
+     * @return the longest duration of a sampling pass, in milliseconds
+     */
+    long getMaxSampleDurationMillis();
+
+    /**
+     * @return the duration of the RRD writes of the last sampling pass, in milliseconds
+     */
+    long getLastWriteDurationMillis();
+}
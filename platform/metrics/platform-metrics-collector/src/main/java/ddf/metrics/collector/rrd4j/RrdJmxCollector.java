@@ -16,19 +16,12 @@
 import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
-import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
-import javax.management.AttributeNotFoundException;
-import javax.management.InstanceNotFoundException;
-import javax.management.MBeanException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
-import javax.management.ReflectionException;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
@@ -45,6 +38,10 @@
 import ddf.metrics.collector.JmxCollector;
 import ddf.metrics.collector.MetricsUtil;
 
+/**
+ * Collects the value of a numeric JMX MBean attribute into an RRD file. The attribute is sampled
+ * by the {@link JmxSamplingScheduler} shared by all collectors.
+ */
 public class RrdJmxCollector implements JmxCollector {
 
     public static final String DEFAULT_METRICS_DIR = "data/metrics/";
@@ -63,8 +60,6 @@ public class RrdJmxCollector implements JmxCollector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RrdJmxCollector.class);
 
-    private static final int MILLIS_PER_SECOND = 1000;
-
     private static final int FIVE_MINUTES_MILLIS = 300000;
 
     /**
@@ -142,7 +137,9 @@ public class RrdJmxCollector implements JmxCollector {
 
     private Sample sample = null;
 
-    private ScheduledThreadPoolExecutor executor;
+    private ObjectName objectName;
+
+    private JmxSamplingScheduler samplingScheduler = JmxSamplingScheduler.getInstance();
 
     private long mbeanTimeoutMillis = FIVE_MINUTES_MILLIS;
 
@@ -288,15 +285,8 @@ void configureCollector() throws CollectorException, IOException {
     public void destroy() {
         LOGGER.trace("ENTERING: destroy() for metric {}", metricName);
 
-        // Shutdown the scheduled threaded executor that is polling the MBean attribute (metric)
-        if (executor != null) {
-            List<Runnable> tasks = executor.shutdownNow();
-            if (tasks != null) {
-                LOGGER.debug("Num tasks awaiting execution = {}", tasks.size());
-            } else {
-                LOGGER.debug("No tasks awaiting execution");
-            }
-        }
+        // Stop polling the MBean attribute (metric)
+        samplingScheduler.unregister(this);
 
         // Close the RRD DB
         try {
@@ -322,7 +312,7 @@ private boolean isMbeanAccessible() {
         long startTime = System.currentTimeMillis();
         while (attr == null && (System.currentTimeMillis() - startTime < mbeanTimeoutMillis)) {
             try {
-                attr = localMBeanServer.getAttribute(new ObjectName(mbeanName), mbeanAttributeName);
+                attr = localMBeanServer.getAttribute(getObjectName(), mbeanAttributeName);
 
                 if (!isNumeric(attr)) {
                     LOGGER.debug("{} from MBean {} has non-numeric data", mbeanAttributeName,
@@ -496,94 +486,89 @@ private void createRrdFile(final String metricName, final String dsName, final D
     }
 
     /**
-     * Configures a scheduled threaded executor to poll the metric's MBean periodically and add a
-     * sample to the RRD file with the metric's current value.
+     * Registers the collector with the {@link JmxSamplingScheduler} to poll the metric's MBean
+     * periodically and add a sample to the RRD file with the metric's current value.
      *
      * @throws CollectorException
      */
     public void updateSamples() throws CollectorException {
         LOGGER.trace("ENTERING: updateSamples");
 
-        if (executor == null) {
-            executor = new ScheduledThreadPoolExecutor(1);
+        try {
+            LOGGER.debug("Registering MBean {} with the sampling scheduler", mbeanName);
+            samplingScheduler.register(this);
+        } catch (MalformedObjectNameException e) {
+            throw new CollectorException("Invalid MBean name " + mbeanName);
         }
 
-        final Runnable updater = new Runnable() {
-            public void run() {
-                Object attr = null;
-                try {
-                    attr = localMBeanServer
-                            .getAttribute(new ObjectName(mbeanName), mbeanAttributeName);
+        LOGGER.trace("EXITING: updateSamples");
+    }
 
-                    LOGGER.trace("Sampling attribute {} from MBean {}", mbeanAttributeName,
-                            mbeanName);
+    /**
+     * Adds a sample of the metric's MBean attribute value to the RRD file. Called by the
+     * {@link JmxSamplingScheduler}.
+     *
+     * @param now
+     *            the time of the sample, in seconds
+     * @param attr
+     *            the value of the MBean attribute, null if it could not be read
+     * @return true if the sample was added to the RRD file
+     */
+    boolean recordSample(long now, Object attr) {
+        if (attr == null) {
+            LOGGER.debug("No value for attribute {} from MBean {}", mbeanAttributeName,
+                    mbeanName);
+            return false;
+        }
 
-                    // Cast the metric's sampled value to the appropriate data type
-                    double val = 0;
-                    if (attr instanceof Integer) {
-                        val = (Integer) attr;
-                    } else if (attr instanceof Long) {
-                        val = ((Long) attr).intValue();
-                    } else if (attr instanceof Float) {
-                        val = ((Float) attr);
-                    } else if (attr instanceof Double) {
-                        val = ((Double) attr);
-                    } else {
-                        throw new IllegalArgumentException(
-                                "Unsupported type " + attr + " for attribute "
-                                        + mbeanAttributeName);
-                    }
-
-                    LOGGER.trace("MBean attribute {} has value = {}", mbeanAttributeName, val);
-
-                    // If first time this metric has been sampled, then need to create a
-                    // sample in the RRD file
-                    if (sample == null) {
-                        sample = rrdDb.createSample();
-                    }
-
-                    try {
-                        long now = System.currentTimeMillis() / MILLIS_PER_SECOND;
-                        long lastUpdateTime = rrdDb.getLastUpdateTime();
-
-                        // Add metric's sample to RRD file with current timestamp
-                        if (now - rrdDb.getLastUpdateTime() >= minimumUpdateTimeDelta) {
-                            updateSample(now, val);
-                        } else {
-                            LOGGER.debug(
-                                    "Skipping sample update because time between updates is less than {} seconds",
-                                    minimumUpdateTimeDelta);
-
-                            sampleSkipCount++;
-
-                            LOGGER.debug("now = {},   lastUpdateTime = {}   (sampleSkipCount = {})",
-                                    now, lastUpdateTime, sampleSkipCount);
-                        }
-                    } catch (IllegalArgumentException iae) {
-                        LOGGER.error("Dropping sample of datasource {}", rrdDataSourceName, iae);
-                    }
-                } catch (MalformedObjectNameException e) {
-                    LOGGER.warn("Problems getting MBean attribute {}", mbeanAttributeName, e);
-                } catch (AttributeNotFoundException e) {
-                    LOGGER.warn("Problems getting MBean attribute {}", mbeanAttributeName, e);
-                } catch (InstanceNotFoundException e) {
-                    LOGGER.warn("Problems getting MBean attribute {}", mbeanAttributeName, e);
-                } catch (MBeanException e) {
-                    LOGGER.warn("Problems getting MBean attribute {}", mbeanAttributeName, e);
-                } catch (ReflectionException e) {
-                    LOGGER.warn("Problems getting MBean attribute {}", mbeanAttributeName, e);
-                } catch (IOException e) {
-                    LOGGER.warn("Error updating RRD", e);
-                }
+        LOGGER.trace("Sampling attribute {} from MBean {}", mbeanAttributeName, mbeanName);
+
+        // Cast the metric's sampled value to the appropriate data type
+        double val = 0;
+        if (attr instanceof Integer) {
+            val = (Integer) attr;
+        } else if (attr instanceof Long) {
+            val = ((Long) attr).intValue();
+        } else if (attr instanceof Float) {
+            val = ((Float) attr);
+        } else if (attr instanceof Double) {
+            val = ((Double) attr);
+        } else {
+            throw new IllegalArgumentException(
+                    "Unsupported type " + attr + " for attribute " + mbeanAttributeName);
+        }
+
+        LOGGER.trace("MBean attribute {} has value = {}", mbeanAttributeName, val);
+
+        try {
+            // If first time this metric has been sampled, then need to create a
+            // sample in the RRD file
+            if (sample == null) {
+                sample = rrdDb.createSample();
             }
-        };
 
-        // Setup threaded scheduler to retrieve this MBean attribute's value
-        // at the specified sample rate
-        LOGGER.debug("Setup ScheduledThreadPoolExecutor for MBean {}", mbeanName);
-        executor.scheduleWithFixedDelay(updater, 0, sampleRate, TimeUnit.SECONDS);
+            long lastUpdateTime = rrdDb.getLastUpdateTime();
 
-        LOGGER.trace("EXITING: updateSamples");
+            // Add metric's sample to RRD file with current timestamp
+            if (now - lastUpdateTime >= minimumUpdateTimeDelta) {
+                updateSample(now, val);
+                return true;
+            }
+
+            LOGGER.debug(
+                    "Skipping sample update because time between updates is less than {} seconds",
+                    minimumUpdateTimeDelta);
+
+            sampleSkipCount++;
+
+            LOGGER.debug("now = {},   lastUpdateTime = {}   (sampleSkipCount = {})", now,
+                    lastUpdateTime, sampleSkipCount);
+        } catch (IllegalArgumentException iae) {
+            LOGGER.error("Dropping sample of datasource {}", rrdDataSourceName, iae);
+        } catch (IOException e) {
+            LOGGER.warn("Error updating RRD", e);
+        }
+        return false;
     }
 
     private void updateSample(long now, double val) throws IOException {
@@ -596,6 +581,18 @@ private void updateSample(long now, double val) throws IOException {
         sample.update();
     }
 
+    /**
+     * @return the {@link ObjectName} of the metric's MBean
+     * @throws MalformedObjectNameException
+     *             if the MBean name is invalid
+     */
+    ObjectName getObjectName() throws MalformedObjectNameException {
+        if (objectName == null) {
+            objectName = new ObjectName(mbeanName);
+        }
+        return objectName;
+    }
+
     /**
      * @return local MBean server
      */
@@ -660,4 +657,8 @@ void setMbeanTimeoutMillis(long mbeanTimeoutMillis) {
         this.mbeanTimeoutMillis = mbeanTimeoutMillis;
     }
 
+    void setSamplingScheduler(JmxSamplingScheduler samplingScheduler) {
+        this.samplingScheduler = samplingScheduler;
+    }
+
 }
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+
+public class HdrReservoirTest {
+
+    private FakeClock clock;
+
+    private HdrReservoir reservoir;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        reservoir = new HdrReservoir(1, TimeUnit.MINUTES, clock);
+    }
+
+    @Test
+    public void testBucketsCoverValues() {
+        for (long value = 0; value < 100000; value += 7) {
+            long bucketValue = HdrReservoir.bucketValue(HdrReservoir.bucketIndex(value));
+            assertThat((double) bucketValue, closeTo(value, Math.max(1, value / 64.0)));
+        }
+        assertThat(HdrReservoir.bucketIndex(HdrReservoir.MAX_VALUE - 1) < HdrReservoir
+                .bucketIndex(HdrReservoir.MAX_VALUE), is(true));
+    }
+
+    @Test
+    public void testPercentiles() {
+        for (long value = 1; value <= 10000; value++) {
+            reservoir.update(value);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size(), is(10000));
+        assertThat(snapshot.getMean(), is(5000.5));
+        assertThat(snapshot.getMin(), is(1L));
+        assertThat(snapshot.getMedian(), closeTo(5000, 5000 / 64.0));
+        assertThat(snapshot.get99thPercentile(), closeTo(9900, 9900 / 64.0));
+        assertThat(snapshot.get999thPercentile(), closeTo(9990, 9990 / 64.0));
+        assertThat((double) snapshot.getMax(), closeTo(10000, 10000 / 64.0));
+        assertThat(snapshot.getValues().length, is(10000));
+    }
+
+    @Test
+    public void testOutliers() {
+        reservoir.update(-5);
+        reservoir.update(Long.MAX_VALUE);
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.getMin(), is(0L));
+        assertThat((double) snapshot.getMax(),
+                closeTo(HdrReservoir.MAX_VALUE, HdrReservoir.MAX_VALUE / 64.0));
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size(), is(0));
+        assertThat(snapshot.getMean(), is(0.0));
+        assertThat(snapshot.get99thPercentile(), is(0.0));
+        assertThat(snapshot.getValues().length, is(0));
+    }
+
+    @Test
+    public void testWindows() {
+        reservoir.update(100);
+        clock.advance(45);
+        reservoir.update(200);
+        assertThat(reservoir.size(), is(2));
+
+        // the first value's window is still the previous window
+        clock.advance(30);
+        assertThat(reservoir.size(), is(2));
+        reservoir.update(300);
+        assertThat(reservoir.size(), is(3));
+
+        clock.advance(60);
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size(), is(1));
+        assertThat(snapshot.getMean(), is(300.0));
+
+        clock.advance(300);
+        assertThat(reservoir.size(), is(0));
+        reservoir.update(400);
+        assertThat(reservoir.getSnapshot().getMean(), is(400.0));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        reservoir.update(j % 1000);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size(), is(40000));
+        assertThat(snapshot.getMean(), is(499.5));
+        assertThat(snapshot.getStdDev(), lessThan(300.0));
+    }
+
+    private static class FakeClock extends Clock {
+
+        private long tick;
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+
+        void advance(long seconds) {
+            tick += TimeUnit.SECONDS.toNanos(seconds);
+        }
+    }
+}
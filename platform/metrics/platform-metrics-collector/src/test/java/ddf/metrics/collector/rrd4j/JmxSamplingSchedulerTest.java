@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.metrics.collector.rrd4j;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Matchers.notNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class JmxSamplingSchedulerTest {
+
+    // long enough that no scheduled sampling pass runs during a test
+    private static final int SAMPLE_RATE = 3600;
+
+    private MBeanServer mBeanServer;
+
+    private JmxSamplingScheduler scheduler;
+
+    private ObjectName queries;
+
+    private ObjectName exceptions;
+
+    private RrdJmxCollector queryCount;
+
+    private RrdJmxCollector queryMean;
+
+    private RrdJmxCollector exceptionCount;
+
+    @Before
+    public void setUp() throws Exception {
+        mBeanServer = mock(MBeanServer.class);
+        scheduler = new JmxSamplingScheduler(mBeanServer);
+
+        queries = new ObjectName("ddf.metrics.catalog:name=Queries");
+        exceptions = new ObjectName("ddf.metrics.catalog:name=Exceptions");
+        queryCount = createCollector(queries, "Count");
+        queryMean = createCollector(queries, "Mean");
+        exceptionCount = createCollector(exceptions, "Count");
+
+        AttributeList queryAttributes = new AttributeList();
+        queryAttributes.add(new Attribute("Count", 12L));
+        queryAttributes.add(new Attribute("Mean", 3.5));
+        when(mBeanServer.getAttributes(eq(queries), any(String[].class)))
+                .thenReturn(queryAttributes);
+        when(mBeanServer.getAttributes(eq(exceptions), any(String[].class)))
+                .thenReturn(new AttributeList());
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.unregister(queryCount);
+        scheduler.unregister(queryMean);
+        scheduler.unregister(exceptionCount);
+    }
+
+    @Test
+    public void testMBeanAttributesReadInBulk() throws Exception {
+        scheduler.register(queryCount);
+        scheduler.register(queryMean);
+        scheduler.register(exceptionCount);
+        assertThat(scheduler.getCollectorCount(), is(3));
+        assertThat(scheduler.getMBeanCount(), is(2));
+
+        scheduler.sampleNow();
+
+        ArgumentCaptor<String[]> names = ArgumentCaptor.forClass(String[].class);
+        verify(mBeanServer, times(1)).getAttributes(eq(queries), names.capture());
+        assertThat(names.getValue(), arrayContainingInAnyOrder("Count", "Mean"));
+        verify(mBeanServer, times(1)).getAttributes(eq(exceptions), any(String[].class));
+
+        verify(queryCount).recordSample(anyLong(), eq((Object) 12L));
+        verify(queryMean).recordSample(anyLong(), eq((Object) 3.5));
+        verify(exceptionCount).recordSample(anyLong(), isNull());
+        assertThat(scheduler.getSamplesWritten(), is(2L));
+        assertThat(scheduler.getSampleErrors(), is(1L));
+    }
+
+    @Test
+    public void testSamplesAlignedToStep() throws Exception {
+        scheduler.register(queryCount);
+        scheduler.register(queryMean);
+
+        scheduler.sampleNow();
+
+        ArgumentCaptor<Long> countTime = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> meanTime = ArgumentCaptor.forClass(Long.class);
+        verify(queryCount).recordSample(countTime.capture(), any());
+        verify(queryMean).recordSample(meanTime.capture(), any());
+        assertThat(countTime.getValue() % SAMPLE_RATE, is(0L));
+        assertThat(countTime.getValue(), is(meanTime.getValue()));
+    }
+
+    @Test
+    public void testSchedulerStoppedWithLastCollector() throws Exception {
+        scheduler.register(queryCount);
+        verify(mBeanServer).registerMBean(eq(scheduler), any(ObjectName.class));
+
+        scheduler.unregister(queryCount);
+        assertThat(scheduler.getCollectorCount(), is(0));
+        verify(mBeanServer).unregisterMBean(any(ObjectName.class));
+
+        scheduler.sampleNow();
+        verify(queryCount, times(0)).recordSample(anyLong(), any());
+    }
+
+    private RrdJmxCollector createCollector(ObjectName objectName, String attributeName)
+            throws Exception {
+        RrdJmxCollector collector = mock(RrdJmxCollector.class);
+        when(collector.getObjectName()).thenReturn(objectName);
+        when(collector.getMbeanAttributeName()).thenReturn(attributeName);
+        when(collector.getSampleRate()).thenReturn(SAMPLE_RATE);
+        when(collector.recordSample(anyLong(), notNull())).thenReturn(true);
+        return collector;
+    }
+}
@@ -13,21 +13,32 @@
  */
 package ddf.metrics.interceptor;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.BindingOperationInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingTimeWindowReservoir;
+
+import ddf.metrics.collector.HdrReservoir;
 
 /**
  * This class is extended by the METRICS interceptors used for capturing round trip message latency.
+ * <p>
+ * Latency is recorded in a histogram for all services and in a histogram per service and
+ * operation, e.g. {@code Latency.CswService.GetRecords}, which are created as they are first seen
+ * up to {@link #MAX_OPERATION_HISTOGRAMS}. The histogram of each service and operation is cached by
+ * their unsanitized names, so a message only looks it up in a map. The histograms count values in
+ * {@link HdrReservoir} buckets so recording does not allocate.
  *
  * @author willisod
  *
@@ -36,16 +47,31 @@ public abstract class AbstractMetricsInterceptor extends AbstractPhaseIntercepto
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractMetricsInterceptor.class);
 
-    private static final String REGISTRY_NAME = "ddf.METRICS.services";
+    private static final String REGISTRY_NAME = "ddf.metrics.services";
 
     private static final String HISTOGRAM_NAME = "Latency";
 
+    private static final String UNKNOWN = "unknown";
+
+    static final int MAX_OPERATION_HISTOGRAMS = 200;
+
+    /**
+     * Different names can sanitize to the same histogram name, so allow for more names than
+     * histograms.
+     */
+    private static final int MAX_OPERATION_KEYS = MAX_OPERATION_HISTOGRAMS * 4;
+
     private static final MetricRegistry METRICS = new MetricRegistry();
 
     private static final JmxReporter REPORTER = JmxReporter.forRegistry(METRICS)
             .inDomain(REGISTRY_NAME).build();
 
-    static final Histogram MESSAGE_LATENCY = METRICS.register(MetricRegistry.name(HISTOGRAM_NAME), new Histogram(new SlidingTimeWindowReservoir(1, TimeUnit.MINUTES)));
+    static final Histogram MESSAGE_LATENCY = METRICS
+            .register(MetricRegistry.name(HISTOGRAM_NAME), new Histogram(new HdrReservoir()));
+
+    private static final ConcurrentMap<String, Histogram> OPERATION_LATENCY = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<OperationKey, Histogram> OPERATION_KEYS = new ConcurrentHashMap<>();
 
     /**
      * Constructor to pass the phase to {@code AbstractPhaseInterceptor} and creates a new
@@ -97,7 +123,113 @@ protected void endHandlingMessage(Exchange ex) {
     }
 
     private void increaseCounter(Exchange ex, LatencyTimeRecorder ltr) {
-        MESSAGE_LATENCY.update(ltr.getLatencyTime());
+        long latency = ltr.getLatencyTime();
+        MESSAGE_LATENCY.update(latency);
+
+        Histogram operationLatency = getOperationLatency(ex);
+        if (operationLatency != null) {
+            operationLatency.update(latency);
+        }
+    }
+
+    /**
+     * @return the latency histogram of the service and operation of the exchange, or null if there
+     *         are already {@link #MAX_OPERATION_HISTOGRAMS} histograms and the exchange's operation
+     *         does not have one
+     */
+    static Histogram getOperationLatency(Exchange ex) {
+        OperationKey key = new OperationKey(getServiceName(ex), getOperationName(ex));
+        Histogram histogram = OPERATION_KEYS.get(key);
+        if (histogram != null) {
+            return histogram;
+        }
+
+        histogram = getOperationLatency(MetricRegistry
+                .name(HISTOGRAM_NAME, sanitize(key.service), sanitize(key.operation)));
+        if (histogram != null && OPERATION_KEYS.size() < MAX_OPERATION_KEYS) {
+            OPERATION_KEYS.putIfAbsent(key, histogram);
+        }
+        return histogram;
+    }
+
+    private static Histogram getOperationLatency(String name) {
+        Histogram histogram = OPERATION_LATENCY.get(name);
+        if (histogram != null || OPERATION_LATENCY.size() >= MAX_OPERATION_HISTOGRAMS) {
+            return histogram;
+        }
+
+        synchronized (OPERATION_LATENCY) {
+            histogram = OPERATION_LATENCY.get(name);
+            if (histogram == null && OPERATION_LATENCY.size() < MAX_OPERATION_HISTOGRAMS) {
+                histogram = METRICS.register(name, new Histogram(new HdrReservoir()));
+                OPERATION_LATENCY.put(name, histogram);
+            }
+        }
+        return histogram;
+    }
+
+    private static String getServiceName(Exchange ex) {
+        Service service = ex.getService();
+        if (service == null || service.getName() == null) {
+            return null;
+        }
+        return service.getName().getLocalPart();
+    }
+
+    private static String getOperationName(Exchange ex) {
+        BindingOperationInfo operation = ex.getBindingOperationInfo();
+        if (operation != null) {
+            return (operation.getName() == null) ? null : operation.getName().getLocalPart();
+        }
+
+        Message inMessage = ex.getInMessage();
+        if (inMessage != null && inMessage.get(Message.HTTP_REQUEST_METHOD) != null) {
+            return inMessage.get(Message.HTTP_REQUEST_METHOD).toString();
+        }
+        return null;
+    }
+
+    /**
+     * Keeps names usable as both JMX object name values and RRD file names.
+     */
+    private static String sanitize(String name) {
+        if (name == null || name.isEmpty()) {
+            return UNKNOWN;
+        }
+        return name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    /**
+     * The unsanitized service and operation names of an exchange.
+     */
+    private static final class OperationKey {
+
+        private final String service;
+
+        private final String operation;
+
+        private OperationKey(String service, String operation) {
+            this.service = service;
+            this.operation = operation;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof OperationKey)) {
+                return false;
+            }
+            OperationKey other = (OperationKey) obj;
+            return Objects.equals(service, other.service)
+                    && Objects.equals(operation, other.operation);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(service) + Objects.hashCode(operation);
+        }
     }
 
 }
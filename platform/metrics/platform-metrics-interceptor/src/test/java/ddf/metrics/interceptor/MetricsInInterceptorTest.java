@@ -15,20 +15,28 @@
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import javax.xml.namespace.QName;
+
 import org.apache.cxf.Bus;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.Phase;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.BindingOperationInfo;
 import org.junit.Test;
 
+import com.codahale.metrics.Histogram;
+
 /**
  * @author willisod
  *
@@ -231,4 +239,61 @@ public void testHandleMessageWithoutExchange() {
         verify(mockMessage, times(1)).getExchange();
     }
 
+    @Test
+    public void testHandleMessageRecordsOperationLatency() {
+
+        // Setup
+        MetricsInInterceptor inInterceptor = new MetricsInInterceptor();
+
+        Message mockMessage = mock(Message.class);
+        Exchange ex = new ExchangeImpl();
+        Service mockService = mock(Service.class);
+        BindingOperationInfo mockOperation = mock(BindingOperationInfo.class);
+        LatencyTimeRecorder mockLtr = mock(LatencyTimeRecorder.class);
+
+        ex.put(Service.class, mockService);
+        ex.put(BindingOperationInfo.class, mockOperation);
+        ex.put(LatencyTimeRecorder.class, mockLtr);
+
+        when(mockService.getName()).thenReturn(new QName("urn:test", "TestService"));
+        when(mockOperation.getName()).thenReturn(new QName("urn:test", "GetRecords"));
+        when(mockLtr.getLatencyTime()).thenReturn(42L);
+        when(mockMessage.getExchange()).thenReturn(ex);
+        when(mockMessage.get(Message.REQUESTOR_ROLE)).thenReturn(true);
+
+        long count = AbstractMetricsInterceptor.getOperationLatency(ex).getCount();
+
+        // Perform test
+        inInterceptor.handleMessage(mockMessage);
+
+        // validate that the latency was recorded in the operation's histogram
+        assertEquals(count + 1, AbstractMetricsInterceptor.getOperationLatency(ex).getCount());
+        assertSame(AbstractMetricsInterceptor.getOperationLatency(ex),
+                AbstractMetricsInterceptor.getOperationLatency(ex));
+    }
+
+    @Test
+    public void testOperationLatencyIsSharedBySanitizedName() {
+        Histogram histogram = AbstractMetricsInterceptor
+                .getOperationLatency(exchange(new QName("urn:a", "Query Service"), "GET"));
+
+        assertSame(histogram, AbstractMetricsInterceptor
+                .getOperationLatency(exchange(new QName("urn:a", "Query Service"), "GET")));
+        assertSame(histogram, AbstractMetricsInterceptor
+                .getOperationLatency(exchange(new QName("urn:b", "Query_Service"), "GET")));
+        assertNotSame(histogram, AbstractMetricsInterceptor
+                .getOperationLatency(exchange(new QName("urn:a", "Query Service"), "POST")));
+    }
+
+    private Exchange exchange(QName serviceName, String httpMethod) {
+        Exchange ex = new ExchangeImpl();
+        Service mockService = mock(Service.class);
+        when(mockService.getName()).thenReturn(serviceName);
+        ex.put(Service.class, mockService);
+        Message inMessage = mock(Message.class);
+        when(inMessage.get(Message.HTTP_REQUEST_METHOD)).thenReturn(httpMethod);
+        ex.setInMessage(inMessage);
+        return ex;
+    }
+
 }
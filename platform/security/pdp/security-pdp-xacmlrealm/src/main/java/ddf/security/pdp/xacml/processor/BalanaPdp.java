@@ -18,8 +18,11 @@
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -37,13 +40,24 @@
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.balana.Balana;
 import org.wso2.balana.PDP;
 import org.wso2.balana.PDPConfig;
+import org.wso2.balana.ParsingException;
+import org.wso2.balana.UnknownIdentifierException;
+import org.wso2.balana.attr.AttributeFactory;
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.ctx.AbstractResult;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.ctx.ResponseCtx;
+import org.wso2.balana.ctx.Status;
+import org.wso2.balana.ctx.xacml3.RequestCtx;
 import org.wso2.balana.finder.AttributeFinder;
 import org.wso2.balana.finder.AttributeFinderModule;
 import org.wso2.balana.finder.PolicyFinder;
 import org.wso2.balana.finder.PolicyFinderModule;
 import org.wso2.balana.finder.impl.CurrentEnvModule;
+import org.wso2.balana.finder.impl.FileBasedPolicyFinderModule;
 import org.wso2.balana.finder.impl.SelectorModule;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
@@ -53,13 +67,28 @@
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import ddf.security.pdp.xacml.PdpException;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeValueType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributesType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.ObjectFactory;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.RequestType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResponseType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResultType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.StatusCodeType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.StatusType;
 
 /**
  * Balana implementation of a XACML Policy Decision Point (PDP). This class acts as a proxy to the
  * real Balana PDP.
+ * <p>
+ * Requests are converted directly into Balana's request context and Balana's response context is
+ * converted directly into a {@link ResponseType}. Only requests and responses using XACML features
+ * that are not converted, such as attribute Content, XPath values, multiple requests, attributes
+ * included in the result, obligations or advice, go through their XML form.
+ * <p>
+ * The policies are compiled once into a Balana PDP, which is replaced with a newly compiled one
+ * when the {@link PollingPolicyFinderModule} sees the policy files change.
  */
 public class BalanaPdp {
     private static final Logger LOGGER = LoggerFactory.getLogger(BalanaPdp.class);
@@ -74,7 +103,9 @@ public class BalanaPdp {
 
     private static JAXBContext jaxbContext;
 
-    private PDP pdp;
+    private volatile PDP pdp;
+
+    private PollingPolicyFinderModule policyMonitor;
 
     private long pollingInterval = DEFAULT_POLLING_INTERVAL_IN_SECONDS;
 
@@ -139,6 +170,7 @@ private void initialize(File xacmlPoliciesDirectory) throws PdpException {
         xacmlPolicyDirectories = new HashSet<String>(1);
         xacmlPolicyDirectories.add(xacmlPoliciesDirectory.getPath());
         createPdp(createPdpConfig());
+        startPolicyMonitor();
     }
 
     /**
@@ -150,6 +182,32 @@ private void initialize(File xacmlPoliciesDirectory) throws PdpException {
      * @throws PdpException
      */
     public ResponseType evaluate(RequestType xacmlRequestType) throws PdpException {
+        RequestCtx requestCtx = createRequestCtx(xacmlRequestType);
+        if (requestCtx == null) {
+            return evaluateXml(xacmlRequestType);
+        }
+
+        ResponseCtx responseCtx = pdp.evaluate(requestCtx);
+
+        ResponseType xacmlResponseType = createResponseType(responseCtx);
+        if (xacmlResponseType == null) {
+            String xacmlResponse = responseCtx.encode();
+            LOGGER.debug("\nXACML 3.0 Response from Balana PDP:\n {}", xacmlResponse);
+            xacmlResponseType = unmarshal(addNamespaceAndPrefixes(xacmlResponse));
+        }
+
+        return xacmlResponseType;
+    }
+
+    /**
+     * Evaluates the XACML request by passing it to the Balana PDP as XML.
+     *
+     * @param xacmlRequestType
+     *            XACML request
+     * @return XACML response
+     * @throws PdpException
+     */
+    ResponseType evaluateXml(RequestType xacmlRequestType) throws PdpException {
         String xacmlRequest = this.marshal(xacmlRequestType);
 
         String xacmlResponse = this.callPdp(xacmlRequest);
@@ -178,7 +236,151 @@ private void createJaxbContext() throws PdpException {
     }
 
     /**
-     * Creates the Balana PDP.
+     * Converts the XACML request into a Balana request context.
+     *
+     * @param xacmlRequestType
+     *            XACML request
+     * @return the request context, or null if the request uses features that are only supported
+     *         in XML form
+     */
+    private RequestCtx createRequestCtx(RequestType xacmlRequestType) {
+        if (xacmlRequestType.isReturnPolicyIdList() || xacmlRequestType.getMultiRequests() != null
+                || xacmlRequestType.getRequestDefaults() != null) {
+            return null;
+        }
+
+        AttributeFactory attributeFactory = Balana.getInstance().getAttributeFactory();
+        Set<org.wso2.balana.xacml3.Attributes> attributesSet =
+                new LinkedHashSet<org.wso2.balana.xacml3.Attributes>();
+
+        try {
+            for (AttributesType attributesType : xacmlRequestType.getAttributes()) {
+                if (attributesType.getContent() != null) {
+                    return null;
+                }
+
+                Set<Attribute> attributes = new LinkedHashSet<Attribute>();
+                for (AttributeType attributeType : attributesType.getAttribute()) {
+                    Attribute attribute = createAttribute(attributeFactory, attributeType);
+                    if (attribute == null) {
+                        return null;
+                    }
+                    attributes.add(attribute);
+                }
+
+                attributesSet.add(new org.wso2.balana.xacml3.Attributes(
+                        new URI(attributesType.getCategory()), null, attributes,
+                        attributesType.getId()));
+            }
+        } catch (URISyntaxException | UnknownIdentifierException | ParsingException e) {
+            // let Balana report the problem the same way it does for XML requests
+            LOGGER.debug("Unable to convert XACML request, using its XML form.", e);
+            return null;
+        }
+
+        return new RequestCtx(null, attributesSet, false, xacmlRequestType.isCombinedDecision(),
+                null, null);
+    }
+
+    private Attribute createAttribute(AttributeFactory attributeFactory,
+            AttributeType attributeType)
+            throws URISyntaxException, UnknownIdentifierException, ParsingException {
+        if (attributeType.isIncludeInResult() || attributeType.getAttributeValue().isEmpty()) {
+            return null;
+        }
+
+        String dataType = null;
+        List<AttributeValue> values = new ArrayList<AttributeValue>(
+                attributeType.getAttributeValue().size());
+        for (AttributeValueType attributeValueType : attributeType.getAttributeValue()) {
+            if (!attributeValueType.getOtherAttributes().isEmpty() || (dataType != null
+                    && !dataType.equals(attributeValueType.getDataType()))) {
+                return null;
+            }
+            dataType = attributeValueType.getDataType();
+
+            StringBuilder text = new StringBuilder();
+            for (Object content : attributeValueType.getContent()) {
+                if (!(content instanceof String)) {
+                    return null;
+                }
+                text.append((String) content);
+            }
+            values.add(attributeFactory.createValue(new URI(dataType), text.toString()));
+        }
+
+        return new Attribute(new URI(attributeType.getAttributeId()), new URI(dataType),
+                attributeType.getIssuer(), null, values, false,
+                org.wso2.balana.XACMLConstants.XACML_VERSION_3_0);
+    }
+
+    /**
+     * Converts the Balana response context into a XACML response.
+     *
+     * @return the XACML response, or null if the response has results with obligations, advice or
+     *         status detail, which are only converted from XML
+     */
+    private ResponseType createResponseType(ResponseCtx responseCtx) {
+        ResponseType xacmlResponseType = new ResponseType();
+
+        for (AbstractResult result : responseCtx.getResults()) {
+            if ((result.getObligations() != null && !result.getObligations().isEmpty()) || (
+                    result.getAdvices() != null && !result.getAdvices().isEmpty())) {
+                return null;
+            }
+
+            ResultType resultType = new ResultType();
+            resultType.setDecision(createDecisionType(result.getDecision()));
+
+            Status status = result.getStatus();
+            if (status != null) {
+                if (status.getDetail() != null) {
+                    return null;
+                }
+                resultType.setStatus(createStatusType(status));
+            }
+
+            xacmlResponseType.getResult().add(resultType);
+        }
+
+        return xacmlResponseType;
+    }
+
+    private DecisionType createDecisionType(int decision) {
+        switch (decision) {
+        case AbstractResult.DECISION_PERMIT:
+            return DecisionType.PERMIT;
+        case AbstractResult.DECISION_DENY:
+            return DecisionType.DENY;
+        case AbstractResult.DECISION_NOT_APPLICABLE:
+            return DecisionType.NOT_APPLICABLE;
+        default:
+            return DecisionType.INDETERMINATE;
+        }
+    }
+
+    private StatusType createStatusType(Status status) {
+        StatusType statusType = new StatusType();
+        statusType.setStatusMessage(status.getMessage());
+
+        StatusCodeType parent = null;
+        for (Object code : status.getCode()) {
+            StatusCodeType statusCodeType = new StatusCodeType();
+            statusCodeType.setValue(code.toString());
+            if (parent == null) {
+                statusType.setStatusCode(statusCodeType);
+            } else {
+                parent.setStatusCode(statusCodeType);
+            }
+            parent = statusCodeType;
+        }
+
+        return statusType;
+    }
+
+    /**
+     * Creates the Balana PDP, compiling the policies. Requests already being evaluated finish with
+     * the previous PDP.
      */
     private void createPdp(PDPConfig pdpConfig) {
         LOGGER.debug("Creating PDP of type: {}", PDP.class.getName());
@@ -186,6 +388,27 @@ private void createPdp(PDPConfig pdpConfig) {
         LOGGER.debug("PDP creation successful.");
     }
 
+    /**
+     * Starts polling the XACML policy directories, replacing the PDP when the policies change.
+     */
+    private synchronized void startPolicyMonitor() {
+        if (policyMonitor != null) {
+            policyMonitor.stop();
+        }
+
+        LOGGER.debug("XACML policies will be polled for in the following location(s): {}",
+                xacmlPolicyDirectories);
+        policyMonitor = new PollingPolicyFinderModule(xacmlPolicyDirectories, pollingInterval,
+                new PollingPolicyFinderModule.PolicyChangeListener() {
+                    @Override
+                    public void policiesChanged() {
+                        LOGGER.debug("Recompiling XACML policies");
+                        createPdp(createPdpConfig());
+                    }
+                });
+        policyMonitor.start();
+    }
+
     /**
      * Creates the Balana PDP configuration.
      *
@@ -219,9 +442,8 @@ private PolicyFinder createPolicyFinder(Set<String> xacmlPolicyDirectories) {
         LOGGER.debug("XACML policies will be looked for in the following location(s): {}",
                 xacmlPolicyDirectories);
         PolicyFinder policyFinder = new PolicyFinder();
-        PollingPolicyFinderModule policyFinderModule = new PollingPolicyFinderModule(
-                xacmlPolicyDirectories, pollingInterval);
-        policyFinderModule.start();
+        FileBasedPolicyFinderModule policyFinderModule = new FileBasedPolicyFinderModule(
+                xacmlPolicyDirectories);
         Set<PolicyFinderModule> policyFinderModules = new HashSet<PolicyFinderModule>(1);
         policyFinderModules.add(policyFinderModule);
         policyFinder.setModules(policyFinderModules);
@@ -394,6 +616,6 @@ public void setPollingInterval(long pollingInterval) {
         this.pollingInterval = pollingInterval;
 
         createPdp(createPdpConfig());
-
+        startPolicyMonitor();
     }
 }
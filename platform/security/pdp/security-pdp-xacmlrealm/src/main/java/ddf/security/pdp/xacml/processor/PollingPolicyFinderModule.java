@@ -33,7 +33,9 @@
  * @author ddf.isgs@lmco.com
  *
  *         This class Polls Directories for policies. It is used with the PDP to poll directories
- *         for changes to polices or the policy set in the directories.
+ *         for changes to polices or the policy set in the directories. When created with a
+ *         {@link PolicyChangeListener}, the listener is told about changes instead of this module
+ *         reloading its own policies.
  *
  */
 public class PollingPolicyFinderModule extends FileBasedPolicyFinderModule
@@ -46,6 +48,10 @@ public class PollingPolicyFinderModule extends FileBasedPolicyFinderModule
 
     private Set<String> xacmlPolicyDirectories;
 
+    private final PolicyChangeListener policyChangeListener;
+
+    private boolean policiesChanged;
+
     /**
      *
      * @param xacmlPolicyDirectories
@@ -54,13 +60,32 @@ public class PollingPolicyFinderModule extends FileBasedPolicyFinderModule
      *            - in seconds
      */
     public PollingPolicyFinderModule(Set<String> xacmlPolicyDirectories, long pollingInterval) {
+        this(xacmlPolicyDirectories, pollingInterval, null);
+    }
+
+    /**
+     *
+     * @param xacmlPolicyDirectories
+     *            - to search for policies
+     * @param pollingInterval
+     *            - in seconds
+     * @param policyChangeListener
+     *            - told when the policies change, or null to reload this module's policies
+     */
+    public PollingPolicyFinderModule(Set<String> xacmlPolicyDirectories, long pollingInterval,
+            PolicyChangeListener policyChangeListener) {
         super(xacmlPolicyDirectories);
         this.xacmlPolicyDirectories = xacmlPolicyDirectories;
+        this.policyChangeListener = policyChangeListener;
         initialize(xacmlPolicyDirectories, pollingInterval);
     }
 
     private void initialize(Set<String> xacmlPolicyDirectories, long pollingInterval) {
         LOGGER.debug("initializing polling: {}, every {}", xacmlPolicyDirectories, pollingInterval);
+        boolean restart = false;
+        if (monitor != null) {
+            restart = stop();
+        }
         monitor = new FileAlterationMonitor(pollingInterval * MULTIPLIER);
 
         for (String xacmlPolicyDirectory : xacmlPolicyDirectories) {
@@ -71,6 +96,10 @@ private void initialize(Set<String> xacmlPolicyDirectories, long pollingInterval
             monitor.addObserver(observer);
             LOGGER.debug("Monitoring directory: " + directoryToMonitor);
         }
+
+        if (restart) {
+            start();
+        }
     }
 
     public void start() {
@@ -81,6 +110,24 @@ public void start() {
         }
     }
 
+    /**
+     * Stops polling the directories.
+     *
+     * @return true if polling was running
+     */
+    public boolean stop() {
+        try {
+            monitor.stop();
+            return true;
+        } catch (IllegalStateException e) {
+            // not running
+            return false;
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
     public void onDirectoryChange(File changedDir) {
         try {
             LOGGER.debug("Directory " + changedDir.getCanonicalPath() + " changed.");
@@ -88,7 +135,7 @@ public void onDirectoryChange(File changedDir) {
             LOGGER.error(e.getMessage(), e);
         }
 
-        reloadPolicies();
+        policiesChanged = true;
     }
 
     public void onDirectoryCreate(File createdDir) {
@@ -114,7 +161,7 @@ public void onFileChange(File changedFile) {
             LOGGER.error(e.getMessage(), e);
         }
 
-        reloadPolicies();
+        policiesChanged = true;
     }
 
     public void onFileCreate(File createdFile) {
@@ -124,7 +171,7 @@ public void onFileCreate(File createdFile) {
             LOGGER.error(e.getMessage(), e);
         }
 
-        reloadPolicies();
+        policiesChanged = true;
     }
 
     public void onFileDelete(File deleteFile) {
@@ -134,7 +181,7 @@ public void onFileDelete(File deleteFile) {
             LOGGER.error(e.getMessage(), e);
         }
 
-        reloadPolicies();
+        policiesChanged = true;
     }
 
     public void onStart(FileAlterationObserver observer) {
@@ -152,6 +199,12 @@ public void onStart(FileAlterationObserver observer) {
     }
 
     public void onStop(FileAlterationObserver observer) {
+        // reload once for all of the changes seen while checking the directory
+        if (policiesChanged) {
+            policiesChanged = false;
+            reloadPolicies();
+        }
+
         try {
             LOGGER.trace("Done checking directory " + observer.getDirectory().getCanonicalPath());
         } catch (IOException e) {
@@ -234,8 +287,21 @@ public void setPollingInterval(long pollingInterval) {
     }
 
     private void reloadPolicies() {
+        if (policyChangeListener != null) {
+            policyChangeListener.policiesChanged();
+            return;
+        }
+
         LOGGER.debug("Reloading XACML policies");
         this.loadPolicies();
     }
 
+    /**
+     * Told when the policy files in the polled directories change.
+     */
+    public interface PolicyChangeListener {
+
+        void policiesChanged();
+    }
+
 }
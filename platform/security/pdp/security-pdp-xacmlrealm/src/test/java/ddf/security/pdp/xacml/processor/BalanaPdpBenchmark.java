@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.pdp.xacml.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ddf.security.pdp.xacml.PdpException;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.RequestType;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.ResponseType;
+
+/**
+ * Compares the decisions per second of {@link BalanaPdp} evaluating requests through Balana's
+ * request context with evaluating them through their XML form.
+ * <p>
+ * Run from this module's directory, after {@code mvn test-compile}, with the test classpath:
+ * {@code java -cp <test classpath> ddf.security.pdp.xacml.processor.BalanaPdpBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BalanaPdpBenchmark {
+
+    private static final String POLICY_FILE = "src/test/resources/query-policy.xml";
+
+    private File policyDir;
+
+    private BalanaPdp pdp;
+
+    private RequestType permittedRequest;
+
+    private RequestType deniedRequest;
+
+    @Setup
+    public void setUp() throws IOException, PdpException {
+        policyDir = new File(FileUtils.getTempDirectory(),
+                "balana-pdp-benchmark-" + System.nanoTime());
+        FileUtils.copyFileToDirectory(new File(POLICY_FILE), policyDir);
+
+        pdp = new BalanaPdp(policyDir);
+        permittedRequest = BalanaPdpTest.createRequest("testuser1", "USA");
+        deniedRequest = BalanaPdpTest.createRequest("testuser2", "CA");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(policyDir);
+    }
+
+    @Benchmark
+    public ResponseType requestContextPermit() throws PdpException {
+        return pdp.evaluate(permittedRequest);
+    }
+
+    @Benchmark
+    public ResponseType requestContextDeny() throws PdpException {
+        return pdp.evaluate(deniedRequest);
+    }
+
+    @Benchmark
+    public ResponseType xmlPermit() throws PdpException {
+        return pdp.evaluateXml(permittedRequest);
+    }
+
+    @Benchmark
+    public ResponseType xmlDeny() throws PdpException {
+        return pdp.evaluateXml(deniedRequest);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(BalanaPdpBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
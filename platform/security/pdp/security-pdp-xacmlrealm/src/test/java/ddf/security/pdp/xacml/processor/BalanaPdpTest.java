@@ -375,6 +375,94 @@ public void testBalanaPdppoliciesdirectorypolicyadded() throws Exception {
         FileUtils.deleteDirectory(policyDir);
     }
 
+    @Test
+    public void testEvaluateMatchesXmlEvaluation() throws Exception {
+        testSetup();
+        BalanaPdp pdp = new BalanaPdp(tempDir);
+
+        RequestType permitted = createRequest(TEST_USER_1, US_COUNTRY);
+        RequestType denied = createRequest(TEST_USER_2, "CA");
+
+        assertEquals(DecisionType.PERMIT, pdp.evaluate(permitted).getResult().get(0).getDecision());
+        assertEquals(DecisionType.PERMIT,
+                pdp.evaluateXml(permitted).getResult().get(0).getDecision());
+        assertEquals(DecisionType.DENY, pdp.evaluate(denied).getResult().get(0).getDecision());
+        assertEquals(DecisionType.DENY, pdp.evaluateXml(denied).getResult().get(0).getDecision());
+        assertEquals(pdp.evaluateXml(permitted).getResult().get(0).getStatus().getStatusCode()
+                        .getValue(),
+                pdp.evaluate(permitted).getResult().get(0).getStatus().getStatusCode()
+                        .getValue());
+    }
+
+    @Test
+    public void testEvaluateIncludeInResult() throws Exception {
+        testSetup();
+        BalanaPdp pdp = new BalanaPdp(tempDir);
+
+        // attributes included in the result are only supported through the XML form
+        RequestType xacmlRequestType = createRequest(TEST_USER_1, US_COUNTRY);
+        xacmlRequestType.getAttributes().get(0).getAttribute().get(0).setIncludeInResult(true);
+
+        ResponseType xacmlResponse = pdp.evaluate(xacmlRequestType);
+
+        assertEquals(DecisionType.PERMIT, xacmlResponse.getResult().get(0).getDecision());
+    }
+
+    @Test
+    public void testBalanaPdppolicyaddedwhilepolling() throws Exception {
+        File policyDir = folder.newFolder(TEMP_DIR_NAME);
+        BalanaPdp pdp = new BalanaPdp(policyDir);
+        pdp.setPollingInterval(1);
+
+        FileUtils.copyFileToDirectory(new File(
+                        projectHome + File.separator + RELATIVE_POLICIES_DIR + File.separator
+                                + POLICY_FILE), policyDir);
+
+        // the policies are recompiled by the next poll of the directory
+        RequestType xacmlRequestType = createRequest(TEST_USER_1, US_COUNTRY);
+        DecisionType decision = null;
+        for (int i = 0; i < 100 && decision != DecisionType.PERMIT; i++) {
+            Thread.sleep(100);
+            decision = pdp.evaluate(xacmlRequestType).getResult().get(0).getDecision();
+        }
+        assertEquals(DecisionType.PERMIT, decision);
+    }
+
+    static RequestType createRequest(String user, String country) {
+        RequestType xacmlRequestType = new RequestType();
+        xacmlRequestType.setCombinedDecision(false);
+        xacmlRequestType.setReturnPolicyIdList(false);
+
+        AttributesType actionAttributes = new AttributesType();
+        actionAttributes.setCategory(ACTION_CATEGORY);
+        actionAttributes.getAttribute().add(createAttribute(ACTION_ID, QUERY_ACTION));
+
+        AttributesType subjectAttributes = new AttributesType();
+        subjectAttributes.setCategory(SUBJECT_CATEGORY);
+        subjectAttributes.getAttribute().add(createAttribute(SUBJECT_ID, user));
+        subjectAttributes.getAttribute().add(createAttribute(ROLE_CLAIM, ROLE));
+
+        AttributesType categoryAttributes = new AttributesType();
+        categoryAttributes.setCategory(PERMISSIONS_CATEGORY);
+        categoryAttributes.getAttribute().add(createAttribute(CITIZENSHIP_ATTRIBUTE, country));
+
+        xacmlRequestType.getAttributes().add(actionAttributes);
+        xacmlRequestType.getAttributes().add(subjectAttributes);
+        xacmlRequestType.getAttributes().add(categoryAttributes);
+        return xacmlRequestType;
+    }
+
+    private static AttributeType createAttribute(String id, String value) {
+        AttributeType attribute = new AttributeType();
+        attribute.setAttributeId(id);
+        attribute.setIncludeInResult(false);
+        AttributeValueType attributeValue = new AttributeValueType();
+        attributeValue.setDataType(STRING_DATA_TYPE);
+        attributeValue.getContent().add(value);
+        attribute.getAttributeValue().add(attributeValue);
+        return attribute;
+    }
+
     @After
     public void cleanup() throws IOException {
         if (tempDir != null && tempDir.exists()) {
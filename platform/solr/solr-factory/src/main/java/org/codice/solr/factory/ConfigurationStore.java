@@ -35,6 +35,10 @@ public class ConfigurationStore {
 
     private Double nearestNeighborDistanceLimit;
 
+    private long commitWindowMillis;
+
+    private int commitMaxDocuments = 10000;
+
     private ConfigurationStore() {
     }
 
@@ -108,6 +112,39 @@ public void setForceAutoCommit(boolean forceAutoCommit) {
         this.forceAutoCommit = forceAutoCommit;
     }
 
+    /**
+     * @return time in milliseconds that forced commits wait for other requests to share the same
+     * soft commit
+     */
+    public long getCommitWindowMillis() {
+        return commitWindowMillis;
+    }
+
+    /**
+     * @param commitWindowMillis Time in milliseconds that forced commits wait for other requests to
+     *                           share the same soft commit. With 0, requests only share a commit
+     *                           when they arrive while another commit is running.
+     */
+    public void setCommitWindowMillis(long commitWindowMillis) {
+        this.commitWindowMillis = Math.max(0, commitWindowMillis);
+    }
+
+    /**
+     * @return number of documents after which a shared soft commit is sent without waiting for the
+     * end of the commit window, 0 if there is no limit
+     */
+    public int getCommitMaxDocuments() {
+        return commitMaxDocuments;
+    }
+
+    /**
+     * @param commitMaxDocuments Number of documents after which a shared soft commit is sent
+     *                           without waiting for the end of the commit window, 0 for no limit.
+     */
+    public void setCommitMaxDocuments(int commitMaxDocuments) {
+        this.commitMaxDocuments = Math.max(0, commitMaxDocuments);
+    }
+
     public Object clone() throws CloneNotSupportedException {
         throw new CloneNotSupportedException();
     }